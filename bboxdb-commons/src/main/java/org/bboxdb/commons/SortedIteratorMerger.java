@@ -23,6 +23,7 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Objects;
 
 /**
@@ -43,24 +44,40 @@ public class SortedIteratorMerger<E> implements Iterable<E> {
 		@Override
 		public boolean hasNext() {
 			
-			if(! unconsumedDuplicates.isEmpty()) {
-				return true;
+			// The duplicate resolver can remove all elements of a key, 
+			// so read keys until a element is left or all iterators are exhausted
+			while(unconsumedDuplicates.isEmpty()) {
+				
+				// Any new values left?
+				final boolean elementsLeft = iteratorElementMap.values()
+						.stream()
+						.anyMatch(e -> Objects.nonNull(e));
+				
+				if(! elementsLeft) {
+					return false;
+				}
+				
+				readElementsForNextKey();
 			}
 			
-			// Any new values left?
-			return iteratorElementMap.values()
-					.stream()
-					.anyMatch(e -> Objects.nonNull(e));
+			return true;
 		}
 
 		@Override
 		public E next() {
-						
-			// Consume the duplicates first 
-			if(! unconsumedDuplicates.isEmpty()) {
-				return unconsumedDuplicates.remove(0);
+			
+			if(! hasNext()) {
+				throw new NoSuchElementException("All elements are consumed");
 			}
 			
+			return unconsumedDuplicates.remove(0);
+		}
+		
+		/**
+		 * Move all elements of the lowest key into the duplicate list and 
+		 * apply the duplicate resolver
+		 */
+		private void readElementsForNextKey() {
 			final E lowestElement = iteratorElementMap
 					.values()
 					.stream()
@@ -82,10 +99,6 @@ public class SortedIteratorMerger<E> implements Iterable<E> {
 			
 			assert (! unconsumedDuplicates.isEmpty());
 			duplicateResolver.removeDuplicates(unconsumedDuplicates);
-			assert (! unconsumedDuplicates.isEmpty());
-			
-			
-			return unconsumedDuplicates.remove(0);				
 		}
 
 		/**
@@ -40,9 +40,12 @@ public class AcquirableService extends ServiceState implements AcquirableResourc
 			return false;
 		}
 		
-		synchronized (usageCounter) {
-			usageCounter.incrementAndGet();
-			usageCounter.notifyAll();
+		usageCounter.incrementAndGet();
+		
+		// The service could be stopped between the state check and the increment
+		if(! isInRunningState()) {
+			release();
+			return false;
 		}
 		
 		return true;
@@ -50,11 +53,15 @@ public class AcquirableService extends ServiceState implements AcquirableResourc
 
 	@Override
 	public void release() {
-		assert (usageCounter.get() > 0) : "Usage counter is 0";
+		final int usage = usageCounter.decrementAndGet();
 		
-		synchronized (usageCounter) {
-			usageCounter.decrementAndGet();
-			usageCounter.notifyAll();
+		assert (usage >= 0) : "Usage counter is below 0";
+		
+		// Only the waiting shutdown needs to be notified
+		if(usage == 0) {
+			synchronized (usageCounter) {
+				usageCounter.notifyAll();
+			}
 		}
 	}
 	
@@ -73,8 +80,8 @@ public class AcquirableService extends ServiceState implements AcquirableResourc
 	 */
 	public void waitUntilUnused() throws InterruptedException {
 		
-		while(usageCounter.get() > 0) {
-			synchronized (usageCounter) {
+		synchronized (usageCounter) {
+			while(usageCounter.get() > 0) {
 				usageCounter.wait();
 			}
 		}
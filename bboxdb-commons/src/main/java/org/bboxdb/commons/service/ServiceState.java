@@ -47,7 +47,7 @@ public class ServiceState {
 	/**
 	 * The current state
 	 */
-	protected State state;
+	protected volatile State state;
 
 	/**
 	 * The reason for the failed state
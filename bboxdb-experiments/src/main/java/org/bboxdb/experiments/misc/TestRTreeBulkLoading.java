@@ -0,0 +1,180 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2018 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.experiments.misc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.bboxdb.commons.MathUtil;
+import org.bboxdb.commons.math.Hyperrectangle;
+import org.bboxdb.storage.sstable.spatialindex.SpatialIndexEntry;
+import org.bboxdb.storage.sstable.spatialindex.rtree.RTreeBuilder;
+
+import com.google.common.base.Stopwatch;
+
+public class TestRTreeBulkLoading implements Runnable {
+
+	/**
+	 * The amount of range queries
+	 */
+	public final static int QUERIES = 10000;
+	
+	/** 
+	 * The retry counter
+	 */
+	public final static int RETRY = 3;
+	
+	/**
+	 * The node sizes to test
+	 */
+	public final static int[] NODE_SIZES = {8, 16, 32, 64, 128};
+	
+	/**
+	 * The amount of entries
+	 */
+	private final int entries;
+	
+	/**
+	 * The dimensions of the entries
+	 */
+	private final int dimensions;
+	
+	/**
+	 * The random generator
+	 */
+	private final Random random;
+
+	public TestRTreeBulkLoading(final int entries, final int dimensions) {
+		this.entries = entries;
+		this.dimensions = dimensions;
+		this.random = new Random(4711);
+	}
+
+	@Override
+	public void run() {
+		final List<SpatialIndexEntry> indexEntries = generateEntries();
+		final List<Hyperrectangle> queries = generateQueries();
+		
+		System.out.println("#Node size\tInsert build\tInsert query\tSTR build\tSTR query");
+		
+		for(final int nodeSize : NODE_SIZES) {
+			long timeInsertBuild = 0;
+			long timeInsertQuery = 0;
+			long timePackedBuild = 0;
+			long timePackedQuery = 0;
+			
+			for(int i = 0; i < RETRY; i++) {
+				final Stopwatch insertStopwatch = Stopwatch.createStarted();
+				final RTreeBuilder insertTree = new RTreeBuilder(nodeSize);
+				indexEntries.forEach(e -> insertTree.insert(e));
+				timeInsertBuild += insertStopwatch.elapsed(TimeUnit.MILLISECONDS);
+				timeInsertQuery += executeQueries(insertTree, queries);
+				
+				final Stopwatch packedStopwatch = Stopwatch.createStarted();
+				final RTreeBuilder packedTree = new RTreeBuilder(nodeSize);
+				packedTree.bulkInsert(indexEntries);
+				timePackedBuild += packedStopwatch.elapsed(TimeUnit.MILLISECONDS);
+				timePackedQuery += executeQueries(packedTree, queries);
+			}
+			
+			System.out.format("%d\t%d\t%d\t%d\t%d%n", nodeSize, timeInsertBuild / RETRY, 
+					timeInsertQuery / RETRY, timePackedBuild / RETRY, timePackedQuery / RETRY);
+		}
+	}
+
+	/**
+	 * Execute the range queries on the tree
+	 * @param tree
+	 * @param queries
+	 * @return
+	 */
+	protected long executeQueries(final RTreeBuilder tree, final List<Hyperrectangle> queries) {
+		final Stopwatch stopwatch = Stopwatch.createStarted();
+		
+		for(final Hyperrectangle query : queries) {
+			tree.getEntriesForRegion(query);
+		}
+		
+		return stopwatch.elapsed(TimeUnit.MILLISECONDS);
+	}
+	
+	/**
+	 * Generate the index entries
+	 * @return
+	 */
+	protected List<SpatialIndexEntry> generateEntries() {
+		final List<SpatialIndexEntry> result = new ArrayList<>(entries);
+		
+		for(int i = 0; i < entries; i++) {
+			result.add(new SpatialIndexEntry(generateBox(1.0), i));
+		}
+		
+		return result;
+	}
+	
+	/**
+	 * Generate the range queries
+	 * @return
+	 */
+	protected List<Hyperrectangle> generateQueries() {
+		final List<Hyperrectangle> result = new ArrayList<>(QUERIES);
+		
+		for(int i = 0; i < QUERIES; i++) {
+			result.add(generateBox(10.0));
+		}
+		
+		return result;
+	}
+
+	/**
+	 * Generate a random box in the space [0, 1000]^d
+	 * @param maxExtent
+	 * @return
+	 */
+	protected Hyperrectangle generateBox(final double maxExtent) {
+		final double[] values = new double[dimensions * 2];
+		
+		for(int d = 0; d < dimensions; d++) {
+			final double begin = random.nextDouble() * 1000;
+			values[2 * d] = begin;
+			values[2 * d + 1] = begin + (random.nextDouble() * maxExtent);
+		}
+		
+		return new Hyperrectangle(values);
+	}
+	
+	/**
+	 * Main * Main * Main
+	 */
+	public static void main(final String[] args) {
+		// Check parameter
+		if(args.length != 2) {
+			System.err.println("Usage: programm <entries> <dimensions>");
+			System.exit(-1);
+		}
+		
+		final int entries = MathUtil.tryParseIntOrExit(args[0]);
+		final int dimensions = MathUtil.tryParseIntOrExit(args[1]);
+		
+		final TestRTreeBulkLoading testRTreeBulkLoading = new TestRTreeBulkLoading(entries, dimensions);
+		testRTreeBulkLoading.run();
+	}
+
+}
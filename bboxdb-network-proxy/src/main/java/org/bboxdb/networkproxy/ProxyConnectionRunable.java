@@ -18,10 +18,8 @@
 package org.bboxdb.networkproxy;
 
 import java.io.BufferedInputStream;
-import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
 import java.net.Socket;
 import java.util.HashMap;
 import java.util.Map;
@@ -37,6 +35,7 @@ import org.bboxdb.networkproxy.handler.RangeQueryLocalHandler;
 import org.bboxdb.networkproxy.handler.ProxyCommandHandler;
 import org.bboxdb.networkproxy.handler.PutHandler;
 import org.bboxdb.networkproxy.handler.RangeQueryHandler;
+import org.bboxdb.networkproxy.handler.ResultEncodingHandler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -55,7 +54,7 @@ public class ProxyConnectionRunable implements Runnable {
 	/**
 	 * The socket writer
 	 */
-	private final OutputStream socketOutputStream;
+	private final ProxyOutputStream socketOutputStream;
 
 	/**
 	 * The bboxDB client
@@ -77,6 +76,7 @@ public class ProxyConnectionRunable implements Runnable {
 		handler.put(ProxyConst.COMMAND_CLOSE, new CloseHandler());
 		handler.put(ProxyConst.COMMAND_JOIN, new JoinHandler());
 		handler.put(ProxyConst.COMMAND_JOIN_LOCAL, new JoinLocalHandler());
+		handler.put(ProxyConst.COMMAND_RESULT_ENCODING, new ResultEncodingHandler());
 	}
 
 	/**
@@ -88,7 +88,7 @@ public class ProxyConnectionRunable implements Runnable {
 		this.bboxdbClient = bboxdbClient;
 		this.clientSocket = clientSocket;
 		this.socketInputStream = new BufferedInputStream(clientSocket.getInputStream());
-		this.socketOutputStream = new BufferedOutputStream(clientSocket.getOutputStream());
+		this.socketOutputStream = new ProxyOutputStream(clientSocket.getOutputStream());
 	}
 
 	@Override
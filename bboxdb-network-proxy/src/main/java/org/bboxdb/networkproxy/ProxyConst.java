@@ -24,6 +24,11 @@ public class ProxyConst {
 	 */
 	public final static int PROXY_PORT = 10051;
 
+	/**
+	 * The amount of tuples per page that are requested from the cluster
+	 */
+	public final static short TUPLES_PER_PAGE = 200;
+
 	/**
 	 * Result - OK
 	 */
@@ -79,4 +84,29 @@ public class ProxyConst {
 	 */
 	public final static byte COMMAND_CLOSE = 0x08;
 
+	/**
+	 * Command - set the encoding of the results
+	 */
+	public final static byte COMMAND_RESULT_ENCODING = 0x09;
+
+	/**
+	 * Result encoding - length prefixed strings (default)
+	 */
+	public final static byte RESULT_ENCODING_STRING = 0x00;
+
+	/**
+	 * Result encoding - compact binary tuples
+	 */
+	public final static byte RESULT_ENCODING_BINARY = 0x01;
+
+	/**
+	 * The max amount of concurrent client connections
+	 */
+	public final static int MAX_CLIENT_CONNECTIONS = 128;
+
+	/**
+	 * The amount of streamed results after the socket is flushed
+	 */
+	public final static int RESULT_FLUSH_INTERVAL = 50;
+
 }
@@ -19,12 +19,14 @@ package org.bboxdb.networkproxy;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
+import java.util.Iterator;
 
 import org.bboxdb.commons.io.DataEncoderHelper;
+import org.bboxdb.network.client.future.AbstractListFuture;
+import org.bboxdb.network.client.future.AbstractTheadedListFutureIterator;
+import org.bboxdb.network.client.future.JoinedTupleListFuture;
 import org.bboxdb.network.client.future.TupleListFuture;
-import org.bboxdb.networkproxy.misc.TupleStringSerializer;
-import org.bboxdb.storage.entity.Tuple;
+import org.bboxdb.storage.util.CloseableIterator;
 import org.bboxdb.storage.util.TupleHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -62,27 +64,143 @@ public class ProxyHelper {
 	 * @throws InterruptedException
 	 * @throws IOException
 	 */
-	public static void writeTupleResult(final OutputStream socketOutputStream,
+	public static void writeTupleResult(final ProxyOutputStream socketOutputStream,
 			final TupleListFuture tupleResult) throws InterruptedException, IOException {
 
-		tupleResult.waitForCompletion();
+		writeListResult(socketOutputStream, tupleResult, (tuple) -> {
+			if(TupleHelper.isDeletedTuple(tuple)) {
+				return false;
+			}
+
+			socketOutputStream.write(ProxyConst.RESULT_FOLLOW);
+			socketOutputStream.writeTuple(tuple);
+			return true;
+		});
+	}
+
+	/**
+	 * Write a joined tuple result to the client
+	 * @param socketOutputStream
+	 * @param tupleResult
+	 * @throws InterruptedException
+	 * @throws IOException
+	 */
+	public static void writeJoinedTupleResult(final ProxyOutputStream socketOutputStream,
+			final JoinedTupleListFuture tupleResult) throws InterruptedException, IOException {
+
+		writeListResult(socketOutputStream, tupleResult, (tuple) -> {
+			socketOutputStream.write(ProxyConst.RESULT_FOLLOW);
+			socketOutputStream.writeJoinedTuple(tuple);
+			return true;
+		});
+	}
+
+	/**
+	 * Stream the elements of a list future to the client.
+	 *
+	 * The future is done when the first page of every node is received. The
+	 * remaining pages are requested by the iterator in the background, while the
+	 * elements are written to the client. The iterator buffers only a bounded amount of
+	 * elements, so a slow client also slows down the page requests to the cluster.
+	 * The socket is flushed periodically to deliver the first results early.
+	 *
+	 * Every result ends with a terminator. When the iterator fails or ends
+	 * before all elements are delivered, RESULT_FAILED is sent instead of
+	 * RESULT_OK, so the client does not take a truncated result as complete.
+	 *
+	 * @param socketOutputStream
+	 * @param listResult
+	 * @param elementWriter
+	 * @throws InterruptedException
+	 * @throws IOException
+	 */
+	private static <T> void writeListResult(final ProxyOutputStream socketOutputStream,
+			final AbstractListFuture<T> listResult, final ElementWriter<T> elementWriter)
+					throws InterruptedException, IOException {
+
+		listResult.waitForCompletion();
 
-		if(tupleResult.isFailed()) {
-			logger.error("Got error while receiving tupeles: {}", tupleResult.getAllMessages());
+		if(listResult.isFailed()) {
+			logger.error("Got error while receiving tupeles: {}", listResult.getAllMessages());
 			socketOutputStream.write(ProxyConst.RESULT_FAILED);
-		} else {
-			for(final Tuple tuple : tupleResult) {
+			return;
+		}
+
+		final Iterator<T> iterator = listResult.iterator();
+		boolean resultComplete = false;
+
+		try {
+			int unflushedElements = 0;
 
-				if(TupleHelper.isDeletedTuple(tuple)) {
+			while(iterator.hasNext()) {
+				final T element = iterator.next();
+
+				if(! elementWriter.writeElement(element)) {
 					continue;
 				}
 
-				socketOutputStream.write(ProxyConst.RESULT_FOLLOW);
-				TupleStringSerializer.writeTuple(tuple, socketOutputStream);
+				unflushedElements++;
+
+				if(unflushedElements >= ProxyConst.RESULT_FLUSH_INTERVAL) {
+					socketOutputStream.flush();
+					unflushedElements = 0;
+				}
 			}
 
-			socketOutputStream.write(ProxyConst.RESULT_OK);
+			resultComplete = ! isResultIncomplete(iterator);
+		} catch(RuntimeException e) {
+			logger.error("Got exception while streaming the result to the client", e);
+		} finally {
+			closeIterator(iterator);
+		}
+
+		if(! resultComplete) {
+			logger.error("Result is incomplete, sending failed result to the client");
+			socketOutputStream.write(ProxyConst.RESULT_FAILED);
+			return;
 		}
+
+		socketOutputStream.write(ProxyConst.RESULT_OK);
 	}
 
+	/**
+	 * Has the iterator ended before all elements were delivered
+	 * @param iterator
+	 * @return
+	 */
+	private static boolean isResultIncomplete(final Iterator<?> iterator) {
+		if(! (iterator instanceof AbstractTheadedListFutureIterator)) {
+			return false;
+		}
+
+		return ((AbstractTheadedListFutureIterator<?>) iterator).isResultIncomplete();
+	}
+
+	/**
+	 * Close the iterator and stop the background page requests
+	 * @param iterator
+	 */
+	private static void closeIterator(final Iterator<?> iterator) {
+		if(! (iterator instanceof CloseableIterator)) {
+			return;
+		}
+
+		try {
+			((CloseableIterator<?>) iterator).close();
+		} catch (Exception e) {
+			logger.warn("Got exception while closing iterator", e);
+		}
+	}
+
+	@FunctionalInterface
+	private interface ElementWriter<T> {
+
+		/**
+		 * Write the element to the client
+		 * @param element
+		 * @return true if the element was written, false if the element was skipped
+		 * @throws IOException
+		 */
+		public boolean writeElement(final T element) throws IOException;
+	}
 }
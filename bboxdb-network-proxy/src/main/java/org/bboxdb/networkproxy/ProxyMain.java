@@ -23,8 +23,10 @@ import java.net.ServerSocket;
 import java.net.Socket;
 import java.util.Arrays;
 import java.util.List;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 import org.bboxdb.commons.CloseableHelper;
 import org.bboxdb.commons.service.ServiceState;
@@ -60,9 +62,10 @@ public class ProxyMain implements Runnable, Closeable {
 	private ServerSocket serverSocket;
 
 	/**
-	 * The thread pool for handling connections
+	 * The thread pool for handling connections, one thread per connection
+	 * and at most MAX_CLIENT_CONNECTIONS threads
 	 */
-	private final ExecutorService threadPool;
+	private final ThreadPoolExecutor threadPool;
 
 	/**
 	 * Server thread
@@ -82,7 +85,9 @@ public class ProxyMain implements Runnable, Closeable {
 	public ProxyMain(final String contactpoint, final String clustername) {
 		this.contactpoint = contactpoint;
 		this.clustername = clustername;
-		this.threadPool = Executors.newCachedThreadPool();
+		this.threadPool = new ThreadPoolExecutor(ProxyConst.MAX_CLIENT_CONNECTIONS,
+				ProxyConst.MAX_CLIENT_CONNECTIONS, 60, TimeUnit.SECONDS, new SynchronousQueue<>());
+		this.threadPool.allowCoreThreadTimeOut(true);
 		this.port = ProxyConst.PROXY_PORT;
 		this.serviceState = new ServiceState();
 
@@ -130,6 +135,8 @@ public class ProxyMain implements Runnable, Closeable {
 
 		// Connect to the BBoxDB cluster
 		bboxdbClient = new BBoxDBCluster(connectPoints, clustername);
+		bboxdbClient.setPagingEnabled(true);
+		bboxdbClient.setTuplesPerPage(ProxyConst.TUPLES_PER_PAGE);
 		bboxdbClient.connect();
 
 		final Runnable run = () -> {
@@ -171,6 +178,10 @@ public class ProxyMain implements Runnable, Closeable {
 					bboxdbClient, clientSocket);
 
 			threadPool.submit(proxyConnectionRunable);
+		} catch (RejectedExecutionException e) {
+			logger.error("Rejecting connection from {}, too many open connections (max {})",
+					clientSocket.getRemoteSocketAddress(), ProxyConst.MAX_CLIENT_CONNECTIONS);
+			CloseableHelper.closeWithoutException(clientSocket);
 		} catch (IOException e) {
 			logger.error("Got exception while handling connection", e);
 		}
@@ -0,0 +1,82 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2018 the BBoxDB project
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ *******************************************************************************/
+package org.bboxdb.networkproxy;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import org.bboxdb.networkproxy.misc.TupleBinarySerializer;
+import org.bboxdb.networkproxy.misc.TupleStringSerializer;
+import org.bboxdb.storage.entity.JoinedTuple;
+import org.bboxdb.storage.entity.Tuple;
+
+public class ProxyOutputStream extends BufferedOutputStream {
+
+	/**
+	 * The encoding of the results
+	 */
+	private byte resultEncoding;
+
+	public ProxyOutputStream(final OutputStream outputStream) {
+		super(outputStream);
+		this.resultEncoding = ProxyConst.RESULT_ENCODING_STRING;
+	}
+
+	/**
+	 * Write a tuple in the result encoding of the connection
+	 * @param tuple
+	 * @throws IOException
+	 */
+	public void writeTuple(final Tuple tuple) throws IOException {
+		if(resultEncoding == ProxyConst.RESULT_ENCODING_BINARY) {
+			TupleBinarySerializer.writeTuple(tuple, this);
+		} else {
+			TupleStringSerializer.writeTuple(tuple, this);
+		}
+	}
+
+	/**
+	 * Write a joined tuple in the result encoding of the connection
+	 * @param joinedTuple
+	 * @throws IOException
+	 */
+	public void writeJoinedTuple(final JoinedTuple joinedTuple) throws IOException {
+		if(resultEncoding == ProxyConst.RESULT_ENCODING_BINARY) {
+			TupleBinarySerializer.writeJoinedTuple(joinedTuple, this);
+		} else {
+			TupleStringSerializer.writeJoinedTuple(joinedTuple, this);
+		}
+	}
+
+	/**
+	 * Get the result encoding
+	 * @return
+	 */
+	public byte getResultEncoding() {
+		return resultEncoding;
+	}
+
+	/**
+	 * Set the result encoding
+	 * @param resultEncoding
+	 */
+	public void setResultEncoding(final byte resultEncoding) {
+		this.resultEncoding = resultEncoding;
+	}
+}
@@ -31,6 +31,7 @@ import org.bboxdb.commons.CloseableHelper;
 import org.bboxdb.commons.io.DataEncoderHelper;
 import org.bboxdb.commons.math.Hyperrectangle;
 import org.bboxdb.networkproxy.ProxyConst;
+import org.bboxdb.networkproxy.misc.TupleBinarySerializer;
 import org.bboxdb.networkproxy.misc.TupleStringSerializer;
 import org.bboxdb.storage.entity.JoinedTuple;
 import org.bboxdb.storage.entity.Tuple;
@@ -52,12 +53,18 @@ public class NetworkProxyClient implements AutoCloseable {
 	 */
 	private final OutputStream socketOutputStream;
 
+	/**
+	 * The encoding of the results
+	 */
+	private byte resultEncoding;
+
 	public NetworkProxyClient(final String hostname, final int port)
 			throws UnknownHostException, IOException {
 
 		this.clientSocket = new Socket(hostname, port);
 		this.socketInputStream = new BufferedInputStream(clientSocket.getInputStream());
 		this.socketOutputStream = new BufferedOutputStream(clientSocket.getOutputStream());
+		this.resultEncoding = ProxyConst.RESULT_ENCODING_STRING;
 	}
 
 	@Override
@@ -104,6 +111,32 @@ public class NetworkProxyClient implements AutoCloseable {
 		}
 	}
 
+	/**
+	 * Read a tuple in the result encoding of the connection
+	 * @return
+	 * @throws IOException
+	 */
+	private Tuple readTuple() throws IOException {
+		if(resultEncoding == ProxyConst.RESULT_ENCODING_BINARY) {
+			return TupleBinarySerializer.readTuple(socketInputStream);
+		}
+
+		return TupleStringSerializer.readTuple(socketInputStream);
+	}
+
+	/**
+	 * Read a joined tuple in the result encoding of the connection
+	 * @return
+	 * @throws IOException
+	 */
+	private JoinedTuple readJoinedTuple() throws IOException {
+		if(resultEncoding == ProxyConst.RESULT_ENCODING_BINARY) {
+			return TupleBinarySerializer.readJoinedTuple(socketInputStream);
+		}
+
+		return TupleStringSerializer.readJoinedTuple(socketInputStream);
+	}
+
 	/**
 	 * Read a tuple list from Server
 	 * @return
@@ -123,7 +156,7 @@ public class NetworkProxyClient implements AutoCloseable {
 
 				case ProxyConst.RESULT_FOLLOW:
 					continueRead = true;
-					final Tuple tuple = TupleStringSerializer.readTuple(socketInputStream);
+					final Tuple tuple = readTuple();
 					tupleList.add(tuple);
 					break;
 
@@ -159,7 +192,7 @@ public class NetworkProxyClient implements AutoCloseable {
 
 				case ProxyConst.RESULT_FOLLOW:
 					continueRead = true;
-					final JoinedTuple tuple = TupleStringSerializer.readJoinedTuple(socketInputStream);
+					final JoinedTuple tuple = readJoinedTuple();
 					tupleList.add(tuple);
 					break;
 
@@ -290,6 +323,20 @@ public class NetworkProxyClient implements AutoCloseable {
 		checkServerOkResult();
 	}
 
+	/**
+	 * Set the encoding of the results (see ProxyConst.RESULT_ENCODING_*)
+	 * @param resultEncoding
+	 * @throws IOException
+	 */
+	public synchronized void setResultEncoding(final byte resultEncoding) throws IOException {
+		sendToServer(ProxyConst.COMMAND_RESULT_ENCODING);
+		sendToServer(resultEncoding);
+
+		checkServerOkResult();
+
+		this.resultEncoding = resultEncoding;
+	}
+
 	/**
 	 * Disconnect from server
 	 * @return
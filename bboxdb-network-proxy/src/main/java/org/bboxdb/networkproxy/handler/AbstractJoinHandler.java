@@ -19,7 +19,6 @@ package org.bboxdb.networkproxy.handler;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
 import java.util.Arrays;
 
 import org.bboxdb.commons.math.Hyperrectangle;
@@ -28,8 +27,7 @@ import org.bboxdb.network.client.BBoxDBCluster;
 import org.bboxdb.network.client.future.JoinedTupleListFuture;
 import org.bboxdb.networkproxy.ProxyConst;
 import org.bboxdb.networkproxy.ProxyHelper;
-import org.bboxdb.networkproxy.misc.TupleStringSerializer;
-import org.bboxdb.storage.entity.JoinedTuple;
+import org.bboxdb.networkproxy.ProxyOutputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -56,7 +54,7 @@ public abstract class AbstractJoinHandler implements ProxyCommandHandler {
 	
 	@Override
 	public void handleCommand(final BBoxDBCluster bboxdbClient, final InputStream socketInputStream,
-			final OutputStream socketOutputStream) throws IOException {
+			final ProxyOutputStream socketOutputStream) throws IOException {
 
 		final String table1 = ProxyHelper.readStringFromServer(socketInputStream);
 		final String table2 = ProxyHelper.readStringFromServer(socketInputStream);
@@ -69,14 +67,7 @@ public abstract class AbstractJoinHandler implements ProxyCommandHandler {
 		try {
 			final BBoxDB client = getConnection(bboxdbClient);
 			final JoinedTupleListFuture tupleResult = client.queryJoin(Arrays.asList(table1, table2), bbox);
-			tupleResult.waitForCompletion();
-
-			for(final JoinedTuple tuple : tupleResult) {
-				socketOutputStream.write(ProxyConst.RESULT_FOLLOW);
-				TupleStringSerializer.writeJoinedTuple(tuple, socketOutputStream);
-			}
-
-			socketOutputStream.write(ProxyConst.RESULT_OK);
+			ProxyHelper.writeJoinedTupleResult(socketOutputStream, tupleResult);
 		} catch(InterruptedException e) {
 			logger.debug("Got interrupted exception while handling bboxdb call");
 			Thread.currentThread().interrupt();
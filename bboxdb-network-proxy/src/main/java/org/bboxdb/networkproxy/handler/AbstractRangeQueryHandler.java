@@ -19,7 +19,6 @@ package org.bboxdb.networkproxy.handler;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
 
 import org.bboxdb.commons.math.Hyperrectangle;
 import org.bboxdb.network.client.BBoxDB;
@@ -27,6 +26,7 @@ import org.bboxdb.network.client.BBoxDBCluster;
 import org.bboxdb.network.client.future.TupleListFuture;
 import org.bboxdb.networkproxy.ProxyConst;
 import org.bboxdb.networkproxy.ProxyHelper;
+import org.bboxdb.networkproxy.ProxyOutputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -39,7 +39,7 @@ public abstract class AbstractRangeQueryHandler implements ProxyCommandHandler {
 
 	@Override
 	public void handleCommand(final BBoxDBCluster bboxdbClient, final InputStream socketInputStream,
-			final OutputStream socketOutputStream) throws IOException {
+			final ProxyOutputStream socketOutputStream) throws IOException {
 
 		final String table = ProxyHelper.readStringFromServer(socketInputStream);
 		final String boundingBoxString = ProxyHelper.readStringFromServer(socketInputStream);
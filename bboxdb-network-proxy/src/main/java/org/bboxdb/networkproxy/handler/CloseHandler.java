@@ -19,10 +19,10 @@ package org.bboxdb.networkproxy.handler;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
 
 import org.bboxdb.network.client.BBoxDBCluster;
 import org.bboxdb.networkproxy.ProxyConst;
+import org.bboxdb.networkproxy.ProxyOutputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -35,7 +35,7 @@ public class CloseHandler implements ProxyCommandHandler {
 
 	@Override
 	public void handleCommand(final BBoxDBCluster bboxdbClient, final InputStream socketInputStream,
-			final OutputStream socketOutputStream) throws IOException {
+			final ProxyOutputStream socketOutputStream) throws IOException {
 
 		logger.info("Got close call");
 
@@ -19,12 +19,12 @@ package org.bboxdb.networkproxy.handler;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
 
 import org.bboxdb.network.client.BBoxDBCluster;
 import org.bboxdb.network.client.future.EmptyResultFuture;
 import org.bboxdb.networkproxy.ProxyConst;
 import org.bboxdb.networkproxy.ProxyHelper;
+import org.bboxdb.networkproxy.ProxyOutputStream;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -38,7 +38,7 @@ public class DeleteHandler implements ProxyCommandHandler {
 
 	@Override
 	public void handleCommand(final BBoxDBCluster bboxdbClient, final InputStream socketInputStream,
-			final OutputStream socketOutputStream) throws IOException {
+			final ProxyOutputStream socketOutputStream) throws IOException {
 
 		final String table = ProxyHelper.readStringFromServer(socketInputStream);
 		final String key = ProxyHelper.readStringFromServer(socketInputStream);
@@ -19,9 +19,9 @@ package org.bboxdb.networkproxy.handler;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.OutputStream;
 
 import org.bboxdb.network.client.BBoxDBCluster;
+import org.bboxdb.networkproxy.ProxyOutputStream;
 
 public interface ProxyCommandHandler {
 
@@ -32,5 +32,5 @@ public interface ProxyCommandHandler {
 	 * @param socketOutputStream
 	 */
 	public void handleCommand(final BBoxDBCluster bboxdbClient, final InputStream socketInputStream,
-			final OutputStream socketOutputStream) throws IOException;
+			final ProxyOutputStream socketOutputStream) throws IOException;
 }
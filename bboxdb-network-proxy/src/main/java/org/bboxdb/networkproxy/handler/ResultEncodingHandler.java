@@ -0,0 +1,59 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2018 the BBoxDB project
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ *******************************************************************************/
+package org.bboxdb.networkproxy.handler;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.bboxdb.network.client.BBoxDBCluster;
+import org.bboxdb.networkproxy.ProxyConst;
+import org.bboxdb.networkproxy.ProxyOutputStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class ResultEncodingHandler implements ProxyCommandHandler {
+
+	/**
+	 * The Logger
+	 */
+	private final static Logger logger = LoggerFactory.getLogger(ResultEncodingHandler.class);
+
+	@Override
+	public void handleCommand(final BBoxDBCluster bboxdbClient, final InputStream socketInputStream,
+			final ProxyOutputStream socketOutputStream) throws IOException {
+
+		final int resultEncoding = socketInputStream.read();
+
+		if(resultEncoding == -1) {
+			throw new IOException("End of stream while reading the result encoding");
+		}
+
+		logger.info("Got result encoding call for encoding {}", resultEncoding);
+
+		if(resultEncoding != ProxyConst.RESULT_ENCODING_STRING
+				&& resultEncoding != ProxyConst.RESULT_ENCODING_BINARY) {
+
+			logger.error("Got unknown result encoding: {}", resultEncoding);
+			socketOutputStream.write(ProxyConst.RESULT_FAILED);
+			return;
+		}
+
+		socketOutputStream.setResultEncoding((byte) resultEncoding);
+		socketOutputStream.write(ProxyConst.RESULT_OK);
+	}
+}
@@ -0,0 +1,123 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2018 the BBoxDB project
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ *******************************************************************************/
+package org.bboxdb.networkproxy.misc;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.bboxdb.commons.io.DataEncoderHelper;
+import org.bboxdb.storage.entity.JoinedTuple;
+import org.bboxdb.storage.entity.Tuple;
+import org.bboxdb.storage.util.TupleHelper;
+
+import com.google.common.io.ByteStreams;
+
+public class TupleBinarySerializer {
+
+	/**
+	 * Write a tuple to the output stream. The tuple is written in the
+	 * storage format of BBoxDB (see TupleHelper.writeTupleToStream), so
+	 * the bounding box is transferred as doubles and not as a string
+	 *
+	 * @param tuple
+	 * @param outputStream
+	 * @throws IOException
+	 */
+	public static void writeTuple(final Tuple tuple, final OutputStream outputStream) throws IOException {
+		TupleHelper.writeTupleToStream(tuple, outputStream);
+	}
+
+	/**
+	 * Read a tuple from the input stream
+	 * @param inputStream
+	 * @return
+	 * @throws IOException
+	 */
+	public static Tuple readTuple(final InputStream inputStream) throws IOException {
+		return TupleHelper.decodeTuple(inputStream);
+	}
+
+	/**
+	 * Write a joined tuple to the output stream
+	 *
+	 * Format:
+	 * | Entries | Name length | Name | ... | Tuple | ... |
+	 * | 2 Byte  |   2 Byte    | n B. | ... | n B.  | ... |
+	 *
+	 * @param joinedTuple
+	 * @param outputStream
+	 * @throws IOException
+	 */
+	public static void writeJoinedTuple(final JoinedTuple joinedTuple,
+			final OutputStream outputStream) throws IOException {
+
+		final List<String> tupleStoreNames = joinedTuple.getTupleStoreNames();
+		final short numberOfStores = (short) tupleStoreNames.size();
+		outputStream.write(DataEncoderHelper.shortToByteBuffer(numberOfStores).array());
+
+		for(final String tupleStoreName : tupleStoreNames) {
+			final byte[] nameBytes = tupleStoreName.getBytes();
+			outputStream.write(DataEncoderHelper.shortToByteBuffer((short) nameBytes.length).array());
+			outputStream.write(nameBytes);
+		}
+
+		for(final Tuple tuple : joinedTuple.getTuples()) {
+			writeTuple(tuple, outputStream);
+		}
+	}
+
+	/**
+	 * Read a joined tuple from the input stream
+	 * @param inputStream
+	 * @return
+	 * @throws IOException
+	 */
+	public static JoinedTuple readJoinedTuple(final InputStream inputStream) throws IOException {
+		final short numberOfStores = readShort(inputStream);
+
+		final List<String> tupleStoreNames = new ArrayList<>();
+		for(int i = 0; i < numberOfStores; i++) {
+			final short nameLength = readShort(inputStream);
+			final byte[] nameBytes = new byte[nameLength];
+			ByteStreams.readFully(inputStream, nameBytes);
+			tupleStoreNames.add(new String(nameBytes));
+		}
+
+		final List<Tuple> tupleList = new ArrayList<>();
+		for(int i = 0; i < numberOfStores; i++) {
+			tupleList.add(readTuple(inputStream));
+		}
+
+		return new JoinedTuple(tupleList, tupleStoreNames);
+	}
+
+	/**
+	 * Read a short from the input stream
+	 * @param inputStream
+	 * @return
+	 * @throws IOException
+	 */
+	private static short readShort(final InputStream inputStream) throws IOException {
+		final byte[] shortBytes = new byte[DataEncoderHelper.SHORT_BYTES];
+		ByteStreams.readFully(inputStream, shortBytes);
+		return DataEncoderHelper.readShortFromByte(shortBytes);
+	}
+}
@@ -73,6 +73,11 @@ public class ProxyTest {
 	 */
 	private static final String TEST_TABLE_2 = TEST_GROUP + "_testtable2";
 
+	/**
+	 * Test name of the third testtable
+	 */
+	private static final String TEST_TABLE_3 = TEST_GROUP + "_testtable3";
+
 	/**
 	 * Test name of the second testtable
 	 */
@@ -127,6 +132,11 @@ public class ProxyTest {
 		resultCreateTable2.waitForCompletion();
 		Assert.assertFalse(resultCreateTable2.isFailed());
 
+		System.out.println("===> Create new table3");
+		final EmptyResultFuture resultCreateTable4 = bboxDBClient.createTable(TEST_TABLE_3, new TupleStoreConfiguration());
+		resultCreateTable4.waitForCompletion();
+		Assert.assertFalse(resultCreateTable4.isFailed());
+
 		System.out.println("===> Create new unused");
 		final EmptyResultFuture resultCreateTable3 = bboxDBClient.createTable(TEST_TABLE_UNUSED, new TupleStoreConfiguration());
 		resultCreateTable3.waitForCompletion();
@@ -333,4 +343,60 @@ public class ProxyTest {
 		Assert.assertEquals(resultTuple, joinResult2.get(0));
 	}
 
+	@Test(timeout=60_000)
+	public void testRangeQueryBinary() throws UnknownHostException, IOException {
+		networkProxyClient.setResultEncoding(ProxyConst.RESULT_ENCODING_BINARY);
+
+		// More tuples than fit on one page
+		final int numberOfTuples = ProxyConst.TUPLES_PER_PAGE * 2 + 10;
+
+		for(int i = 0; i < numberOfTuples; i++) {
+			final Tuple tuple = new Tuple(Integer.toString(i),
+					new Hyperrectangle((double) i, (double) i + 1, (double) i, (double) i + 1),
+					Integer.toString(i).getBytes());
+
+			networkProxyClient.put(tuple, TEST_TABLE_3);
+		}
+
+		final List<Tuple> result1 = networkProxyClient.rangeQuery(new Hyperrectangle(1.5d, 1.6d, 1.5d, 1.6d), TEST_TABLE_3);
+		Assert.assertEquals(1, result1.size());
+		Assert.assertEquals("1", result1.get(0).getKey());
+		Assert.assertArrayEquals("1".getBytes(), result1.get(0).getDataBytes());
+
+		final List<Tuple> result2 = networkProxyClient.rangeQuery(Hyperrectangle.FULL_SPACE, TEST_TABLE_3);
+		Assert.assertEquals(numberOfTuples, result2.size());
+
+		networkProxyClient.setResultEncoding(ProxyConst.RESULT_ENCODING_STRING);
+
+		final List<Tuple> result3 = networkProxyClient.rangeQuery(Hyperrectangle.FULL_SPACE, TEST_TABLE_3);
+		Assert.assertEquals(numberOfTuples, result3.size());
+	}
+
+	@Test(timeout=60_000)
+	public void testJoinBinary() throws Exception {
+		networkProxyClient.setResultEncoding(ProxyConst.RESULT_ENCODING_BINARY);
+
+		final Tuple tuple1Table1 = new Tuple(KEY1, new Hyperrectangle(1.0d, 2.0d, 1.0d, 2.0d), "".getBytes());
+		final Tuple tuple2Table1 = new Tuple(KEY2, new Hyperrectangle(5.0d, 6.0d, 5.0d, 6.0d), "".getBytes());
+		final Tuple tuple1Table2 = new Tuple(KEY3, new Hyperrectangle(3.0d, 5.5d, 3.0d, 5.5d), "".getBytes());
+
+		networkProxyClient.put(tuple1Table1, TEST_TABLE_1);
+		networkProxyClient.put(tuple2Table1, TEST_TABLE_1);
+		networkProxyClient.put(tuple1Table2, TEST_TABLE_2);
+
+		final List<JoinedTuple> joinResult = networkProxyClient.join(
+				Hyperrectangle.FULL_SPACE, TEST_TABLE_1, TEST_TABLE_2);
+
+		Assert.assertEquals(1, joinResult.size());
+
+		final JoinedTuple resultTuple = joinResult.get(0);
+		Assert.assertEquals(Arrays.asList(TEST_TABLE_1, TEST_TABLE_2), resultTuple.getTupleStoreNames());
+		Assert.assertEquals(KEY2, resultTuple.getTuple(0).getKey());
+		Assert.assertEquals(KEY3, resultTuple.getTuple(1).getKey());
+	}
+
+	@Test(timeout=60_000, expected=IOException.class)
+	public void testUnknownResultEncoding() throws UnknownHostException, IOException {
+		networkProxyClient.setResultEncoding((byte) 42);
+	}
 }
@@ -0,0 +1,136 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2018 the BBoxDB project
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ *******************************************************************************/
+package org.bboxdb.networkproxy.test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import org.bboxdb.commons.math.Hyperrectangle;
+import org.bboxdb.networkproxy.misc.TupleBinarySerializer;
+import org.bboxdb.networkproxy.misc.TupleStringSerializer;
+import org.bboxdb.storage.entity.DeletedTuple;
+import org.bboxdb.storage.entity.JoinedTuple;
+import org.bboxdb.storage.entity.Tuple;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TupleBinarySerializerTest {
+
+	@Test(timeout=60000)
+	public void testTupleStream1() throws IOException {
+		final Tuple tuple = new Tuple("abc", Hyperrectangle.FULL_SPACE, "".getBytes());
+		final Tuple unserializedTuple = serializeAndDeserialize(tuple);
+		Assert.assertEquals(tuple, unserializedTuple);
+	}
+
+	@Test(timeout=60000)
+	public void testTupleStream2() throws IOException {
+		final Tuple tuple = new Tuple("key2", new Hyperrectangle(1.0, 2.0, -1.0, 5.0), "abcdef".getBytes(), 12345);
+		final Tuple unserializedTuple = serializeAndDeserialize(tuple);
+		Assert.assertEquals(tuple, unserializedTuple);
+	}
+
+	@Test(timeout=60000)
+	public void testDeletedTuple() throws IOException {
+		final Tuple tuple = new DeletedTuple("key2", 123456);
+		final Tuple unserializedTuple = serializeAndDeserialize(tuple);
+		Assert.assertEquals(tuple, unserializedTuple);
+	}
+
+	@Test(timeout=60000)
+	public void testMultipleTuples() throws IOException {
+		final Tuple tuple1 = new Tuple("key1", new Hyperrectangle(1.0, 2.0, -1.0, 5.0), "abc".getBytes());
+		final Tuple tuple2 = new Tuple("key2", new Hyperrectangle(3.0, 4.0), "def".getBytes());
+
+		final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		TupleBinarySerializer.writeTuple(tuple1, bos);
+		TupleBinarySerializer.writeTuple(tuple2, bos);
+		bos.close();
+
+		final ByteArrayInputStream bis = new ByteArrayInputStream(bos.toByteArray());
+		Assert.assertEquals(tuple1, TupleBinarySerializer.readTuple(bis));
+		Assert.assertEquals(tuple2, TupleBinarySerializer.readTuple(bis));
+		Assert.assertEquals(-1, bis.read());
+	}
+
+	@Test(timeout=60000, expected=IOException.class)
+	public void testInvalidTuple() throws IOException {
+		final ByteArrayInputStream bis = new ByteArrayInputStream("abc".getBytes());
+		TupleBinarySerializer.readTuple(bis);
+	}
+
+	@Test(timeout=60000)
+	public void testJoinedTuple0() throws IOException {
+		final JoinedTuple joinedTuple = new JoinedTuple(Arrays.asList(), Arrays.asList());
+		final JoinedTuple unserializedTuple = serializeAndDeserialize(joinedTuple);
+		Assert.assertEquals(joinedTuple, unserializedTuple);
+	}
+
+	@Test(timeout=60000)
+	public void testJoinedTuple1() throws IOException {
+		final Tuple tuple1 = new Tuple("abc", Hyperrectangle.FULL_SPACE, "".getBytes());
+		final Tuple tuple2 = new Tuple("abc", new Hyperrectangle(3.0, 4.0), "def".getBytes());
+		final JoinedTuple joinedTuple = new JoinedTuple(Arrays.asList(tuple1, tuple2), Arrays.asList("abc", "def"));
+		final JoinedTuple unserializedTuple = serializeAndDeserialize(joinedTuple);
+		Assert.assertEquals(joinedTuple, unserializedTuple);
+	}
+
+	@Test(timeout=60000)
+	public void testBinaryIsSmaller() throws IOException {
+		final Tuple tuple = new Tuple("key", new Hyperrectangle(1.123456789, 2.123456789,
+				-1.123456789, 5.123456789), "abc".getBytes());
+
+		final ByteArrayOutputStream binaryStream = new ByteArrayOutputStream();
+		TupleBinarySerializer.writeTuple(tuple, binaryStream);
+
+		final ByteArrayOutputStream stringStream = new ByteArrayOutputStream();
+		TupleStringSerializer.writeTuple(tuple, stringStream);
+
+		Assert.assertTrue(binaryStream.size() < stringStream.size());
+	}
+
+	/**
+	 * Write the tuple into a stream and read it back
+	 * @param tuple
+	 * @return
+	 * @throws IOException
+	 */
+	private Tuple serializeAndDeserialize(final Tuple tuple) throws IOException {
+		final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		TupleBinarySerializer.writeTuple(tuple, bos);
+		bos.close();
+		final ByteArrayInputStream bis = new ByteArrayInputStream(bos.toByteArray());
+		return TupleBinarySerializer.readTuple(bis);
+	}
+
+	/**
+	 * Write the joined tuple into a stream and read it back
+	 * @param joinedTuple
+	 * @return
+	 * @throws IOException
+	 */
+	private JoinedTuple serializeAndDeserialize(final JoinedTuple joinedTuple) throws IOException {
+		final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		TupleBinarySerializer.writeJoinedTuple(joinedTuple, bos);
+		bos.close();
+		final ByteArrayInputStream bis = new ByteArrayInputStream(bos.toByteArray());
+		return TupleBinarySerializer.readJoinedTuple(bis);
+	}
+}
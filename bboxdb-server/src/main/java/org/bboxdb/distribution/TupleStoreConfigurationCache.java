@@ -44,6 +44,11 @@ public class TupleStoreConfigurationCache {
 	 */
 	protected final Map<String, DuplicateResolver<Tuple>> cache;
 	
+	/**
+	 * The configurations of the tuple stores
+	 */
+	protected final Map<String, TupleStoreConfiguration> configurationCache;
+	
 	/**
 	 * The Logger
 	 */
@@ -56,6 +61,7 @@ public class TupleStoreConfigurationCache {
 	private TupleStoreConfigurationCache() {
 		// private singleton constructor
 		cache = new HashMap<>();
+		configurationCache = new HashMap<>();
 	}
 	
 	@Override
@@ -74,24 +80,15 @@ public class TupleStoreConfigurationCache {
 	public synchronized DuplicateResolver<Tuple> getDuplicateResolverForTupleStore(final String tupleStorename) {
 		
 		if(!cache.containsKey(tupleStorename)) {
-			try {
-				final TupleStoreAdapter tupleStoreAdapter = ZookeeperClientFactory
-						.getZookeeperClient().getTupleStoreAdapter();
-				
-				final TupleStoreName tupleStoreNameObject = new TupleStoreName(tupleStorename);
-
-				if(! tupleStoreAdapter.isTableKnown(tupleStoreNameObject)) {
-					logger.error("Table {} is not known, using do nothing duplicate resolver", tupleStorename);
-					return new DoNothingDuplicateResolver();
-				}
-				
-				final TupleStoreConfiguration tupleStoreConfiguration = tupleStoreAdapter.readTuplestoreConfiguration(tupleStoreNameObject);
-				final DuplicateResolver<Tuple> resolver = TupleDuplicateResolverFactory.build(tupleStoreConfiguration);
-				cache.put(tupleStorename, resolver);
-			} catch (ZookeeperException e) {
-				logger.error("Exception while reading zookeeper data", e);
+			final TupleStoreConfiguration tupleStoreConfiguration = getTupleStoreConfiguration(tupleStorename);
+			
+			if(tupleStoreConfiguration == null) {
+				logger.error("Table {} is not known, using do nothing duplicate resolver", tupleStorename);
 				return new DoNothingDuplicateResolver();
 			}
+			
+			final DuplicateResolver<Tuple> resolver = TupleDuplicateResolverFactory.build(tupleStoreConfiguration);
+			cache.put(tupleStorename, resolver);
 		}
 		
 		final DuplicateResolver<Tuple> duplicateResolver = cache.get(tupleStorename);
@@ -99,11 +96,60 @@ public class TupleStoreConfigurationCache {
 		return duplicateResolver;
 	}
 	
+	/**
+	 * Is the key directory enabled for the tuple store
+	 * @param tupleStorename
+	 * @return
+	 */
+	public synchronized boolean isKeyDirectoryEnabled(final String tupleStorename) {
+		final TupleStoreConfiguration tupleStoreConfiguration = getTupleStoreConfiguration(tupleStorename);
+		
+		if(tupleStoreConfiguration == null) {
+			return false;
+		}
+		
+		return tupleStoreConfiguration.isKeyDirectory();
+	}
+	
+	/**
+	 * Get the configuration of the tuple store
+	 * @param tupleStorename
+	 * @return the configuration or null, if the tuple store is unknown
+	 */
+	private TupleStoreConfiguration getTupleStoreConfiguration(final String tupleStorename) {
+		
+		if(configurationCache.containsKey(tupleStorename)) {
+			return configurationCache.get(tupleStorename);
+		}
+		
+		try {
+			final TupleStoreAdapter tupleStoreAdapter = ZookeeperClientFactory
+					.getZookeeperClient().getTupleStoreAdapter();
+			
+			final TupleStoreName tupleStoreNameObject = new TupleStoreName(tupleStorename);
+
+			if(! tupleStoreAdapter.isTableKnown(tupleStoreNameObject)) {
+				return null;
+			}
+			
+			final TupleStoreConfiguration tupleStoreConfiguration 
+				= tupleStoreAdapter.readTuplestoreConfiguration(tupleStoreNameObject);
+			
+			configurationCache.put(tupleStorename, tupleStoreConfiguration);
+			
+			return tupleStoreConfiguration;
+		} catch (ZookeeperException e) {
+			logger.error("Exception while reading zookeeper data", e);
+			return null;
+		}
+	}
+	
 	/**
 	 * Clear the cache
 	 */
 	public synchronized void clear() {
 		cache.clear();
+		configurationCache.clear();
 	}
 
 }
@@ -19,6 +19,7 @@ package org.bboxdb.distribution.partitioner.regionsplit;
 
 import java.util.List;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
 
 import org.bboxdb.commons.math.Hyperrectangle;
 import org.bboxdb.distribution.membership.BBoxDBInstance;
@@ -73,16 +74,31 @@ public class RangeQueryExecutor {
 	 * The storage reference
 	 */
 	private final TupleStoreManagerRegistry registry;
+	
+	/**
+	 * The filter for the regions to read
+	 */
+	private final Predicate<DistributionRegion> regionFilter;
 
 	public RangeQueryExecutor(final TupleStoreName tupleStoreName, 
 			final Hyperrectangle range, final Consumer<Tuple> consumer,
 			final TupleStoreManagerRegistry registry,
 			final ExecutionPolicy executionPolicy) {
+		
+		this(tupleStoreName, range, consumer, registry, executionPolicy, (r) -> true);
+	}
+	
+	public RangeQueryExecutor(final TupleStoreName tupleStoreName, 
+			final Hyperrectangle range, final Consumer<Tuple> consumer,
+			final TupleStoreManagerRegistry registry,
+			final ExecutionPolicy executionPolicy, 
+			final Predicate<DistributionRegion> regionFilter) {
 				this.tupleStoreName = tupleStoreName;
 				this.range = range;
 				this.consumer = consumer;
 				this.registry = registry;
 				this.executionPolicy = executionPolicy;
+				this.regionFilter = regionFilter;
 	}
 	
 	/**
@@ -99,7 +115,9 @@ public class RangeQueryExecutor {
 				partitioner.getRootNode(), range, DistributionRegionHelper.PREDICATE_REGIONS_FOR_READ);
 				
 		for(DistributionRegion region : regions) {
-			perfomReadOnRegion(region);
+			if(regionFilter.test(region)) {
+				perfomReadOnRegion(region);
+			}
 		}
 	}
 
@@ -161,6 +161,8 @@ public class RegionMerger {
 			for(final DistributionRegion childRegion : source) {
 				mergeDataFromChildRegion(destination, tupleStoreName, tupleRedistributor, childRegion);					
 			}
+			
+			tupleRedistributor.flush();
 
 			logger.info("Final statistics for merge ({}): {}", 
 					tupleStoreName,tupleRedistributor.getStatistics());
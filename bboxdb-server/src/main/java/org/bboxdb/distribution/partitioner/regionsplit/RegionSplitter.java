@@ -288,6 +288,8 @@ public class RegionSplitter {
 						storage.getInternalName(), i, totalSotrages - 1);
 						spreadStorage(tupleRedistributor, storage);
 			}
+			
+			tupleRedistributor.flush();
 
 			logger.info("Final statistics for spread ({}): {}", 
 					tupleStoreManager.getTupleStoreName().getFullname(),
@@ -52,4 +52,13 @@ public abstract class AbstractTupleSink {
 	 * @throws StorageManagerException
 	 */
 	public abstract void sinkTuple(final Tuple tuple) throws StorageManagerException;
+	
+	/**
+	 * Wait until all sinked tuples are written. Sinks that batch or 
+	 * send the tuples asynchronously have to override this method.
+	 * @throws StorageManagerException
+	 */
+	public void flush() throws StorageManagerException {
+		// Default: tuples are written in sinkTuple
+	}
 }
\ No newline at end of file
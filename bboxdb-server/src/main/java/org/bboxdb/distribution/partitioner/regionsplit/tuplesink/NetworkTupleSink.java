@@ -17,8 +17,14 @@
  *******************************************************************************/
 package org.bboxdb.distribution.partitioner.regionsplit.tuplesink;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
 import org.bboxdb.misc.BBoxDBException;
 import org.bboxdb.network.client.BBoxDBConnection;
+import org.bboxdb.network.client.future.EmptyResultFuture;
 import org.bboxdb.storage.StorageManagerException;
 import org.bboxdb.storage.entity.Tuple;
 import org.bboxdb.storage.entity.TupleStoreName;
@@ -29,20 +35,111 @@ public class NetworkTupleSink extends AbstractTupleSink {
 	 * The connection to spread data too
 	 */
 	private final BBoxDBConnection connection;
+	
+	/**
+	 * The tuples of the current batch
+	 */
+	private List<Tuple> batch;
+	
+	/**
+	 * The size of the current batch in bytes
+	 */
+	private long batchBytes;
+	
+	/**
+	 * The futures of the batches in flight
+	 */
+	private final Deque<EmptyResultFuture> pendingBatches;
+	
+	/**
+	 * The max amount of tuples in one batch
+	 */
+	public final static int MAX_BATCH_TUPLES = 1000;
+	
+	/**
+	 * The max size of one batch in bytes
+	 */
+	public final static long MAX_BATCH_BYTES = 1024 * 1024;
+	
+	/**
+	 * The max amount of batches in flight
+	 */
+	public final static int MAX_PENDING_BATCHES = 8;
 
 	public NetworkTupleSink(final TupleStoreName tablename, final BBoxDBConnection connection) {
 		super(tablename);
 		this.connection = connection;
+		this.batch = new ArrayList<>();
+		this.batchBytes = 0;
+		this.pendingBatches = new ArrayDeque<>();
 	}
 
 	@Override
 	public void sinkTuple(final Tuple tuple) throws StorageManagerException {
 		sinkedTuples++;
 		
+		batch.add(tuple);
+		batchBytes = batchBytes + tuple.getSize();
+		
+		if(batch.size() >= MAX_BATCH_TUPLES || batchBytes >= MAX_BATCH_BYTES) {
+			sendBatch();
+		}
+	}
+	
+	@Override
+	public void flush() throws StorageManagerException {
+		sendBatch();
+		
+		while(! pendingBatches.isEmpty()) {
+			waitForBatch(pendingBatches.removeFirst());
+		}
+	}
+
+	/**
+	 * Send the current batch. The batches are send asynchronously, so the source 
+	 * data can be read while the batch is in flight. When too many batches are
+	 * in flight, this method waits until the oldest batch is complete.
+	 * 
+	 * @throws StorageManagerException
+	 */
+	private void sendBatch() throws StorageManagerException {
+		
+		if(batch.isEmpty()) {
+			return;
+		}
+		
+		while(pendingBatches.size() >= MAX_PENDING_BATCHES) {
+			waitForBatch(pendingBatches.removeFirst());
+		}
+		
 		try {
-			connection.getBboxDBClient().insertTuple(tablename, tuple);
+			final EmptyResultFuture future = connection.getBboxDBClient()
+					.insertTuplesWithoutKeyDirectory(tablename, batch);
+			pendingBatches.addLast(future);
 		} catch (BBoxDBException e) {
 			throw new StorageManagerException(e);
 		}
+		
+		batch = new ArrayList<>();
+		batchBytes = 0;
+	}
+
+	/**
+	 * Wait for the completion of the batch
+	 * @param future
+	 * @throws StorageManagerException
+	 */
+	private void waitForBatch(final EmptyResultFuture future) throws StorageManagerException {
+		try {
+			future.waitForCompletion();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new StorageManagerException(e);
+		}
+		
+		if(future.isFailed()) {
+			throw new StorageManagerException("Unable to send tuples to " 
+					+ connection.getConnectionName() + ": " + future.getAllMessages());
+		}
 	}
 }
@@ -22,6 +22,7 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.TimeUnit;
 
 import org.bboxdb.distribution.membership.BBoxDBInstance;
 import org.bboxdb.distribution.membership.MembershipConnectionService;
@@ -41,6 +42,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Stopwatch;
+
+import io.prometheus.client.Counter;
 
 public class TupleRedistributor {
 	
@@ -58,6 +62,24 @@ public class TupleRedistributor {
 	 * The amount of total redistributed tuples
 	 */
 	private long redistributedTuples;
+	
+	/**
+	 * The stopwatch for the throughput
+	 */
+	private final Stopwatch stopwatch;
+	
+	/**
+	 * Log the progress after this amount of tuples
+	 */
+	private final static long PROGRESS_LOG_INTERVAL = 100000;
+	
+	/**
+	 * The amount of redistributed tuples
+	 */
+	private final static Counter redistributedTuplesTotal = Counter.build()
+			.name("bboxdb_redistributed_tuples_total")
+			.help("Redistributed tuples total")
+			.register();
 
 	/**
 	 * The storage registry
@@ -81,6 +103,7 @@ public class TupleRedistributor {
 		this.tupleStoreName = tupleStoreName;
 		this.regionMap = new HashMap<DistributionRegion, List<AbstractTupleSink>>();
 		this.redistributedTuples = 0;
+		this.stopwatch = Stopwatch.createStarted();
 	}
 
 	/**
@@ -163,7 +186,8 @@ public class TupleRedistributor {
 	}
 	
 	/**
-	 * Redistribute a new tuple
+	 * Redistribute a new tuple, the tuple might be buffered by the sinks 
+	 * until flush() is called
 	 * @param tuple
 	 * @throws Exception 
 	 */
@@ -172,10 +196,11 @@ public class TupleRedistributor {
 		boolean tupleRedistributed = false;
 		
 		redistributedTuples++;
+		redistributedTuplesTotal.inc();
 		
-		for(final DistributionRegion region : regionMap.keySet()) {
-			if(belongsTupleToRegion(tuple, region)) {
-				for(final AbstractTupleSink tupleSink : regionMap.get(region)) {
+		for(final Map.Entry<DistributionRegion, List<AbstractTupleSink>> entry : regionMap.entrySet()) {
+			if(belongsTupleToRegion(tuple, entry.getKey())) {
+				for(final AbstractTupleSink tupleSink : entry.getValue()) {
 					tupleSink.sinkTuple(tuple);
 					tupleRedistributed = true;
 				}
@@ -185,6 +210,32 @@ public class TupleRedistributor {
 		if(tupleRedistributed == false) {
 			throw new StorageManagerException("Tuple " + tuple + " was not redistributed");
 		}
+		
+		if(redistributedTuples % PROGRESS_LOG_INTERVAL == 0) {
+			logger.info("Redistributed {} tuples of {} ({} tuples/s)", redistributedTuples, 
+					tupleStoreName.getFullname(), getTuplesPerSecond());
+		}
+	}
+	
+	/**
+	 * Wait until all tuples are written by the sinks
+	 * @throws StorageManagerException
+	 */
+	public void flush() throws StorageManagerException {
+		for(final List<AbstractTupleSink> sinks : regionMap.values()) {
+			for(final AbstractTupleSink tupleSink : sinks) {
+				tupleSink.flush();
+			}
+		}
+	}
+	
+	/**
+	 * Get the redistribution throughput
+	 * @return
+	 */
+	public long getTuplesPerSecond() {
+		final long elapsedMs = Math.max(1, stopwatch.elapsed(TimeUnit.MILLISECONDS));
+		return redistributedTuples * 1000 / elapsedMs;
 	}
 
 	/**
@@ -234,6 +285,7 @@ public class TupleRedistributor {
 		final float percent = ((float) totalRedistributedTuples / (float) redistributedTuples * 100);
 		sb.append(" Total redistributed tuples: " + totalRedistributedTuples);
 		sb.append(String.format(" (%.2f %%)", percent));
+		sb.append(", " + getTuplesPerSecond() + " tuples/s");
 
 		return sb.toString();
 	}
@@ -157,6 +157,45 @@ public class DistributionRegion {
 		return result;
 	}
 
+	/**
+	 * Get this and all children that intersect the bounding box and match the predicate. 
+	 * The children split the space of the region, so the subtrees of regions that 
+	 * don't intersect the bounding box are skipped.
+	 * 
+	 * @param boundingBox
+	 * @param predicate
+	 * @return
+	 */
+	public List<DistributionRegion> getThisAndChildRegions(final Hyperrectangle boundingBox, 
+			final Predicate<DistributionRegion> predicate) {
+		
+		final List<DistributionRegion> result = new ArrayList<>();
+		addThisAndChildRegions(boundingBox, predicate, result);
+		return result;
+	}
+	
+	/**
+	 * Add this and all children that intersect the bounding box and match the predicate
+	 * @param boundingBox
+	 * @param predicate
+	 * @param result
+	 */
+	private void addThisAndChildRegions(final Hyperrectangle boundingBox, 
+			final Predicate<DistributionRegion> predicate, final List<DistributionRegion> result) {
+		
+		if(! converingBox.intersects(boundingBox)) {
+			return;
+		}
+		
+		if(predicate.test(this)) {
+			result.add(this);
+		}
+		
+		for(final DistributionRegion child : children.values()) {
+			child.addThisAndChildRegions(boundingBox, predicate, result);
+		}
+	}
+
 	/**
 	 * Set the children to state active
 	 */
@@ -25,12 +25,14 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 import org.bboxdb.commons.Retryer;
+import org.bboxdb.commons.math.DoubleInterval;
 import org.bboxdb.commons.math.Hyperrectangle;
 import org.bboxdb.distribution.OutdatedDistributionRegion;
 import org.bboxdb.distribution.membership.BBoxDBInstance;
@@ -230,5 +232,164 @@ public class DistributionRegionHelper {
 		return null;
 	}
 
+	/**
+	 * Contains the list regions that are nested (e.g., a region and its children 
+	 * during a split)? Tuples of nested regions are stored in both regions.
+	 * 
+	 * @param regions
+	 * @return
+	 */
+	public static boolean containsNestedRegions(final List<DistributionRegion> regions) {
+		final Set<Long> regionIds = regions.stream()
+				.map(r -> r.getRegionId())
+				.collect(Collectors.toSet());
+		
+		for(final DistributionRegion region : regions) {
+			DistributionRegion parent = region.getParent();
+			
+			while(parent != DistributionRegion.ROOT_NODE_ROOT_POINTER) {
+				if(regionIds.contains(parent.getRegionId())) {
+					return true;
+				}
+				
+				parent = parent.getParent();
+			}
+		}
+		
+		return false;
+	}
 
-}
\ No newline at end of file
+	/**
+	 * Is the reference point of the entity located in the given region? The reference 
+	 * point is the lower corner of the intersection of the entity box, the query box and 
+	 * the space of the distribution group. An entity that is stored in multiple regions 
+	 * has exactly one reference point, so only one region needs to return the entity.
+	 * 
+	 * In doubt (e.g., unknown spaces or open intervals), true is returned. Such entities
+	 * can be returned by multiple regions, so clients have to remove the duplicates of 
+	 * entities that are not covered by a single region (see getCoveringLeafRegion).
+	 * 
+	 * @param entityBox
+	 * @param queryBox
+	 * @param rootSpace
+	 * @param regionSpace
+	 * @return
+	 */
+	public static boolean isReferencePointInRegion(final Hyperrectangle entityBox, 
+			final Hyperrectangle queryBox, final Hyperrectangle rootSpace, 
+			final Hyperrectangle regionSpace) {
+		
+		if(regionSpace == null || regionSpace.getDimension() == 0) {
+			return true;
+		}
+		
+		final int dimension = regionSpace.getDimension();
+		final List<Hyperrectangle> boxes = new ArrayList<>();
+		
+		for(final Hyperrectangle box : Arrays.asList(entityBox, queryBox, rootSpace)) {
+			
+			// A box without dimensions covers the whole space
+			if(box == null || box.getDimension() == 0) {
+				continue;
+			}
+			
+			if(box.getDimension() != dimension) {
+				return true;
+			}
+			
+			boxes.add(box);
+		}
+		
+		for(int d = 0; d < dimension; d++) {
+			double point = DoubleInterval.MIN_VALUE;
+			boolean pointIncluded = true;
+			
+			for(final Hyperrectangle box : boxes) {
+				final double low = box.getCoordinateLow(d);
+				
+				if(low > point) {
+					point = low;
+					pointIncluded = box.isLowPointIncluded(d);
+				} else if(low == point && ! box.isLowPointIncluded(d)) {
+					pointIncluded = false;
+				}
+			}
+			
+			if(! pointIncluded) {
+				return true;
+			}
+			
+			// Empty intersection 
+			for(final Hyperrectangle box : boxes) {
+				if(! box.getIntervalForDimension(d).isPointIncluded(point)) {
+					return true;
+				}
+			}
+			
+			if(! regionSpace.getIntervalForDimension(d).isPointIncluded(point)) {
+				return false;
+			}
+		}
+		
+		return true;
+	}
+
+	/**
+	 * Get the leaf region that covers the whole entity box. An entity that is covered 
+	 * by a leaf region is stored only in this region.
+	 * 
+	 * @param rootRegion
+	 * @param entityBox
+	 * @return the leaf region or null, if the box is not covered by a single leaf region
+	 */
+	public static DistributionRegion getCoveringLeafRegion(final DistributionRegion rootRegion, 
+			final Hyperrectangle entityBox) {
+		
+		// A box without dimensions covers the whole space
+		if(rootRegion == null || entityBox == null || entityBox.getDimension() == 0) {
+			return null;
+		}
+		
+		DistributionRegion region = rootRegion;
+		
+		while(region != null) {
+			if(! isRegionCoveringBox(region, entityBox)) {
+				return null;
+			}
+			
+			if(region.isLeafRegion()) {
+				return region;
+			}
+			
+			region = region.getDirectChildren().stream()
+				.filter(r -> isRegionCoveringBox(r, entityBox))
+				.findFirst()
+				.orElse(null);
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * Is the given box covered by the space of the region
+	 * @param region
+	 * @param box
+	 * @return
+	 */
+	private static boolean isRegionCoveringBox(final DistributionRegion region, 
+			final Hyperrectangle box) {
+		
+		final Hyperrectangle regionSpace = region.getConveringBox();
+		
+		// A space without dimensions covers the whole space
+		if(regionSpace.getDimension() == 0) {
+			return true;
+		}
+		
+		if(regionSpace.getDimension() != box.getDimension()) {
+			return false;
+		}
+		
+		return regionSpace.isCovering(box);
+	}
+}
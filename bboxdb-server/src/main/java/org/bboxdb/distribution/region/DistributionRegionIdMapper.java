@@ -17,7 +17,9 @@
  *******************************************************************************/
 package org.bboxdb.distribution.region;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -31,6 +33,8 @@ import java.util.stream.Collectors;
 import org.bboxdb.commons.math.Hyperrectangle;
 import org.bboxdb.misc.Const;
 import org.bboxdb.storage.entity.TupleStoreName;
+import org.bboxdb.storage.sstable.spatialindex.SpatialIndexEntry;
+import org.bboxdb.storage.sstable.spatialindex.rtree.RTreeBuilder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -38,11 +42,104 @@ import com.google.common.base.Stopwatch;
 
 public class DistributionRegionIdMapper {
 
+	/**
+	 * A immutable spatial index over the regions
+	 */
+	private final static class RegionIndex {
+		
+		/**
+		 * The R-tree, the values of the entries are positions in the region id array
+		 */
+		private final RTreeBuilder rTree;
+		
+		/**
+		 * The region ids of the entries
+		 */
+		private final long[] regionIds;
+		
+		/**
+		 * The regions that can not be stored in the R-tree (e.g., the full space)
+		 */
+		private final Set<Long> unindexedRegionIds;
+		
+		/**
+		 * All region ids of the index
+		 */
+		private final Set<Long> allRegionIds;
+		
+		public RegionIndex(final Map<Long, Hyperrectangle> regions) {
+			this.rTree = new RTreeBuilder();
+			this.regionIds = new long[regions.size()];
+			this.unindexedRegionIds = new HashSet<>();
+			this.allRegionIds = new HashSet<>(regions.keySet());
+			
+			final List<SpatialIndexEntry> entries = new ArrayList<>(regions.size());
+			
+			for(final Map.Entry<Long, Hyperrectangle> region : regions.entrySet()) {
+				final Hyperrectangle box = region.getValue();
+				
+				if(Hyperrectangle.FULL_SPACE.equals(box)) {
+					unindexedRegionIds.add(region.getKey());
+					continue;
+				}
+				
+				regionIds[entries.size()] = region.getKey();
+				entries.add(new SpatialIndexEntry(box, entries.size()));
+			}
+			
+			if(! entries.isEmpty()) {
+				rTree.bulkInsert(entries);
+			}
+		}
+		
+		/**
+		 * Get all region ids of the index
+		 * @return
+		 */
+		public Set<Long> getAllRegionIds() {
+			return new HashSet<>(allRegionIds);
+		}
+		
+		/**
+		 * Get the region ids that are overlapped by the bounding box
+		 * @param region
+		 * @return
+		 */
+		public Set<Long> getRegionIdsForRegion(final Hyperrectangle region) {
+			if(region == null) {
+				return new HashSet<>();
+			}
+			
+			// The full space overlaps all regions
+			if(Hyperrectangle.FULL_SPACE.equals(region)) {
+				return getAllRegionIds();
+			}
+			
+			final Set<Long> result = new HashSet<>(unindexedRegionIds);
+			
+			if(allRegionIds.size() == unindexedRegionIds.size()) {
+				return result;
+			}
+			
+			for(final SpatialIndexEntry entry : rTree.getEntriesForRegion(region)) {
+				result.add(regionIds[entry.getValue()]);
+			}
+			
+			return result;
+		}
+	}
+	
 	/**
 	 * The mappings
 	 */
 	private final Map<Long, Hyperrectangle> regions;
 	
+	/**
+	 * The spatial index over the regions. The index is rebuilt when the 
+	 * mappings change, lookups use the current index without locking.
+	 */
+	private volatile RegionIndex regionIndex;
+	
 	/**
 	 * The distribution group name
 	 */
@@ -62,17 +159,23 @@ public class DistributionRegionIdMapper {
 		this.distributionGroup = distributionGroup;
 		this.regions = new ConcurrentHashMap<>();
 		this.MUTEX = new Object();
+		this.regionIndex = new RegionIndex(new HashMap<>());
 	}
 	
 	/**
 	 * Search the region ids that are overlapped by the bounding box
 	 */
 	public Set<Long> getRegionIdsForRegion(final Hyperrectangle region) {
-		return regions.entrySet()
-			.stream()
-			.filter(e -> e.getValue().intersects(region))
-			.map(e -> e.getKey())
-			.collect(Collectors.toSet());
+		return regionIndex.getRegionIdsForRegion(region);
+	}
+	
+	/**
+	 * Rebuild the spatial index after the mappings are changed
+	 */
+	private void rebuildRegionIndex() {
+		synchronized (regions) {
+			regionIndex = new RegionIndex(new HashMap<>(regions));
+		}
 	}
 	
 	/**
@@ -80,7 +183,7 @@ public class DistributionRegionIdMapper {
 	 * @return
 	 */
 	public Set<Long> getAllRegionIds() {
-		return new HashSet<>(regions.keySet());
+		return regionIndex.getAllRegionIds();
 	}
 	
 	/**
@@ -172,6 +275,7 @@ public class DistributionRegionIdMapper {
 		logger.info("Add local mapping for: {} / {}", regionId, distributionGroup);
 		
 		regions.put(regionId, boundingBox);
+		rebuildRegionIndex();
 			
 		synchronized (MUTEX) {
 			MUTEX.notifyAll();
@@ -188,6 +292,7 @@ public class DistributionRegionIdMapper {
 		
 		final boolean removed = regions.containsKey(regionId);
 		regions.remove(regionId);
+		rebuildRegionIndex();
 		
 		if(removed) {
 			logger.info("Mapping for region id {} / {} removed", regionId, distributionGroup);
@@ -207,6 +312,7 @@ public class DistributionRegionIdMapper {
 		logger.info("Clear all local mappings in {}", distributionGroup);
 		
 		regions.clear();
+		rebuildRegionIndex();
 		
 		synchronized (MUTEX) {
 			MUTEX.notifyAll();
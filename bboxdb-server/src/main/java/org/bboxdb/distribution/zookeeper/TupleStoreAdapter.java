@@ -23,6 +23,8 @@ import java.util.List;
 import org.apache.zookeeper.Watcher;
 import org.bboxdb.storage.entity.TupleStoreConfiguration;
 import org.bboxdb.storage.entity.TupleStoreName;
+import org.bboxdb.storage.sstable.SSTableCompression;
+import org.bboxdb.storage.wal.WriteAheadLogSyncPolicy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -52,6 +54,21 @@ public class TupleStoreAdapter {
 	 * The duplicate ttl
 	 */
 	public static final String ZOOKEEPER_DUPLICATES_TTL = "duplicate_ttl";
+	
+	/**
+	 * The write ahead log sync policy
+	 */
+	public static final String ZOOKEEPER_WAL_SYNC_POLICY = "wal_sync_policy";
+	
+	/**
+	 * The compression of the SSTables
+	 */
+	public static final String ZOOKEEPER_SSTABLE_COMPRESSION = "sstable_compression";
+	
+	/**
+	 * The name of the key directory node
+	 */
+	public static final String ZOOKEEPER_KEY_DIRECTORY = "key_directory";
 
 	/**
 	 * The zookeeper client
@@ -108,6 +125,18 @@ public class TupleStoreAdapter {
 		zookeeperClient.createPersistentNode(getDuplicateVersionsPath(tupleStoreName), 
 				versionsString.getBytes());
 		
+		final WriteAheadLogSyncPolicy walSyncPolicy = tupleStoreConfiguration.getWalSyncPolicy();
+		zookeeperClient.createPersistentNode(getWalSyncPolicyPath(tupleStoreName), 
+				walSyncPolicy.name().getBytes());
+		
+		final SSTableCompression sstableCompression = tupleStoreConfiguration.getSstableCompression();
+		zookeeperClient.createPersistentNode(getSSTableCompressionPath(tupleStoreName), 
+				sstableCompression.name().getBytes());
+		
+		final boolean keyDirectory = tupleStoreConfiguration.isKeyDirectory();
+		zookeeperClient.createPersistentNode(getKeyDirectoryPath(tupleStoreName), 
+				Boolean.toString(keyDirectory).getBytes());
+		
 		NodeMutationHelper.markNodeMutationAsComplete(zookeeperClient, tablePath);
 		
 		final String allTablesPath = getAllTablesPath(tupleStoreName.getDistributionGroup());
@@ -220,6 +249,37 @@ public class TupleStoreAdapter {
 			throw new ZookeeperException(e);
 		}
 		
+		// Tables created by older versions have no WAL sync policy node
+		try {
+			final String walSyncPolicy = 
+					zookeeperClient.readPathAndReturnString(getWalSyncPolicyPath(tupleStoreName));
+			tupleStoreConfiguration.setWalSyncPolicy(WriteAheadLogSyncPolicy.valueOf(walSyncPolicy));
+		} catch (ZookeeperNotFoundException e) {
+			tupleStoreConfiguration.setWalSyncPolicy(WriteAheadLogSyncPolicy.NONE);
+		} catch (IllegalArgumentException e) {
+			throw new ZookeeperException(e);
+		}
+		
+		// Tables created by older versions have no SSTable compression node
+		try {
+			final String sstableCompression = 
+					zookeeperClient.readPathAndReturnString(getSSTableCompressionPath(tupleStoreName));
+			tupleStoreConfiguration.setSstableCompression(SSTableCompression.valueOf(sstableCompression));
+		} catch (ZookeeperNotFoundException e) {
+			tupleStoreConfiguration.setSstableCompression(SSTableCompression.NONE);
+		} catch (IllegalArgumentException e) {
+			throw new ZookeeperException(e);
+		}
+		
+		// Tables created by older versions have no key directory node
+		try {
+			final String keyDirectory = 
+					zookeeperClient.readPathAndReturnString(getKeyDirectoryPath(tupleStoreName));
+			tupleStoreConfiguration.setKeyDirectory(Boolean.parseBoolean(keyDirectory));
+		} catch (ZookeeperNotFoundException e) {
+			tupleStoreConfiguration.setKeyDirectory(false);
+		}
+		
 		return tupleStoreConfiguration;
 	}
 	
@@ -246,6 +306,36 @@ public class TupleStoreAdapter {
 		NodeMutationHelper.markNodeMutationAsComplete(zookeeperClient, allTablesPath);
 	}
 
+	/**
+	 * The key directory path
+	 * @param tupleStoreName
+	 * @return
+	 */
+	private String getKeyDirectoryPath(final TupleStoreName tupleStoreName) {
+		final String tablePath = getTablePath(tupleStoreName);
+		return tablePath + "/" + ZOOKEEPER_KEY_DIRECTORY;
+	}
+
+	/**
+	 * The write ahead log sync policy path
+	 * @param tupleStoreName
+	 * @return
+	 */
+	private String getWalSyncPolicyPath(final TupleStoreName tupleStoreName) {
+		final String tablePath = getTablePath(tupleStoreName);
+		return tablePath + "/" + ZOOKEEPER_WAL_SYNC_POLICY;
+	}
+
+	/**
+	 * The SSTable compression path
+	 * @param tupleStoreName
+	 * @return
+	 */
+	private String getSSTableCompressionPath(final TupleStoreName tupleStoreName) {
+		final String tablePath = getTablePath(tupleStoreName);
+		return tablePath + "/" + ZOOKEEPER_SSTABLE_COMPRESSION;
+	}
+
 	/**
 	 * The duplicate versions path
 	 * @param tupleStoreName
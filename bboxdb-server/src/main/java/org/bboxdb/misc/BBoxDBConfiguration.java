@@ -68,15 +68,25 @@ public class BBoxDBConfiguration {
 	 */
 	private boolean storageWriteAheadLog = false;
 	
+	/**
+	 * The write ahead log sync interval in milliseconds (used by the INTERVAL sync policy)
+	 */
+	private long storageWriteAheadLogSyncInterval = 1000;
+	
 	/**
 	 * The port for client requests
 	 */
 	private int networkListenPort = 50505;
 
 	/**
-	 *  The amount of threads to handle client connections
+	 *  The maximal amount of worker threads that handle client requests
 	 */
-	private int networkConnectionThreads = 25;
+	private int networkConnectionThreads = 100;
+	
+	/**
+	 * The amount of threads that read from the client connections
+	 */
+	private int networkSelectorThreads = 2;
 	
 	/**
 	 * The name of the cluster
@@ -98,6 +108,32 @@ public class BBoxDBConfiguration {
 	 */
 	private int sstableKeyCacheEntries = 1000;
 	
+	/**
+	 * The number of decompressed blocks in the block cache per SSTable
+	 */
+	private int sstableBlockCacheEntries = 64;
+	
+	/**
+	 * The max amount of tuple stores that are read in parallel by one query
+	 */
+	private int storageQueryParallelism = 4;
+	
+	/**
+	 * The number of compact threads per storage
+	 */
+	private int storageCompactThreads = 2;
+	
+	/**
+	 * The max amount of bytes per second that are read and written by the 
+	 * compactions of a storage (0 = unlimited)
+	 */
+	private long storageCompactBytesPerSecond = 0;
+	
+	/**
+	 * The max size in bytes of all join table caches of the continuous queries
+	 */
+	private long continuousJoinCacheSizeMax = 256 * 1024 * 1024;
+	
 	/**
 	 * The port where the performance counter will be exposed
 	 */
@@ -148,6 +184,14 @@ public class BBoxDBConfiguration {
 		this.networkConnectionThreads = networkConnectionThreads;
 	}
 
+	public int getNetworkSelectorThreads() {
+		return networkSelectorThreads;
+	}
+
+	public void setNetworkSelectorThreads(final int networkSelectorThreads) {
+		this.networkSelectorThreads = networkSelectorThreads;
+	}
+
 	public String getClustername() {
 		return clustername;
 	}
@@ -220,6 +264,46 @@ public class BBoxDBConfiguration {
 		this.sstableKeyCacheEntries = sstableKeyCacheEntries;
 	}
 
+	public int getSstableBlockCacheEntries() {
+		return sstableBlockCacheEntries;
+	}
+
+	public void setSstableBlockCacheEntries(final int sstableBlockCacheEntries) {
+		this.sstableBlockCacheEntries = sstableBlockCacheEntries;
+	}
+
+	public int getStorageQueryParallelism() {
+		return storageQueryParallelism;
+	}
+
+	public void setStorageQueryParallelism(final int storageQueryParallelism) {
+		this.storageQueryParallelism = storageQueryParallelism;
+	}
+
+	public int getStorageCompactThreads() {
+		return storageCompactThreads;
+	}
+
+	public void setStorageCompactThreads(final int storageCompactThreads) {
+		this.storageCompactThreads = storageCompactThreads;
+	}
+
+	public long getStorageCompactBytesPerSecond() {
+		return storageCompactBytesPerSecond;
+	}
+
+	public void setStorageCompactBytesPerSecond(final long storageCompactBytesPerSecond) {
+		this.storageCompactBytesPerSecond = storageCompactBytesPerSecond;
+	}
+
+	public long getContinuousJoinCacheSizeMax() {
+		return continuousJoinCacheSizeMax;
+	}
+
+	public void setContinuousJoinCacheSizeMax(final long continuousJoinCacheSizeMax) {
+		this.continuousJoinCacheSizeMax = continuousJoinCacheSizeMax;
+	}
+
 	public int getPerformanceCounterPort() {
 		return performanceCounterPort;
 	}
@@ -235,5 +319,13 @@ public class BBoxDBConfiguration {
 	public void setStorageWriteAheadLog(final boolean storageWriteAheadLog) {
 		this.storageWriteAheadLog = storageWriteAheadLog;
 	}
+
+	public long getStorageWriteAheadLogSyncInterval() {
+		return storageWriteAheadLogSyncInterval;
+	}
+
+	public void setStorageWriteAheadLogSyncInterval(final long storageWriteAheadLogSyncInterval) {
+		this.storageWriteAheadLogSyncInterval = storageWriteAheadLogSyncInterval;
+	}
 	
 }
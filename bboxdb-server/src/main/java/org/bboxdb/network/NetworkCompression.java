@@ -0,0 +1,355 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2018 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.network;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.bboxdb.network.capabilities.PeerCapabilities;
+import org.bboxdb.network.packages.PackageEncodeException;
+import org.iq80.snappy.CorruptionException;
+import org.iq80.snappy.Snappy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.util.Native;
+
+public enum NetworkCompression {
+	
+	/**
+	 * The packages are compressed with gzip
+	 */
+	GZIP(NetworkConst.COMPRESSION_TYPE_GZIP),
+	
+	/**
+	 * The packages are compressed with snappy
+	 */
+	SNAPPY(NetworkConst.COMPRESSION_TYPE_SNAPPY),
+	
+	/**
+	 * The packages are compressed with zstd
+	 */
+	ZSTD(NetworkConst.COMPRESSION_TYPE_ZSTD),
+	
+	/**
+	 * The packages are not compressed
+	 */
+	NONE(NetworkConst.COMPRESSION_TYPE_NONE);
+	
+	/**
+	 * The id of the codec in the compression envelope
+	 */
+	private final byte id;
+	
+	/**
+	 * The pooled output buffer of the snappy and zstd compressor
+	 */
+	private final static ThreadLocal<byte[]> COMPRESSION_BUFFER = ThreadLocal.withInitial(() -> new byte[0]);
+	
+	/**
+	 * Output buffers up to this size are kept for the next compression
+	 */
+	private final static int MAX_POOLED_BUFFER_SIZE = 4 * 1024 * 1024;
+	
+	/**
+	 * The zstd level, the fastest level is used for the network
+	 */
+	private final static int ZSTD_LEVEL = 1;
+	
+	/**
+	 * The Logger
+	 */
+	private final static Logger logger = LoggerFactory.getLogger(NetworkCompression.class);
+	
+	/**
+	 * Is the native zstd library available on this platform
+	 */
+	private final static boolean ZSTD_AVAILABLE = loadZstd();
+
+	private NetworkCompression(final byte id) {
+		this.id = id;
+	}
+	
+	/**
+	 * Get the id of the codec
+	 * @return
+	 */
+	public byte getId() {
+		return id;
+	}
+	
+	/**
+	 * Get the codec for the given id
+	 * @param id
+	 * @return the codec or null
+	 */
+	public static NetworkCompression fromId(final byte id) {
+		for(final NetworkCompression compression : values()) {
+			if(compression.id == id) {
+				return compression;
+			}
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * Load the native zstd library
+	 * @return
+	 */
+	private static boolean loadZstd() {
+		try {
+			Native.load();
+			return true;
+		} catch(Throwable e) {
+			logger.warn("Unable to load the zstd library, zstd compression is disabled", e);
+			return false;
+		}
+	}
+	
+	/**
+	 * Is the zstd codec available
+	 * @return
+	 */
+	public static boolean isZstdAvailable() {
+		return ZSTD_AVAILABLE;
+	}
+	
+	/**
+	 * Get the preferred codec that is supported by the peer. The capabilities 
+	 * of a peer that has not negotiated them (older versions echo the 
+	 * capabilities of the client) are only trusted for gzip.
+	 * 
+	 * @param peerCapabilities
+	 * @return the codec or null if the peer supports no compression
+	 */
+	public static NetworkCompression getCompressionForPeer(final PeerCapabilities peerCapabilities) {
+		if(peerCapabilities.isNegotiated()) {
+			if(peerCapabilities.hasZstdCompression() && ZSTD_AVAILABLE) {
+				return ZSTD;
+			}
+			
+			if(peerCapabilities.hasSnappyCompression()) {
+				return SNAPPY;
+			}
+		}
+		
+		if(peerCapabilities.hasGZipCompression()) {
+			return GZIP;
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * Can small or incompressible batches be sent uncompressed? Peers that 
+	 * support only gzip don't know uncompressed envelopes.
+	 * 
+	 * @return
+	 */
+	public boolean isAdaptive() {
+		return this != GZIP;
+	}
+	
+	/**
+	 * Compress the given bytes. The result of snappy and zstd is written into a 
+	 * buffer of the calling thread that is reused by the next compression.
+	 * 
+	 * @param bytes
+	 * @param length
+	 * @return the compressed data, the length of the data is returned by 
+	 *         getCompressedLength()
+	 * @throws IOException
+	 */
+	public CompressedBytes compress(final byte[] bytes, final int length) throws IOException {
+		
+		switch(this) {
+			case SNAPPY:
+				final byte[] buffer = getCompressionBuffer(Snappy.maxCompressedLength(length));
+				final int compressedLength = Snappy.compress(bytes, 0, length, buffer, 0);
+				return new CompressedBytes(this, buffer, compressedLength);
+				
+			case ZSTD:
+				final byte[] zstdBuffer = getCompressionBuffer((int) Zstd.compressBound(length));
+				final long zstdLength = Zstd.compressByteArray(zstdBuffer, 0, zstdBuffer.length, 
+						bytes, 0, length, ZSTD_LEVEL);
+				
+				if(Zstd.isError(zstdLength)) {
+					throw new IOException("Unable to compress data: " + Zstd.getErrorName(zstdLength));
+				}
+				
+				return new CompressedBytes(this, zstdBuffer, (int) zstdLength);
+				
+			case GZIP:
+				final ByteArrayOutputStream baos = new ByteArrayOutputStream(length / 2 + 64);
+				
+				try(final GZIPOutputStream os = new GZIPOutputStream(baos)) {
+					os.write(bytes, 0, length);
+				}
+				
+				return new CompressedBytes(this, baos.toByteArray(), baos.size());
+				
+			default:
+				return new CompressedBytes(this, bytes, length);
+		}
+	}
+	
+	/**
+	 * Get the pooled compression buffer of the calling thread
+	 * @param size
+	 * @return
+	 */
+	private static byte[] getCompressionBuffer(final int size) {
+		final byte[] buffer = COMPRESSION_BUFFER.get();
+		
+		if(buffer.length >= size) {
+			return buffer;
+		}
+		
+		final byte[] newBuffer = new byte[size];
+		
+		if(size <= MAX_POOLED_BUFFER_SIZE) {
+			COMPRESSION_BUFFER.set(newBuffer);
+		}
+		
+		return newBuffer;
+	}
+	
+	/**
+	 * Decompress the given bytes
+	 * @param bytes
+	 * @param offset
+	 * @param length
+	 * @return
+	 * @throws PackageEncodeException
+	 */
+	public byte[] decompress(final byte[] bytes, final int offset, final int length) 
+			throws PackageEncodeException {
+		
+		try {
+			switch(this) {
+				case SNAPPY:
+					return Snappy.uncompress(bytes, offset, length);
+				
+				case ZSTD:
+					return zstdDecompress(bytes, offset, length);
+					
+				case GZIP:
+					final ByteArrayInputStream bais = new ByteArrayInputStream(bytes, offset, length);
+					final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+					
+					try(final GZIPInputStream inputStream = new GZIPInputStream(bais)) {
+						final byte[] buffer = new byte[10240];
+						for (int readBytes = 0; (readBytes = inputStream.read(buffer)) > 0; ) {
+							baos.write(buffer, 0, readBytes);
+						}
+					}
+					
+					return baos.toByteArray();
+					
+				default:
+					final byte[] result = new byte[length];
+					System.arraycopy(bytes, offset, result, 0, length);
+					return result;
+			}
+		} catch (IOException | CorruptionException e) {
+			throw new PackageEncodeException(e);
+		}
+	}
+	
+	/**
+	 * Decompress a zstd frame, the frame contains the size of the uncompressed data
+	 * @param bytes
+	 * @param offset
+	 * @param length
+	 * @return
+	 * @throws PackageEncodeException
+	 */
+	private static byte[] zstdDecompress(final byte[] bytes, final int offset, final int length) 
+			throws PackageEncodeException {
+		
+		final long uncompressedSize = Zstd.getFrameContentSize(bytes, offset, length);
+		
+		if(uncompressedSize < 0 || uncompressedSize > Integer.MAX_VALUE) {
+			throw new PackageEncodeException("Invalid zstd frame, content size: " + uncompressedSize);
+		}
+		
+		final byte[] result = new byte[(int) uncompressedSize];
+		final long resultLength = Zstd.decompressByteArray(result, 0, result.length, bytes, offset, length);
+		
+		if(Zstd.isError(resultLength) || resultLength != uncompressedSize) {
+			throw new PackageEncodeException("Unable to decompress zstd frame: " + resultLength);
+		}
+		
+		return result;
+	}
+	
+	public static class CompressedBytes {
+		
+		/**
+		 * The codec of the data
+		 */
+		private final NetworkCompression compression;
+		
+		/**
+		 * The data
+		 */
+		private final byte[] data;
+		
+		/**
+		 * The length of the data
+		 */
+		private final int length;
+
+		public CompressedBytes(final NetworkCompression compression, final byte[] data, 
+				final int length) {
+			
+			this.compression = compression;
+			this.data = data;
+			this.length = length;
+		}
+		
+		/**
+		 * The codec of the data
+		 * @return
+		 */
+		public NetworkCompression getCompression() {
+			return compression;
+		}
+		
+		/**
+		 * The data, only the first getCompressedLength() bytes are valid
+		 * @return
+		 */
+		public byte[] getData() {
+			return data;
+		}
+		
+		/**
+		 * The length of the data
+		 * @return
+		 */
+		public int getCompressedLength() {
+			return length;
+		}
+	}
+}
@@ -94,6 +94,11 @@ public class NetworkConst {
 	 */
 	public static final short REQUEST_TYPE_CANCEL_QUERY = 0x13;
 	
+	/**
+	 * Insert multiple tuples request
+	 */
+	public static final short REQUEST_TYPE_INSERT_TUPLES = 0x14;
+	
 	/**
 	 * Query type key
 	 */
@@ -190,6 +195,26 @@ public class NetworkConst {
 	 */
 	public final static byte COMPRESSION_TYPE_GZIP = 0x00;
 	
+	/**
+	 * The snappy compression type
+	 */
+	public final static byte COMPRESSION_TYPE_SNAPPY = 0x01;
+	
+	/**
+	 * The envelope is not compressed (small or incompressible batches)
+	 */
+	public final static byte COMPRESSION_TYPE_NONE = 0x02;
+	
+	/**
+	 * The zstd compression type
+	 */
+	public final static byte COMPRESSION_TYPE_ZSTD = 0x03;
+	
+	/**
+	 * Batches below this size (in bytes) are not compressed
+	 */
+	public final static int MIN_COMPRESSION_BYTES = 512;
+	
 
 	/**
 	 * The thread wakeup time (100 ms) to flush the pending compression packages
@@ -17,14 +17,78 @@
  *******************************************************************************/
 package org.bboxdb.network;
 
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.util.zip.GZIPInputStream;
+import java.util.List;
 
+import org.bboxdb.network.NetworkCompression.CompressedBytes;
+import org.bboxdb.network.packages.NetworkPackage;
 import org.bboxdb.network.packages.PackageEncodeException;
 
 public class NetworkHelper {
+	
+	/**
+	 * The pooled buffer for the uncompressed packages of a compression envelope
+	 */
+	private final static ThreadLocal<EnvelopeBuffer> ENVELOPE_BUFFER 
+		= ThreadLocal.withInitial(() -> new EnvelopeBuffer());
+	
+	/**
+	 * Envelope buffers up to this size are kept for the next envelope
+	 */
+	private final static int MAX_POOLED_BUFFER_SIZE = 4 * 1024 * 1024;
+	
+	/**
+	 * Encode and compress the packages of a compression envelope. Small and 
+	 * incompressible batches are not compressed, if the codec allows this.
+	 * 
+	 * The returned data is only valid until the next call of this method by 
+	 * the same thread.
+	 * 
+	 * @param compressionType
+	 * @param packages
+	 * @return
+	 * @throws PackageEncodeException
+	 * @throws IOException
+	 */
+	public static CompressedBytes compressPackages(final byte compressionType, 
+			final List<? extends NetworkPackage> packages) throws PackageEncodeException, IOException {
+		
+		final NetworkCompression compression = NetworkCompression.fromId(compressionType);
+		
+		if(compression == null) {
+			throw new PackageEncodeException("Unknown compression method: " + compressionType);
+		}
+		
+		final EnvelopeBuffer envelopeBuffer = ENVELOPE_BUFFER.get();
+		envelopeBuffer.reset();
+		
+		try {
+			for(final NetworkPackage networkPackage : packages) {
+				networkPackage.writeToOutputStream(envelopeBuffer);
+			}
+			
+			final byte[] uncompressedBytes = envelopeBuffer.getBuffer();
+			final int uncompressedLength = envelopeBuffer.size();
+			
+			if(compression.isAdaptive() && uncompressedLength < NetworkConst.MIN_COMPRESSION_BYTES) {
+				return NetworkCompression.NONE.compress(uncompressedBytes, uncompressedLength);
+			}
+			
+			final CompressedBytes compressedBytes = compression.compress(uncompressedBytes, uncompressedLength);
+			
+			// Already compressed payloads (e.g., images) don't shrink
+			if(compression.isAdaptive() && compressedBytes.getCompressedLength() >= uncompressedLength) {
+				return NetworkCompression.NONE.compress(uncompressedBytes, uncompressedLength);
+			}
+			
+			return compressedBytes;
+		} finally {
+			if(envelopeBuffer.getBuffer().length > MAX_POOLED_BUFFER_SIZE) {
+				ENVELOPE_BUFFER.remove();
+			}
+		}
+	}
 
 	/**
 	 * Uncompress the data in the byte array
@@ -36,23 +100,27 @@ public class NetworkHelper {
 	public static byte[] uncompressBytes(final byte compressionType, 
 			final byte[] compressedBytes) throws PackageEncodeException {
 		
-		try {
-			final ByteArrayInputStream bais = new ByteArrayInputStream(compressedBytes);
-			final GZIPInputStream inputStream = new GZIPInputStream(bais);
-			final ByteArrayOutputStream baos = new ByteArrayOutputStream();
-
-			final byte[] buffer = new byte[10240];
-			for (int length = 0; (length = inputStream.read(buffer)) > 0; ) {
-				baos.write(buffer, 0, length);
-			}
-
-			inputStream.close();
-			baos.close();
-			
-			return baos.toByteArray();
-		} catch (IOException e) {
-			throw new PackageEncodeException(e);
+		final NetworkCompression compression = NetworkCompression.fromId(compressionType);
+		
+		if(compression == null) {
+			throw new PackageEncodeException("Unknown compression type: " + compressionType);
+		}
+		
+		return compression.decompress(compressedBytes, 0, compressedBytes.length);
+	}
+	
+	private static class EnvelopeBuffer extends ByteArrayOutputStream {
+		
+		public EnvelopeBuffer() {
+			super(16 * 1024);
+		}
+		
+		/**
+		 * Get the internal buffer, only the first size() bytes are valid
+		 * @return
+		 */
+		public byte[] getBuffer() {
+			return buf;
 		}
 	}
-
 }
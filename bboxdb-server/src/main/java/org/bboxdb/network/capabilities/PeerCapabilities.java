@@ -28,6 +28,37 @@ public class PeerCapabilities {
 	 */
 	public final static short CAPABILITY_COMPRESSION_GZIP = 0;
 	
+	/**
+	 * The snappy compression flag
+	 */
+	public final static short CAPABILITY_COMPRESSION_SNAPPY = 1;
+	
+	/**
+	 * The zstd compression flag
+	 */
+	public final static short CAPABILITY_COMPRESSION_ZSTD = 2;
+	
+	/**
+	 * The reference point filter flag. Set by servers that answer a routed 
+	 * query only from the regions of the routing hop and that return an 
+	 * entity only from the region that contains its reference point. 
+	 * Only meaningful on negotiated connections.
+	 */
+	public final static short CAPABILITY_REFERENCE_POINT_FILTER = 3;
+	
+	/**
+	 * The result credits flag. Set by servers that accept the result credits 
+	 * of a continuous query. Only meaningful on negotiated connections.
+	 */
+	public final static short CAPABILITY_RESULT_CREDITS = 4;
+	
+	/**
+	 * The negotiated flag. Set by servers that answer the hello request 
+	 * with the supported subset of the client capabilities. Older servers 
+	 * echo the client capabilities, clients never set this flag.
+	 */
+	public final static short CAPABILITY_NEGOTIATED = 31;
+	
 	/**
 	 * The readonly flag
 	 */
@@ -83,6 +114,109 @@ public class PeerCapabilities {
 		clearBit(CAPABILITY_COMPRESSION_GZIP);
 	}
 
+	/**
+	 * Is the snappy compression bit set?
+	 * 
+	 * @return
+	 */
+	public boolean hasSnappyCompression() {
+		return getBit(CAPABILITY_COMPRESSION_SNAPPY);
+	}
+
+	/**
+	 * Set the snappy compression bit
+	 */
+	public void setSnappyCompression() {
+		setBit(CAPABILITY_COMPRESSION_SNAPPY);
+	}
+
+	/**
+	 * Clear the snappy compression bit
+	 */
+	public void clearSnappyCompression() {
+		clearBit(CAPABILITY_COMPRESSION_SNAPPY);
+	}
+	
+	/**
+	 * Is the zstd compression bit set?
+	 * 
+	 * @return
+	 */
+	public boolean hasZstdCompression() {
+		return getBit(CAPABILITY_COMPRESSION_ZSTD);
+	}
+
+	/**
+	 * Set the zstd compression bit
+	 */
+	public void setZstdCompression() {
+		setBit(CAPABILITY_COMPRESSION_ZSTD);
+	}
+
+	/**
+	 * Clear the zstd compression bit
+	 */
+	public void clearZstdCompression() {
+		clearBit(CAPABILITY_COMPRESSION_ZSTD);
+	}
+	
+	/**
+	 * Does the server filter the query results by the reference point?
+	 * 
+	 * @return
+	 */
+	public boolean hasReferencePointFilter() {
+		return isNegotiated() && getBit(CAPABILITY_REFERENCE_POINT_FILTER);
+	}
+	
+	/**
+	 * Set the reference point filter bit
+	 */
+	public void setReferencePointFilter() {
+		setBit(CAPABILITY_REFERENCE_POINT_FILTER);
+	}
+	
+	/**
+	 * Does the server accept the result credits of a continuous query?
+	 * 
+	 * @return
+	 */
+	public boolean hasResultCredits() {
+		return isNegotiated() && getBit(CAPABILITY_RESULT_CREDITS);
+	}
+	
+	/**
+	 * Set the result credits bit
+	 */
+	public void setResultCredits() {
+		setBit(CAPABILITY_RESULT_CREDITS);
+	}
+	
+	/**
+	 * Are the capabilities negotiated by the server?
+	 * 
+	 * @return
+	 */
+	public boolean isNegotiated() {
+		return getBit(CAPABILITY_NEGOTIATED);
+	}
+	
+	/**
+	 * Set the negotiated bit
+	 */
+	public void setNegotiated() {
+		setBit(CAPABILITY_NEGOTIATED);
+	}
+	
+	/**
+	 * Is any compression bit set?
+	 * 
+	 * @return
+	 */
+	public boolean hasCompression() {
+		return hasGZipCompression() || hasSnappyCompression() || hasZstdCompression();
+	}
+
 	/**
 	 * Set the bit
 	 * 
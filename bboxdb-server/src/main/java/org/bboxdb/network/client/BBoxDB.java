@@ -69,6 +69,15 @@ public interface BBoxDB extends Closeable {
 	 */
 	public EmptyResultFuture insertTuple(final String table, final Tuple tuple) throws BBoxDBException;
 
+	/**
+	 * Insert multiple tuples into the given table. The tuples are 
+	 * grouped by their destination and send with one request per group.
+	 * @param table
+	 * @param tuples
+	 * @return
+	 */
+	public EmptyResultFuture insertTuples(final String table, final List<Tuple> tuples) throws BBoxDBException;
+
 	/**
 	 * Lock tuple
 	 * @param table
@@ -19,7 +19,10 @@ package org.bboxdb.network.client;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
@@ -44,6 +47,7 @@ import org.bboxdb.network.packages.request.CreateTableRequest;
 import org.bboxdb.network.packages.request.DeleteDistributionGroupRequest;
 import org.bboxdb.network.packages.request.DeleteTableRequest;
 import org.bboxdb.network.packages.request.InsertTupleRequest;
+import org.bboxdb.network.packages.request.InsertTuplesRequest;
 import org.bboxdb.network.packages.request.KeepAliveRequest;
 import org.bboxdb.network.packages.request.LockTupleRequest;
 import org.bboxdb.network.packages.request.NextPageRequest;
@@ -80,6 +84,11 @@ public class BBoxDBClient implements BBoxDB {
 	 * The amount of tuples per page
 	 */
 	private short tuplesPerPage;
+	
+	/**
+	 * The amount of pages that are requested in advance
+	 */
+	private int prefetchPages;
 
 	/**
 	 * The tuple store manager registry (used for gossip)
@@ -90,6 +99,7 @@ public class BBoxDBClient implements BBoxDB {
 		this.connection = Objects.requireNonNull(connection);
 		this.pagingEnabled = true;
 		this.tuplesPerPage = 50;
+		this.prefetchPages = 2;
 	}
 
 	/* (non-Javadoc)
@@ -146,6 +156,23 @@ public class BBoxDBClient implements BBoxDB {
 	@Override
 	public EmptyResultFuture insertTuple(final String table, final Tuple tuple) throws BBoxDBException {
 
+		assertNoKeyDirectory(table);
+		
+		return insertTupleWithoutKeyDirectory(table, tuple);
+	}
+	
+	/**
+	 * Insert the tuple without checking for a key directory. Used by the servers to 
+	 * move or repair tuples that are already registered in the key directory. 
+	 * 
+	 * @param table
+	 * @param tuple
+	 * @return
+	 * @throws BBoxDBException
+	 */
+	public EmptyResultFuture insertTupleWithoutKeyDirectory(final String table, final Tuple tuple) 
+			throws BBoxDBException {
+		
 		final RoutingHeader routingHeader = RoutingHeaderHelper.getRoutingHeaderForLocalSystemWriteNE(
 				table, tuple.getBoundingBox(), false, connection.getServerAddress());
 
@@ -163,6 +190,87 @@ public class BBoxDBClient implements BBoxDB {
 		return new EmptyResultFuture(future);
 	}
 
+	/* (non-Javadoc)
+	 * @see org.bboxdb.network.client.BBoxDB#insertTuples(java.lang.String, java.util.List)
+	 */
+	@Override
+	public EmptyResultFuture insertTuples(final String table, final List<Tuple> tuples) 
+			throws BBoxDBException {
+
+		assertNoKeyDirectory(table);
+		
+		return insertTuplesWithoutKeyDirectory(table, tuples);
+	}
+	
+	/**
+	 * Insert the tuples without checking for a key directory. Used by the servers to 
+	 * move or repair tuples that are already registered in the key directory. 
+	 * 
+	 * @param table
+	 * @param tuples
+	 * @return
+	 * @throws BBoxDBException
+	 */
+	public EmptyResultFuture insertTuplesWithoutKeyDirectory(final String table, final List<Tuple> tuples) 
+			throws BBoxDBException {
+		
+		// Group the tuples by the routing header, each group is send with one request
+		final Map<RoutingHeader, List<Tuple>> tuplesPerRoutingHeader = new HashMap<>();
+		
+		for(final Tuple tuple : tuples) {
+			final RoutingHeader routingHeader = RoutingHeaderHelper.getRoutingHeaderForLocalSystemWriteNE(
+					table, tuple.getBoundingBox(), false, connection.getServerAddress());
+			
+			if(routingHeader == null) {
+				throw new BBoxDBException("Unable to determine the routing header for tuple: " + tuple);
+			}
+			
+			tuplesPerRoutingHeader.computeIfAbsent(routingHeader, (h) -> new ArrayList<>()).add(tuple);
+		}
+		
+		final Supplier<List<NetworkOperationFuture>> future = () -> {
+			final List<NetworkOperationFuture> futures = new ArrayList<>();
+			
+			for(final Entry<RoutingHeader, List<Tuple>> entry : tuplesPerRoutingHeader.entrySet()) {
+				futures.addAll(getInsertTuplesFuture(table, entry.getValue(), entry.getKey()).get());
+			}
+			
+			return futures;
+		};
+
+		return new EmptyResultFuture(future);
+	}
+
+	/**
+	 * The key directory of a table is maintained by the cluster client. Writes of this 
+	 * client would not be registered in the directory and could not be found 
+	 * by key queries.
+	 * 
+	 * @param table
+	 * @throws BBoxDBException
+	 */
+	private void assertNoKeyDirectory(final String table) throws BBoxDBException {
+		if(TupleStoreConfigurationCache.getInstance().isKeyDirectoryEnabled(table)) {
+			throw new BBoxDBException("Table " + table + " has a key directory, "
+					+ "use the cluster client to write tuples");
+		}
+	}
+
+	/**
+	 * Insert the tuples with the given routing header
+	 * @param table
+	 * @param tuples
+	 * @param routingHeader
+	 * @return
+	 */
+	public EmptyResultFuture insertTuples(final String table, final List<Tuple> tuples,
+			final RoutingHeader routingHeader) {
+
+		final Supplier<List<NetworkOperationFuture>> future = getInsertTuplesFuture(table, tuples, routingHeader);
+
+		return new EmptyResultFuture(future);
+	}
+
 	@Override
 	public EmptyResultFuture lockTuple(final String table, final Tuple tuple,
 			final boolean deleteOnTimeout) throws BBoxDBException {
@@ -221,6 +329,25 @@ public class BBoxDBClient implements BBoxDB {
 		return () -> Arrays.asList(new NetworkOperationFutureImpl(connection, packageSupplier));
 	}
 
+	/**
+	 * @param table
+	 * @param tuples
+	 * @param routingHeader
+	 * @return
+	 */
+	public Supplier<List<NetworkOperationFuture>> getInsertTuplesFuture(final String table, 
+			final List<Tuple> tuples, final RoutingHeader routingHeader) {
+
+		final Supplier<NetworkRequestPackage> packageSupplier = () -> {
+			final TupleStoreName ssTableName = new TupleStoreName(table);
+			final short sequenceNumber = connection.getNextSequenceNumber();
+
+			return new InsertTuplesRequest(sequenceNumber, routingHeader, ssTableName, tuples);
+		};
+
+		return () -> Arrays.asList(new NetworkOperationFutureImpl(connection, packageSupplier));
+	}
+
 	/* (non-Javadoc)
 	 * @see org.bboxdb.network.client.BBoxDB#deleteTuple(java.lang.String, java.lang.String)
 	 */
@@ -402,9 +529,19 @@ public class BBoxDBClient implements BBoxDB {
 					queryPlan.getStreamTable(), queryPlan.getQueryRange(), false, connection.getServerAddress());
 
 			final short nextSequenceNumber = connection.getNextSequenceNumber();
+			
+			// Without paging, the server can send as many tuples as possible per page. 
+			// Older servers don't accept the result credits, the default is not sent.
+			final short resultCredits;
+			
+			if(! connection.getConnectionCapabilities().hasResultCredits()) {
+				resultCredits = QueryContinuousRequest.DEFAULT_RESULT_CREDITS;
+			} else {
+				resultCredits = pagingEnabled ? tuplesPerPage : Short.MAX_VALUE;
+			}
 
 			return new QueryContinuousRequest(
-					nextSequenceNumber, routingHeaderSupplier, queryPlan);
+					nextSequenceNumber, routingHeaderSupplier, queryPlan, resultCredits);
 		};
 
 		return () -> Arrays.asList(new NetworkOperationFutureImpl(connection, packageSupplier));
@@ -589,14 +726,19 @@ public class BBoxDBClient implements BBoxDB {
 	}
 
 	/**
-	 * Get the next page for a given query
+	 * Get the next page for a given query. The request is not retried, a 
+	 * failed request can not restore the query state on the server and 
+	 * requests for pages behind the last page fail when the pages are 
+	 * requested in advance.
+	 * 
 	 * @param queryPackageId
 	 * @return
 	 */
 	public OperationFuture getNextPage(final short queryPackageId) {
 		final Supplier<List<NetworkOperationFuture>> future = getNextPageFuture(queryPackageId);
 
-		return new TupleListFuture(future, new DoNothingDuplicateResolver(), "");
+		return new TupleListFuture(future, new DoNothingDuplicateResolver(), "", 
+				FutureRetryPolicy.RETRY_POLICY_NONE);
 	}
 
 	/**
@@ -684,6 +826,27 @@ public class BBoxDBClient implements BBoxDB {
 		this.tuplesPerPage = tuplesPerPage;
 	}
 
+	/**
+	 * Get the amount of pages that are requested in advance
+	 * @return
+	 */
+	public int getPrefetchPages() {
+		return prefetchPages;
+	}
+
+	/**
+	 * Set the amount of pages that are requested in advance (1 = request 
+	 * the next page after the current page is received)
+	 * @param prefetchPages
+	 */
+	public void setPrefetchPages(final int prefetchPages) {
+		if(prefetchPages < 1) {
+			throw new IllegalArgumentException("Prefetch pages has to be >= 1: " + prefetchPages);
+		}
+		
+		this.prefetchPages = prefetchPages;
+	}
+
 	@Override
 	public boolean connect() {
 		return connection.connect();
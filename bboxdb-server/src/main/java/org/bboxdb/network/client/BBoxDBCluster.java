@@ -20,8 +20,13 @@ package org.bboxdb.network.client;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.function.Function;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 import org.bboxdb.commons.DuplicateResolver;
 import org.bboxdb.commons.MicroSecondTimestampProvider;
@@ -46,8 +51,11 @@ import org.bboxdb.network.client.future.NetworkOperationFuture;
 import org.bboxdb.network.client.future.TupleListFuture;
 import org.bboxdb.network.client.tools.AbtractClusterFutureBuilder;
 import org.bboxdb.network.client.tools.ClusterOperationType;
+import org.bboxdb.network.client.tools.KeyDirectoryHelper;
 import org.bboxdb.network.query.ContinuousQueryPlan;
 import org.bboxdb.network.routing.RoutingHeader;
+import org.bboxdb.network.routing.RoutingHop;
+import org.bboxdb.network.routing.RoutingHopHelper;
 import org.bboxdb.storage.entity.DeletedTuple;
 import org.bboxdb.storage.entity.DistributionGroupConfiguration;
 import org.bboxdb.storage.entity.Tuple;
@@ -72,6 +80,11 @@ public class BBoxDBCluster implements BBoxDB {
 	 * The membership connection service
 	 */
 	private final MembershipConnectionService membershipConnectionService;
+	
+	/**
+	 * The key directory of the tables
+	 */
+	private final KeyDirectoryHelper keyDirectoryHelper;
 
 	/**
 	 * The Logger
@@ -87,6 +100,7 @@ public class BBoxDBCluster implements BBoxDB {
 		this.zookeeperClient = zookeeperClient;
 		resourcePlacementStrategy = new RandomResourcePlacementStrategy();
 		membershipConnectionService = MembershipConnectionService.getInstance();
+		keyDirectoryHelper = new KeyDirectoryHelper(this);
 	}
 	
 	/**
@@ -98,6 +112,7 @@ public class BBoxDBCluster implements BBoxDB {
 		zookeeperClient = new ZookeeperClient(zookeeperNodes, clustername);
 		resourcePlacementStrategy = new RandomResourcePlacementStrategy();
 		membershipConnectionService = MembershipConnectionService.getInstance();
+		keyDirectoryHelper = new KeyDirectoryHelper(this);
 	}
 
 	/**
@@ -185,6 +200,111 @@ public class BBoxDBCluster implements BBoxDB {
 		return executeInsert(table, tuple, bbox);
 	}
 	
+	@Override
+	public EmptyResultFuture insertTuples(final String table, final List<Tuple> tuples) 
+			throws BBoxDBException {
+		
+		final DistributionRegion distributionRegion = SpacePartitionerHelper.getRootNode(table);
+
+		final Supplier<List<NetworkOperationFuture>> supplier 
+			= getInsertTuplesSupplier(distributionRegion, table, tuples);
+		
+		return new EmptyResultFuture(addKeyDirectorySupplier(table, tuples, 
+				Tuple::getBoundingBox, supplier));
+	}
+	
+	/**
+	 * Get the supplier for the insert of the given tuples
+	 * 
+	 * @param distributionRegion
+	 * @param table
+	 * @param tuples
+	 * @return
+	 */
+	private Supplier<List<NetworkOperationFuture>> getInsertTuplesSupplier(
+			final DistributionRegion distributionRegion, final String table, final List<Tuple> tuples) {
+
+		// The hops are determined on every call of the supplier (e.g., on retry)
+		return () -> {
+			
+			// Group the tuples by the routing hop, each group is send with one request
+			final Map<RoutingHop, List<Tuple>> tuplesPerHop = new HashMap<>();
+			
+			for(final Tuple tuple : tuples) {
+				final List<RoutingHop> hops = RoutingHopHelper.getRoutingHopsForWrite(
+						distributionRegion, tuple.getBoundingBox());
+				
+				if(hops.isEmpty()) {
+					logger.error("Got empty hop list for tuple {}", tuple);
+				}
+				
+				for(final RoutingHop hop : hops) {
+					tuplesPerHop.computeIfAbsent(hop, (h) -> new ArrayList<>()).add(tuple);
+				}
+			}
+			
+			final List<NetworkOperationFuture> futures = new ArrayList<>();
+
+			for(final Entry<RoutingHop, List<Tuple>> entry : tuplesPerHop.entrySet()) {
+				final RoutingHop hop = entry.getKey();
+				
+				final BBoxDBConnection connection
+					= membershipConnectionService.getConnectionForInstance(hop.getDistributedInstance());
+
+				final RoutingHeader routingHeader = new RoutingHeader((short) 0, Arrays.asList(hop));
+				
+				futures.addAll(connection.getBboxDBClient()
+						.getInsertTuplesFuture(table, entry.getValue(), routingHeader).get());
+			}
+			
+			return futures;
+		};
+	}
+	
+	/**
+	 * Add the insert of the key directory entries to the supplier, if the 
+	 * table has a key directory. The future of the insert completes when the
+	 * tuples and the directory entries are written.
+	 * 
+	 * @param table
+	 * @param tuples
+	 * @param boundingBoxFunction
+	 * @param supplier
+	 * @return
+	 * @throws BBoxDBException
+	 */
+	private Supplier<List<NetworkOperationFuture>> addKeyDirectorySupplier(final String table, 
+			final List<Tuple> tuples, final Function<Tuple, Hyperrectangle> boundingBoxFunction, 
+			final Supplier<List<NetworkOperationFuture>> supplier) throws BBoxDBException {
+		
+		if(! TupleStoreConfigurationCache.getInstance().isKeyDirectoryEnabled(table)) {
+			return supplier;
+		}
+		
+		final String directoryTable = keyDirectoryHelper.createMissingTables(table);
+		final DistributionRegion rootRegion = SpacePartitionerHelper.getRootNode(table);
+		final DistributionRegion directoryRootRegion = SpacePartitionerHelper.getRootNode(directoryTable);
+		
+		// Deletions are sent to all regions, no directory entry is needed
+		final List<Tuple> tuplesToRegister = tuples.stream()
+				.filter(t -> ! (t instanceof DeletedTuple))
+				.collect(Collectors.toList());
+		
+		return () -> {
+			final List<NetworkOperationFuture> futures = new ArrayList<>(supplier.get());
+			
+			final List<Tuple> directoryTuples = keyDirectoryHelper.getDirectoryTuples(rootRegion, 
+					tuplesToRegister, boundingBoxFunction);
+			
+			if(! directoryTuples.isEmpty()) {
+				futures.addAll(getInsertTuplesSupplier(directoryRootRegion, directoryTable, 
+						directoryTuples).get());
+			}
+			
+			return futures;
+		};
+	}
+	
 	/**
 	 * Execute a tuple insert
 	 * @param table
@@ -207,7 +327,8 @@ public class BBoxDBCluster implements BBoxDB {
 			}
 		};
 
-		return new EmptyResultFuture(builder.getSupplier());
+		return new EmptyResultFuture(addKeyDirectorySupplier(table, Arrays.asList(tuple), 
+				(t) -> boundingBox, builder.getSupplier()));
 	}
 
 	@Override
@@ -319,7 +440,16 @@ public class BBoxDBCluster implements BBoxDB {
 		if(logger.isDebugEnabled()) {
 			logger.debug("Query by for key {} in table {}", key, table);
 		}
+		
+		final DuplicateResolver<Tuple> duplicateResolver
+			= TupleStoreConfigurationCache.getInstance().getDuplicateResolverForTupleStore(table);
 
+		if(TupleStoreConfigurationCache.getInstance().isKeyDirectoryEnabled(table) 
+				&& keyDirectoryHelper.isDirectoryAvailable(table)) {
+			
+			return queryKeyWithDirectory(table, key, duplicateResolver);
+		}
+		
 		final AbtractClusterFutureBuilder builder = new AbtractClusterFutureBuilder(
 				ClusterOperationType.READ_FROM_NODES, table, Hyperrectangle.FULL_SPACE) {
 
@@ -331,12 +461,47 @@ public class BBoxDBCluster implements BBoxDB {
 			}
 		};
 
-		final DuplicateResolver<Tuple> duplicateResolver
-			= TupleStoreConfigurationCache.getInstance().getDuplicateResolverForTupleStore(table);
-
 		return new TupleListFuture(builder.getSupplier(), duplicateResolver, table);
 	}
 
+	/**
+	 * Query the key directory and send the key query to the regions of the key. The key 
+	 * query is chained to the directory query, so the calling thread is not blocked. 
+	 * The directory entries of the key are updated when the key query is done.
+	 * 
+	 * @param table
+	 * @param key
+	 * @param duplicateResolver
+	 * @return
+	 * @throws BBoxDBException
+	 */
+	private TupleListFuture queryKeyWithDirectory(final String table, final String key,
+			final DuplicateResolver<Tuple> duplicateResolver) throws BBoxDBException {
+		
+		final TupleListFuture directoryFuture = keyDirectoryHelper.queryDirectory(table, key);
+		
+		// The regions of the key (null = all regions)
+		final AbtractClusterFutureBuilder builder = new AbtractClusterFutureBuilder(
+				ClusterOperationType.READ_FROM_NODES, table, 
+				() -> keyDirectoryHelper.getRegionsForKey(table, key, directoryFuture)) {
+
+			@Override
+			protected Supplier<List<NetworkOperationFuture>> buildFuture(final BBoxDBConnection connection,
+					final RoutingHeader routingHeader) {
+
+				return connection.getBboxDBClient().getQueryKeyFuture(table, key, routingHeader);
+			}
+		};
+		
+		final TupleListFuture queryFuture = new TupleListFuture(directoryFuture, 
+				builder.getSupplier(), duplicateResolver, table);
+		
+		queryFuture.addCompletionCallback(() -> keyDirectoryHelper.maintainDirectory(
+				table, key, directoryFuture, queryFuture));
+		
+		return queryFuture;
+	}
+
 	@Override
 	public TupleListFuture queryRectangle(final String table, final Hyperrectangle boundingBox) throws BBoxDBException {
 
@@ -356,7 +521,12 @@ public class BBoxDBCluster implements BBoxDB {
 			}
 		};
 
-		return new TupleListFuture(builder.getSupplier(), new DoNothingDuplicateResolver(), table);
+		final TupleListFuture future = new TupleListFuture(builder.getSupplier(), 
+				new DoNothingDuplicateResolver(), table);
+		
+		future.setDuplicateFreeResult(builder::isDuplicateFreeResult, builder::isDuplicateCandidate);
+		
+		return future;
 	}
 
 	/**
@@ -418,7 +588,12 @@ public class BBoxDBCluster implements BBoxDB {
 			}
 		};
 
-		return new TupleListFuture(builder.getSupplier(), new DoNothingDuplicateResolver(), table);
+		final TupleListFuture future = new TupleListFuture(builder.getSupplier(), 
+				new DoNothingDuplicateResolver(), table);
+		
+		future.setDuplicateFreeResult(builder::isDuplicateFreeResult, builder::isDuplicateCandidate);
+		
+		return future;
 	}
 
 	@Override
@@ -442,7 +617,12 @@ public class BBoxDBCluster implements BBoxDB {
 			}
 		};
 
-		return new TupleListFuture(builder.getSupplier(), new DoNothingDuplicateResolver(), table);
+		final TupleListFuture future = new TupleListFuture(builder.getSupplier(), 
+				new DoNothingDuplicateResolver(), table);
+		
+		future.setDuplicateFreeResult(builder::isDuplicateFreeResult, builder::isDuplicateCandidate);
+		
+		return future;
 	}
 
 	@Override
@@ -466,7 +646,12 @@ public class BBoxDBCluster implements BBoxDB {
 			}
 		};
 
-		return new TupleListFuture(builder.getSupplier(), new DoNothingDuplicateResolver(), table);
+		final TupleListFuture future = new TupleListFuture(builder.getSupplier(), 
+				new DoNothingDuplicateResolver(), table);
+		
+		future.setDuplicateFreeResult(builder::isDuplicateFreeResult, builder::isDuplicateCandidate);
+		
+		return future;
 	}
 
 	/* (non-Javadoc)
@@ -41,6 +41,7 @@ import org.bboxdb.commons.NetworkInterfaceHelper;
 import org.bboxdb.commons.Retryer;
 import org.bboxdb.commons.service.ServiceState;
 import org.bboxdb.misc.Const;
+import org.bboxdb.network.NetworkCompression;
 import org.bboxdb.network.NetworkConst;
 import org.bboxdb.network.NetworkPackageDecoder;
 import org.bboxdb.network.capabilities.PeerCapabilities;
@@ -217,8 +218,13 @@ public class BBoxDBConnection {
 		this.sequenceNumberGenerator = new SequenceNumberGenerator();
 		this.connectionState = new ServiceState();
 
-		// Default: Enable gzip compression
+		// Default: Enable all codecs, the server chooses the supported codecs
 		this.clientCapabilities.setGZipCompression();
+		this.clientCapabilities.setSnappyCompression();
+		
+		if(NetworkCompression.isZstdAvailable()) {
+			this.clientCapabilities.setZstdCompression();
+		}
 
 		// No concurrent access
 		this.serverResponseHandler = new HashMap<>();
@@ -544,7 +550,7 @@ public class BBoxDBConnection {
 			return;
 		}
 
-		if(connectionCapabilities.hasGZipCompression()) {
+		if(connectionCapabilities.hasCompression()) {
 			writePackageWithCompression(requestPackage, future);
 		} else {
 			writePackageUncompressed(requestPackage, future);
@@ -643,8 +649,11 @@ public class BBoxDBConnection {
 			logger.debug("Chunk size is: {}", packagesToWrite.size());
 		}
 
+		final NetworkCompression compression
+			= NetworkCompression.getCompressionForPeer(connectionCapabilities);
+
 		final NetworkRequestPackage compressionEnvelopeRequest
-			= new CompressionEnvelopeRequest(NetworkConst.COMPRESSION_TYPE_GZIP, packagesToWrite);
+			= new CompressionEnvelopeRequest(compression.getId(), packagesToWrite);
 
 		try {
 			writePackageToSocket(compressionEnvelopeRequest);
@@ -202,7 +202,8 @@ public class ConnectionMainteinanceRunnable extends ExceptionSafeRunnable {
 			
 			for(final Tuple tuple: lastGossipTuples) {
 				try {
-					bboxDBClient.insertTuple(lastGossipTableName.getFullnameWithoutPrefix(), tuple);
+					bboxDBClient.insertTupleWithoutKeyDirectory(
+							lastGossipTableName.getFullnameWithoutPrefix(), tuple);
 				} catch (BBoxDBException e) {
 					logger.error("Got Exception while performing gossip repair", e);
 				}
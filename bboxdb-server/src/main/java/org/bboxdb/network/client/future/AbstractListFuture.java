@@ -22,8 +22,12 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.function.BooleanSupplier;
+import java.util.function.Predicate;
 import java.util.function.Supplier;
 
+import org.bboxdb.storage.entity.PagedTransferableEntity;
+import org.bboxdb.storage.util.EntityDuplicateTracker;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -33,10 +37,32 @@ public abstract class AbstractListFuture<T> extends OperationFutureImpl<List<T>>
 	 * The Logger
 	 */
 	private final static Logger logger = LoggerFactory.getLogger(AbstractListFuture.class);
+	
+	/**
+	 * Is the result free of duplicates (e.g., no region is read twice)
+	 */
+	private BooleanSupplier duplicateFreeResult = () -> false;
+	
+	/**
+	 * The entities that can occur more than once in a duplicate free result
+	 */
+	private Predicate<PagedTransferableEntity> duplicateCandidates = e -> true;
 
 	public AbstractListFuture(final Supplier<List<NetworkOperationFuture>> futures) {
 		super(futures);
 	}
+	
+	public AbstractListFuture(final Supplier<List<NetworkOperationFuture>> futures, 
+			final FutureRetryPolicy retryPolicy) {
+		
+		super(futures, retryPolicy);
+	}
+	
+	public AbstractListFuture(final OperationFutureImpl<?> predecessor, 
+			final Supplier<List<NetworkOperationFuture>> futures, final FutureRetryPolicy retryPolicy) {
+		
+		super(predecessor, futures, retryPolicy);
+	}
 
 	/**
 	 * Get a list with all results
@@ -114,6 +140,40 @@ public abstract class AbstractListFuture<T> extends OperationFutureImpl<List<T>>
 		return result;
 	}
 
+	/**
+	 * Set the supplier that decides if the result is free of duplicates. In this 
+	 * case, the iterators track only the entities that are accepted by the 
+	 * duplicate candidates predicate. 
+	 * @param duplicateFreeResult
+	 * @param duplicateCandidates
+	 */
+	public void setDuplicateFreeResult(final BooleanSupplier duplicateFreeResult, 
+			final Predicate<PagedTransferableEntity> duplicateCandidates) {
+		
+		this.duplicateFreeResult = duplicateFreeResult;
+		this.duplicateCandidates = duplicateCandidates;
+	}
+	
+	/**
+	 * Is the result free of duplicates
+	 * @return
+	 */
+	public boolean isDuplicateFreeResult() {
+		return duplicateFreeResult.getAsBoolean();
+	}
+	
+	/**
+	 * Create the tracker for the duplicates of the result
+	 * @return
+	 */
+	protected EntityDuplicateTracker createDuplicateTracker() {
+		if(isDuplicateFreeResult()) {
+			return new EntityDuplicateTracker(duplicateCandidates);
+		}
+		
+		return new EntityDuplicateTracker();
+	}
+
 	/**
 	 * Create the threaded iterator
 	 */
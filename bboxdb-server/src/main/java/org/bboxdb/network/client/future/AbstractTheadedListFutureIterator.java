@@ -17,12 +17,19 @@
  *******************************************************************************/
 package org.bboxdb.network.client.future;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
 import java.util.List;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.bboxdb.network.client.BBoxDBClient;
 import org.bboxdb.network.client.BBoxDBConnection;
@@ -73,14 +80,62 @@ public abstract class AbstractTheadedListFutureIterator<T extends PagedTransfera
 	protected final AbstractListFuture<T> abstractLisFuture;
 
 	/**
-	 * The executor pool
+	 * The producer executor, shared by all iterators. The producers are blocked 
+	 * while the queue of the iterator is full, so the pool can not be bounded 
+	 * without the risk of starving the producers of consumed iterators. 
 	 */
-	protected final ExecutorService executor = Executors.newCachedThreadPool();
+	private final static ExecutorService producerExecutor;
+	
+	static {
+		final AtomicInteger threadNumber = new AtomicInteger();
+		
+		producerExecutor = Executors.newCachedThreadPool((r) -> {
+			final Thread thread = new Thread(r);
+			thread.setName("Result producer thread " + threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+	
+	/**
+	 * The running producers of this iterator
+	 */
+	protected final List<Future<?>> producers = new ArrayList<>();
+	
+	/**
+	 * The amount of delivered elements
+	 */
+	protected long deliveredElements = 0;
+	
+	/**
+	 * The time the consumer has waited for elements (in nanoseconds)
+	 */
+	protected long consumerStallNanos = 0;
+	
+	/**
+	 * The amount of requested pages
+	 */
+	protected final AtomicLong requestedPages = new AtomicLong(0);
+	
+	/**
+	 * The time the producers have waited for the requested pages (in nanoseconds)
+	 */
+	protected final AtomicLong pageWaitNanos = new AtomicLong(0);
+	
+	/**
+	 * The creation time of the iterator
+	 */
+	protected final long creationTime = System.nanoTime();
+
+	/**
+	 * Is the result incomplete (a page request has failed or a producer was interrupted)
+	 */
+	protected volatile boolean resultIncomplete = false;
 
 	/**
 	 * The tuple duplicate remover
 	 */
-	protected final EntityDuplicateTracker tupleDuplicateRemover = new EntityDuplicateTracker();
+	protected final EntityDuplicateTracker tupleDuplicateRemover;
 
 	/**
 	 * The Logger
@@ -91,6 +146,8 @@ public abstract class AbstractTheadedListFutureIterator<T extends PagedTransfera
 	public AbstractTheadedListFutureIterator(final AbstractListFuture<T> abstractListFuture) {
 		this.abstractLisFuture = abstractListFuture;
 		this.futuresToQuery = abstractListFuture.getNumberOfResultObjets();
+		
+		this.tupleDuplicateRemover = abstractListFuture.createDuplicateTracker();
 
 		for(int i = 0; i < abstractListFuture.getNumberOfResultObjets(); i++) {
 			setupProducer(i);
@@ -126,8 +183,10 @@ public abstract class AbstractTheadedListFutureIterator<T extends PagedTransfera
 
 				} catch (ExecutionException e) {
 					logger.warn("Got exception while writing data to queue", e);
+					resultIncomplete = true;
 				} catch (InterruptedException e) {
 					logger.warn("Got exception while writing data to queue", e);
+					resultIncomplete = true;
 					Thread.currentThread().interrupt();
 				} finally {
 					addTerminalNE();
@@ -147,32 +206,51 @@ public abstract class AbstractTheadedListFutureIterator<T extends PagedTransfera
 
 				if(bboxdbConnection == null) {
 					logger.error("Unable to get connection for paging: {}", resultId);
+					resultIncomplete = true;
 					return;
 				}
 
 				final short queryRequestId = abstractLisFuture.getRequestId(resultId);
 				final BBoxDBClient bbBoxDBClient = bboxdbConnection.getBboxDBClient();
 
-				AbstractListFuture<T> nextPage = null;
-				do {
-					 nextPage = (AbstractListFuture<T>) bbBoxDBClient.getNextPage(queryRequestId);
+				final int prefetchPages = bbBoxDBClient.getPrefetchPages();
+
+				// The requested pages, the server answers the requests in order
+				final Deque<AbstractListFuture<T>> pendingPages = new ArrayDeque<>();
+
+				boolean lastPageReceived = false;
+
+				while(! lastPageReceived) {
 
-					 nextPage.waitForCompletion();
+					// Keep the requested pages in flight, the requests behind
+					// the last page are answered with an error and ignored
+					while(pendingPages.size() < prefetchPages) {
+						pendingPages.add((AbstractListFuture<T>) bbBoxDBClient.getNextPage(queryRequestId));
+						requestedPages.incrementAndGet();
+					}
+
+					final AbstractListFuture<T> nextPage = pendingPages.poll();
 
-					 if(nextPage.isFailed()) {
-						 logger.error("Requesting next page failed! Query result is incomplete: {}", nextPage.getAllMessages());
-						 return;
-					 }
+					final long waitStart = System.nanoTime();
+					nextPage.waitForCompletion();
+					pageWaitNanos.addAndGet(System.nanoTime() - waitStart);
 
-					 // Query is send to one server, so the number of
-					 // result objects should be 1
-					 if(nextPage.getNumberOfResultObjets() != 1) {
-						 logger.error("Got a non expected number of result objects {}", nextPage.getNumberOfResultObjets());
-					 }
+					if(nextPage.isFailed()) {
+						logger.error("Requesting next page failed! Query result is incomplete: {}", nextPage.getAllMessages());
+						resultIncomplete = true;
+						return;
+					}
 
-					 addTupleListToQueue(nextPage.get(0));
+					// Query is send to one server, so the number of
+					// result objects should be 1
+					if(nextPage.getNumberOfResultObjets() != 1) {
+						logger.error("Got a non expected number of result objects {}", nextPage.getNumberOfResultObjets());
+					}
 
-				} while(! nextPage.isCompleteResult(0));
+					addTupleListToQueue(nextPage.get(0));
+
+					lastPageReceived = nextPage.isCompleteResult(0);
+				}
 			}
 
 			/**
@@ -199,7 +277,7 @@ public abstract class AbstractTheadedListFutureIterator<T extends PagedTransfera
 			}
 		};
 
-		executor.submit(producer);
+		producers.add(producerExecutor.submit(producer));
 	}
 
 	@Override
@@ -218,9 +296,16 @@ public abstract class AbstractTheadedListFutureIterator<T extends PagedTransfera
 			}
 
 			try {
+				nextTuple = tupleQueue.poll();
+
 				// Wait until element is available
-				nextTuple = tupleQueue.take();
+				if(nextTuple == null) {
+					final long waitStart = System.nanoTime();
+					nextTuple = tupleQueue.take();
+					consumerStallNanos += System.nanoTime() - waitStart;
+				}
 			} catch (InterruptedException e) {
+				resultIncomplete = true;
 				Thread.currentThread().interrupt();
 				return false;
 			}
@@ -248,13 +333,76 @@ public abstract class AbstractTheadedListFutureIterator<T extends PagedTransfera
 
 		final T resultTuple = nextTuple;
 		nextTuple = null;
+		deliveredElements++;
 		return resultTuple;
 	}
 
+	/**
+	 * Is the result incomplete? A page request has failed or the iterator 
+	 * was interrupted, so the iterator has ended before all elements were 
+	 * delivered.
+	 * 
+	 * @return
+	 */
+	public boolean isResultIncomplete() {
+		return resultIncomplete;
+	}
+
+	/**
+	 * Get the amount of delivered elements
+	 * @return
+	 */
+	public long getDeliveredElements() {
+		return deliveredElements;
+	}
+
+	/**
+	 * Get the amount of requested pages
+	 * @return
+	 */
+	public long getRequestedPages() {
+		return requestedPages.get();
+	}
+
+	/**
+	 * Get the time (in milliseconds) the consumer has waited for elements
+	 * @return
+	 */
+	public long getConsumerStallTime() {
+		return TimeUnit.NANOSECONDS.toMillis(consumerStallNanos);
+	}
+
+	/**
+	 * Get the time (in milliseconds) the producers have waited for the requested pages
+	 * @return
+	 */
+	public long getPageWaitTime() {
+		return TimeUnit.NANOSECONDS.toMillis(pageWaitNanos.get());
+	}
+
+	/**
+	 * Get the throughput of the iterator (delivered elements per second)
+	 * @return
+	 */
+	public double getThroughput() {
+		final long elapsedNanos = Math.max(1, System.nanoTime() - creationTime);
+		return deliveredElements / (elapsedNanos / (double) TimeUnit.SECONDS.toNanos(1));
+	}
+
 	@Override
 	public void close() throws Exception {
 		logger.trace("Close called on iterator");
-		executor.shutdown();
+
+		if(logger.isDebugEnabled()) {
+			logger.debug("Iterator delivered {} elements ({} elements/s), requested pages {}, "
+					+ "consumer stall time {} ms, page wait time {} ms", deliveredElements,
+					String.format("%.2f", getThroughput()), getRequestedPages(),
+					getConsumerStallTime(), getPageWaitTime());
+		}
+
+		// Interrupt the producers that are blocked on the full queue,
+		// no further pages are requested after the iterator is closed
+		producers.forEach(p -> p.cancel(true));
 	}
 
 	@Override
@@ -38,7 +38,8 @@ public class JoinedTupleListFuture extends AbstractListFuture<JoinedTuple>{
 	@Override
 	protected Iterator<JoinedTuple> createSimpleIterator() {
 		final List<JoinedTuple> allTuples = getListWithAllResults();
-		final EntityDuplicateTracker entityDuplicateTracker = new EntityDuplicateTracker();
+
+		final EntityDuplicateTracker entityDuplicateTracker = createDuplicateTracker();
 
 		final Iterator<JoinedTuple> iterator = allTuples.iterator();
 		while(iterator.hasNext()) {
@@ -17,6 +17,7 @@
  *******************************************************************************/
 package org.bboxdb.network.client.future;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.Executors;
@@ -44,7 +45,7 @@ public class OperationFutureImpl<T> implements OperationFuture, FutureErrorCallb
 	/**
 	 * The futures
 	 */
-	protected List<NetworkOperationFuture> futures;
+	protected volatile List<NetworkOperationFuture> futures = new ArrayList<>();
 
 	/**
 	 * The default retry policy
@@ -66,6 +67,11 @@ public class OperationFutureImpl<T> implements OperationFuture, FutureErrorCallb
 	 * The future supplier
 	 */
 	private Supplier<List<NetworkOperationFuture>> futureSupplier;
+	
+	/**
+	 * The callbacks that are executed when the future is done
+	 */
+	private final List<Runnable> completionCallbacks = new ArrayList<>();
 
 	public OperationFutureImpl(final Supplier<List<NetworkOperationFuture>> futures) {
 		this(futures, FutureRetryPolicy.RETRY_POLICY_ALL_FUTURES);
@@ -79,6 +85,24 @@ public class OperationFutureImpl<T> implements OperationFuture, FutureErrorCallb
 
 		execute();
 	}
+	
+	/**
+	 * Create a future that is executed when the predecessor is done. The supplier 
+	 * can use the result of the predecessor, the calling thread is not blocked.
+	 * 
+	 * @param predecessor
+	 * @param futureSupplier
+	 * @param retryPolicy
+	 */
+	public OperationFutureImpl(final OperationFutureImpl<?> predecessor, 
+			final Supplier<List<NetworkOperationFuture>> futureSupplier, 
+			final FutureRetryPolicy retryPolicy) {
+		
+		this.futureSupplier = futureSupplier;
+		this.retryPolicy = retryPolicy;
+		
+		predecessor.addCompletionCallback(this::execute);
+	}
 
 	/**
 	 * Execute the network operation futures
@@ -114,7 +138,40 @@ public class OperationFutureImpl<T> implements OperationFuture, FutureErrorCallb
 
 		if(allDone) {
 			readyLatch.countDown();
+			fireCompletionCallbacks();
+		}
+	}
+	
+	/**
+	 * Add a callback that is executed when the future is done. The callbacks are 
+	 * executed by the scheduler and not by the network threads, so they can 
+	 * create new futures.
+	 * 
+	 * @param callback
+	 */
+	public void addCompletionCallback(final Runnable callback) {
+		synchronized (completionCallbacks) {
+			if(! isDone()) {
+				completionCallbacks.add(callback);
+				return;
+			}
+		}
+		
+		scheduler.execute(callback);
+	}
+	
+	/**
+	 * Execute the completion callbacks (once)
+	 */
+	private void fireCompletionCallbacks() {
+		final List<Runnable> callbacks;
+		
+		synchronized (completionCallbacks) {
+			callbacks = new ArrayList<>(completionCallbacks);
+			completionCallbacks.clear();
 		}
+		
+		callbacks.forEach(scheduler::execute);
 	}
 
 	/* (non-Javadoc)
@@ -59,6 +59,33 @@ public class TupleListFuture extends AbstractListFuture<Tuple> {
 		this.duplicateResolver = duplicateResolver;
 		this.tablename = tablename;
 	}
+	
+	public TupleListFuture(final Supplier<List<NetworkOperationFuture>> futures,
+			final DuplicateResolver<Tuple> duplicateResolver, final String tablename, 
+			final FutureRetryPolicy retryPolicy) {
+
+		super(futures, retryPolicy);
+
+		this.duplicateResolver = duplicateResolver;
+		this.tablename = tablename;
+	}
+	
+	/**
+	 * Create a future that is executed when the predecessor is done
+	 * @param predecessor
+	 * @param futures
+	 * @param duplicateResolver
+	 * @param tablename
+	 */
+	public TupleListFuture(final OperationFutureImpl<?> predecessor, 
+			final Supplier<List<NetworkOperationFuture>> futures,
+			final DuplicateResolver<Tuple> duplicateResolver, final String tablename) {
+
+		super(predecessor, futures, FutureRetryPolicy.RETRY_POLICY_ALL_FUTURES);
+
+		this.duplicateResolver = duplicateResolver;
+		this.tablename = tablename;
+	}
 
 	/**
 	 * Create a new threaded iterator
@@ -86,7 +113,7 @@ public class TupleListFuture extends AbstractListFuture<Tuple> {
 		// Perform read repair
 		performReadRepair(allTuples);
 
-		final EntityDuplicateTracker entityDuplicateTracker = new EntityDuplicateTracker();
+		final EntityDuplicateTracker entityDuplicateTracker = createDuplicateTracker();
 
 		final Iterator<Tuple> iterator = allTuples.iterator();
 		while(iterator.hasNext()) {
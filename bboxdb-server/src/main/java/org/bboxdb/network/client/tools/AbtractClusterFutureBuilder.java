@@ -19,8 +19,11 @@ package org.bboxdb.network.client.tools;
 
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.function.Supplier;
+import java.util.stream.Collectors;
 
 import org.bboxdb.commons.math.Hyperrectangle;
 import org.bboxdb.distribution.membership.BBoxDBInstance;
@@ -35,6 +38,7 @@ import org.bboxdb.network.client.future.NetworkOperationFutureMultiImpl;
 import org.bboxdb.network.routing.RoutingHeader;
 import org.bboxdb.network.routing.RoutingHop;
 import org.bboxdb.network.routing.RoutingHopHelper;
+import org.bboxdb.storage.entity.PagedTransferableEntity;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -49,6 +53,12 @@ public abstract class AbtractClusterFutureBuilder {
 	 * The bounding box
 	 */
 	private final Hyperrectangle boundingBox;
+	
+	/**
+	 * The supplier for the regions of the operation (null if the regions are 
+	 * determined by the bounding box)
+	 */
+	private final Supplier<List<DistributionRegion>> regionSupplier;
 
 	/**
 	 * The membership connection service
@@ -60,6 +70,16 @@ public abstract class AbtractClusterFutureBuilder {
 	 */
 	private ClusterOperationType clusterOperationType;
 	
+	/**
+	 * Is the result of the last created futures free of duplicates
+	 */
+	private volatile boolean duplicateFreeResult = false;
+	
+	/**
+	 * The ids of the regions that are read by the last created futures
+	 */
+	private volatile Set<Long> readRegionIds = new HashSet<>();
+	
 	/**
 	 * The Logger
 	 */
@@ -71,6 +91,28 @@ public abstract class AbtractClusterFutureBuilder {
 		this.clusterOperationType = clusterOperationType;
 		this.distributionRegion = SpacePartitionerHelper.getRootNode(table);
 		this.boundingBox = boundingBox;
+		this.regionSupplier = null;
+		this.membershipConnectionService = MembershipConnectionService.getInstance();
+	}
+	
+	/**
+	 * Create a builder for an operation on the supplied regions. The supplier is called 
+	 * each time the futures are created and returns the regions or null to use all 
+	 * regions of the table.
+	 * 
+	 * @param clusterOperationType
+	 * @param table
+	 * @param regionSupplier
+	 * @throws BBoxDBException
+	 */
+	public AbtractClusterFutureBuilder(final ClusterOperationType clusterOperationType, 
+			final String table, final Supplier<List<DistributionRegion>> regionSupplier) 
+					throws BBoxDBException {
+		
+		this.clusterOperationType = clusterOperationType;
+		this.distributionRegion = SpacePartitionerHelper.getRootNode(table);
+		this.boundingBox = Hyperrectangle.FULL_SPACE;
+		this.regionSupplier = regionSupplier;
 		this.membershipConnectionService = MembershipConnectionService.getInstance();
 	}
 
@@ -95,14 +137,23 @@ public abstract class AbtractClusterFutureBuilder {
 			
 			final List<NetworkOperationFuture> futures = new ArrayList<>();
 
-			final List<DistributionRegion> regions = RoutingHopHelper.getRegionsForPredicate(
-					distributionRegion, boundingBox, DistributionRegionHelper.PREDICATE_REGIONS_FOR_READ);
+			final List<DistributionRegion> regions = getSuppliedRegions();
+			
+			// The supplied regions contain no data for the operation
+			if(regions != null && regions.isEmpty()) {
+				return futures;
+			}
+			
+			final List<DistributionRegion> readRegions = getReadRegions(regions);
+			
+			// One replicate per region is read
+			boolean duplicateFree = isDuplicateFree(regions, readRegions, true);
 						
-			if(regions.isEmpty()) {
+			if(readRegions.isEmpty()) {
 				logger.error("Got empty hop list by bbox {} read {}", boundingBox, clusterOperationType);
 			}
 
-			for(final DistributionRegion region : regions) {
+			for(final DistributionRegion region : readRegions) {
 				final List<NetworkOperationFuture> futuresPerReplicate = new ArrayList<>();
 
 				for(final BBoxDBInstance instance : region.getSystems()) {
@@ -115,6 +166,8 @@ public abstract class AbtractClusterFutureBuilder {
 						continue;
 					}
 					
+					duplicateFree = duplicateFree && hasReferencePointFilter(connection);
+					
 					final RoutingHop hop = new RoutingHop(instance, Arrays.asList(region.getRegionId()));
 
 					final RoutingHeader routingHeader = new RoutingHeader((short) 0, Arrays.asList(hop));
@@ -129,6 +182,8 @@ public abstract class AbtractClusterFutureBuilder {
 				
 				futures.add(future);
 			}
+			
+			setDuplicateFreeResult(duplicateFree, readRegions);
 
 			return futures;
 		};
@@ -147,7 +202,24 @@ public abstract class AbtractClusterFutureBuilder {
 			
 			final List<NetworkOperationFuture> futures = new ArrayList<>();
 
-			final List<RoutingHop> hops = getHops();
+			final List<DistributionRegion> regions = getSuppliedRegions();
+			
+			// The supplied regions contain no data for the operation
+			if(regions != null && regions.isEmpty()) {
+				return futures;
+			}
+			
+			final List<RoutingHop> hops;
+			List<DistributionRegion> readRegions = new ArrayList<>();
+			boolean duplicateFree = false;
+			
+			if(regions == null && clusterOperationType == ClusterOperationType.READ_FROM_NODES) {
+				readRegions = getReadRegions(regions);
+				duplicateFree = isDuplicateFree(regions, readRegions, false);
+				hops = RoutingHopHelper.getRoutingHopsForRegions(readRegions);
+			} else {
+				hops = getHops(regions);
+			}
 			
 			if(hops.isEmpty()) {
 				logger.error("Got empty hop list by bbox {} read {}", boundingBox, clusterOperationType);
@@ -159,12 +231,16 @@ public abstract class AbtractClusterFutureBuilder {
 				final BBoxDBConnection connection
 					= membershipConnectionService.getConnectionForInstance(instance);
 
+				duplicateFree = duplicateFree && hasReferencePointFilter(connection);
+
 				final RoutingHeader routingHeader = new RoutingHeader((short) 0, Arrays.asList(hop));
 
 				final Supplier<List<NetworkOperationFuture>> future = buildFuture(connection, routingHeader);
 
 				futures.addAll(future.get());
 			}
+			
+			setDuplicateFreeResult(duplicateFree, readRegions);
 
 			return futures;
 		};
@@ -180,14 +256,136 @@ public abstract class AbtractClusterFutureBuilder {
 	protected abstract Supplier<List<NetworkOperationFuture>> buildFuture(
 			final BBoxDBConnection connection, final RoutingHeader routingHeader);
 	
+	/**
+	 * Is the result of the futures free of duplicates? Servers with the reference point 
+	 * filter capability return each entity only by the region that contains the reference 
+	 * point of the entity. So, the result contains no duplicates, as long as all answering 
+	 * servers have this capability, no nested regions are read and each region is read 
+	 * from one system. The value is determined when the supplier is called.
+	 * 
+	 * Entities that are not covered by a single read region can still be returned by 
+	 * multiple regions (e.g., when a server can't determine the reference point), 
+	 * see isDuplicateCandidate.
+	 * 
+	 * @return
+	 */
+	public boolean isDuplicateFreeResult() {
+		return duplicateFreeResult;
+	}
+	
+	/**
+	 * Can the entity occur more than once in a duplicate free result? This is the 
+	 * case for all entities, that are not covered by a single leaf region, which 
+	 * was read by the last created futures.
+	 * 
+	 * @param entity
+	 * @return
+	 */
+	public boolean isDuplicateCandidate(final PagedTransferableEntity entity) {
+		final DistributionRegion coveringRegion = DistributionRegionHelper.getCoveringLeafRegion(
+				distributionRegion, entity.getBoundingBox());
+		
+		if(coveringRegion == null) {
+			return true;
+		}
+		
+		return ! readRegionIds.contains(coveringRegion.getRegionId());
+	}
+	
+	/**
+	 * Set the duplicate free state and the read regions of the created futures
+	 * @param duplicateFree
+	 * @param readRegions
+	 */
+	private void setDuplicateFreeResult(final boolean duplicateFree, 
+			final List<DistributionRegion> readRegions) {
+		
+		readRegionIds = readRegions.stream()
+				.map(r -> r.getRegionId())
+				.collect(Collectors.toSet());
+		
+		duplicateFreeResult = duplicateFree;
+	}
+	
+	/**
+	 * Does the server behind the connection filter the results by the reference point
+	 * @param connection
+	 * @return
+	 */
+	private static boolean hasReferencePointFilter(final BBoxDBConnection connection) {
+		if(connection == null) {
+			return false;
+		}
+		
+		return connection.getConnectionCapabilities().hasReferencePointFilter();
+	}
+	
+	/**
+	 * Get the supplied regions
+	 * @return the regions or null, if the regions are determined by the bounding box
+	 */
+	private List<DistributionRegion> getSuppliedRegions() {
+		if(regionSupplier == null) {
+			return null;
+		}
+		
+		return regionSupplier.get();
+	}
+	
+	/**
+	 * Is the result of the read regions free of duplicates
+	 * @param regions - the supplied regions
+	 * @param readRegions
+	 * @param oneReplicatePerRegion
+	 * @return
+	 */
+	private boolean isDuplicateFree(final List<DistributionRegion> regions, 
+			final List<DistributionRegion> readRegions, final boolean oneReplicatePerRegion) {
+		
+		// The regions are not determined by the bounding box (e.g., by the key directory)
+		if(regions != null) {
+			return false;
+		}
+		
+		if(DistributionRegionHelper.containsNestedRegions(readRegions)) {
+			return false;
+		}
+		
+		if(oneReplicatePerRegion) {
+			return true;
+		}
+		
+		return readRegions.stream().allMatch(r -> r.getSystems().size() <= 1);
+	}
+	
+	/**
+	 * Get the regions for a read operation
+	 * @param regions - the supplied regions
+	 * @return
+	 */
+	private List<DistributionRegion> getReadRegions(final List<DistributionRegion> regions) {
+		if(regions != null) {
+			return regions;
+		}
+		
+		return RoutingHopHelper.getRegionsForPredicate(distributionRegion, boundingBox, 
+				DistributionRegionHelper.PREDICATE_REGIONS_FOR_READ);
+	}
+	
 	/**
 	 * Get the hop for the operation
+	 * @param regions - the supplied regions
 	 * @return
 	 */
-	private List<RoutingHop> getHops() {
+	private List<RoutingHop> getHops(final List<DistributionRegion> regions) {
+		
+		if(regions != null) {
+			return RoutingHopHelper.getRoutingHopsForRegions(regions);
+		}
+		
 		switch(clusterOperationType) {
 			case READ_FROM_NODES:
-				return RoutingHopHelper.getRoutingHopsForRead(distributionRegion, boundingBox);
+				return RoutingHopHelper.getRoutingHopsForRegions(getReadRegions(regions));
 			case WRITE_TO_NODES:
 				return RoutingHopHelper.getRoutingHopsForWrite(distributionRegion, boundingBox);
 			default:
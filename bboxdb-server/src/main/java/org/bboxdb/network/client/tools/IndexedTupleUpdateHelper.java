@@ -21,8 +21,6 @@ import java.util.List;
 import java.util.Optional;
 
 import org.bboxdb.commons.math.Hyperrectangle;
-import org.bboxdb.distribution.zookeeper.DistributionGroupAdapter;
-import org.bboxdb.distribution.zookeeper.TupleStoreAdapter;
 import org.bboxdb.distribution.zookeeper.ZookeeperClient;
 import org.bboxdb.distribution.zookeeper.ZookeeperException;
 import org.bboxdb.distribution.zookeeper.ZookeeperNotFoundException;
@@ -30,11 +28,7 @@ import org.bboxdb.misc.BBoxDBException;
 import org.bboxdb.network.client.BBoxDBCluster;
 import org.bboxdb.network.client.future.EmptyResultFuture;
 import org.bboxdb.network.client.future.TupleListFuture;
-import org.bboxdb.storage.entity.DistributionGroupConfiguration;
-import org.bboxdb.storage.entity.DistributionGroupConfigurationBuilder;
 import org.bboxdb.storage.entity.Tuple;
-import org.bboxdb.storage.entity.TupleStoreConfiguration;
-import org.bboxdb.storage.entity.TupleStoreConfigurationBuilder;
 import org.bboxdb.storage.entity.TupleStoreName;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -178,8 +172,9 @@ public class IndexedTupleUpdateHelper {
 		final String indexTableName = convertTablenameToIndexTablename(table);
 		final TupleStoreName tupleStoreName = new TupleStoreName(indexTableName);
 
-		createDistributionGroupIfMissing(zookeeperClient, tupleStoreName);
-		createTableIfMissing(zookeeperClient, indexTableName, tupleStoreName);
+		TableCreationHelper.createDistributionGroupIfMissing(cluster, zookeeperClient, 
+				tupleStoreName, DEFAULT_REPLIATION_FACTOR);
+		TableCreationHelper.createTableIfMissing(cluster, zookeeperClient, indexTableName, tupleStoreName);
 		return indexTableName;
 	}
 
@@ -255,82 +250,6 @@ public class IndexedTupleUpdateHelper {
 	}
 
 
-	/**
-	 * Create the index table if missing
-	 *
-	 * @param zookeeperClient
-	 * @param tablename
-	 * @param tupleStoreName
-	 * @throws ZookeeperException
-	 * @throws ZookeeperNotFoundException
-	 * @throws BBoxDBException
-	 * @throws InterruptedException
-	 */
-	private void createTableIfMissing(final ZookeeperClient zookeeperClient, final String tablename,
-			final TupleStoreName tupleStoreName)
-			throws ZookeeperException, ZookeeperNotFoundException, BBoxDBException, InterruptedException {
-
-		final String distributionGroup = tupleStoreName.getDistributionGroup();
-
-		final TupleStoreAdapter tupleStoreAdapter = new TupleStoreAdapter(zookeeperClient);
-		final List<String> allTables = tupleStoreAdapter.getAllTables(distributionGroup);
-
-		if(allTables.contains(tablename)) {
-			return;
-		}
-
-		logger.info("Table {} not found, creating", tablename);
-		final TupleStoreConfiguration tableconfig = TupleStoreConfigurationBuilder
-				.create()
-				.allowDuplicates(false)
-				.build();
-
-		final EmptyResultFuture createResult = cluster.createTable(tablename, tableconfig);
-		createResult.waitForCompletion();
-
-		if(createResult.isFailed()) {
-			throw new BBoxDBException("Got an exception while creating table " + createResult.getAllMessages());
-		}
-	}
-
-	/**
-	 * Create the distribution group if missing
-	 *
-	 * @param zookeeperClient
-	 * @param tupleStoreName
-	 * @throws ZookeeperException
-	 * @throws ZookeeperNotFoundException
-	 * @throws BBoxDBException
-	 * @throws InterruptedException
-	 */
-	private void createDistributionGroupIfMissing(final ZookeeperClient zookeeperClient,
-			final TupleStoreName tupleStoreName)
-			throws ZookeeperException, ZookeeperNotFoundException, BBoxDBException, InterruptedException {
-
-		final String distributionGroup = tupleStoreName.getDistributionGroup();
-
-		final DistributionGroupAdapter distributionGroupAdapter = new DistributionGroupAdapter(zookeeperClient);
-
-		final List<String> allGroups = distributionGroupAdapter.getDistributionGroups();
-
-		if(allGroups.contains(distributionGroup)) {
-			return;
-		}
-
-		logger.info("Distribution group {} not found, creating", distributionGroup);
-		final DistributionGroupConfiguration dgroupConfig = DistributionGroupConfigurationBuilder
-				.create(1)
-				.withReplicationFactor(DEFAULT_REPLIATION_FACTOR)
-				.build();
-
-		final EmptyResultFuture dgroupFuture = cluster.createDistributionGroup(distributionGroup, dgroupConfig);
-		dgroupFuture.waitForCompletion();
-
-		if(dgroupFuture.isFailed()) {
-			throw new BBoxDBException("Unable to create distribution group: " + dgroupFuture.getAllMessages());
-		}
-	}
-
 	/**
 	 * Get the name of the index table
 	 *
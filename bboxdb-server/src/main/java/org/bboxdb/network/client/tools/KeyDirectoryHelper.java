@@ -0,0 +1,482 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2018 the BBoxDB project
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ *******************************************************************************/
+package org.bboxdb.network.client.tools;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.bboxdb.commons.MicroSecondTimestampProvider;
+import org.bboxdb.commons.math.Hyperrectangle;
+import org.bboxdb.distribution.partitioner.SpacePartitionerHelper;
+import org.bboxdb.distribution.region.DistributionRegion;
+import org.bboxdb.distribution.region.DistributionRegionHelper;
+import org.bboxdb.distribution.zookeeper.ZookeeperClient;
+import org.bboxdb.distribution.zookeeper.ZookeeperException;
+import org.bboxdb.distribution.zookeeper.ZookeeperNotFoundException;
+import org.bboxdb.misc.BBoxDBException;
+import org.bboxdb.network.client.BBoxDBCluster;
+import org.bboxdb.network.client.future.EmptyResultFuture;
+import org.bboxdb.network.client.future.TupleListFuture;
+import org.bboxdb.network.routing.RoutingHopHelper;
+import org.bboxdb.storage.entity.DeletedTuple;
+import org.bboxdb.storage.entity.Tuple;
+import org.bboxdb.storage.entity.TupleStoreName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.annotations.VisibleForTesting;
+
+/**
+ * The key directory stores for each key the regions the tuples of 
+ * the key are written to. Key queries are only sent to these regions 
+ * instead of being broadcasted to all regions of the distribution group.
+ * 
+ * The directory is a property of the table (see TupleStoreConfiguration), so 
+ * every cluster client writing to the table maintains it. The directory is stored 
+ * like the index of the IndexedTupleUpdateHelper in an own one dimensional 
+ * distribution group. The entries are written in the same future as the tuples.
+ * 
+ * A split region keeps its entries, they are resolved to the readable child 
+ * regions. The entries of merged regions are unknown, the key query falls back 
+ * to a broadcast. After each key query, the entries are replaced by the current 
+ * write regions of the found tuples: missing entries are added and entries 
+ * without tuples (deleted keys, split and merged regions) are removed. Entries 
+ * younger than the grace period are never removed, the tuples of the entry 
+ * might still be in transit.
+ */
+public class KeyDirectoryHelper {
+
+	/**
+	 * The reference to the BBoxDB cluster
+	 */
+	private final BBoxDBCluster cluster;
+	
+	/**
+	 * The tables with existing directory tables
+	 */
+	private final Set<String> knownDirectoryTables;
+
+	/**
+	 * The prefix for the key directory distribution group
+	 */
+	public final static String KDIR_DGROUP_PREFIX = "#kdir#";
+	
+	/**
+	 * The separator between the key and the region id
+	 */
+	private final static char REGION_SEPARATOR = '#';
+
+	/**
+	 * The default replication factor
+	 */
+	private final static short DEFAULT_REPLIATION_FACTOR = (short) 1;
+	
+	/**
+	 * The grace period before an entry without tuples is removed
+	 */
+	public final static long ENTRY_GRACE_PERIOD_MS = TimeUnit.MINUTES.toMillis(1);
+
+	/**
+	 * The Logger
+	 */
+	private final static Logger logger = LoggerFactory.getLogger(KeyDirectoryHelper.class);
+
+	public KeyDirectoryHelper(final BBoxDBCluster cluster) {
+		this.cluster = cluster;
+		this.knownDirectoryTables = ConcurrentHashMap.newKeySet();
+	}
+
+	/**
+	 * Create the directory table for the given table if missing
+	 * 
+	 * @param table
+	 * @return
+	 * @throws BBoxDBException 
+	 */
+	public String createMissingTables(final String table) throws BBoxDBException {
+		
+		final String directoryTableName = convertTablenameToDirectoryTablename(table);
+
+		if(knownDirectoryTables.contains(table)) {
+			return directoryTableName;
+		}
+		
+		try {
+			final ZookeeperClient zookeeperClient = cluster.getZookeeperClient();
+			final TupleStoreName tupleStoreName = new TupleStoreName(directoryTableName);
+	
+			TableCreationHelper.createDistributionGroupIfMissing(cluster, zookeeperClient, 
+					tupleStoreName, DEFAULT_REPLIATION_FACTOR);
+			TableCreationHelper.createTableIfMissing(cluster, zookeeperClient, directoryTableName, 
+					tupleStoreName);
+		} catch (ZookeeperException | ZookeeperNotFoundException e) {
+			throw new BBoxDBException(e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new BBoxDBException(e);
+		}
+		
+		knownDirectoryTables.add(table);
+		
+		return directoryTableName;
+	}
+	
+	/**
+	 * Does the directory table for the given table exist
+	 * 
+	 * @param table
+	 * @return
+	 * @throws BBoxDBException
+	 */
+	public boolean isDirectoryAvailable(final String table) throws BBoxDBException {
+		
+		if(knownDirectoryTables.contains(table)) {
+			return true;
+		}
+		
+		try {
+			final String directoryTableName = convertTablenameToDirectoryTablename(table);
+			final TupleStoreName tupleStoreName = new TupleStoreName(directoryTableName);
+			
+			final boolean known = cluster.getZookeeperClient().getTupleStoreAdapter()
+					.isTableKnown(tupleStoreName);
+			
+			if(known) {
+				knownDirectoryTables.add(table);
+			}
+			
+			return known;
+		} catch (ZookeeperException e) {
+			throw new BBoxDBException(e);
+		}
+	}
+	
+	/**
+	 * Get the directory tuples for the given tuples. One directory tuple is created
+	 * for each region the tuple is written to.
+	 * 
+	 * @param rootRegion
+	 * @param tuples
+	 * @param boundingBoxFunction - the bounding box that is used to determine the regions
+	 * @return
+	 */
+	public List<Tuple> getDirectoryTuples(final DistributionRegion rootRegion, 
+			final List<Tuple> tuples, final Function<Tuple, Hyperrectangle> boundingBoxFunction) {
+		
+		final List<Tuple> directoryTuples = new ArrayList<>();
+		
+		for(final Tuple tuple : tuples) {
+			final String key = tuple.getKey();
+			final Hyperrectangle directoryBox = getBoundingBoxForKey(key);
+			
+			final List<DistributionRegion> regions = RoutingHopHelper.getRegionsForPredicate(
+					rootRegion, boundingBoxFunction.apply(tuple), 
+					DistributionRegionHelper.PREDICATE_REGIONS_FOR_WRITE);
+			
+			for(final DistributionRegion region : regions) {
+				final long regionId = region.getRegionId();
+				final String directoryKey = getDirectoryKey(key, regionId);
+				final byte[] value = Long.toString(regionId).getBytes();
+				directoryTuples.add(new Tuple(directoryKey, directoryBox, value));
+			}
+		}
+		
+		return directoryTuples;
+	}
+	
+	/**
+	 * Read the directory entries of the key. The future is not waited for, the 
+	 * caller chains the key query to the returned future.
+	 * 
+	 * @param table
+	 * @param key
+	 * @return
+	 * @throws BBoxDBException
+	 */
+	public TupleListFuture queryDirectory(final String table, final String key) 
+			throws BBoxDBException {
+		
+		final String directoryTableName = convertTablenameToDirectoryTablename(table);
+		final Hyperrectangle boundingBox = getBoundingBoxForKey(key);
+		
+		return cluster.queryRectangle(directoryTableName, boundingBox);
+	}
+	
+	/**
+	 * Get the regions that needs to be read to get all tuples for the key. 
+	 * 
+	 * @param table
+	 * @param key
+	 * @param directoryFuture - the completed directory query
+	 * @return the regions, an empty list if the key has no tuples or null, if the 
+	 * 	regions are unknown and the query needs to be sent to all regions.
+	 */
+	public List<DistributionRegion> getRegionsForKey(final String table, final String key, 
+			final TupleListFuture directoryFuture) {
+		
+		if(directoryFuture.isFailed()) {
+			logger.error("Key directory query future failed {}", directoryFuture.getAllMessages());
+			return null;
+		}
+		
+		final Set<Long> regionIds = getRegionIdsForKey(key, directoryFuture);
+		
+		if(regionIds.isEmpty()) {
+			return new ArrayList<>();
+		}
+		
+		try {
+			final DistributionRegion rootRegion = SpacePartitionerHelper.getRootNode(table);
+			
+			final Map<Long, DistributionRegion> allRegions = rootRegion.getThisAndChildRegions()
+					.stream()
+					.collect(Collectors.toMap(DistributionRegion::getRegionId, Function.identity()));
+			
+			final Set<DistributionRegion> result = new HashSet<>();
+			
+			for(final long regionId : regionIds) {
+				final DistributionRegion region = allRegions.get(regionId);
+				
+				// Region is merged, the location of the tuples is unknown
+				if(region == null) {
+					logger.debug("Region {} of key {} is unknown, using broadcast", regionId, key);
+					return null;
+				}
+				
+				// The region might be split, read the active child regions
+				final List<DistributionRegion> readRegions = region.getThisAndChildRegions(
+						d -> DistributionRegionHelper.PREDICATE_REGIONS_FOR_READ.test(d.getState()));
+				
+				if(readRegions.isEmpty()) {
+					logger.debug("Region {} of key {} is not readable, using broadcast", regionId, key);
+					return null;
+				}
+				
+				result.addAll(readRegions);
+			}
+			
+			return new ArrayList<>(result);
+		} catch (BBoxDBException e) {
+			logger.warn("Unable to read regions of table " + table + ", using broadcast", e);
+			return null;
+		}
+	}
+	
+	/**
+	 * Read the region ids for the key from the directory entries
+	 * 
+	 * @param key
+	 * @param directoryFuture
+	 * @return
+	 */
+	private Set<Long> getRegionIdsForKey(final String key, final TupleListFuture directoryFuture) {
+		
+		final Set<Long> regionIds = new HashSet<>();
+		
+		for(final Tuple tuple : directoryFuture) {
+			final Optional<Long> regionId = getRegionIdFromDirectoryKey(tuple.getKey(), key);
+			
+			if(regionId.isPresent()) {
+				regionIds.add(regionId.get());
+			}
+		}
+		
+		return regionIds;
+	}
+	
+	/**
+	 * Replace the directory entries of the key by the write regions of the tuples 
+	 * returned by the key query. Called when the key query is done.
+	 * 
+	 * @param table
+	 * @param key
+	 * @param directoryFuture
+	 * @param queryFuture
+	 */
+	public void maintainDirectory(final String table, final String key, 
+			final TupleListFuture directoryFuture, final TupleListFuture queryFuture) {
+		
+		if(directoryFuture.isFailed() || queryFuture.isFailed()) {
+			return;
+		}
+		
+		// Paged results are not fetched only for the maintenance
+		for(int i = 0; i < queryFuture.getNumberOfResultObjets(); i++) {
+			if(! queryFuture.isCompleteResult(i)) {
+				return;
+			}
+		}
+		
+		try {
+			final DistributionRegion rootRegion = SpacePartitionerHelper.getRootNode(table);
+			
+			final List<Tuple> directoryTuples = new ArrayList<>();
+			directoryFuture.forEach(directoryTuples::add);
+			
+			final List<Tuple> resultTuples = new ArrayList<>();
+			queryFuture.forEach(resultTuples::add);
+			
+			final long now = MicroSecondTimestampProvider.getNewTimestamp();
+			
+			final List<Tuple> maintenanceTuples = getMaintenanceTuples(rootRegion, key, 
+					directoryTuples, resultTuples, now);
+			
+			if(maintenanceTuples.isEmpty()) {
+				return;
+			}
+			
+			logger.debug("Updating {} key directory entries of key {}", maintenanceTuples.size(), key);
+			
+			final String directoryTableName = convertTablenameToDirectoryTablename(table);
+			final EmptyResultFuture future = cluster.insertTuples(directoryTableName, maintenanceTuples);
+			
+			future.addCompletionCallback(() -> {
+				if(future.isFailed()) {
+					logger.warn("Unable to update key directory of key {} {}", key, 
+							future.getAllMessages());
+				}
+			});
+		} catch (BBoxDBException e) {
+			logger.warn("Unable to update key directory of key " + key, e);
+		}
+	}
+	
+	/**
+	 * Get the tuples that are needed to replace the directory entries of the key by the 
+	 * write regions of the found tuples. Missing entries are added, entries without 
+	 * tuples are removed after the grace period.
+	 * 
+	 * @param rootRegion
+	 * @param key
+	 * @param directoryTuples - the current directory entries
+	 * @param resultTuples - the tuples of the key query
+	 * @param now - the current time in microseconds
+	 * @return
+	 */
+	@VisibleForTesting
+	public List<Tuple> getMaintenanceTuples(final DistributionRegion rootRegion, final String key, 
+			final List<Tuple> directoryTuples, final List<Tuple> resultTuples, final long now) {
+		
+		final List<Tuple> tuplesToRegister = resultTuples.stream()
+				.filter(t -> ! (t instanceof DeletedTuple))
+				.filter(t -> key.equals(t.getKey()))
+				.collect(Collectors.toList());
+		
+		final Map<String, Tuple> neededEntries = new HashMap<>();
+		
+		for(final Tuple tuple : getDirectoryTuples(rootRegion, tuplesToRegister, Tuple::getBoundingBox)) {
+			neededEntries.put(tuple.getKey(), tuple);
+		}
+		
+		final long graceTimestamp = now - TimeUnit.MILLISECONDS.toMicros(ENTRY_GRACE_PERIOD_MS);
+		final List<Tuple> maintenanceTuples = new ArrayList<>();
+		
+		for(final Tuple directoryTuple : directoryTuples) {
+			final String directoryKey = directoryTuple.getKey();
+			
+			if(! getRegionIdFromDirectoryKey(directoryKey, key).isPresent()) {
+				continue;
+			}
+			
+			// Entry is still needed
+			if(neededEntries.remove(directoryKey) != null) {
+				continue;
+			}
+			
+			if(directoryTuple.getVersionTimestamp() >= graceTimestamp) {
+				continue;
+			}
+			
+			// Newer registrations of the region are kept
+			maintenanceTuples.add(new DeletedTuple(directoryKey, directoryTuple.getVersionTimestamp() + 1));
+		}
+		
+		maintenanceTuples.addAll(neededEntries.values());
+		
+		return maintenanceTuples;
+	}
+	
+	/**
+	 * Get the key of the directory entry
+	 * 
+	 * @param key
+	 * @param regionId
+	 * @return
+	 */
+	@VisibleForTesting
+	public static String getDirectoryKey(final String key, final long regionId) {
+		return key + REGION_SEPARATOR + regionId;
+	}
+	
+	/**
+	 * Get the region id from the directory key, if the directory key belongs to the key
+	 * 
+	 * @param directoryKey
+	 * @param key
+	 * @return
+	 */
+	@VisibleForTesting
+	public static Optional<Long> getRegionIdFromDirectoryKey(final String directoryKey, 
+			final String key) {
+		
+		final int separatorPos = directoryKey.lastIndexOf(REGION_SEPARATOR);
+		
+		if(separatorPos == -1 || separatorPos != key.length()) {
+			return Optional.empty();
+		}
+		
+		if(! directoryKey.startsWith(key)) {
+			return Optional.empty();
+		}
+		
+		try {
+			return Optional.of(Long.parseLong(directoryKey.substring(separatorPos + 1)));
+		} catch (NumberFormatException e) {
+			return Optional.empty();
+		}
+	}
+	
+	/**
+	 * Get the bounding box for the given key
+	 * @param key
+	 * @return
+	 */
+	private Hyperrectangle getBoundingBoxForKey(final String key) {
+		final int hashCode = key.hashCode();
+		return new Hyperrectangle((double) hashCode, (double) hashCode);
+	}
+
+	/**
+	 * Get the name of the directory table
+	 *
+	 * @param table
+	 * @return
+	 */
+	public static String convertTablenameToDirectoryTablename(final String table) {
+		return KDIR_DGROUP_PREFIX + table;
+	}
+}
@@ -0,0 +1,125 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2018 the BBoxDB project
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ *******************************************************************************/
+package org.bboxdb.network.client.tools;
+
+import java.util.List;
+
+import org.bboxdb.distribution.zookeeper.DistributionGroupAdapter;
+import org.bboxdb.distribution.zookeeper.TupleStoreAdapter;
+import org.bboxdb.distribution.zookeeper.ZookeeperClient;
+import org.bboxdb.distribution.zookeeper.ZookeeperException;
+import org.bboxdb.distribution.zookeeper.ZookeeperNotFoundException;
+import org.bboxdb.misc.BBoxDBException;
+import org.bboxdb.network.client.BBoxDBCluster;
+import org.bboxdb.network.client.future.EmptyResultFuture;
+import org.bboxdb.storage.entity.DistributionGroupConfiguration;
+import org.bboxdb.storage.entity.DistributionGroupConfigurationBuilder;
+import org.bboxdb.storage.entity.TupleStoreConfiguration;
+import org.bboxdb.storage.entity.TupleStoreConfigurationBuilder;
+import org.bboxdb.storage.entity.TupleStoreName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class TableCreationHelper {
+
+	/**
+	 * The Logger
+	 */
+	private final static Logger logger = LoggerFactory.getLogger(TableCreationHelper.class);
+
+	/**
+	 * Create the table if missing (used for the client side maintained index tables)
+	 *
+	 * @param cluster
+	 * @param zookeeperClient
+	 * @param tablename
+	 * @param tupleStoreName
+	 * @throws ZookeeperException
+	 * @throws ZookeeperNotFoundException
+	 * @throws BBoxDBException
+	 * @throws InterruptedException
+	 */
+	public static void createTableIfMissing(final BBoxDBCluster cluster, 
+			final ZookeeperClient zookeeperClient, final String tablename,
+			final TupleStoreName tupleStoreName)
+			throws ZookeeperException, ZookeeperNotFoundException, BBoxDBException, InterruptedException {
+
+		final String distributionGroup = tupleStoreName.getDistributionGroup();
+
+		final TupleStoreAdapter tupleStoreAdapter = new TupleStoreAdapter(zookeeperClient);
+		final List<String> allTables = tupleStoreAdapter.getAllTables(distributionGroup);
+
+		if(allTables.contains(tablename)) {
+			return;
+		}
+
+		logger.info("Table {} not found, creating", tablename);
+		final TupleStoreConfiguration tableconfig = TupleStoreConfigurationBuilder
+				.create()
+				.allowDuplicates(false)
+				.build();
+
+		final EmptyResultFuture createResult = cluster.createTable(tablename, tableconfig);
+		createResult.waitForCompletion();
+
+		if(createResult.isFailed()) {
+			throw new BBoxDBException("Got an exception while creating table " + createResult.getAllMessages());
+		}
+	}
+
+	/**
+	 * Create the one dimensional distribution group if missing
+	 *
+	 * @param cluster
+	 * @param zookeeperClient
+	 * @param tupleStoreName
+	 * @param replicationFactor
+	 * @throws ZookeeperException
+	 * @throws ZookeeperNotFoundException
+	 * @throws BBoxDBException
+	 * @throws InterruptedException
+	 */
+	public static void createDistributionGroupIfMissing(final BBoxDBCluster cluster, 
+			final ZookeeperClient zookeeperClient, final TupleStoreName tupleStoreName, 
+			final short replicationFactor)
+			throws ZookeeperException, ZookeeperNotFoundException, BBoxDBException, InterruptedException {
+
+		final String distributionGroup = tupleStoreName.getDistributionGroup();
+
+		final DistributionGroupAdapter distributionGroupAdapter = new DistributionGroupAdapter(zookeeperClient);
+
+		final List<String> allGroups = distributionGroupAdapter.getDistributionGroups();
+
+		if(allGroups.contains(distributionGroup)) {
+			return;
+		}
+
+		logger.info("Distribution group {} not found, creating", distributionGroup);
+		final DistributionGroupConfiguration dgroupConfig = DistributionGroupConfigurationBuilder
+				.create(1)
+				.withReplicationFactor(replicationFactor)
+				.build();
+
+		final EmptyResultFuture dgroupFuture = cluster.createDistributionGroup(distributionGroup, dgroupConfig);
+		dgroupFuture.waitForCompletion();
+
+		if(dgroupFuture.isFailed()) {
+			throw new BBoxDBException("Unable to create distribution group: " + dgroupFuture.getAllMessages());
+		}
+	}
+}
@@ -18,15 +18,15 @@
 package org.bboxdb.network.packages.request;
 
 import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.nio.ByteBuffer;
 import java.util.List;
-import java.util.zip.GZIPOutputStream;
 
 import org.bboxdb.misc.Const;
+import org.bboxdb.network.NetworkCompression;
+import org.bboxdb.network.NetworkCompression.CompressedBytes;
 import org.bboxdb.network.NetworkConst;
 import org.bboxdb.network.NetworkHelper;
 import org.bboxdb.network.NetworkPackageDecoder;
@@ -57,35 +57,23 @@ public class CompressionEnvelopeRequest extends NetworkRequestPackage {
 
 	public long writeToOutputStream(final OutputStream outputStream) throws PackageEncodeException {
 		try {
-			if(compressionType != NetworkConst.COMPRESSION_TYPE_GZIP) {
-				throw new PackageEncodeException("Unknown compression method: " + compressionType);
-			}
-			
-			final ByteArrayOutputStream baos = new ByteArrayOutputStream();
-			final OutputStream os = new GZIPOutputStream(baos);
-			
-			// Write packages
-			for(final NetworkRequestPackage networkRequestPackage : networkRequestPackages) {
-				networkRequestPackage.writeToOutputStream(os);
-			}
-			
-			os.close();
-			final byte[] compressedBytes = baos.toByteArray();
+			final CompressedBytes compressedBytes = NetworkHelper.compressPackages(compressionType, 
+					networkRequestPackages);
 			
 			// Header
 			final ByteBuffer bb = ByteBuffer.allocate(4);
 			bb.order(Const.APPLICATION_BYTE_ORDER);
-			bb.put(compressionType);
+			bb.put(compressedBytes.getCompression().getId());
 			bb.putShort((short) networkRequestPackages.size());
 			
 			// Body length
-			final long bodyLength = bb.capacity() + compressedBytes.length;
+			final long bodyLength = bb.capacity() + compressedBytes.getCompressedLength();
 
 			final long headerLength = appendRequestPackageHeader(bodyLength, outputStream);
 			
 			// Write body
 			outputStream.write(bb.array());
-			outputStream.write(compressedBytes);
+			outputStream.write(compressedBytes.getData(), 0, compressedBytes.getCompressedLength());
 			
 			return headerLength + bodyLength;
 		} catch (IOException e) {
@@ -109,8 +97,9 @@ public class CompressionEnvelopeRequest extends NetworkRequestPackage {
 		}
 		
 		final byte compressionType = encodedPackage.get();
+		final NetworkCompression compression = NetworkCompression.fromId(compressionType);
 		
-		if(compressionType != NetworkConst.COMPRESSION_TYPE_GZIP) {
+		if(compression == null) {
 			throw new PackageEncodeException("Unknown compression type: " + compressionType);
 		}
 		
@@ -118,10 +107,14 @@ public class CompressionEnvelopeRequest extends NetworkRequestPackage {
 		encodedPackage.getShort();
 		encodedPackage.get();
 		
-		final byte[] compressedBytes = new byte[encodedPackage.remaining()];
-		encodedPackage.get(compressedBytes, 0, encodedPackage.remaining());
+		// Uncompressed envelopes are read directly from the package
+		if(compression == NetworkCompression.NONE) {
+			return new ByteArrayInputStream(encodedPackage.array(), 
+					encodedPackage.position(), encodedPackage.remaining());
+		}
 		
-		final byte[] uncompressedBytes = NetworkHelper.uncompressBytes(compressionType, compressedBytes);
+		final byte[] uncompressedBytes = compression.decompress(encodedPackage.array(), 
+				encodedPackage.position(), encodedPackage.remaining());
 		
 		final ByteArrayInputStream bis = new ByteArrayInputStream(uncompressedBytes);
 		
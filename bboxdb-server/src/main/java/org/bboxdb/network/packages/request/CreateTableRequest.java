@@ -27,7 +27,18 @@ import org.bboxdb.network.packages.NetworkRequestPackage;
 import org.bboxdb.network.packages.PackageEncodeException;
 import org.bboxdb.storage.entity.TupleStoreConfiguration;
 import org.bboxdb.storage.entity.TupleStoreName;
+import org.bboxdb.storage.sstable.SSTableCompression;
+import org.bboxdb.storage.wal.WriteAheadLogSyncPolicy;
 
+/**
+ * The body of the request consists of a fixed part of 20 bytes, the table name, 
+ * the spatial index reader and writer. The WAL sync policy uses the formerly unused 
+ * byte of the fixed part. The SSTable compression and the table flags (e.g., the 
+ * key directory) are appended as optional trailing bytes, only if they differ from 
+ * the defaults. So, requests for uncompressed tables without flags can be read by 
+ * older versions and requests of older versions can be read by this version. Older 
+ * versions reject requests with flags, so the flags are never silently dropped.
+ */
 public class CreateTableRequest extends NetworkRequestPackage {
 	
 	/**
@@ -39,6 +50,11 @@ public class CreateTableRequest extends NetworkRequestPackage {
 	 * The configuration of the SSTable
 	 */
 	private final TupleStoreConfiguration ssTableConfiguration;
+	
+	/**
+	 * The flag for the key directory
+	 */
+	private final static byte FLAG_KEY_DIRECTORY = 0x01;
 
 	public CreateTableRequest(final short sequenceNumber, final String table, 
 			final TupleStoreConfiguration ssTableConfiguration) {
@@ -62,8 +78,8 @@ public class CreateTableRequest extends NetworkRequestPackage {
 				bb.put((byte) 0x00);
 			}
 			
-			// Unused
-			bb.put((byte) 0x00);
+			// WAL sync policy
+			bb.put((byte) ssTableConfiguration.getWalSyncPolicy().ordinal());
 			
 			// TTL
 			bb.putLong(ssTableConfiguration.getTTL());
@@ -79,9 +95,19 @@ public class CreateTableRequest extends NetworkRequestPackage {
 			final byte[] spatialIndexWriterBytes = ssTableConfiguration.getSpatialIndexWriter().getBytes();
 			bb.putShort((short) spatialIndexWriterBytes.length);
 			
+			// Table flags (optional, the compression byte is written before the flags)
+			final byte flags = ssTableConfiguration.isKeyDirectory() ? FLAG_KEY_DIRECTORY : 0;
+			final int flagsLength = (flags == 0) ? 0 : 1;
+			
+			// SSTable compression (optional)
+			final SSTableCompression sstableCompression = ssTableConfiguration.getSstableCompression();
+			final int compressionLength = (sstableCompression == SSTableCompression.NONE 
+					&& flagsLength == 0) ? 0 : 1;
+			
 			// Body length
 			final long bodyLength = bb.capacity() + tableBytes.length 
-					+ spatialIndexReaderBytes.length + spatialIndexWriterBytes.length;
+					+ spatialIndexReaderBytes.length + spatialIndexWriterBytes.length
+					+ compressionLength + flagsLength;
 			
 			final long headerLength = appendRequestPackageHeader(bodyLength, outputStream);
 
@@ -91,6 +117,14 @@ public class CreateTableRequest extends NetworkRequestPackage {
 			outputStream.write(spatialIndexReaderBytes);
 			outputStream.write(spatialIndexWriterBytes);
 			
+			if(compressionLength > 0) {
+				outputStream.write(sstableCompression.getId());
+			}
+			
+			if(flagsLength > 0) {
+				outputStream.write(flags);
+			}
+			
 			return headerLength + bodyLength;
 		} catch (IOException e) {
 			throw new PackageEncodeException("Got exception while converting package into bytes", e);
@@ -122,8 +156,14 @@ public class CreateTableRequest extends NetworkRequestPackage {
 			allowDuplicates = true;
 		}
 		
-		//Unused
-		encodedPackage.get();
+		// WAL sync policy
+		final byte walSyncPolicyByte = encodedPackage.get();
+		
+		if(walSyncPolicyByte < 0 || walSyncPolicyByte >= WriteAheadLogSyncPolicy.values().length) {
+			throw new PackageEncodeException("Unknown WAL sync policy: " + walSyncPolicyByte);
+		}
+		
+		final WriteAheadLogSyncPolicy walSyncPolicy = WriteAheadLogSyncPolicy.values()[walSyncPolicyByte];
 		
 		// TTL
 		final long ttl = encodedPackage.getLong();
@@ -151,6 +191,29 @@ public class CreateTableRequest extends NetworkRequestPackage {
 		final byte[] spatialWriterBytes = new byte[spatialWriterLength];
 		encodedPackage.get(spatialWriterBytes, 0, spatialWriterBytes.length);
 		final String spatialIndexWriter = new String(spatialWriterBytes);
+		
+		// SSTable compression (optional, not send by older versions)
+		SSTableCompression sstableCompression = SSTableCompression.NONE;
+		
+		if(encodedPackage.hasRemaining()) {
+			final byte sstableCompressionByte = encodedPackage.get();
+			sstableCompression = SSTableCompression.fromId(sstableCompressionByte);
+			
+			if(sstableCompression == null) {
+				throw new PackageEncodeException("Unknown SSTable compression: " + sstableCompressionByte);
+			}
+		}
+		
+		// Table flags (optional, not send by older versions)
+		byte flags = 0;
+		
+		if(encodedPackage.hasRemaining()) {
+			flags = encodedPackage.get();
+			
+			if((flags & ~FLAG_KEY_DIRECTORY) != 0) {
+				throw new PackageEncodeException("Unknown table flags: " + flags);
+			}
+		}
 				
 		final TupleStoreConfiguration tupleStoreConfiguration = new TupleStoreConfiguration();
 		tupleStoreConfiguration.setAllowDuplicates(allowDuplicates);
@@ -158,6 +221,9 @@ public class CreateTableRequest extends NetworkRequestPackage {
 		tupleStoreConfiguration.setVersions(versions);
 		tupleStoreConfiguration.setSpatialIndexReader(spatialIndexReader);
 		tupleStoreConfiguration.setSpatialIndexWriter(spatialIndexWriter);
+		tupleStoreConfiguration.setWalSyncPolicy(walSyncPolicy);
+		tupleStoreConfiguration.setSstableCompression(sstableCompression);
+		tupleStoreConfiguration.setKeyDirectory((flags & FLAG_KEY_DIRECTORY) != 0);
 		
 		if(encodedPackage.remaining() != 0) {
 			throw new PackageEncodeException("Some bytes are left after decoding: " + encodedPackage.remaining());
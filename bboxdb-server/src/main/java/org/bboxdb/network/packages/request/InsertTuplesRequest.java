@@ -0,0 +1,209 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2018 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.network.packages.request;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.bboxdb.misc.Const;
+import org.bboxdb.network.NetworkConst;
+import org.bboxdb.network.NetworkPackageDecoder;
+import org.bboxdb.network.packages.NetworkRequestPackage;
+import org.bboxdb.network.packages.NetworkTupleEncoderDecoder;
+import org.bboxdb.network.packages.PackageEncodeException;
+import org.bboxdb.network.routing.RoutingHeader;
+import org.bboxdb.storage.entity.Tuple;
+import org.bboxdb.storage.entity.TupleStoreName;
+
+public class InsertTuplesRequest extends NetworkRequestPackage {
+
+	/**
+	 * The name of the table
+	 */
+	protected final TupleStoreName table;
+
+	/**
+	 * The tuples
+	 */
+	protected final List<Tuple> tuples;
+
+	/**
+	 * Create package from parameter
+	 *
+	 * @param sequenceNumber
+	 * @param routingHeader
+	 * @param table
+	 * @param tuples
+	 */
+	public InsertTuplesRequest(final short sequenceNumber, final RoutingHeader routingHeader,
+			final TupleStoreName table, final List<Tuple> tuples) {
+
+		super(sequenceNumber, routingHeader);
+
+		this.table = table;
+		this.tuples = tuples;
+	}
+
+	/**
+	 * Decode the encoded package into a object
+	 *
+	 * @param encodedPackage
+	 * @return
+	 * @throws IOException
+	 * @throws PackageEncodeException
+	 */
+	public static InsertTuplesRequest decodeTuple(final ByteBuffer encodedPackage)
+			throws IOException, PackageEncodeException {
+
+		final short sequenceNumber = NetworkPackageDecoder.getRequestIDFromRequestPackage(encodedPackage);
+
+		final boolean decodeResult = NetworkPackageDecoder.validateRequestPackageHeader(encodedPackage,
+				NetworkConst.REQUEST_TYPE_INSERT_TUPLES);
+
+		if(decodeResult == false) {
+			throw new PackageEncodeException("Unable to decode package");
+		}
+
+		final short tableLength = encodedPackage.getShort();
+
+		// Unused
+		encodedPackage.getShort();
+
+		final int numberOfTuples = encodedPackage.getInt();
+
+		final byte[] tableBytes = new byte[tableLength];
+		encodedPackage.get(tableBytes, 0, tableBytes.length);
+		final String table = new String(tableBytes);
+
+		final List<Tuple> tuples = new ArrayList<>(numberOfTuples);
+
+		for(int i = 0; i < numberOfTuples; i++) {
+			tuples.add(NetworkTupleEncoderDecoder.decodeTuple(encodedPackage));
+		}
+
+		if(encodedPackage.remaining() != 0) {
+			throw new PackageEncodeException("Some bytes are left after decoding: " + encodedPackage.remaining());
+		}
+
+		final RoutingHeader routingHeader = NetworkPackageDecoder.getRoutingHeaderFromRequestPackage(encodedPackage);
+
+		return new InsertTuplesRequest(sequenceNumber, routingHeader, new TupleStoreName(table), tuples);
+	}
+
+	@Override
+	public long writeToOutputStream(final OutputStream outputStream) throws PackageEncodeException {
+
+		try {
+			final byte[] tableBytes = table.getFullname().getBytes();
+
+			final ByteBuffer bb = ByteBuffer.allocate(8);
+			bb.order(Const.APPLICATION_BYTE_ORDER);
+			bb.putShort((short) tableBytes.length);
+
+			// Unused
+			bb.putShort((short) 0);
+
+			bb.putInt(tuples.size());
+
+			final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+			bos.write(bb.array());
+			bos.write(tableBytes);
+
+			for(final Tuple tuple : tuples) {
+				NetworkTupleEncoderDecoder.encodeTuple(tuple, bos);
+			}
+
+			bos.close();
+
+			// Body length
+			final long bodyLength = bos.size();
+
+			// Unrouted package
+			final long headerLength = appendRequestPackageHeader(bodyLength, outputStream);
+
+			// Write tuples
+			bos.writeTo(outputStream);
+
+			return headerLength + bodyLength;
+		} catch (IOException e) {
+			throw new PackageEncodeException("Got exception while converting package into bytes", e);
+		}
+	}
+
+	/**
+	 * Get the referenced table
+	 * @return
+	 */
+	public TupleStoreName getTable() {
+		return table;
+	}
+
+	/**
+	 * Get the referenced tuples
+	 * @return
+	 */
+	public List<Tuple> getTuples() {
+		return tuples;
+	}
+
+	@Override
+	public int hashCode() {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + ((table == null) ? 0 : table.hashCode());
+		result = prime * result + ((tuples == null) ? 0 : tuples.hashCode());
+		return result;
+	}
+
+	@Override
+	public boolean equals(Object obj) {
+		if (this == obj)
+			return true;
+		if (obj == null)
+			return false;
+		if (getClass() != obj.getClass())
+			return false;
+		InsertTuplesRequest other = (InsertTuplesRequest) obj;
+		if (table == null) {
+			if (other.table != null)
+				return false;
+		} else if (!table.equals(other.table))
+			return false;
+		if (tuples == null) {
+			if (other.tuples != null)
+				return false;
+		} else if (!tuples.equals(other.tuples))
+			return false;
+		return true;
+	}
+
+	@Override
+	public String toString() {
+		return "InsertTuplesRequest [table=" + table + ", tuples=" + tuples.size() + "]";
+	}
+
+	@Override
+	public byte getPackageType() {
+		return NetworkConst.REQUEST_TYPE_INSERT_TUPLES;
+	}
+
+}
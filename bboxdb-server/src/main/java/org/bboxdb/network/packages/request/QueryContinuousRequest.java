@@ -37,12 +37,32 @@ public class QueryContinuousRequest extends NetworkQueryRequestPackage {
 	 * The query plan
 	 */
 	private final ContinuousQueryPlan queryPlan;
+	
+	/**
+	 * The amount of result tuples the server can send per page. Encoded as 
+	 * an optional trailing field, so the package of older clients can still 
+	 * be decoded. The default is not encoded.
+	 */
+	private final short resultCredits;
+	
+	/**
+	 * The default amount of result credits
+	 */
+	public final static short DEFAULT_RESULT_CREDITS = 1000;
 
 	public QueryContinuousRequest(final short sequenceNumber, 
 			final RoutingHeader routingHeader, final ContinuousQueryPlan queryPlan) {
 		
+		this(sequenceNumber, routingHeader, queryPlan, DEFAULT_RESULT_CREDITS);
+	}
+	
+	public QueryContinuousRequest(final short sequenceNumber, 
+			final RoutingHeader routingHeader, final ContinuousQueryPlan queryPlan, 
+			final short resultCredits) {
+		
 		super(sequenceNumber, routingHeader);
 		this.queryPlan = queryPlan;
+		this.resultCredits = resultCredits;
 	}
 
 	@Override
@@ -59,12 +79,23 @@ public class QueryContinuousRequest extends NetworkQueryRequestPackage {
 			bb.put(NetworkConst.UNUSED_BYTE);
 			bb.putInt((int) queryPlanBytes.length);
 			
-			final long bodyLength = bb.capacity() + queryPlanBytes.length;
+			final ByteBuffer trailerBuffer = ByteBuffer.allocate(
+					resultCredits == DEFAULT_RESULT_CREDITS ? 0 : 2);
+			trailerBuffer.order(Const.APPLICATION_BYTE_ORDER);
+			
+			if(trailerBuffer.capacity() > 0) {
+				trailerBuffer.putShort(resultCredits);
+			}
+			
+			final long bodyLength = bb.capacity() + queryPlanBytes.length 
+					+ trailerBuffer.capacity();
+			
 			final long headerLength = appendRequestPackageHeader(bodyLength, outputStream);
 
 			// Write body
 			outputStream.write(bb.array());
 			outputStream.write(queryPlanBytes);
+			outputStream.write(trailerBuffer.array());
 			
 			return headerLength + bodyLength;
 		} catch (IOException e) {
@@ -103,6 +134,10 @@ public class QueryContinuousRequest extends NetworkQueryRequestPackage {
 		encodedPackage.get(queryPlanBytes, 0, queryPlanBytes.length);
 		final String queryPlanString = new String(queryPlanBytes);
 		
+		// The result credits are not sent by older clients
+		final short resultCredits = (encodedPackage.remaining() >= 2) 
+				? encodedPackage.getShort() : DEFAULT_RESULT_CREDITS;
+		
 		if(encodedPackage.remaining() != 0) {
 			throw new PackageEncodeException("Some bytes are left after decoding: " + encodedPackage.remaining());
 		}
@@ -112,7 +147,7 @@ public class QueryContinuousRequest extends NetworkQueryRequestPackage {
 		try {
 			final ContinuousQueryPlan queryPlan = ContinuousQueryPlanSerializer.fromJSON(queryPlanString);
 
-			return new QueryContinuousRequest(sequenceNumber, routingHeader, queryPlan);
+			return new QueryContinuousRequest(sequenceNumber, routingHeader, queryPlan, resultCredits);
 		} catch (BBoxDBException e) {
 			throw new PackageEncodeException(e);
 		}
@@ -131,5 +166,9 @@ public class QueryContinuousRequest extends NetworkQueryRequestPackage {
 	public ContinuousQueryPlan getQueryPlan() {
 		return queryPlan;
 	}
+	
+	public short getResultCredits() {
+		return resultCredits;
+	}
 
 }
@@ -8,10 +8,13 @@ public class TupleAndBoundingBox {
 	private final Tuple tuple;
 	
 	private final Hyperrectangle boundingBox;
+	
+	private final Hyperrectangle rawBoundingBox;
 
 	public TupleAndBoundingBox(final Tuple tuple, final Hyperrectangle boundingBox) {
 		this.tuple = tuple;
 		this.boundingBox = boundingBox;
+		this.rawBoundingBox = tuple.getBoundingBox();
 	}
 
 	public Tuple getTuple() {
@@ -22,9 +25,18 @@ public class TupleAndBoundingBox {
 		return boundingBox;
 	}
 
+	/**
+	 * Get the bounding box of the tuple before the transformations
+	 * @return
+	 */
+	public Hyperrectangle getRawBoundingBox() {
+		return rawBoundingBox;
+	}
+
 	@Override
 	public String toString() {
-		return "TupleAndBoundingBox [tuple=" + tuple + ", boundingBox=" + boundingBox + "]";
+		return "TupleAndBoundingBox [tuple=" + tuple + ", boundingBox=" + boundingBox 
+				+ ", rawBoundingBox=" + rawBoundingBox + "]";
 	}
 	
 }
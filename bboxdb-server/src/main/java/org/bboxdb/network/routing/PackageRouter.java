@@ -30,8 +30,10 @@ import org.bboxdb.misc.BBoxDBException;
 import org.bboxdb.network.client.BBoxDBClient;
 import org.bboxdb.network.client.BBoxDBConnection;
 import org.bboxdb.network.client.future.EmptyResultFuture;
+import org.bboxdb.network.packages.NetworkRequestPackage;
 import org.bboxdb.network.packages.PackageEncodeException;
 import org.bboxdb.network.packages.request.InsertTupleRequest;
+import org.bboxdb.network.packages.request.InsertTuplesRequest;
 import org.bboxdb.network.packages.response.ErrorResponse;
 import org.bboxdb.network.packages.response.SuccessResponse;
 import org.bboxdb.network.server.ErrorMessages;
@@ -76,6 +78,31 @@ public class PackageRouter {
 	 */
 	public void performInsertPackageRoutingAsync(final short packageSequence, 
 			final InsertTupleRequest insertTupleRequest) {
+		
+		performRoutingAsync(packageSequence, insertTupleRequest, 
+				() -> sendInsertPackage(insertTupleRequest));
+	}
+	
+	/**
+	 * Perform the routing task for a multi tuple insert async
+	 * @param packageSequence
+	 * @param insertTuplesRequest
+	 */
+	public void performInsertTuplesPackageRoutingAsync(final short packageSequence, 
+			final InsertTuplesRequest insertTuplesRequest) {
+		
+		performRoutingAsync(packageSequence, insertTuplesRequest, 
+				() -> sendInsertTuplesPackage(insertTuplesRequest));
+	}
+	
+	/**
+	 * Perform the routing task async
+	 * @param packageSequence
+	 * @param requestPackage
+	 * @param packageSender
+	 */
+	private void performRoutingAsync(final short packageSequence, 
+			final NetworkRequestPackage requestPackage, final PackageSender packageSender) {
 	
 		final Runnable routeRunable = new ExceptionSafeRunnable()  {
 
@@ -85,13 +112,13 @@ public class PackageRouter {
 				boolean operationSuccess = true;
 
 				try {
-					final RoutingHeader routingHeader = insertTupleRequest.getRoutingHeader();
+					final RoutingHeader routingHeader = requestPackage.getRoutingHeader();
 					
 					assert (routingHeader.isRoutedPackage()) : "Tuple is not a routed package";
 					
 					if(! routingHeader.reachedFinalInstance()) {
 						routingHeader.dispatchToNextHop();				
-						operationSuccess = sendInsertPackage(insertTupleRequest);
+						operationSuccess = packageSender.sendPackage();
 					}
 					
 				}  catch(InterruptedException e) {
@@ -164,6 +191,53 @@ public class PackageRouter {
 		return operationSuccess;
 	}
 	
+	/**
+	 * @param insertTuplesRequest
+	 * @return
+	 * @throws InterruptedException
+	 * @throws PackageEncodeException 
+	 */
+	protected boolean sendInsertTuplesPackage(final InsertTuplesRequest insertTuplesRequest) 
+			throws InterruptedException, PackageEncodeException {
+		
+		final RoutingHeader routingHeader = insertTuplesRequest.getRoutingHeader();
+		final RoutingHop routingHop = routingHeader.getRoutingHop();
+		final BBoxDBInstance receiverInstance = routingHop.getDistributedInstance();
+				
+		final BBoxDBConnection connection = MembershipConnectionService
+				.getInstance()
+				.getConnectionForInstance(receiverInstance);
+		
+		if(connection == null) {
+			logger.error("Unable to get a connection to system: {}", receiverInstance);
+			return false;
+		} 
+				
+		final BBoxDBClient bboxDBClient = connection.getBboxDBClient();
+		final EmptyResultFuture insertFuture = bboxDBClient.insertTuples(
+				insertTuplesRequest.getTable().getFullname(), 
+				insertTuplesRequest.getTuples(), 
+				routingHeader);
+		
+		try {
+			insertFuture.waitForCompletion(ROUTING_TIMEOUT_IN_SEC, TimeUnit.SECONDS);
+		} catch (TimeoutException e) {
+			logger.warn("Routing timeout, retry routing: {}", connection);
+			return false;
+		}
+		
+		final boolean operationSuccess = (! insertFuture.isFailed());
+		return operationSuccess;
+	}
+	
+	/**
+	 * Send the routed package to the next hop
+	 */
+	@FunctionalInterface
+	private interface PackageSender {
+		public boolean sendPackage() throws InterruptedException, PackageEncodeException;
+	}
+	
 	
 	/**
 	 * Ensure that the package is routed to the correct system
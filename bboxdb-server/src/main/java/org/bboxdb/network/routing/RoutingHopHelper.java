@@ -70,6 +70,21 @@ public class RoutingHopHelper {
 				DistributionRegionHelper.PREDICATE_REGIONS_FOR_WRITE);
 	}
 
+	/**
+	 * Get a routing list for the given regions
+	 * 
+	 * @param regions
+	 * @return
+	 */
+	public static List<RoutingHop> getRoutingHopsForRegions(final List<DistributionRegion> regions) {
+		
+		final List<BBoxDBInstance> instances = MembershipConnectionService.getInstance().getAllInstances();
+
+		final Map<InetSocketAddress, RoutingHop> hops = mergeHops(regions);
+
+		return removeUnavailableHops(instances, hops);
+	}
+
 	/**
 	 * Get a routing list for the given predicate
 	 *
@@ -102,11 +117,9 @@ public class RoutingHopHelper {
 	public static List<DistributionRegion> getRegionsForPredicate(final DistributionRegion rootRegion,
 			final Hyperrectangle boundingBox, final Predicate<DistributionRegionState> statePredicate) {
 		
-		final Predicate<DistributionRegion> predicate = (d) -> {
-			return statePredicate.test(d.getState()) && d.getConveringBox().intersects(boundingBox);
-		};
+		final Predicate<DistributionRegion> predicate = (d) -> statePredicate.test(d.getState());
 
-		return rootRegion.getThisAndChildRegions(predicate);
+		return rootRegion.getThisAndChildRegions(boundingBox, predicate);
 	}
 
 	/**
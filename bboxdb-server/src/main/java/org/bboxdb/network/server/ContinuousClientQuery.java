@@ -23,13 +23,17 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
 import org.bboxdb.commons.math.Hyperrectangle;
 import org.bboxdb.distribution.partitioner.SpacePartitioner;
 import org.bboxdb.distribution.partitioner.SpacePartitionerCache;
-import org.bboxdb.distribution.partitioner.regionsplit.RangeQueryExecutor;
-import org.bboxdb.distribution.partitioner.regionsplit.RangeQueryExecutor.ExecutionPolicy;
 import org.bboxdb.distribution.region.DistributionRegionIdMapper;
 import org.bboxdb.distribution.zookeeper.ZookeeperException;
 import org.bboxdb.misc.BBoxDBException;
@@ -53,6 +57,9 @@ import org.bboxdb.storage.tuplestore.manager.TupleStoreManagerRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import io.prometheus.client.Counter;
+import io.prometheus.client.Summary;
+
 public class ContinuousClientQuery implements ClientQuery {
 
 	/**
@@ -83,7 +90,7 @@ public class ContinuousClientQuery implements ClientQuery {
 	/**
 	 * Is the continuous query active
 	 */
-	private boolean queryActive = true;
+	private volatile boolean queryActive = true;
 
 	/**
 	 * The tuples for the given key
@@ -91,14 +98,24 @@ public class ContinuousClientQuery implements ClientQuery {
 	private final BlockingQueue<JoinedTuple> tupleQueue;
 
 	/**
-	 * The maximal queue capacity
+	 * The minimal queue capacity
 	 */
-	private final static int MAX_QUEUE_CAPACITY = 1024;
+	private final static int MIN_QUEUE_CAPACITY = 1024;
 	
 	/**
-	 * The number of tuples per page
+	 * The queue capacity in multiples of the result credits
 	 */
-	private final static long TUPLES_PER_PAGE = 1;
+	private final static int QUEUE_CAPACITY_CREDITS = 4;
+	
+	/**
+	 * The amount of tuples the client accepts per page
+	 */
+	private final short resultCredits;
+	
+	/**
+	 * The amount of result tuples that are lost due to a queue overflow
+	 */
+	private final AtomicLong lostTuples;
 
 	/**
 	 * The tuple insert callback
@@ -115,11 +132,76 @@ public class ContinuousClientQuery implements ClientQuery {
 	 */
 	private final ContinuousQueryPlan queryPlan;
 
+	/**
+	 * The stream tuples that are waiting for the join evaluation
+	 */
+	private final BlockingQueue<Tuple> pendingStreamTuples;
+	
+	/**
+	 * Is a join task of the query scheduled
+	 */
+	private final AtomicBoolean joinTaskScheduled;
+	
+	/**
+	 * The cache of the join table
+	 */
+	private ContinuousJoinTableCache joinTableCache;
+	
+	/**
+	 * The maximal amount of stream tuples that are waiting for the join evaluation
+	 */
+	private final static int MAX_PENDING_STREAM_TUPLES = 1024;
+	
+	/**
+	 * The maximal amount of stream tuples that are joined by one task
+	 */
+	private final static int MAX_TUPLES_PER_JOIN_TASK = 128;
+	
+	/**
+	 * The maximal time to wait for further tuples after the first tuple of a page (in ms)
+	 */
+	private final static long PAGE_FILL_TIMEOUT_MS = 100;
+	
+	/**
+	 * The executor for the continuous joins
+	 */
+	private final static ExecutorService joinExecutor;
+	
+	static {
+		final AtomicInteger threadNumber = new AtomicInteger();
+		
+		joinExecutor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), (r) -> {
+			final Thread thread = new Thread(r);
+			thread.setName("Continuous join thread " + threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+	
+	/**
+	 * The lost tuples counter
+	 */
+	private final static Counter lostTuplesTotal = Counter.build()
+			.name("bboxdb_continuous_query_lost_tuples_total")
+			.help("Continuous query tuples that are lost because a queue is full.").register();
+	
+	/**
+	 * The join latency
+	 */
+	private final static Summary joinLatency = Summary.build()
+			.name("bboxdb_continuous_join_latency_seconds")
+			.help("Continuous join latency per stream tuple in seconds.").register();
+
 	/**
 	 * The dead pill for the queue
 	 */
 	private final static JoinedTuple RED_PILL = new JoinedTuple(new ArrayList<>(), new ArrayList<>());
 	
+	/**
+	 * The overflow pill, wakes up the consumer to report the lost tuples
+	 */
+	private final static JoinedTuple OVERFLOW_PILL = new JoinedTuple(new ArrayList<>(), new ArrayList<>());
+	
 	/**
 	 * The Logger
 	 */
@@ -128,7 +210,7 @@ public class ContinuousClientQuery implements ClientQuery {
 
 	public ContinuousClientQuery(final ContinuousQueryPlan queryPlan,
 			final ClientConnectionHandler clientConnectionHandler,
-			final short querySequence) {
+			final short querySequence, final short resultCredits) {
 
 			this.queryPlan = queryPlan;
 			this.boundingBox = queryPlan.getQueryRange();
@@ -136,7 +218,12 @@ public class ContinuousClientQuery implements ClientQuery {
 			
 			this.clientConnectionHandler = clientConnectionHandler;
 			this.querySequence = querySequence;
-			this.tupleQueue = new ArrayBlockingQueue<>(MAX_QUEUE_CAPACITY);
+			this.resultCredits = (short) Math.max(1, resultCredits);
+			this.tupleQueue = new ArrayBlockingQueue<>(
+					Math.max(MIN_QUEUE_CAPACITY, QUEUE_CAPACITY_CREDITS * this.resultCredits));
+			this.lostTuples = new AtomicLong(0);
+			this.pendingStreamTuples = new ArrayBlockingQueue<>(MAX_PENDING_STREAM_TUPLES);
+			this.joinTaskScheduled = new AtomicBoolean(false);
 
 			this.totalSendTuples = 0;
 
@@ -161,119 +248,131 @@ public class ContinuousClientQuery implements ClientQuery {
 	}
 
 	/**
-	 * Get the callback for a table query
+	 * Get the callback for a table query. The callback only queues the stream
+	 * tuple, the join is evaluated by the join executor to keep the insert
+	 * path free from the join table reads.
 	 * @return
 	 */
 	private Consumer<Tuple> getCallbackForTableQuery() {
-		
-		final ContinuousTableQueryPlan tableQueryPlan = (ContinuousTableQueryPlan) queryPlan;
-		
 		return (t) -> {
-			final List<TupleTransformation> transformations = tableQueryPlan.getStreamTransformation(); 
-			final TupleAndBoundingBox tuple = applyStreamTupleTransformations(transformations, t);
-						
-			// Tuple was removed during transformation
-			if(tuple == null) {
+			if(! pendingStreamTuples.offer(t)) {
+				handleQueueOverflow();
 				return;
 			}
 			
-			final Consumer<Tuple> tupleConsumer = (tupleToConsume) -> {
-				final List<TupleTransformation> tupleTransfor 
-					= tableQueryPlan.getTableTransformation(); 
+			scheduleJoinTask();
+		};
+	}
+	
+	/**
+	 * Schedule the join task, if the task is not already scheduled
+	 */
+	private void scheduleJoinTask() {
+		if(joinTaskScheduled.compareAndSet(false, true)) {
+			joinExecutor.submit(() -> processPendingStreamTuples());
+		}
+	}
+	
+	/**
+	 * Join the pending stream tuples. A task processes a limited amount of
+	 * tuples and reschedules itself, so the queries share the join executor.
+	 */
+	private void processPendingStreamTuples() {
+		try {
+			for(int processedTuples = 0; processedTuples < MAX_TUPLES_PER_JOIN_TASK; processedTuples++) {
+				final Tuple tuple = pendingStreamTuples.poll();
 				
-				final TupleAndBoundingBox transformedTuple 
-					= applyStreamTupleTransformations(tupleTransfor, tupleToConsume);
+				if(tuple == null) {
+					break;
+				}
 				
-				// Is the tuple important for the query?
-				if(tuple.getBoundingBox().intersects(transformedTuple.getBoundingBox())) {
-					if(queryPlan.isReportPositive()) {
-						final JoinedTuple joinedTuple = new JoinedTuple(
-								Arrays.asList(t, transformedTuple.getTuple()), 
-								Arrays.asList(requestTable.getFullname(), requestTable.getFullname()));
-						queueTupleForClientProcessing(joinedTuple);
-					}
-				} else {
-					if(! queryPlan.isReportPositive()) {
-						final JoinedTuple joinedTuple = new JoinedTuple(
-								Arrays.asList(t, transformedTuple.getTuple()), 
-								Arrays.asList(requestTable.getFullname(), requestTable.getFullname()));
-						queueTupleForClientProcessing(joinedTuple);
-					}
+				if(! queryActive) {
+					pendingStreamTuples.clear();
+					break;
 				}
-			};
-			
-			try {
-				final TupleStoreName tupleStoreName = new TupleStoreName(tableQueryPlan.getJoinTable());
-				final RangeQueryExecutor rangeQueryExecutor = new RangeQueryExecutor(tupleStoreName, 
-						tuple.getBoundingBox(), 
-						tupleConsumer, clientConnectionHandler.getStorageRegistry(),
-						ExecutionPolicy.ALL);
 				
-				rangeQueryExecutor.performDataRead();
-			} catch (BBoxDBException e) {
-				logger.error("Got an exeeption while quering tuples", e);
-				queryActive = false;
-				return;
-			} catch (InterruptedException e) {
-				Thread.currentThread().interrupt();
-				queryActive = false;
-				return;
-			}	
-		};
+				joinStreamTuple(tuple);
+			}
+		} catch(Throwable e) {
+			logger.error("Got an exception while joining tuples", e);
+			queryActive = false;
+		} finally {
+			joinTaskScheduled.set(false);
+			
+			if(queryActive && ! pendingStreamTuples.isEmpty()) {
+				scheduleJoinTask();
+			}
+		}
 	}
 
 	/**
-	 * Get the consumer for the const query
-	 * @return
+	 * Join the stream tuple with the join table
+	 * @param streamTuple
 	 */
-	private Consumer<Tuple> getCallbackForConstQuery() {
+	private void joinStreamTuple(final Tuple streamTuple) {
+		final ContinuousTableQueryPlan tableQueryPlan = (ContinuousTableQueryPlan) queryPlan;
+		final List<TupleTransformation> transformations = tableQueryPlan.getStreamTransformation(); 
+		final TupleAndBoundingBox tuple = applyStreamTupleTransformations(transformations, streamTuple);
+					
+		// Tuple was removed during transformation
+		if(tuple == null || tuple.getBoundingBox() == null) {
+			return;
+		}
 		
-		final ContinuousConstQueryPlan constQueryPlan = (ContinuousConstQueryPlan) queryPlan;
+		final Consumer<TupleAndBoundingBox> tupleConsumer = (joinTuple) -> {
+			final JoinedTuple joinedTuple = new JoinedTuple(
+					Arrays.asList(streamTuple, joinTuple.getTuple()), 
+					Arrays.asList(requestTable.getFullname(), requestTable.getFullname()));
+			queueTupleForClientProcessing(joinedTuple);
+		};
 		
-		return (t) -> {
-			final List<TupleTransformation> transformations = constQueryPlan.getStreamTransformation(); 
-			final TupleAndBoundingBox tuple = applyStreamTupleTransformations(transformations, t);
-			
-			// Tuple was removed during transformation
-			if(tuple == null) {
-				return;
-			}
-			
-			// Is the tuple important for the query?
-			if(tuple.getBoundingBox().intersects(constQueryPlan.getCompareRectangle())) {
-				if(queryPlan.isReportPositive()) {
-					final JoinedTuple joinedTuple = new JoinedTuple(t, requestTable.getFullname());
-					queueTupleForClientProcessing(joinedTuple);
-				}
-			} else {
-				if(! queryPlan.isReportPositive()) {
-					final JoinedTuple joinedTuple = new JoinedTuple(t, requestTable.getFullname());
-					queueTupleForClientProcessing(joinedTuple);
+		final Summary.Timer joinTimer = joinLatency.startTimer();
+		
+		// The join and the release of the cache are synchronized, so the 
+		// cache is not released while a tuple is joined
+		try {
+			synchronized (this) {
+				// Query is closed and the cache is released
+				if(! queryActive || joinTableCache == null) {
+					return;
 				}
+				
+				joinTableCache.joinTuple(tuple.getBoundingBox(), queryPlan.isReportPositive(), tupleConsumer);
 			}
+		} catch (BBoxDBException e) {
+			logger.error("Got an exeeption while quering tuples", e);
+			queryActive = false;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			queryActive = false;
+		} finally {
+			joinTimer.observeDuration();
+		}
+	}
 
+	/**
+	 * Get the consumer for the const query. The stream transformations and the 
+	 * comparison with the compare rectangle are performed by the continuous 
+	 * query registry, the callback is only called for matching tuples.
+	 * @return
+	 */
+	private Consumer<Tuple> getCallbackForConstQuery() {
+		return (t) -> {
+			final JoinedTuple joinedTuple = new JoinedTuple(t, requestTable.getFullname());
+			queueTupleForClientProcessing(joinedTuple);
 		};
 	}
 
 	/**
 	 * Apply the stream transformations
-	 * @param constQueryPlan
+	 * @param transformations
 	 * @param inputTuple
 	 * @return
 	 */
 	private TupleAndBoundingBox applyStreamTupleTransformations(final List<TupleTransformation> transformations,
 			final Tuple inputTuple) {
-				
-		TupleAndBoundingBox tuple = new TupleAndBoundingBox(inputTuple, inputTuple.getBoundingBox());
-		for(final TupleTransformation transformation : transformations) {
-			tuple = transformation.apply(tuple);
-			
-			if(tuple == null) {
-				break;
-			}
-		}
 		
-		return tuple;
+		return QueryHelper.applyStreamTupleTransformations(transformations, inputTuple);
 	}
 
 	/**
@@ -284,7 +383,23 @@ public class ContinuousClientQuery implements ClientQuery {
 		final boolean insertResult = tupleQueue.offer(t);
 
 		if(! insertResult) {
-			logger.error("Unable to add tuple to continuous query, queue is full");
+			handleQueueOverflow();
+		}
+	}
+	
+	/**
+	 * Handle a queue overflow. The query is terminated with an error on the next 
+	 * page, so the client is informed that the result is incomplete. A consumer that 
+	 * waits on the empty result queue is woken up to send the error immediately.
+	 */
+	private void handleQueueOverflow() {
+		lostTuplesTotal.inc();
+		
+		if(lostTuples.getAndIncrement() == 0) {
+			logger.warn("Result queue of continuous query {} is full, terminating query", querySequence);
+			
+			// A full result queue wakes up the consumer anyway
+			tupleQueue.offer(OVERFLOW_PILL);
 		}
 	}
 
@@ -319,7 +434,18 @@ public class ContinuousClientQuery implements ClientQuery {
 
 			storageManager = QueryHelper.getTupleStoreManager(storageRegistry, tupleStoreName);
 
-			storageManager.registerInsertCallback(tupleInsertCallback);
+			if(queryPlan instanceof ContinuousConstQueryPlan) {
+				ContinuousQueryRegistry.registerQuery(storageManager, 
+						(ContinuousConstQueryPlan) queryPlan, tupleInsertCallback);
+			} else {
+				final ContinuousTableQueryPlan tableQueryPlan = (ContinuousTableQueryPlan) queryPlan;
+				
+				joinTableCache = ContinuousJoinTableCache.getCache(storageRegistry, 
+						new TupleStoreName(tableQueryPlan.getJoinTable()), 
+						tableQueryPlan.getTableTransformation());
+				
+				storageManager.registerInsertCallback(tupleInsertCallback);
+			}
 
 			// Remove tuple store insert listener on connection close
 			clientConnectionHandler.addConnectionClosedHandler((c) -> close());
@@ -333,18 +459,43 @@ public class ContinuousClientQuery implements ClientQuery {
 	public void fetchAndSendNextTuples(final short packageSequence) throws IOException, PackageEncodeException {
 
 		long sendTuplesInThisPage = 0;
+		long pageDeadline = 0;
 		clientConnectionHandler.writeResultPackage(new MultipleTupleStartResponse(packageSequence));
 
 		while(queryActive) {
-			if(sendTuplesInThisPage >= TUPLES_PER_PAGE) {
-				clientConnectionHandler.writeResultPackage(new PageEndResponse(packageSequence));
-				clientConnectionHandler.flushPendingCompressionPackages();
+			
+			if(lostTuples.get() > 0) {
+				handleLostTuples(packageSequence);
+				return;
+			}
+			
+			if(sendTuplesInThisPage >= resultCredits) {
+				sendPageEnd(packageSequence);
 				return;
 			}
 
 			try {
-				// Send next tuple or wait
-				final JoinedTuple tuple = tupleQueue.take();
+				// Wait for the first tuple of the page, the other tuples are 
+				// collected until the credits are used or the page fill timeout is reached
+				final JoinedTuple tuple;
+				
+				if(sendTuplesInThisPage == 0) {
+					tuple = tupleQueue.take();
+					pageDeadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(PAGE_FILL_TIMEOUT_MS);
+				} else {
+					tuple = tupleQueue.poll(pageDeadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+				}
+				
+				// No further tuples in time, send the page to the client
+				if(tuple == null) {
+					sendPageEnd(packageSequence);
+					return;
+				}
+				
+				// The lost tuples are reported on the next iteration
+				if(tuple == OVERFLOW_PILL) {
+					continue;
+				}
 				
 				if(tuple == RED_PILL) {
 					logger.info("Got the red pill from the queue, cancel query");
@@ -371,6 +522,35 @@ public class ContinuousClientQuery implements ClientQuery {
 		clientConnectionHandler.flushPendingCompressionPackages();	
 	}
 
+	/**
+	 * Send the end of the page. All tuples of the page are flushed together, 
+	 * so they are transferred in one compression envelope.
+	 * 
+	 * @param packageSequence
+	 * @throws IOException
+	 * @throws PackageEncodeException
+	 */
+	private void sendPageEnd(final short packageSequence) throws IOException, PackageEncodeException {
+		clientConnectionHandler.writeResultPackage(new PageEndResponse(packageSequence));
+		clientConnectionHandler.flushPendingCompressionPackages();
+	}
+	
+	/**
+	 * Terminate the query, because result tuples are lost
+	 * 
+	 * @param packageSequence
+	 * @throws IOException
+	 * @throws PackageEncodeException
+	 */
+	private void handleLostTuples(final short packageSequence) throws IOException, PackageEncodeException {
+		final String errorMessage = ErrorMessages.ERROR_QUERY_OVERFLOW 
+				+ " (" + lostTuples.get() + " tuples lost)";
+		
+		clientConnectionHandler.writeResultPackage(new ErrorResponse(packageSequence, errorMessage));
+		clientConnectionHandler.flushPendingCompressionPackages();
+		close();
+	}
+
 	@Override
 	public boolean isQueryDone() {
 		return (! queryActive);
@@ -379,17 +559,33 @@ public class ContinuousClientQuery implements ClientQuery {
 	@Override
 	public void close() {
 		logger.debug("Closing query {} (send {} result tuples)", querySequence, totalSendTuples);
+		
+		queryActive = false;
 
 		if(storageManager != null) {
-			storageManager.removeInsertCallback(tupleInsertCallback);
+			if(queryPlan instanceof ContinuousConstQueryPlan) {
+				ContinuousQueryRegistry.removeQuery(storageManager, tupleInsertCallback);
+			} else {
+				storageManager.removeInsertCallback(tupleInsertCallback);
+			}
 		}
-
-		queryActive = false;
+		
+		releaseJoinTableCache();
 		
 		// Cancel next page request
 		tupleQueue.offer(RED_PILL);
 	}
 
+	/**
+	 * Release the join table cache
+	 */
+	private synchronized void releaseJoinTableCache() {
+		if(joinTableCache != null) {
+			ContinuousJoinTableCache.releaseCache(joinTableCache);
+			joinTableCache = null;
+		}
+	}
+
 	@Override
 	public long getTotalSendTuples() {
 		return totalSendTuples;
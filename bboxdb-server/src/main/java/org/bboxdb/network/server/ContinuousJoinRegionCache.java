@@ -0,0 +1,437 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2018 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.network.server;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.bboxdb.commons.math.Hyperrectangle;
+import org.bboxdb.network.query.entity.TupleAndBoundingBox;
+import org.bboxdb.network.query.transformation.TupleTransformation;
+import org.bboxdb.storage.StorageManagerException;
+import org.bboxdb.storage.entity.DeletedTuple;
+import org.bboxdb.storage.entity.Tuple;
+import org.bboxdb.storage.sstable.spatialindex.SpatialIndexEntry;
+import org.bboxdb.storage.sstable.spatialindex.rtree.RTreeBuilder;
+import org.bboxdb.storage.tuplestore.ReadOnlyTupleStore;
+import org.bboxdb.storage.tuplestore.manager.TupleStoreAquirer;
+import org.bboxdb.storage.tuplestore.manager.TupleStoreManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The in memory copy of a local region of the join table. The cache is 
+ * loaded from the tuple stores and maintained by the insert and delete
+ * callbacks of the tuple store manager. 
+ * 
+ * The size of the cached tuples is accounted in a memory budget that is 
+ * shared by all region caches. When the budget is exhausted, the region 
+ * cache is evicted. An evicted region is read from disk.
+ */
+public class ContinuousJoinRegionCache {
+	
+	/**
+	 * The tuple store manager of the region
+	 */
+	private final TupleStoreManager storageManager;
+	
+	/**
+	 * The table transformations
+	 */
+	private final List<TupleTransformation> transformations;
+	
+	/**
+	 * The used bytes of all region caches
+	 */
+	private final AtomicLong usedBytes;
+	
+	/**
+	 * The max bytes of all region caches
+	 */
+	private final long maxBytes;
+	
+	/**
+	 * The bytes used by this region cache
+	 */
+	private long cachedBytes;
+	
+	/**
+	 * The newest version of each key (including deletions)
+	 */
+	private final Map<String, Long> versions;
+	
+	/**
+	 * The slot of the newest version of each key
+	 */
+	private final Map<String, Integer> keySlots;
+	
+	/**
+	 * The cached tuples, outdated slots are set to null
+	 */
+	private List<TupleAndBoundingBox> slots;
+	
+	/**
+	 * The R-trees of the raw bounding boxes of the cached tuples (one per dimension). 
+	 * The trees contain also the outdated slots, they are removed on the next rebuild.
+	 */
+	private Map<Integer, RTreeBuilder> rTrees;
+	
+	/**
+	 * The slots with a raw bounding box that can not be stored in the R-tree (e.g., the full space)
+	 */
+	private List<Integer> unindexedSlots;
+	
+	/**
+	 * The amount of outdated slots
+	 */
+	private int outdatedSlots;
+	
+	/**
+	 * Is the cache evicted
+	 */
+	private volatile boolean evicted;
+	
+	/**
+	 * The insert callback
+	 */
+	private final Consumer<Tuple> insertCallback;
+	
+	/**
+	 * The delete callback
+	 */
+	private final Consumer<DeletedTuple> deleteCallback;
+	
+	/**
+	 * The estimated memory overhead of a cached tuple (slot, key map and R-tree entry)
+	 */
+	private final static int TUPLE_OVERHEAD_BYTES = 128;
+	
+	/**
+	 * The estimated memory overhead of a known key version
+	 */
+	private final static int VERSION_OVERHEAD_BYTES = 64;
+	
+	/**
+	 * The minimal amount of outdated slots that trigger a rebuild of the index
+	 */
+	private final static int MIN_OUTDATED_SLOTS_FOR_REBUILD = 10_000;
+	
+	/**
+	 * The Logger
+	 */
+	private final static Logger logger = LoggerFactory.getLogger(ContinuousJoinRegionCache.class);
+	
+	public ContinuousJoinRegionCache(final TupleStoreManager storageManager, 
+			final List<TupleTransformation> transformations, final AtomicLong usedBytes, 
+			final long maxBytes) {
+		
+		this.storageManager = storageManager;
+		this.transformations = transformations;
+		this.usedBytes = usedBytes;
+		this.maxBytes = maxBytes;
+		this.cachedBytes = 0;
+		this.versions = new HashMap<>();
+		this.keySlots = new HashMap<>();
+		this.slots = new ArrayList<>();
+		this.rTrees = new HashMap<>();
+		this.unindexedSlots = new ArrayList<>();
+		this.outdatedSlots = 0;
+		this.evicted = false;
+		this.insertCallback = (t) -> updateTuple(t);
+		this.deleteCallback = (t) -> updateTuple(t);
+	}
+	
+	/**
+	 * Register the callbacks and load the existing tuples. The callbacks are 
+	 * registered first, so no tuple is lost between the load and the callbacks.
+	 * 
+	 * @throws StorageManagerException
+	 */
+	public void load() throws StorageManagerException {
+		storageManager.registerInsertCallback(insertCallback);
+		storageManager.registerDeleteCallback(deleteCallback);
+
+		try(final TupleStoreAquirer tupleStoreAquirer = new TupleStoreAquirer(storageManager)) {
+			for(final ReadOnlyTupleStore storage : tupleStoreAquirer.getTupleStores()) {
+				for(final Tuple tuple : storage) {
+					updateTuple(tuple);
+					
+					if(evicted) {
+						return;
+					}
+				}
+			}
+		} catch(StorageManagerException e) {
+			close();
+			throw e;
+		}
+	}
+	
+	/**
+	 * Remove the callbacks and the cached tuples, the used memory is released
+	 */
+	public synchronized void close() {
+		storageManager.removeInsertCallback(insertCallback);
+		storageManager.removeDeleteCallback(deleteCallback);
+		versions.clear();
+		keySlots.clear();
+		slots = new ArrayList<>();
+		rTrees = new HashMap<>();
+		unindexedSlots = new ArrayList<>();
+		outdatedSlots = 0;
+		
+		usedBytes.addAndGet(-cachedBytes);
+		cachedBytes = 0;
+	}
+	
+	/**
+	 * Is the cache evicted
+	 * @return
+	 */
+	public boolean isEvicted() {
+		return evicted;
+	}
+	
+	/**
+	 * Get the bytes used by this cache
+	 * @return
+	 */
+	public synchronized long getCachedBytes() {
+		return cachedBytes;
+	}
+	
+	/**
+	 * Get the amount of cached tuples
+	 * @return
+	 */
+	public synchronized int getCachedTuples() {
+		return keySlots.size();
+	}
+	
+	/**
+	 * Update the cache with the given tuple
+	 * @param tuple
+	 */
+	private synchronized void updateTuple(final Tuple tuple) {
+		
+		if(evicted) {
+			return;
+		}
+		
+		final String key = tuple.getKey();
+		final Long knownVersion = versions.get(key);
+		
+		// Outdated version
+		if(knownVersion != null && knownVersion >= tuple.getVersionTimestamp()) {
+			return;
+		}
+		
+		long requiredBytes = (knownVersion == null) ? getVersionSize(key) : 0;
+		TupleAndBoundingBox transformedTuple = null;
+		
+		if(! (tuple instanceof DeletedTuple)) {
+			transformedTuple = QueryHelper.applyStreamTupleTransformations(transformations, tuple);
+			
+			// Tuple was removed during transformation
+			if(transformedTuple != null && transformedTuple.getBoundingBox() != null) {
+				requiredBytes = requiredBytes + getTupleSize(transformedTuple);
+			} else {
+				transformedTuple = null;
+			}
+		}
+		
+		if(! reserveMemory(requiredBytes)) {
+			logger.info("Memory of the join table caches is exhausted ({} bytes), "
+					+ "evicting the cache for {} with {} bytes", maxBytes, 
+					storageManager.getTupleStoreName().getFullname(), cachedBytes);
+			evict();
+			return;
+		}
+		
+		versions.put(key, tuple.getVersionTimestamp());
+		
+		final Integer oldSlot = keySlots.remove(key);
+		
+		if(oldSlot != null) {
+			releaseMemory(getTupleSize(slots.get(oldSlot)));
+			slots.set(oldSlot, null);
+			outdatedSlots++;
+		}
+		
+		if(transformedTuple != null) {
+			addSlot(transformedTuple);
+		}
+		
+		if(outdatedSlots > MIN_OUTDATED_SLOTS_FOR_REBUILD && outdatedSlots > keySlots.size()) {
+			rebuildIndex();
+		}
+	}
+	
+	/**
+	 * Evict the cache, the region is read from disk afterwards
+	 */
+	private void evict() {
+		evicted = true;
+		close();
+	}
+	
+	/**
+	 * Reserve the memory in the shared budget
+	 * @param bytes
+	 * @return false if the budget is exhausted
+	 */
+	private boolean reserveMemory(final long bytes) {
+		if(usedBytes.addAndGet(bytes) > maxBytes) {
+			usedBytes.addAndGet(-bytes);
+			return false;
+		}
+		
+		cachedBytes = cachedBytes + bytes;
+		return true;
+	}
+	
+	/**
+	 * Release the memory in the shared budget
+	 * @param bytes
+	 */
+	private void releaseMemory(final long bytes) {
+		usedBytes.addAndGet(-bytes);
+		cachedBytes = cachedBytes - bytes;
+	}
+	
+	/**
+	 * Get the estimated memory size of a cached tuple
+	 * @param transformedTuple
+	 * @return
+	 */
+	private static long getTupleSize(final TupleAndBoundingBox transformedTuple) {
+		return transformedTuple.getTuple().getSize() 
+				+ transformedTuple.getBoundingBox().getSize() + TUPLE_OVERHEAD_BYTES;
+	}
+	
+	/**
+	 * Get the estimated memory size of a known key version
+	 * @param key
+	 * @return
+	 */
+	private static long getVersionSize(final String key) {
+		return 2 * key.length() + VERSION_OVERHEAD_BYTES;
+	}
+
+	/**
+	 * Add a new slot for the tuple
+	 * @param transformedTuple
+	 */
+	private void addSlot(final TupleAndBoundingBox transformedTuple) {
+		final int slot = slots.size();
+		final Hyperrectangle boundingBox = transformedTuple.getRawBoundingBox();
+		
+		slots.add(transformedTuple);
+		keySlots.put(transformedTuple.getTuple().getKey(), slot);
+		
+		if(boundingBox.getDimension() == 0) {
+			unindexedSlots.add(slot);
+		} else {
+			rTrees.computeIfAbsent(boundingBox.getDimension(), (d) -> new RTreeBuilder())
+				.insert(new SpatialIndexEntry(boundingBox, slot));
+		}
+	}
+	
+	/**
+	 * Rebuild the index without the outdated slots
+	 */
+	private void rebuildIndex() {
+		final List<TupleAndBoundingBox> oldSlots = slots;
+		final Map<Integer, List<SpatialIndexEntry>> entries = new HashMap<>();
+
+		slots = new ArrayList<>(keySlots.size());
+		rTrees = new HashMap<>();
+		unindexedSlots = new ArrayList<>();
+		keySlots.clear();
+		outdatedSlots = 0;
+		
+		for(final TupleAndBoundingBox transformedTuple : oldSlots) {
+			if(transformedTuple == null) {
+				continue;
+			}
+			
+			final int slot = slots.size();
+			final Hyperrectangle boundingBox = transformedTuple.getRawBoundingBox();
+			slots.add(transformedTuple);
+			keySlots.put(transformedTuple.getTuple().getKey(), slot);
+			
+			if(boundingBox.getDimension() == 0) {
+				unindexedSlots.add(slot);
+			} else {
+				entries.computeIfAbsent(boundingBox.getDimension(), (d) -> new ArrayList<>())
+					.add(new SpatialIndexEntry(boundingBox, slot));
+			}
+		}
+		
+		for(final Map.Entry<Integer, List<SpatialIndexEntry>> dimensionEntries : entries.entrySet()) {
+			final RTreeBuilder rTree = new RTreeBuilder();
+			rTree.bulkInsert(dimensionEntries.getValue());
+			rTrees.put(dimensionEntries.getKey(), rTree);
+		}
+	}
+	
+	/**
+	 * Get the cached join partners of the bounding box of a stream tuple. The candidates 
+	 * are determined by the raw bounding boxes, the transformed bounding boxes decide 
+	 * about a positive or negative match (see QueryHelper.isJoinPartner).
+	 * 
+	 * @param boundingBox
+	 * @param reportPositive
+	 * @return
+	 */
+	public synchronized List<TupleAndBoundingBox> getTuples(final Hyperrectangle boundingBox, 
+			final boolean reportPositive) {
+		
+		final List<TupleAndBoundingBox> result = new ArrayList<>();
+		final Consumer<TupleAndBoundingBox> candidateConsumer = (transformedTuple) -> {
+			if(transformedTuple != null 
+					&& QueryHelper.isJoinPartner(boundingBox, transformedTuple, reportPositive)) {
+				result.add(transformedTuple);
+			}
+		};
+		
+		// Unusual bounding boxes are compared with each tuple
+		if(boundingBox.getDimension() == 0) {
+			slots.forEach(candidateConsumer);
+			return result;
+		}
+		
+		for(final Integer slot : unindexedSlots) {
+			candidateConsumer.accept(slots.get(slot));
+		}
+		
+		final RTreeBuilder rTree = rTrees.get(boundingBox.getDimension());
+		
+		if(rTree != null) {
+			for(final SpatialIndexEntry entry : rTree.getEntriesForRegion(boundingBox)) {
+				candidateConsumer.accept(slots.get(entry.getValue()));
+			}
+		}
+		
+		return result;
+	}
+}
@@ -0,0 +1,270 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2018 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.network.server;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+
+import org.bboxdb.commons.Pair;
+import org.bboxdb.commons.math.Hyperrectangle;
+import org.bboxdb.distribution.membership.BBoxDBInstance;
+import org.bboxdb.distribution.partitioner.SpacePartitioner;
+import org.bboxdb.distribution.partitioner.SpacePartitionerCache;
+import org.bboxdb.distribution.partitioner.regionsplit.RangeQueryExecutor;
+import org.bboxdb.distribution.partitioner.regionsplit.RangeQueryExecutor.ExecutionPolicy;
+import org.bboxdb.distribution.region.DistributionRegion;
+import org.bboxdb.distribution.region.DistributionRegionHelper;
+import org.bboxdb.distribution.zookeeper.ZookeeperClientFactory;
+import org.bboxdb.misc.BBoxDBConfigurationManager;
+import org.bboxdb.misc.BBoxDBException;
+import org.bboxdb.network.query.entity.TupleAndBoundingBox;
+import org.bboxdb.network.query.transformation.TupleTransformation;
+import org.bboxdb.network.routing.RoutingHopHelper;
+import org.bboxdb.storage.StorageManagerException;
+import org.bboxdb.storage.entity.DeletedTuple;
+import org.bboxdb.storage.entity.Tuple;
+import org.bboxdb.storage.entity.TupleStoreName;
+import org.bboxdb.storage.tuplestore.manager.TupleStoreManager;
+import org.bboxdb.storage.tuplestore.manager.TupleStoreManagerRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class ContinuousJoinTableCache {
+	
+	/**
+	 * The join table
+	 */
+	private final TupleStoreName joinTable;
+	
+	/**
+	 * The table transformations
+	 */
+	private final List<TupleTransformation> transformations;
+	
+	/**
+	 * The storage registry
+	 */
+	private final TupleStoreManagerRegistry storageRegistry;
+	
+	/**
+	 * The caches of the local regions
+	 */
+	private final Map<Long, ContinuousJoinRegionCache> regionCaches;
+	
+	/**
+	 * The amount of queries that use the cache
+	 */
+	private int references;
+	
+	/**
+	 * The active caches
+	 */
+	private final static Map<Pair<String, List<TupleTransformation>>, ContinuousJoinTableCache> caches 
+		= new HashMap<>();
+	
+	/**
+	 * The used bytes of all region caches
+	 */
+	private final static AtomicLong usedBytes = new AtomicLong(0);
+	
+	/**
+	 * The Logger
+	 */
+	private final static Logger logger = LoggerFactory.getLogger(ContinuousJoinTableCache.class);
+
+	private ContinuousJoinTableCache(final TupleStoreManagerRegistry storageRegistry, 
+			final TupleStoreName joinTable, final List<TupleTransformation> transformations) {
+		
+		this.storageRegistry = storageRegistry;
+		this.joinTable = joinTable;
+		this.transformations = transformations;
+		this.regionCaches = new HashMap<>();
+		this.references = 0;
+	}
+	
+	/**
+	 * Get the cache for the join table. The cache is shared between all queries 
+	 * with the same join table and table transformations.
+	 * 
+	 * @param storageRegistry
+	 * @param joinTable
+	 * @param transformations
+	 * @return
+	 */
+	public static ContinuousJoinTableCache getCache(final TupleStoreManagerRegistry storageRegistry, 
+			final TupleStoreName joinTable, final List<TupleTransformation> transformations) {
+		
+		final Pair<String, List<TupleTransformation>> cacheKey 
+			= new Pair<>(joinTable.getFullname(), transformations);
+		
+		synchronized (caches) {
+			final ContinuousJoinTableCache cache = caches.computeIfAbsent(cacheKey, 
+					(k) -> new ContinuousJoinTableCache(storageRegistry, joinTable, transformations));
+			
+			cache.references++;
+			return cache;
+		}
+	}
+	
+	/**
+	 * Release the cache, the cache is closed when it is no longer used
+	 * @param cache
+	 */
+	public static void releaseCache(final ContinuousJoinTableCache cache) {
+		final Pair<String, List<TupleTransformation>> cacheKey 
+			= new Pair<>(cache.joinTable.getFullname(), cache.transformations);
+		
+		synchronized (caches) {
+			cache.references--;
+			
+			if(cache.references > 0) {
+				return;
+			}
+			
+			caches.remove(cacheKey);
+		}
+		
+		cache.close();
+	}
+	
+	/**
+	 * Close all region caches
+	 */
+	private void close() {
+		synchronized (regionCaches) {
+			regionCaches.values().forEach(c -> c.close());
+			regionCaches.clear();
+		}
+	}
+	
+	/**
+	 * Get the cache for the local region
+	 * @param regionId
+	 * @return the cache or null, if the region can not be cached
+	 */
+	private ContinuousJoinRegionCache getRegionCache(final long regionId) {
+		synchronized (regionCaches) {
+			final ContinuousJoinRegionCache knownCache = regionCaches.get(regionId);
+			
+			if(knownCache != null) {
+				return knownCache.isEvicted() ? null : knownCache;
+			}
+			
+			try {
+				final TupleStoreName regionTable = joinTable.cloneWithDifferntRegionId(regionId);
+				final TupleStoreManager storageManager = storageRegistry.getTupleStoreManager(regionTable);
+				final long maxBytes = BBoxDBConfigurationManager.getConfiguration()
+						.getContinuousJoinCacheSizeMax();
+				
+				final ContinuousJoinRegionCache regionCache = new ContinuousJoinRegionCache(
+						storageManager, transformations, usedBytes, maxBytes);
+				
+				regionCache.load();
+				regionCaches.put(regionId, regionCache);
+				
+				return regionCache.isEvicted() ? null : regionCache;
+			} catch (StorageManagerException e) {
+				logger.debug("Unable to cache region {} of {}", regionId, joinTable.getFullname(), e);
+				return null;
+			}
+		}
+	}
+	
+	/**
+	 * Get the used bytes of all region caches
+	 * @return
+	 */
+	public static long getUsedBytes() {
+		return usedBytes.get();
+	}
+	
+	/**
+	 * Join the bounding box of a stream tuple with the join table. The local regions
+	 * are read from the cache, the other regions are read from disk or by network. 
+	 * Both ways use the same join predicate (see QueryHelper.isJoinPartner), so the 
+	 * result does not depend on the cached regions.
+	 * 
+	 * @param boundingBox
+	 * @param reportPositive - report the intersecting or the not intersecting tuples
+	 * @param consumer
+	 * @throws BBoxDBException
+	 * @throws InterruptedException
+	 */
+	public void joinTuple(final Hyperrectangle boundingBox, final boolean reportPositive, 
+			final Consumer<TupleAndBoundingBox> consumer) throws BBoxDBException, InterruptedException {
+		
+		final SpacePartitioner partitioner = SpacePartitionerCache.getInstance()
+				.getSpacePartitionerForGroupName(joinTable.getDistributionGroup());
+		
+		final List<DistributionRegion> regions = RoutingHopHelper.getRegionsForPredicate(
+				partitioner.getRootNode(), boundingBox, DistributionRegionHelper.PREDICATE_REGIONS_FOR_READ);
+		
+		final BBoxDBInstance localInstance = ZookeeperClientFactory.getLocalInstanceName();
+		final Set<Long> cachedRegions = new HashSet<>();
+		
+		for(final DistributionRegion region : regions) {
+			if(! region.getSystems().contains(localInstance)) {
+				continue;
+			}
+			
+			final ContinuousJoinRegionCache regionCache = getRegionCache(region.getRegionId());
+			
+			if(regionCache == null) {
+				continue;
+			}
+			
+			regionCache.getTuples(boundingBox, reportPositive).forEach(consumer);
+			cachedRegions.add(region.getRegionId());
+		}
+		
+		if(cachedRegions.size() == regions.size()) {
+			return;
+		}
+		
+		final Consumer<Tuple> tupleConsumer = (tuple) -> {
+			
+			// Deletion markers are read from the local tuple stores, the cache skips them too
+			if(tuple instanceof DeletedTuple) {
+				return;
+			}
+			
+			final TupleAndBoundingBox transformedTuple 
+				= QueryHelper.applyStreamTupleTransformations(transformations, tuple);
+		
+			// Tuple was removed during transformation
+			if(transformedTuple == null || transformedTuple.getBoundingBox() == null) {
+				return;
+			}
+			
+			if(QueryHelper.isJoinPartner(boundingBox, transformedTuple, reportPositive)) {
+				consumer.accept(transformedTuple);
+			}
+		};
+		
+		final RangeQueryExecutor rangeQueryExecutor = new RangeQueryExecutor(joinTable, 
+				boundingBox, tupleConsumer, storageRegistry, ExecutionPolicy.ALL, 
+				(r) -> ! cachedRegions.contains(r.getRegionId()));
+		
+		rangeQueryExecutor.performDataRead();
+	}
+}
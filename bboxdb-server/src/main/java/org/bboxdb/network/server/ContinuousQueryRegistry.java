@@ -0,0 +1,413 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2018 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.network.server;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import org.bboxdb.commons.math.Hyperrectangle;
+import org.bboxdb.network.query.ContinuousConstQueryPlan;
+import org.bboxdb.network.query.entity.TupleAndBoundingBox;
+import org.bboxdb.network.query.transformation.TupleTransformation;
+import org.bboxdb.storage.entity.Tuple;
+import org.bboxdb.storage.sstable.spatialindex.SpatialIndexEntry;
+import org.bboxdb.storage.sstable.spatialindex.rtree.RTreeBuilder;
+import org.bboxdb.storage.tuplestore.manager.TupleStoreManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import io.prometheus.client.Counter;
+import io.prometheus.client.Summary;
+
+public class ContinuousQueryRegistry {
+	
+	/**
+	 * The subscriptions of a group, all subscriptions share the same stream 
+	 * transformations. The group is immutable, it is rebuilt when the 
+	 * subscriptions change.
+	 */
+	private final static class SubscriptionGroup {
+		
+		/**
+		 * The stream transformations of the subscriptions
+		 */
+		private final List<TupleTransformation> transformations;
+		
+		/**
+		 * The callbacks of the subscriptions
+		 */
+		private final List<Consumer<Tuple>> callbacks;
+		
+		/**
+		 * The compare rectangles of the subscriptions
+		 */
+		private final List<Hyperrectangle> compareRectangles;
+		
+		/**
+		 * Report positive or negative matches
+		 */
+		private final boolean[] reportPositive;
+		
+		/**
+		 * Are negative subscriptions contained in the group
+		 */
+		private final boolean negativeSubscriptions;
+		
+		/**
+		 * The R-trees of the compare rectangles (one per dimension)
+		 */
+		private final Map<Integer, RTreeBuilder> rTrees;
+		
+		/**
+		 * The subscriptions that match all tuples (e.g., the full space)
+		 */
+		private final List<Integer> unindexedSubscriptions;
+		
+		public SubscriptionGroup(final List<TupleTransformation> transformations, 
+				final List<Map.Entry<Consumer<Tuple>, ContinuousConstQueryPlan>> subscriptions) {
+			
+			this.transformations = transformations;
+			this.callbacks = new ArrayList<>(subscriptions.size());
+			this.compareRectangles = new ArrayList<>(subscriptions.size());
+			this.reportPositive = new boolean[subscriptions.size()];
+			this.rTrees = new HashMap<>();
+			this.unindexedSubscriptions = new ArrayList<>();
+			
+			final Map<Integer, List<SpatialIndexEntry>> entries = new HashMap<>();
+			boolean negative = false;
+			
+			for(final Map.Entry<Consumer<Tuple>, ContinuousConstQueryPlan> subscription : subscriptions) {
+				final int position = callbacks.size();
+				final ContinuousConstQueryPlan queryPlan = subscription.getValue();
+				final Hyperrectangle compareRectangle = queryPlan.getCompareRectangle();
+				
+				callbacks.add(subscription.getKey());
+				compareRectangles.add(compareRectangle);
+				reportPositive[position] = queryPlan.isReportPositive();
+				negative = negative || (! queryPlan.isReportPositive());
+				
+				// The full space (dimension 0) intersects every tuple
+				if(compareRectangle.getDimension() == 0) {
+					unindexedSubscriptions.add(position);
+					continue;
+				}
+				
+				entries.computeIfAbsent(compareRectangle.getDimension(), (d) -> new ArrayList<>())
+					.add(new SpatialIndexEntry(compareRectangle, position));
+			}
+			
+			this.negativeSubscriptions = negative;
+			
+			for(final Map.Entry<Integer, List<SpatialIndexEntry>> dimensionEntries : entries.entrySet()) {
+				final RTreeBuilder rTree = new RTreeBuilder();
+				rTree.bulkInsert(dimensionEntries.getValue());
+				rTrees.put(dimensionEntries.getKey(), rTree);
+			}
+		}
+		
+		/**
+		 * Dispatch the tuple to the matching subscriptions
+		 * @param inputTuple
+		 * @return the number of notified subscriptions
+		 */
+		public int dispatchTuple(final Tuple inputTuple) {
+			final TupleAndBoundingBox tuple 
+				= QueryHelper.applyStreamTupleTransformations(transformations, inputTuple);
+			
+			// Tuple was removed during transformation
+			if(tuple == null) {
+				return 0;
+			}
+			
+			final boolean[] matches = getMatchingSubscriptions(tuple.getBoundingBox());
+			int notifiedSubscriptions = 0;
+			
+			for(int position = 0; position < matches.length; position++) {
+				
+				// Skip the negative subscriptions fast when all subscriptions are positive
+				if(! matches[position] && ! negativeSubscriptions) {
+					continue;
+				}
+				
+				if(matches[position] == reportPositive[position]) {
+					callbacks.get(position).accept(inputTuple);
+					notifiedSubscriptions++;
+				}
+			}
+			
+			return notifiedSubscriptions;
+		}
+
+		/**
+		 * Get the subscriptions whose compare rectangle intersects the bounding box
+		 * @param boundingBox
+		 * @return
+		 */
+		private boolean[] getMatchingSubscriptions(final Hyperrectangle boundingBox) {
+			final boolean[] matches = new boolean[callbacks.size()];
+
+			// Unusual bounding boxes are compared with each compare rectangle
+			if(boundingBox == null || boundingBox.getDimension() == 0) {
+				for(int position = 0; position < matches.length; position++) {
+					matches[position] = (boundingBox != null) 
+							&& boundingBox.intersects(compareRectangles.get(position));
+				}
+				
+				return matches;
+			}
+			
+			for(final Integer position : unindexedSubscriptions) {
+				matches[position] = true;
+			}
+			
+			final RTreeBuilder rTree = rTrees.get(boundingBox.getDimension());
+			
+			if(rTree != null) {
+				for(final SpatialIndexEntry entry : rTree.getEntriesForRegion(boundingBox)) {
+					matches[entry.getValue()] = true;
+				}
+			}
+			
+			return matches;
+		}
+		
+		/**
+		 * Get the number of subscriptions
+		 * @return
+		 */
+		public int getSubscriptions() {
+			return callbacks.size();
+		}
+	}
+	
+	/**
+	 * The tuple store manager
+	 */
+	private final TupleStoreManager storageManager;
+	
+	/**
+	 * The subscriptions of the continuous queries
+	 */
+	private final Map<Consumer<Tuple>, ContinuousConstQueryPlan> subscriptions;
+	
+	/**
+	 * The subscription groups. The groups are rebuilt when the subscriptions 
+	 * change, the insert callback uses the current groups without locking.
+	 */
+	private volatile List<SubscriptionGroup> subscriptionGroups;
+	
+	/**
+	 * The insert callback of the tuple store
+	 */
+	private final Consumer<Tuple> insertCallback;
+	
+	/**
+	 * The registries of the tuple stores
+	 */
+	private final static Map<TupleStoreManager, ContinuousQueryRegistry> registries = new HashMap<>();
+	
+	/**
+	 * The dispatched tuples counter
+	 */
+	private final static Counter dispatchedTuplesTotal = Counter.build()
+			.name("bboxdb_continuous_query_dispatched_tuples_total")
+			.help("Inserted tuples that are dispatched to continuous queries.").register();
+	
+	/**
+	 * The probed subscriptions counter
+	 */
+	private final static Counter probedSubscriptionsTotal = Counter.build()
+			.name("bboxdb_continuous_query_probed_subscriptions_total")
+			.help("Continuous query subscriptions that are probed by inserted tuples.").register();
+	
+	/**
+	 * The notified subscriptions counter
+	 */
+	private final static Counter notifiedSubscriptionsTotal = Counter.build()
+			.name("bboxdb_continuous_query_notified_subscriptions_total")
+			.help("Continuous query subscriptions that received an inserted tuple.").register();
+	
+	/**
+	 * The dispatch latency
+	 */
+	private final static Summary dispatchLatency = Summary.build()
+			.name("bboxdb_continuous_query_dispatch_latency_seconds")
+			.help("Continuous query dispatch latency per inserted tuple in seconds.").register();
+
+	/**
+	 * The Logger
+	 */
+	private final static Logger logger = LoggerFactory.getLogger(ContinuousQueryRegistry.class);
+
+	private ContinuousQueryRegistry(final TupleStoreManager storageManager) {
+		this.storageManager = storageManager;
+		this.subscriptions = new LinkedHashMap<>();
+		this.subscriptionGroups = new ArrayList<>();
+		this.insertCallback = (t) -> dispatchTuple(t);
+	}
+	
+	/**
+	 * Register a continuous query on the tuple store. The callback is called 
+	 * for each inserted tuple that is matched by the query.
+	 * 
+	 * @param storageManager
+	 * @param queryPlan
+	 * @param callback
+	 */
+	public static void registerQuery(final TupleStoreManager storageManager, 
+			final ContinuousConstQueryPlan queryPlan, final Consumer<Tuple> callback) {
+		
+		synchronized (registries) {
+			final ContinuousQueryRegistry registry = registries.computeIfAbsent(storageManager, 
+					(s) -> new ContinuousQueryRegistry(s));
+			
+			registry.addSubscription(queryPlan, callback);
+		}
+	}
+	
+	/**
+	 * Remove a continuous query from the tuple store
+	 * @param storageManager
+	 * @param callback
+	 * @return
+	 */
+	public static boolean removeQuery(final TupleStoreManager storageManager, 
+			final Consumer<Tuple> callback) {
+		
+		synchronized (registries) {
+			final ContinuousQueryRegistry registry = registries.get(storageManager);
+			
+			if(registry == null) {
+				return false;
+			}
+			
+			final boolean removed = registry.removeSubscription(callback);
+			
+			if(registry.subscriptions.isEmpty()) {
+				registries.remove(storageManager);
+			}
+			
+			return removed;
+		}
+	}
+	
+	/**
+	 * Get the number of registered queries on the tuple store
+	 * @param storageManager
+	 * @return
+	 */
+	public static int getRegisteredQueries(final TupleStoreManager storageManager) {
+		synchronized (registries) {
+			final ContinuousQueryRegistry registry = registries.get(storageManager);
+			
+			if(registry == null) {
+				return 0;
+			}
+			
+			return registry.subscriptions.size();
+		}
+	}
+	
+	/**
+	 * Add a subscription
+	 * @param queryPlan
+	 * @param callback
+	 */
+	private void addSubscription(final ContinuousConstQueryPlan queryPlan, 
+			final Consumer<Tuple> callback) {
+		
+		final boolean firstSubscription = subscriptions.isEmpty();
+		subscriptions.put(callback, queryPlan);
+		rebuildSubscriptionGroups();
+		
+		if(firstSubscription) {
+			storageManager.registerInsertCallback(insertCallback);
+		}
+		
+		logger.debug("Registered continuous query {}, {} queries are active on {}", 
+				queryPlan, subscriptions.size(), storageManager.getTupleStoreName().getFullname());
+	}
+	
+	/**
+	 * Remove a subscription
+	 * @param callback
+	 * @return
+	 */
+	private boolean removeSubscription(final Consumer<Tuple> callback) {
+		final ContinuousConstQueryPlan queryPlan = subscriptions.remove(callback);
+		
+		if(queryPlan == null) {
+			return false;
+		}
+		
+		rebuildSubscriptionGroups();
+		
+		if(subscriptions.isEmpty()) {
+			storageManager.removeInsertCallback(insertCallback);
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Rebuild the subscription groups
+	 */
+	private void rebuildSubscriptionGroups() {
+		final Map<List<TupleTransformation>, List<Map.Entry<Consumer<Tuple>, ContinuousConstQueryPlan>>> 
+			groupedSubscriptions = new LinkedHashMap<>();
+		
+		for(final Map.Entry<Consumer<Tuple>, ContinuousConstQueryPlan> subscription : subscriptions.entrySet()) {
+			final List<TupleTransformation> transformations = subscription.getValue().getStreamTransformation();
+			groupedSubscriptions.computeIfAbsent(transformations, (t) -> new ArrayList<>()).add(subscription);
+		}
+		
+		final List<SubscriptionGroup> groups = new ArrayList<>(groupedSubscriptions.size());
+		
+		for(final Map.Entry<List<TupleTransformation>, List<Map.Entry<Consumer<Tuple>, ContinuousConstQueryPlan>>> 
+			group : groupedSubscriptions.entrySet()) {
+			
+			groups.add(new SubscriptionGroup(group.getKey(), group.getValue()));
+		}
+		
+		subscriptionGroups = groups;
+	}
+	
+	/**
+	 * Dispatch the inserted tuple to the subscriptions
+	 * @param tuple
+	 */
+	private void dispatchTuple(final Tuple tuple) {
+		final Summary.Timer dispatchTimer = dispatchLatency.startTimer();
+
+		try {
+			for(final SubscriptionGroup group : subscriptionGroups) {
+				final int notifiedSubscriptions = group.dispatchTuple(tuple);
+				probedSubscriptionsTotal.inc(group.getSubscriptions());
+				notifiedSubscriptionsTotal.inc(notifiedSubscriptions);
+			}
+			
+			dispatchedTuplesTotal.inc();
+		} finally {
+			dispatchTimer.observeDuration();
+		}
+	}
+}
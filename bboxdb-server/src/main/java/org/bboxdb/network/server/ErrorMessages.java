@@ -54,6 +54,11 @@ public class ErrorMessages {
 	 */
 	public final static String ERROR_QUERY_TO_MUCH = "Client requested to much queries";
 	
+	/**
+	 * The result queue of a continuous query is overflown
+	 */
+	public final static String ERROR_QUERY_OVERFLOW = "Result queue of the continuous query is overflown, the client is too slow";
+	
 	/**
 	 * Server shutdown
 	 */
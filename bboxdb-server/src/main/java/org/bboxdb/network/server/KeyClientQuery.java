@@ -19,10 +19,13 @@ package org.bboxdb.network.server;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Set;
 
 import org.bboxdb.commons.DuplicateResolver;
+import org.bboxdb.commons.math.Hyperrectangle;
 import org.bboxdb.distribution.partitioner.SpacePartitioner;
 import org.bboxdb.distribution.partitioner.SpacePartitionerCache;
 import org.bboxdb.distribution.region.DistributionRegionIdMapper;
@@ -31,6 +34,8 @@ import org.bboxdb.network.packages.PackageEncodeException;
 import org.bboxdb.network.packages.response.MultipleTupleEndResponse;
 import org.bboxdb.network.packages.response.MultipleTupleStartResponse;
 import org.bboxdb.network.packages.response.PageEndResponse;
+import org.bboxdb.network.routing.RoutingHeader;
+import org.bboxdb.network.routing.RoutingHop;
 import org.bboxdb.network.server.connection.ClientConnectionHandler;
 import org.bboxdb.storage.StorageManagerException;
 import org.bboxdb.storage.entity.JoinedTuple;
@@ -83,6 +88,11 @@ public class KeyClientQuery implements ClientQuery {
 	 */
 	protected final TupleStoreName requestTable;
 
+	/**
+	 * The routing header of the request
+	 */
+	protected final RoutingHeader routingHeader;
+
 	/**
 	 * The total amount of send tuples
 	 */
@@ -101,7 +111,8 @@ public class KeyClientQuery implements ClientQuery {
 
 	public KeyClientQuery(final String key, final boolean pageResult, final short tuplesPerPage,
 			final ClientConnectionHandler clientConnectionHandler,
-			final short querySequence, final TupleStoreName requestTable) {
+			final short querySequence, final TupleStoreName requestTable, 
+			final RoutingHeader routingHeader) {
 
 			this.key = key;
 			this.pageResult = pageResult;
@@ -109,6 +120,7 @@ public class KeyClientQuery implements ClientQuery {
 			this.clientConnectionHandler = clientConnectionHandler;
 			this.querySequence = querySequence;
 			this.requestTable = requestTable;
+			this.routingHeader = routingHeader;
 
 			this.totalSendTuples = 0;
 
@@ -130,7 +142,7 @@ public class KeyClientQuery implements ClientQuery {
 			final TupleStoreManagerRegistry storageRegistry = clientConnectionHandler
 					.getStorageRegistry();
 
-			final List<TupleStoreName> localTables = regionIdMapper.getAllLocalTables(requestTable);
+			final List<TupleStoreName> localTables = getLocalTables(regionIdMapper);
 
 			// Are some tables unknown and needs to be created?
 			TupleStoreManagerRegistryHelper.createMissingTables(requestTable, storageRegistry,
@@ -151,6 +163,44 @@ public class KeyClientQuery implements ClientQuery {
 		}
 	}
 
+	/**
+	 * Get the local tables that needs to be read. When the query is routed to 
+	 * dedicated regions (e.g., by the key directory of the client), only the tables 
+	 * of these regions are read. If one of the regions is unknown, all local 
+	 * tables are read.
+	 * 
+	 * @param regionIdMapper
+	 * @return
+	 */
+	protected List<TupleStoreName> getLocalTables(final DistributionRegionIdMapper regionIdMapper) {
+		
+		if(routingHeader == null || ! routingHeader.isRoutedPackage()) {
+			return regionIdMapper.getAllLocalTables(requestTable);
+		}
+		
+		final RoutingHop localHop = routingHeader.getRoutingHop();
+		
+		if(localHop == null || localHop.getDistributionRegions().isEmpty()) {
+			return regionIdMapper.getAllLocalTables(requestTable);
+		}
+		
+		final Set<Long> regionIds = new HashSet<>();
+		
+		for(final long regionId : localHop.getDistributionRegions()) {
+			final Hyperrectangle space = regionIdMapper.getSpaceForRegionId(regionId);
+			
+			// Region is not (longer) stored local, e.g., because of a split or a merge
+			if(space == null) {
+				logger.debug("Region {} is unknown, reading all local tables", regionId);
+				return regionIdMapper.getAllLocalTables(requestTable);
+			}
+			
+			regionIds.addAll(regionIdMapper.getRegionIdsForRegion(space));
+		}
+		
+		return regionIdMapper.convertRegionIdToTableNames(requestTable, regionIds);
+	}
+	
 	/**
 	 * Remove the duplicates for the given key
 	 * @param localTables
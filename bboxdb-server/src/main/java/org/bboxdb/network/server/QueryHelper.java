@@ -18,14 +18,19 @@
 package org.bboxdb.network.server;
 
 import java.io.IOException;
+import java.util.List;
 
+import org.bboxdb.commons.math.Hyperrectangle;
 import org.bboxdb.distribution.zookeeper.TupleStoreAdapter;
 import org.bboxdb.distribution.zookeeper.ZookeeperClientFactory;
 import org.bboxdb.distribution.zookeeper.ZookeeperException;
 import org.bboxdb.network.packages.PackageEncodeException;
 import org.bboxdb.network.packages.response.ErrorResponse;
+import org.bboxdb.network.query.entity.TupleAndBoundingBox;
+import org.bboxdb.network.query.transformation.TupleTransformation;
 import org.bboxdb.network.server.connection.ClientConnectionHandler;
 import org.bboxdb.storage.StorageManagerException;
+import org.bboxdb.storage.entity.Tuple;
 import org.bboxdb.storage.entity.TupleStoreConfiguration;
 import org.bboxdb.storage.entity.TupleStoreName;
 import org.bboxdb.storage.tuplestore.manager.TupleStoreManager;
@@ -105,4 +110,45 @@ public class QueryHelper {
 		
 		return true;
 	}
+
+	/**
+	 * Apply the stream transformations
+	 * @param transformations
+	 * @param inputTuple
+	 * @return the transformed tuple or null, if the tuple was removed during the transformation
+	 */
+	public static TupleAndBoundingBox applyStreamTupleTransformations(
+			final List<TupleTransformation> transformations, final Tuple inputTuple) {
+				
+		TupleAndBoundingBox tuple = new TupleAndBoundingBox(inputTuple, inputTuple.getBoundingBox());
+		for(final TupleTransformation transformation : transformations) {
+			tuple = transformation.apply(tuple);
+			
+			if(tuple == null) {
+				break;
+			}
+		}
+		
+		return tuple;
+	}
+	
+	/**
+	 * Is the stored tuple a join partner of the stream tuple? Only stored tuples with a raw 
+	 * bounding box that intersects the stream box are join candidates. The transformed bounding
+	 * box of the candidate decides about a positive or a negative match.
+	 * 
+	 * @param streamBox
+	 * @param storedTuple
+	 * @param reportPositive
+	 * @return
+	 */
+	public static boolean isJoinPartner(final Hyperrectangle streamBox, 
+			final TupleAndBoundingBox storedTuple, final boolean reportPositive) {
+		
+		if(! streamBox.intersects(storedTuple.getRawBoundingBox())) {
+			return false;
+		}
+		
+		return streamBox.intersects(storedTuple.getBoundingBox()) == reportPositive;
+	}
 }
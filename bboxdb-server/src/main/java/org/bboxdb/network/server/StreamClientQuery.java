@@ -21,13 +21,18 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.OptionalLong;
+import java.util.Set;
 
 import org.bboxdb.commons.CloseableHelper;
+import org.bboxdb.commons.math.Hyperrectangle;
 import org.bboxdb.distribution.partitioner.SpacePartitioner;
 import org.bboxdb.distribution.partitioner.SpacePartitionerCache;
+import org.bboxdb.distribution.region.DistributionRegionHelper;
 import org.bboxdb.distribution.region.DistributionRegionIdMapper;
 import org.bboxdb.distribution.zookeeper.ZookeeperException;
 import org.bboxdb.misc.BBoxDBException;
@@ -35,6 +40,8 @@ import org.bboxdb.network.packages.PackageEncodeException;
 import org.bboxdb.network.packages.response.MultipleTupleEndResponse;
 import org.bboxdb.network.packages.response.MultipleTupleStartResponse;
 import org.bboxdb.network.packages.response.PageEndResponse;
+import org.bboxdb.network.routing.RoutingHeader;
+import org.bboxdb.network.routing.RoutingHop;
 import org.bboxdb.network.server.connection.ClientConnectionHandler;
 import org.bboxdb.storage.StorageManagerException;
 import org.bboxdb.storage.entity.JoinedTuple;
@@ -46,6 +53,8 @@ import org.bboxdb.storage.tuplestore.manager.TupleStoreManagerRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.collect.Iterators;
+
 public class StreamClientQuery implements Closeable, ClientQuery {
 
 	/**
@@ -98,6 +107,26 @@ public class StreamClientQuery implements Closeable, ClientQuery {
 	 */
 	private final List<TupleStoreName> requestTables;
 
+	/**
+	 * The routing header of the query (null, if all local tables are read)
+	 */
+	private final RoutingHeader routingHeader;
+
+	/**
+	 * The query box (null, if no reference point filter is applied)
+	 */
+	private final Hyperrectangle queryBox;
+
+	/**
+	 * The region id mapper of the first request table
+	 */
+	private DistributionRegionIdMapper regionIdMapper;
+
+	/**
+	 * The space of the distribution group of the first request table
+	 */
+	private Hyperrectangle rootSpace;
+
 	/**
 	 * The Logger
 	 */
@@ -107,12 +136,38 @@ public class StreamClientQuery implements Closeable, ClientQuery {
 			final short tuplesPerPage, final ClientConnectionHandler clientConnectionHandler,
 			final short querySequence, final List<TupleStoreName> requestTables) {
 
+		this(operatorTreeBuilder, pageResult, tuplesPerPage, clientConnectionHandler, 
+				querySequence, requestTables, null, null);
+	}
+
+	/**
+	 * Create a query that reads only the regions of the routing header. When a query 
+	 * box is given, every entity is only returned by the region that contains the 
+	 * reference point of the entity. So, entities that are stored in multiple regions 
+	 * are send only once to the client.
+	 * 
+	 * @param operatorTreeBuilder
+	 * @param pageResult
+	 * @param tuplesPerPage
+	 * @param clientConnectionHandler
+	 * @param querySequence
+	 * @param requestTables
+	 * @param routingHeader
+	 * @param queryBox
+	 */
+	public StreamClientQuery(final OperatorTreeBuilder operatorTreeBuilder, final boolean pageResult,
+			final short tuplesPerPage, final ClientConnectionHandler clientConnectionHandler,
+			final short querySequence, final List<TupleStoreName> requestTables, 
+			final RoutingHeader routingHeader, final Hyperrectangle queryBox) {
+
 		this.operatorTreeBuilder = operatorTreeBuilder;
 		this.pageResult = pageResult;
 		this.tuplesPerPage = tuplesPerPage;
 		this.clientConnectionHandler = clientConnectionHandler;
 		this.querySequence = querySequence;
 		this.requestTables = requestTables;
+		this.routingHeader = routingHeader;
+		this.queryBox = queryBox;
 		this.localTables = new HashMap<TupleStoreName, List<TupleStoreName>>();
 
 		determineLocalTables(requestTables);
@@ -134,9 +189,14 @@ public class StreamClientQuery implements Closeable, ClientQuery {
 
 				final DistributionRegionIdMapper regionIdMapper = spacePartitioner.getDistributionRegionIdMapper();
 
-				final List<TupleStoreName> localTablesForTable = regionIdMapper.getAllLocalTables(requestTable);
+				final List<TupleStoreName> localTablesForTable = getLocalTables(requestTable, regionIdMapper);
 				localTablesForTable.sort((c1, c2) -> c1.compareTo(c2));
 				localTables.put(requestTable, localTablesForTable);
+				
+				if(this.regionIdMapper == null) {
+					this.regionIdMapper = regionIdMapper;
+					this.rootSpace = spacePartitioner.getRootNode().getConveringBox();
+				}
 			}
 
 			// Check all tables have the same amount of local tables
@@ -155,6 +215,52 @@ public class StreamClientQuery implements Closeable, ClientQuery {
 		}
 	}
 
+	/**
+	 * Get the local tables that needs to be read. When the query is routed to 
+	 * dedicated regions, only the tables of these regions (and their local 
+	 * child regions) are read. If one of the regions is unknown, all local 
+	 * tables are read.
+	 * 
+	 * @param requestTable
+	 * @param regionIdMapper
+	 * @return
+	 */
+	private List<TupleStoreName> getLocalTables(final TupleStoreName requestTable, 
+			final DistributionRegionIdMapper regionIdMapper) {
+		
+		if(routingHeader == null || ! routingHeader.isRoutedPackage()) {
+			return regionIdMapper.getAllLocalTables(requestTable);
+		}
+		
+		final RoutingHop localHop = routingHeader.getRoutingHop();
+		
+		if(localHop == null || localHop.getDistributionRegions().isEmpty()) {
+			return regionIdMapper.getAllLocalTables(requestTable);
+		}
+		
+		final Set<Long> regionIds = new HashSet<>();
+		
+		for(final long regionId : localHop.getDistributionRegions()) {
+			final Hyperrectangle space = regionIdMapper.getSpaceForRegionId(regionId);
+			
+			// Region is not (longer) stored local, e.g., because of a split or a merge
+			if(space == null) {
+				logger.debug("Region {} is unknown, reading all local tables", regionId);
+				return regionIdMapper.getAllLocalTables(requestTable);
+			}
+			
+			for(final long localRegionId : regionIdMapper.getRegionIdsForRegion(space)) {
+				final Hyperrectangle localSpace = regionIdMapper.getSpaceForRegionId(localRegionId);
+				
+				if(localSpace != null && space.isCovering(localSpace)) {
+					regionIds.add(localRegionId);
+				}
+			}
+		}
+		
+		return regionIdMapper.convertRegionIdToTableNames(requestTable, regionIds);
+	}
+
 	/**
 	 * Get the number of tables to process
 	 * @return
@@ -254,8 +360,14 @@ public class StreamClientQuery implements Closeable, ClientQuery {
 			final TupleStoreManagerRegistry storageRegistry = clientConnectionHandler
 					.getStorageRegistry();
 
+			TupleStoreName regionTable = null;
+			
 			for(final TupleStoreName tupleStoreName : requestTables) {
 				final TupleStoreName sstableName = localTables.get(tupleStoreName).remove(0);
+				
+				if(regionTable == null) {
+					regionTable = sstableName;
+				}
 
 				final TupleStoreManager storageManager
 					= QueryHelper.getTupleStoreManager(storageRegistry, sstableName);
@@ -264,7 +376,9 @@ public class StreamClientQuery implements Closeable, ClientQuery {
 			}
 
 			activeOperator = operatorTreeBuilder.buildOperatorTree(storageManagers);
-			activeOperatorIterator = activeOperator.iterator();
+			activeOperatorIterator = getReferencePointFilteredIterator(activeOperator.iterator(), 
+					regionTable);
+			
 			return true;
 		} catch (StorageManagerException | ZookeeperException e) {
 			logger.warn("Got exception while fetching tuples", e);
@@ -273,6 +387,40 @@ public class StreamClientQuery implements Closeable, ClientQuery {
 		return false;
 	}
 
+	/**
+	 * Return only the tuples that have their reference point in the region of the table
+	 * @param iterator
+	 * @param regionTable
+	 * @return
+	 */
+	private Iterator<JoinedTuple> getReferencePointFilteredIterator(final Iterator<JoinedTuple> iterator, 
+			final TupleStoreName regionTable) {
+		
+		// Only routed queries are send to all regions of the distribution group
+		if(routingHeader == null || ! routingHeader.isRoutedPackage()) {
+			return iterator;
+		}
+		
+		if(queryBox == null || regionIdMapper == null || regionTable == null) {
+			return iterator;
+		}
+		
+		final OptionalLong regionId = regionTable.getRegionId();
+		
+		if(! regionId.isPresent()) {
+			return iterator;
+		}
+		
+		final Hyperrectangle regionSpace = regionIdMapper.getSpaceForRegionId(regionId.getAsLong());
+		
+		if(regionSpace == null) {
+			return iterator;
+		}
+		
+		return Iterators.filter(iterator, t -> DistributionRegionHelper.isReferencePointInRegion(
+				t.getBoundingBox(), queryBox, rootSpace, regionSpace));
+	}
+
 	/* (non-Javadoc)
 	 * @see org.bboxdb.network.server.ClientQuery#isQueryDone()
 	 */
@@ -0,0 +1,99 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2018 the BBoxDB project
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ *******************************************************************************/
+package org.bboxdb.network.server.connection;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+
+import org.bboxdb.commons.CloseableHelper;
+
+/**
+ * An output stream for a non blocking socket channel. When the send buffer
+ * of the socket is full, the writing thread waits on a private selector 
+ * until the channel is writable again.
+ */
+public class ChannelOutputStream extends OutputStream {
+	
+	/**
+	 * The socket channel
+	 */
+	private final SocketChannel socketChannel;
+	
+	/**
+	 * The selector to wait for a writable channel, created on demand
+	 */
+	private Selector writeSelector;
+	
+	/**
+	 * The max time to wait for a writable channel
+	 */
+	private final static long WRITE_TIMEOUT_MS = 30_000;
+
+	public ChannelOutputStream(final SocketChannel socketChannel) {
+		this.socketChannel = socketChannel;
+	}
+
+	@Override
+	public void write(final int b) throws IOException {
+		write(new byte[] {(byte) b}, 0, 1);
+	}
+	
+	@Override
+	public synchronized void write(final byte[] b, final int off, final int len) throws IOException {
+		final ByteBuffer buffer = ByteBuffer.wrap(b, off, len);
+		
+		while(buffer.hasRemaining()) {
+			final int writtenBytes = socketChannel.write(buffer);
+			
+			if(writtenBytes == 0) {
+				waitUntilWritable();
+			}
+		}
+	}
+
+	/**
+	 * Wait until the channel is writable
+	 * @throws IOException
+	 */
+	private void waitUntilWritable() throws IOException {
+		if(writeSelector == null) {
+			writeSelector = Selector.open();
+			socketChannel.register(writeSelector, SelectionKey.OP_WRITE);
+		}
+		
+		final int readyChannels = writeSelector.select(WRITE_TIMEOUT_MS);
+		
+		if(readyChannels == 0) {
+			throw new IOException("Channel is not writable after " + WRITE_TIMEOUT_MS + " ms");
+		}
+		
+		writeSelector.selectedKeys().clear();
+	}
+	
+	@Override
+	public synchronized void close() throws IOException {
+		if(writeSelector != null) {
+			CloseableHelper.closeWithoutException(writeSelector);
+			writeSelector = null;
+		}
+	}
+}
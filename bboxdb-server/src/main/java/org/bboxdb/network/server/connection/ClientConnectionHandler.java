@@ -17,24 +17,34 @@
  *******************************************************************************/
 package org.bboxdb.network.server.connection;
 
-import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.Socket;
 import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
 import org.bboxdb.commons.CloseableHelper;
 import org.bboxdb.commons.concurrent.ExceptionSafeRunnable;
-import org.bboxdb.commons.concurrent.ExecutorUtil;
 import org.bboxdb.commons.service.ServiceState;
 import org.bboxdb.misc.Const;
+import org.bboxdb.network.NetworkCompression;
 import org.bboxdb.network.NetworkConst;
 import org.bboxdb.network.NetworkPackageDecoder;
 import org.bboxdb.network.capabilities.PeerCapabilities;
@@ -66,6 +76,7 @@ import org.bboxdb.network.server.connection.handler.request.DeleteTableHandler;
 import org.bboxdb.network.server.connection.handler.request.DisconnectHandler;
 import org.bboxdb.network.server.connection.handler.request.HandshakeHandler;
 import org.bboxdb.network.server.connection.handler.request.InsertTupleHandler;
+import org.bboxdb.network.server.connection.handler.request.InsertTuplesHandler;
 import org.bboxdb.network.server.connection.handler.request.KeepAliveHandler;
 import org.bboxdb.network.server.connection.handler.request.LockTupleHandler;
 import org.bboxdb.network.server.connection.handler.request.NextPageHandler;
@@ -81,22 +92,67 @@ import com.google.common.io.ByteStreams;
 
 import io.prometheus.client.Gauge;
 
-public class ClientConnectionHandler extends ExceptionSafeRunnable {
+public class ClientConnectionHandler {
 
 	/**
 	 * The client socket
 	 */
 	public final Socket clientSocket;
 
+	/**
+	 * The non blocking client channel
+	 */
+	private final SocketChannel socketChannel;
+
 	/**
 	 * The output stream of the socket
 	 */
-	private BufferedOutputStream outputStream;
+	private final BufferedOutputStream outputStream;
+
+	/**
+	 * The selector that reads from the channel
+	 */
+	private final ConnectionSelectorRunnable selector;
+
+	/**
+	 * The selection key of the channel
+	 */
+	private volatile SelectionKey selectionKey;
+
+	/**
+	 * The scheduler for the maintenance tasks and the delayed package tasks
+	 */
+	private final ScheduledExecutorService scheduler;
+
+	/**
+	 * The framer for the received packages
+	 */
+	private final PackageFramer packageFramer;
 
 	/**
-	 * The input stream of the socket
+	 * The received but unprocessed packages
 	 */
-	private InputStream inputStream;
+	private final Queue<ByteBuffer> pendingPackages;
+
+	/**
+	 * The amount of received but unprocessed packages
+	 */
+	private final AtomicInteger pendingPackagesCounter;
+
+	/**
+	 * Is a task for processing the pending packages scheduled?
+	 */
+	private final AtomicBoolean packageTaskScheduled;
+
+	/**
+	 * Is the reading of the channel suspended?
+	 */
+	private volatile boolean readSuspended;
+
+	/**
+	 * Is the connection closed?
+	 */
+	private final AtomicBoolean connectionClosed;
 
 	/**
 	 * The connection state
@@ -113,9 +169,15 @@ public class ClientConnectionHandler extends ExceptionSafeRunnable {
 	 * to send the next page
 	 */
 	private final Map<Short, ClientQuery> activeQueries;
+	
+	/**
+	 * The pending page requests per query. Clients can request several pages of
+	 * a query at once, the pages are sent in the order of the requests.
+	 */
+	private final ConcurrentHashMap<Short, Queue<Short>> pendingPageRequests;
 
 	/**
-	 * The thread pool
+	 * The shared worker pool
 	 */
 	private final ExecutorService threadPool;
 
@@ -130,9 +192,19 @@ public class ClientConnectionHandler extends ExceptionSafeRunnable {
 	private final List<NetworkResponsePackage> pendingCompressionPackages;
 
 	/**
-	 * Number of pending requests
+	 * Number of pending packages before the reading of the channel is suspended
 	 */
-	private final static int MAX_PENDING_REQUESTS = 25;
+	private final static int MAX_PENDING_PACKAGES = 100;
+
+	/**
+	 * Number of packages that are processed by one task of the worker pool
+	 */
+	private final static int PACKAGES_PER_TASK = 32;
+
+	/**
+	 * The delay before a rejected package task is submitted again
+	 */
+	private final static long PACKAGE_TASK_RETRY_DELAY_MS = 10;
 
 	/**
 	 * Number of maximal running queries
@@ -150,9 +222,9 @@ public class ClientConnectionHandler extends ExceptionSafeRunnable {
 	private Map<Byte, QueryHandler> queryHandlerList;
 
 	/**
-	 * The connection maintenance thread
+	 * The connection maintenance task
 	 */
-	private ConnectionMaintenanceRunnable maintenanceThread;
+	private final ScheduledFuture<?> maintenanceTask;
 
 	/**
 	 * The storage reference
@@ -191,10 +263,14 @@ public class ClientConnectionHandler extends ExceptionSafeRunnable {
 	private final static Logger logger = LoggerFactory.getLogger(ClientConnectionHandler.class);
 
 	public ClientConnectionHandler(final TupleStoreManagerRegistry storageRegistry,
-			final Socket clientSocket, final LockManager lockManager) {
+			final SocketChannel socketChannel, final LockManager lockManager,
+			final ExecutorService threadPool, final ScheduledExecutorService scheduler,
+			final ConnectionSelectorRunnable selector) {
 
 		// Client socket
-		this.clientSocket = clientSocket;
+		this.socketChannel = socketChannel;
+		this.clientSocket = socketChannel.socket();
+		this.selector = selector;
 
 		// The storage reference
 		this.storageRegistry = storageRegistry;
@@ -210,37 +286,273 @@ public class ClientConnectionHandler extends ExceptionSafeRunnable {
 
 		serviceState.dipatchToStarting();
 
-		try {
-			this.outputStream = new BufferedOutputStream(clientSocket.getOutputStream());
-			this.inputStream = new BufferedInputStream(clientSocket.getInputStream());
-		} catch (IOException e) {
-			this.inputStream = null;
-			this.outputStream = null;
-			serviceState.dispatchToFailed(e);
-			logger.error("Exception while creating IO stream", e);
-		}
+		this.outputStream = new BufferedOutputStream(new ChannelOutputStream(socketChannel));
+
+		// The received packages
+		this.packageFramer = new PackageFramer((p) -> {
+			readBytesCounter.inc(p.limit());
+			enqueuePackage(p);
+		});
+		this.pendingPackages = new ConcurrentLinkedQueue<>();
+		this.pendingPackagesCounter = new AtomicInteger(0);
+		this.packageTaskScheduled = new AtomicBoolean(false);
+		this.readSuspended = false;
+		this.connectionClosed = new AtomicBoolean(false);
 
 		// The active queries
 		this.activeQueries = new HashMap<>();
+		this.pendingPageRequests = new ConcurrentHashMap<>();
 
-		// Create a thread pool that blocks after submitting more than MAX_PENDING_REQUESTS
-		this.threadPool = ExecutorUtil.getBoundThreadPoolExecutor(25, MAX_PENDING_REQUESTS);
+		// The worker pool is shared by all connections
+		this.threadPool = threadPool;
+		this.scheduler = scheduler;
 
 		// The package router
 		this.packageRouter = new PackageRouter(threadPool, this);
 
-		// The pending packages for compression
+		// The pending packages for compression, written by the maintenance task
 		this.pendingCompressionPackages = new ArrayList<>();
-		this.maintenanceThread = new ConnectionMaintenanceRunnable();
-
-		final Thread thread = new Thread(maintenanceThread);
-		thread.start();
+		this.maintenanceTask = scheduler.scheduleAtFixedRate(new ConnectionMaintenanceRunnable(),
+				NetworkConst.MAX_COMPRESSION_DELAY_MS, NetworkConst.MAX_COMPRESSION_DELAY_MS,
+				TimeUnit.MILLISECONDS);
 
 		// Init the request handler map
 		initRequestHandlerMap();
 
 		// Init the query handler map
 		initQueryHandlerMap();
+
+		logger.debug("Handling new connection from: {}", clientSocket.getInetAddress());
+	}
+
+	/**
+	 * Read the available bytes from the channel and hand over the complete
+	 * packages to the worker pool. Called by the selector thread.
+	 *
+	 * @param readBuffer
+	 * @return false if the channel is closed
+	 * @throws IOException
+	 * @throws PackageEncodeException
+	 */
+	public boolean readFromChannel(final ByteBuffer readBuffer) throws IOException, PackageEncodeException {
+		readBuffer.clear();
+
+		final int readBytes = socketChannel.read(readBuffer);
+
+		if(readBytes < 0) {
+			return false;
+		}
+
+		readBuffer.flip();
+		packageFramer.readPackages(readBuffer);
+
+		return true;
+	}
+
+	/**
+	 * Queue a received package and schedule the processing. Suspend the reading of
+	 * the channel, when too many packages are waiting.
+	 *
+	 * @param encodedPackage
+	 */
+	private void enqueuePackage(final ByteBuffer encodedPackage) {
+		pendingPackages.add(encodedPackage);
+
+		if(pendingPackagesCounter.incrementAndGet() >= MAX_PENDING_PACKAGES && ! readSuspended) {
+			readSuspended = true;
+			selector.setReadInterest(selectionKey, false);
+		}
+
+		schedulePackageTask();
+	}
+
+	/**
+	 * Schedule the processing of the pending packages on the worker pool. The packages
+	 * of one connection are processed by only one task at a time in the receive order.
+	 * 
+	 * When the queue of the worker pool is full, the reading of the channel is suspended 
+	 * and the task is submitted again after a short delay.
+	 */
+	private void schedulePackageTask() {
+		if(! packageTaskScheduled.compareAndSet(false, true)) {
+			return;
+		}
+
+		try {
+			threadPool.execute(this::processPendingPackages);
+		} catch(RejectedExecutionException e) {
+			if(threadPool.isShutdown()) {
+				logger.debug("Worker pool is shut down, closing connection {}", getConnectionName());
+				packageTaskScheduled.set(false);
+				closeConnection();
+				return;
+			}
+			
+			delayPackageTask();
+		}
+	}
+
+	/**
+	 * The worker pool is saturated, suspend the reading of the channel and 
+	 * retry the submission of the package task later
+	 */
+	private void delayPackageTask() {
+		if(! readSuspended) {
+			readSuspended = true;
+			selector.setReadInterest(selectionKey, false);
+		}
+		
+		try {
+			scheduler.schedule(() -> {
+				packageTaskScheduled.set(false);
+				schedulePackageTask();
+			}, PACKAGE_TASK_RETRY_DELAY_MS, TimeUnit.MILLISECONDS);
+		} catch(RejectedExecutionException e) {
+			logger.debug("Scheduler is shut down, closing connection {}", getConnectionName());
+			packageTaskScheduled.set(false);
+			closeConnection();
+		}
+	}
+
+	/**
+	 * Process the pending packages
+	 */
+	private void processPendingPackages() {
+		try {
+			for(int processedPackages = 0; processedPackages < PACKAGES_PER_TASK; processedPackages++) {
+				final ByteBuffer encodedPackage = pendingPackages.poll();
+
+				if(encodedPackage == null) {
+					break;
+				}
+
+				final int pendingPackageNumber = pendingPackagesCounter.decrementAndGet();
+
+				if(readSuspended && pendingPackageNumber < MAX_PENDING_PACKAGES / 2) {
+					readSuspended = false;
+					selector.setReadInterest(selectionKey, true);
+				}
+
+				if(connectionClosed.get()) {
+					continue;
+				}
+
+				handleReceivedPackage(encodedPackage);
+			}
+		} finally {
+			packageTaskScheduled.set(false);
+		}
+
+		if(! pendingPackages.isEmpty()) {
+			schedulePackageTask();
+		}
+	}
+
+	/**
+	 * Handle a received package
+	 * @param encodedPackage
+	 */
+	private void handleReceivedPackage(final ByteBuffer encodedPackage) {
+		try {
+			final short packageSequence = NetworkPackageDecoder.getRequestIDFromRequestPackage(encodedPackage);
+			final short packageType = NetworkPackageDecoder.getPackageTypeFromRequest(encodedPackage);
+			encodedPackage.position(PackageFramer.getPackageHeaderLength(encodedPackage));
+
+			if(! isHandshakeStateValid(packageType)) {
+				closeConnection();
+				return;
+			}
+
+			final boolean readFurtherPackages = handleBufferedPackage(encodedPackage, packageSequence, packageType);
+
+			// The state is also changed by packages in compression envelopes
+			if(readFurtherPackages == false || serviceState.isInShutdownState()) {
+				closeConnection();
+			}
+		} catch (IOException | PackageEncodeException e) {
+			// Ignore exception on closing sockets
+			if(serviceState.isInRunningState()) {
+				logger.error("Socket to {} closed unexpectly (state: {}), closing connection",
+						clientSocket.getInetAddress(), getConnectionState());
+
+				logger.debug("Socket exception", e);
+			}
+
+			closeConnection();
+		} catch(Exception e) {
+			logger.error("Got exception while handling package, closing connection", e);
+			closeConnection();
+		}
+	}
+
+	/**
+	 * Only the hello package is accepted while the connection is in handshake state
+	 * @param packageType
+	 * @return
+	 */
+	private boolean isHandshakeStateValid(final short packageType) {
+		if(serviceState.isInStartingState()) {
+			if(packageType != NetworkConst.REQUEST_TYPE_HELLO) {
+				final String errorMessage = "Connection is in handshake state but got package: " + packageType;
+				logger.error(errorMessage);
+				serviceState.dispatchToFailed(new IllegalStateException(errorMessage));
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * The channel was closed by the client or is broken. Called by the
+	 * selector thread, the connection is closed on the worker pool. When
+	 * the worker pool is saturated, the connection is closed by the scheduler.
+	 */
+	public void handleChannelClosed() {
+		try {
+			threadPool.execute(this::closeConnection);
+		} catch(RejectedExecutionException e) {
+			try {
+				scheduler.execute(this::closeConnection);
+			} catch(RejectedExecutionException e1) {
+				closeConnection();
+			}
+		}
+	}
+
+	/**
+	 * Close the connection, flush all pending results and release the resources
+	 */
+	public void closeConnection() {
+
+		if(! connectionClosed.compareAndSet(false, true)) {
+			return;
+		}
+
+		maintenanceTask.cancel(false);
+
+		// Flush all pending results to client
+		if(socketChannel.isOpen()) {
+			flushPendingCompressionPackages();
+		}
+
+		// Connection is down
+		if(serviceState.isInRunningState()) {
+			serviceState.dispatchToStopping();
+		}
+
+		serviceState.forceDispatchToTerminated();
+
+		logger.info("Closing connection to: {}", clientSocket.getInetAddress());
+
+		// Close active query iterators
+		getActiveQueries().values().forEach(i -> i.close());
+		getActiveQueries().clear();
+		pendingPageRequests.clear();
+
+		CloseableHelper.closeWithoutException(outputStream);
+		CloseableHelper.closeWithoutException(socketChannel);
+		pendingPackages.clear();
 	}
 
 	/**
@@ -286,8 +598,11 @@ public class ClientConnectionHandler extends ExceptionSafeRunnable {
 				logger.debug("Chunk size is: {}", packagesToWrite.size());
 			}
 
+			final NetworkCompression compression
+				= NetworkCompression.getCompressionForPeer(connectionCapabilities);
+
 			final NetworkResponsePackage compressionEnvelopeRequest
-				= new CompressionEnvelopeResponse(NetworkConst.COMPRESSION_TYPE_GZIP, packagesToWrite);
+				= new CompressionEnvelopeResponse(compression.getId(), packagesToWrite);
 
 			try {
 				writePackageToSocket(compressionEnvelopeRequest);
@@ -306,7 +621,7 @@ public class ClientConnectionHandler extends ExceptionSafeRunnable {
 	public synchronized void writeResultPackage(final NetworkResponsePackage responsePackage)
 			throws IOException, PackageEncodeException {
 
-		if(connectionCapabilities.hasGZipCompression()) {
+		if(connectionCapabilities.hasCompression()) {
 			boolean uncompressedQueueFull = false;
 
 			synchronized (pendingCompressionPackages) {
@@ -352,46 +667,6 @@ public class ClientConnectionHandler extends ExceptionSafeRunnable {
 		}
 	}
 
-	@Override
-	public void runThread() {
-		try {
-			logger.debug("Handling new connection from: {}", clientSocket.getInetAddress());
-
-			while(serviceState.isInRunningState() || serviceState.isInStartingState()) {
-				handleNextPackage(inputStream);
-			}
-
-			// Flush all pending results to client
-			flushPendingCompressionPackages();
-
-			// Connection is down
-			if(! serviceState.isInStoppingState()) {
-				serviceState.dispatchToStopping();
-			}
-
-			serviceState.dispatchToTerminated();
-
-			logger.info("Closing connection to: {}", clientSocket.getInetAddress());
-		} catch (IOException | PackageEncodeException e) {
-			// Ignore exception on closing sockets
-			if(serviceState.isInRunningState()) {
-
-				logger.error("Socket to {} closed unexpectly (state: {}), closing connection",
-						clientSocket.getInetAddress(), getConnectionState());
-
-				logger.debug("Socket exception", e);
-			}
-		}
-
-		getThreadPool().shutdown();
-
-		// Close active query iterators
-		getActiveQueries().values().forEach(i -> i.close());
-		getActiveQueries().clear();
-
-		CloseableHelper.closeWithoutException(clientSocket);
-	}
-
 	/**
 	 * Read the full package. The total length of the package is read from the package header.
 	 * @param packageHeader
@@ -431,13 +706,8 @@ public class ClientConnectionHandler extends ExceptionSafeRunnable {
 		final short packageSequence = NetworkPackageDecoder.getRequestIDFromRequestPackage(packageHeader);
 		final short packageType = NetworkPackageDecoder.getPackageTypeFromRequest(packageHeader);
 
-		if(serviceState.isInStartingState()) {
-			if(packageType != NetworkConst.REQUEST_TYPE_HELLO) {
-				final String errorMessage = "Connection is in handshake state but got package: " + packageType;
-				logger.error(errorMessage);
-				serviceState.dispatchToFailed(new IllegalStateException(errorMessage));
-				return;
-			}
+		if(! isHandshakeStateValid(packageType)) {
+			return;
 		}
 
 		final ByteBuffer encodedPackage = readFullPackage(packageHeader, inputStream);
@@ -565,6 +835,7 @@ public class ClientConnectionHandler extends ExceptionSafeRunnable {
 		requestHandlers.put(NetworkConst.REQUEST_TYPE_CREATE_TABLE, new CreateTableHandler());
 		requestHandlers.put(NetworkConst.REQUEST_TYPE_DELETE_TABLE, new DeleteTableHandler());
 		requestHandlers.put(NetworkConst.REQUEST_TYPE_INSERT_TUPLE, new InsertTupleHandler());
+		requestHandlers.put(NetworkConst.REQUEST_TYPE_INSERT_TUPLES, new InsertTuplesHandler());
 		requestHandlers.put(NetworkConst.REQUEST_TYPE_CREATE_DISTRIBUTION_GROUP, new CreateDistributionGroupHandler());
 		requestHandlers.put(NetworkConst.REQUEST_TYPE_DELETE_DISTRIBUTION_GROUP, new DeleteDistributionGroupHandler());
 		requestHandlers.put(NetworkConst.REQUEST_TYPE_KEEP_ALIVE, new KeepAliveHandler());
@@ -598,37 +869,63 @@ public class ClientConnectionHandler extends ExceptionSafeRunnable {
 			throws IOException, PackageEncodeException {
 
 		if(! getActiveQueries().containsKey(querySequence)) {
-			logger.error("Unable to resume query {} - package {} - not found", querySequence, packageSequence);
+			// Might happen when the client has requested pages in advance
+			logger.debug("Unable to resume query {} - package {} - not found", querySequence, packageSequence);
 			writeResultPackage(new ErrorResponse(packageSequence, ErrorMessages.ERROR_QUERY_NOT_FOUND));
 			return;
 		}
 
+		// The queue is also used to serialize the page requests of the query
+		final Queue<Short> pendingRequests = pendingPageRequests.computeIfAbsent(querySequence,
+				(k) -> new ConcurrentLinkedQueue<>());
+
+		pendingRequests.add(packageSequence);
+
 		final Runnable queryRunable = new ExceptionSafeRunnable() {
 
+			/**
+			 * The package sequence of the answered request
+			 */
+			private short answeredPackageSequence = packageSequence;
+
 			@Override
 			protected void runThread() throws IOException, PackageEncodeException {
-				final ClientQuery clientQuery = getActiveQueries().get(querySequence);
-
-				if(clientQuery == null) {
-					logger.error("Unable to resume query {}, not found", querySequence);
-					return;
-				}
 
-				clientQuery.fetchAndSendNextTuples(packageSequence);
-
-				if(clientQuery.isQueryDone()) {
-					logger.info("Query {} is done with {} tuples, removing iterator ",
-							querySequence,
-							clientQuery.getTotalSendTuples());
-					clientQuery.close();
-					getActiveQueries().remove(querySequence);
+				// Each task answers the oldest request, so the pages are send in the order of the requests
+				synchronized (pendingRequests) {
+					final Short nextRequest = pendingRequests.poll();
+
+					if(nextRequest != null) {
+						answeredPackageSequence = nextRequest;
+					}
+
+					final ClientQuery clientQuery = getActiveQueries().get(querySequence);
+
+					if(clientQuery == null) {
+						logger.debug("Unable to resume query {}, not found", querySequence);
+						removePendingPageRequests(querySequence, pendingRequests);
+						writeResultPackage(new ErrorResponse(answeredPackageSequence,
+								ErrorMessages.ERROR_QUERY_NOT_FOUND));
+						return;
+					}
+
+					clientQuery.fetchAndSendNextTuples(answeredPackageSequence);
+
+					if(clientQuery.isQueryDone()) {
+						logger.info("Query {} is done with {} tuples, removing iterator ",
+								querySequence,
+								clientQuery.getTotalSendTuples());
+						clientQuery.close();
+						getActiveQueries().remove(querySequence);
+						removePendingPageRequests(querySequence, pendingRequests);
+					}
 				}
 			}
 
 			@Override
 			protected void afterExceptionHook() {
 				try {
-					writeResultPackage(new ErrorResponse(packageSequence, ErrorMessages.ERROR_EXCEPTION));
+					writeResultPackage(new ErrorResponse(answeredPackageSequence, ErrorMessages.ERROR_EXCEPTION));
 				} catch (IOException | PackageEncodeException e) {
 					logger.error("Unable to send result package", e);
 				}
@@ -638,12 +935,35 @@ public class ClientConnectionHandler extends ExceptionSafeRunnable {
 		// Submit the runnable to our pool
 		if(threadPool.isShutdown()) {
 			logger.warn("Thread pool is shutting down, don't execute query: {}", querySequence);
+			pendingRequests.remove(packageSequence);
 			writeResultPackage(new ErrorResponse(packageSequence, ErrorMessages.ERROR_EXCEPTION));
 		} else {
 			getThreadPool().submit(queryRunable);
 		}
 	}
 
+	/**
+	 * Remove the pending page requests of the query, if all requests are answered
+	 * @param querySequence
+	 * @param pendingRequests
+	 */
+	private void removePendingPageRequests(final short querySequence, final Queue<Short> pendingRequests) {
+		pendingPageRequests.computeIfPresent(querySequence, 
+				(k, v) -> (v == pendingRequests && v.isEmpty()) ? null : v);
+	}
+
+	/**
+	 * Remove the pending page requests of a canceled query
+	 * @param querySequence
+	 */
+	public void removePendingPageRequests(final short querySequence) {
+		final Queue<Short> pendingRequests = pendingPageRequests.get(querySequence);
+
+		if(pendingRequests != null) {
+			removePendingPageRequests(querySequence, pendingRequests);
+		}
+	}
+
 	/**
 	 * Get the connection Capabilities
 	 * @return
@@ -676,6 +996,14 @@ public class ClientConnectionHandler extends ExceptionSafeRunnable {
 		return threadPool;
 	}
 
+	public SocketChannel getSocketChannel() {
+		return socketChannel;
+	}
+
+	public void setSelectionKey(final SelectionKey selectionKey) {
+		this.selectionKey = selectionKey;
+	}
+
 	public PackageRouter getPackageRouter() {
 		return packageRouter;
 	}
@@ -709,29 +1037,11 @@ public class ClientConnectionHandler extends ExceptionSafeRunnable {
 
 	class ConnectionMaintenanceRunnable extends ExceptionSafeRunnable {
 
-		@Override
-		protected void beginHook() {
-			logger.debug("Starting connection mainteinance thread for: {}", getConnectionName());
-		}
-
-		@Override
-		protected void endHook() {
-			logger.debug("Mainteinance thread for {} has terminated", getConnectionName());
-		}
-
 		@Override
 		protected void runThread() throws Exception {
-			while(serviceState.isInStartingState() || serviceState.isInRunningState()) {
-
+			if(serviceState.isInStartingState() || serviceState.isInRunningState()) {
 				// Write all waiting for compression packages
 				flushPendingCompressionPackages();
-
-				try {
-					Thread.sleep(NetworkConst.MAX_COMPRESSION_DELAY_MS);
-				} catch (InterruptedException e) {
-					// Handle InterruptedException directly
-					return;
-				}
 			}
 		}
 	};
@@ -18,9 +18,12 @@
 package org.bboxdb.network.server.connection;
 
 import java.io.IOException;
-import java.net.ServerSocket;
-import java.net.Socket;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.List;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ScheduledExecutorService;
 
 import org.bboxdb.commons.CloseableHelper;
 import org.bboxdb.commons.concurrent.ExceptionSafeRunnable;
@@ -36,9 +39,9 @@ import org.slf4j.LoggerFactory;
 public class ConnectionDispatcherRunable extends ExceptionSafeRunnable {
 
 	/**
-	 * The server socket
+	 * The server socket channel
 	 */
-	private ServerSocket serverSocket;
+	private ServerSocketChannel serverSocket;
 
 	/**
 	 * The listen port
@@ -46,9 +49,24 @@ public class ConnectionDispatcherRunable extends ExceptionSafeRunnable {
 	private final int port;
 
 	/**
-	 * The thread pool for handling connections
+	 * The shared worker pool for handling requests
 	 */
 	private final ExecutorService threadPool;
+	
+	/**
+	 * The shared scheduler for the connection maintenance tasks
+	 */
+	private final ScheduledExecutorService scheduler;
+	
+	/**
+	 * The selectors that read from the client connections
+	 */
+	private final List<ConnectionSelectorRunnable> selectors;
+	
+	/**
+	 * The number of accepted connections, used to assign the selectors round robin
+	 */
+	private long acceptedConnections;
 
 	/**
 	 * The storage registry
@@ -72,10 +90,14 @@ public class ConnectionDispatcherRunable extends ExceptionSafeRunnable {
 
 
 	public ConnectionDispatcherRunable(final int port, final ExecutorService threadPool,
+			final ScheduledExecutorService scheduler, final List<ConnectionSelectorRunnable> selectors,
 			final TupleStoreManagerRegistry storageRegistry, final LockManager lockManager) {
 
 		this.port = port;
 		this.threadPool = threadPool;
+		this.scheduler = scheduler;
+		this.selectors = selectors;
+		this.acceptedConnections = 0;
 		this.storageRegistry = storageRegistry;
 		this.lockManager = lockManager;
 		this.shutdownPending = false;
@@ -94,12 +116,13 @@ public class ConnectionDispatcherRunable extends ExceptionSafeRunnable {
 	@Override
 	public void runThread() {
 		try {
-			serverSocket = new ServerSocket(port);
-			serverSocket.setReuseAddress(true);
+			serverSocket = ServerSocketChannel.open();
+			serverSocket.socket().setReuseAddress(true);
+			serverSocket.bind(new InetSocketAddress(port));
 
 			while(isThreadActive()) {
-				final Socket clientSocket = serverSocket.accept();
-				handleConnection(clientSocket);
+				final SocketChannel clientChannel = serverSocket.accept();
+				handleConnection(clientChannel);
 			}
 
 		} catch(IOException e) {
@@ -145,15 +168,21 @@ public class ConnectionDispatcherRunable extends ExceptionSafeRunnable {
 	}
 
 	/**
-	 * Dispatch the connection to the thread pool
-	 * @param clientSocket
+	 * Dispatch the connection to one of the selectors
+	 * @param clientChannel
+	 * @throws IOException
 	 */
-	private void handleConnection(final Socket clientSocket) {
-		logger.debug("Got new connection from: {}", clientSocket.getInetAddress());
+	private void handleConnection(final SocketChannel clientChannel) throws IOException {
+		logger.debug("Got new connection from: {}", clientChannel.socket().getInetAddress());
+
+		clientChannel.configureBlocking(false);
+
+		final int selectorIndex = (int) (acceptedConnections++ % selectors.size());
+		final ConnectionSelectorRunnable selector = selectors.get(selectorIndex);
 
-		final ClientConnectionHandler task = new ClientConnectionHandler(storageRegistry,
-				clientSocket, lockManager);
+		final ClientConnectionHandler connection = new ClientConnectionHandler(storageRegistry,
+				clientChannel, lockManager, threadPool, scheduler, selector);
 
-		threadPool.submit(task);
+		selector.registerConnection(connection);
 	}
 }
\ No newline at end of file
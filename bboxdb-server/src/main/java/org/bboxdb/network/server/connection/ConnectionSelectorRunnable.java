@@ -0,0 +1,217 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2018 the BBoxDB project
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ *******************************************************************************/
+package org.bboxdb.network.server.connection;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import org.bboxdb.commons.CloseableHelper;
+import org.bboxdb.commons.concurrent.ExceptionSafeRunnable;
+import org.bboxdb.network.packages.PackageEncodeException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * The selector runnable reads the data of many non blocking client 
+ * connections. Complete packages are handed over to the connection, 
+ * which processes them on the shared worker pool.
+ *
+ */
+public class ConnectionSelectorRunnable extends ExceptionSafeRunnable {
+
+	/**
+	 * The selector
+	 */
+	private final Selector selector;
+	
+	/**
+	 * The tasks that need to be executed in the selector thread
+	 */
+	private final Queue<Runnable> pendingTasks;
+	
+	/**
+	 * The read buffer, shared by all connections of this selector
+	 */
+	private final ByteBuffer readBuffer;
+	
+	/**
+	 * Is a shutdown pending?
+	 */
+	private volatile boolean shutdownPending;
+	
+	/**
+	 * The size of the read buffer
+	 */
+	private final static int READ_BUFFER_SIZE = 64 * 1024;
+	
+	/**
+	 * The Logger
+	 */
+	private final static Logger logger = LoggerFactory.getLogger(ConnectionSelectorRunnable.class);
+
+	public ConnectionSelectorRunnable() throws IOException {
+		this.selector = Selector.open();
+		this.pendingTasks = new ConcurrentLinkedQueue<>();
+		this.readBuffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE);
+		this.shutdownPending = false;
+	}
+	
+	@Override
+	protected void beginHook() {
+		logger.info("Starting new connection selector");
+	}
+
+	@Override
+	protected void endHook() {
+		logger.info("Connection selector has terminated");
+	}
+	
+	/**
+	 * Register a new connection
+	 * @param connection
+	 */
+	public void registerConnection(final ClientConnectionHandler connection) {
+		executeInSelectorThread(() -> {
+			final SocketChannel socketChannel = connection.getSocketChannel();
+			
+			try {
+				final SelectionKey selectionKey 
+					= socketChannel.register(selector, SelectionKey.OP_READ, connection);
+				connection.setSelectionKey(selectionKey);
+			} catch (ClosedChannelException e) {
+				logger.debug("Channel is closed before it could be registered", e);
+				connection.handleChannelClosed();
+			}
+		});
+	}
+	
+	/**
+	 * Enable or disable the read interest of the connection
+	 * @param selectionKey
+	 * @param readInterest
+	 */
+	public void setReadInterest(final SelectionKey selectionKey, final boolean readInterest) {
+		executeInSelectorThread(() -> {
+			if(! selectionKey.isValid()) {
+				return;
+			}
+			
+			final int interestOps = readInterest ? SelectionKey.OP_READ : 0;
+			selectionKey.interestOps(interestOps);
+		});
+	}
+	
+	/**
+	 * Execute the task in the selector thread
+	 * @param task
+	 */
+	private void executeInSelectorThread(final Runnable task) {
+		pendingTasks.add(task);
+		selector.wakeup();
+	}
+
+	@Override
+	protected void runThread() throws Exception {
+		try {
+			while(! shutdownPending && ! Thread.currentThread().isInterrupted()) {
+				selector.select();
+				
+				runPendingTasks();
+				
+				final Iterator<SelectionKey> iterator = selector.selectedKeys().iterator();
+				
+				while(iterator.hasNext()) {
+					final SelectionKey selectionKey = iterator.next();
+					iterator.remove();
+					handleSelectionKey(selectionKey);
+				}
+			}
+		} finally {
+			closeAllConnections();
+			CloseableHelper.closeWithoutException(selector);
+		}
+	}
+
+	/**
+	 * Read the available data of a connection
+	 * @param selectionKey
+	 */
+	private void handleSelectionKey(final SelectionKey selectionKey) {
+		
+		if(! selectionKey.isValid() || ! selectionKey.isReadable()) {
+			return;
+		}
+		
+		final ClientConnectionHandler connection = (ClientConnectionHandler) selectionKey.attachment();
+		
+		boolean channelOpen = false;
+		
+		try {
+			channelOpen = connection.readFromChannel(readBuffer);
+		} catch (IOException | PackageEncodeException e) {
+			logger.debug("Got exception while reading from connection " 
+					+ connection.getConnectionName(), e);
+		}
+		
+		if(! channelOpen) {
+			selectionKey.cancel();
+			connection.handleChannelClosed();
+		}
+	}
+
+	/**
+	 * Run the pending tasks
+	 */
+	private void runPendingTasks() {
+		Runnable task;
+		
+		while((task = pendingTasks.poll()) != null) {
+			task.run();
+		}
+	}
+	
+	/**
+	 * Close all registered connections
+	 */
+	private void closeAllConnections() {
+		final List<SelectionKey> selectionKeys = new ArrayList<>(selector.keys());
+		
+		for(final SelectionKey selectionKey : selectionKeys) {
+			selectionKey.cancel();
+			final ClientConnectionHandler connection = (ClientConnectionHandler) selectionKey.attachment();
+			connection.handleChannelClosed();
+		}
+	}
+	
+	/**
+	 * Shutdown the selector
+	 */
+	public void shutdown() {
+		shutdownPending = true;
+		selector.wakeup();
+	}
+}
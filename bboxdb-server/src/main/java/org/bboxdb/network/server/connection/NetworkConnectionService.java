@@ -17,8 +17,17 @@
  *******************************************************************************/
 package org.bboxdb.network.server.connection;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.bboxdb.commons.service.ServiceState;
 import org.bboxdb.misc.BBoxDBConfiguration;
@@ -37,10 +46,20 @@ public class NetworkConnectionService implements BBoxDBService {
 	private final BBoxDBConfiguration configuration = BBoxDBConfigurationManager.getConfiguration();
 
 	/**
-	 * Our thread pool to handle connections
+	 * The worker pool to handle the requests of all connections
 	 */
 	private ExecutorService threadPool;
 	
+	/**
+	 * The scheduler for the connection maintenance tasks
+	 */
+	private ScheduledExecutorService scheduler;
+	
+	/**
+	 * The selectors that read from the client connections
+	 */
+	private final List<ConnectionSelectorRunnable> selectors = new ArrayList<>();
+	
 	/**
 	 * The connection handler state
 	 */
@@ -67,6 +86,11 @@ public class NetworkConnectionService implements BBoxDBService {
 	 */
 	private final LockManager lockManager;
 	
+	/**
+	 * The maximal number of tasks that are queued in the worker pool
+	 */
+	private final static int MAX_QUEUED_TASKS = 1000;
+	
 	/**
 	 * The Logger
 	 */
@@ -95,11 +119,25 @@ public class NetworkConnectionService implements BBoxDBService {
 			logger.info("Start the network connection handler on port: {}", port);
 			
 			if(threadPool == null) {
-				threadPool = Executors.newFixedThreadPool(configuration.getNetworkConnectionThreads());
+				threadPool = createWorkerPool(configuration.getNetworkConnectionThreads());
+			}
+			
+			if(scheduler == null) {
+				scheduler = Executors.newSingleThreadScheduledExecutor(
+						r -> createDaemonThread(r, "Connection maintenance thread"));
+			}
+			
+			for(int i = 0; i < configuration.getNetworkSelectorThreads(); i++) {
+				final ConnectionSelectorRunnable selector = new ConnectionSelectorRunnable();
+				selectors.add(selector);
+				
+				final Thread selectorThread = new Thread(selector);
+				selectorThread.setName("Connection selector thread " + i);
+				selectorThread.start();
 			}
 						
-			serverSocketDispatcher = new ConnectionDispatcherRunable(port, threadPool, 
-					storageRegistry, lockManager);
+			serverSocketDispatcher = new ConnectionDispatcherRunable(port, threadPool, scheduler,
+					selectors, storageRegistry, lockManager);
 			
 			serverSocketDispatchThread = new Thread(serverSocketDispatcher);
 			serverSocketDispatchThread.start();
@@ -133,14 +171,80 @@ public class NetworkConnectionService implements BBoxDBService {
 			serverSocketDispatcher = null;
 		}
 		
+		selectors.forEach(s -> s.shutdown());
+		selectors.clear();
+		
 		if(threadPool != null) {
 			threadPool.shutdown();
 			threadPool = null;
 		}
 		
+		if(scheduler != null) {
+			scheduler.shutdown();
+			scheduler = null;
+		}
+		
 		state.dispatchToTerminated();
 	}
 	
+	/**
+	 * Create the worker pool. Threads are only bound to running requests, idle 
+	 * connections don't need a thread. The number of threads and the number of 
+	 * queued tasks are bounded. 
+	 * 
+	 * A full queue rejects tasks from the selector and the dispatcher threads, 
+	 * these threads apply backpressure by suspending the reading of the connection.
+	 * Tasks that are submitted by the worker threads are executed by the submitting 
+	 * thread, a worker waiting for a queued task could block the pool otherwise.
+	 * 
+	 * @param maxThreads
+	 * @return
+	 */
+	private static ThreadPoolExecutor createWorkerPool(final int maxThreads) {
+		final AtomicInteger workerNumber = new AtomicInteger(0);
+		
+		final RejectedExecutionHandler rejectedExecutionHandler = (r, executor) -> {
+			if(executor.isShutdown() || ! (Thread.currentThread() instanceof NetworkWorkerThread)) {
+				throw new RejectedExecutionException("Worker pool is saturated or shut down");
+			}
+			
+			r.run();
+		};
+		
+		final ThreadPoolExecutor workerPool = new ThreadPoolExecutor(maxThreads, maxThreads, 
+				60, TimeUnit.SECONDS, new ArrayBlockingQueue<>(MAX_QUEUED_TASKS), 
+				r -> new NetworkWorkerThread(r, "Network worker thread " + workerNumber.incrementAndGet()), 
+				rejectedExecutionHandler);
+		
+		workerPool.allowCoreThreadTimeOut(true);
+		
+		return workerPool;
+	}
+	
+	/**
+	 * The thread of the worker pool
+	 */
+	private static class NetworkWorkerThread extends Thread {
+		
+		public NetworkWorkerThread(final Runnable runnable, final String name) {
+			super(runnable, name);
+			setDaemon(true);
+		}
+	}
+	
+	/**
+	 * Create a daemon thread
+	 * @param runnable
+	 * @param name
+	 * @return
+	 */
+	private static Thread createDaemonThread(final Runnable runnable, final String name) {
+		final Thread thread = new Thread(runnable);
+		thread.setName(name);
+		thread.setDaemon(true);
+		return thread;
+	}
+	
 	@Override
 	public String getServicename() {
 		return "Network connection handler";
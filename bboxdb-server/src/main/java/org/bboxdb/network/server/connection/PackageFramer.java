@@ -0,0 +1,171 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2018 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.network.server.connection;
+
+import java.nio.ByteBuffer;
+import java.util.function.Consumer;
+
+import org.bboxdb.commons.io.DataEncoderHelper;
+import org.bboxdb.network.NetworkPackageDecoder;
+import org.bboxdb.network.packages.PackageEncodeException;
+import org.bboxdb.network.routing.RoutingHeader;
+
+/**
+ * The package framer splits the bytes read from a non blocking channel 
+ * into request packages. A read can contain a part of a package, a part 
+ * of the header or multiple packages. Each complete package is handed over 
+ * to the consumer.
+ * 
+ * The read buffer is shared by all connections of a selector. The package 
+ * buffers are allocated per package, because the package is handed over to 
+ * the worker pool and decoded there.
+ */
+public class PackageFramer {
+	
+	/**
+	 * The buffer for the header of the next package (header and routing header
+	 * up to the routing list)
+	 */
+	private final ByteBuffer packageHeaderBuffer;
+
+	/**
+	 * The buffer for the package that is currently read
+	 */
+	private ByteBuffer packageBuffer;
+	
+	/**
+	 * The consumer for the complete packages
+	 */
+	private final Consumer<ByteBuffer> packageConsumer;
+	
+	/**
+	 * The size of the package header and the routing header up to the routing list
+	 */
+	public final static int PACKAGE_HEADER_LENGTH = 18;
+	
+	public PackageFramer(final Consumer<ByteBuffer> packageConsumer) {
+		this.packageConsumer = packageConsumer;
+		this.packageHeaderBuffer = ByteBuffer.allocate(PACKAGE_HEADER_LENGTH);
+		this.packageBuffer = null;
+	}
+	
+	/**
+	 * Read all remaining bytes of the read buffer
+	 * @param readBuffer
+	 * @throws PackageEncodeException
+	 */
+	public void readPackages(final ByteBuffer readBuffer) throws PackageEncodeException {
+		while(readBuffer.hasRemaining()) {
+			readPackageData(readBuffer);
+		}
+	}
+	
+	/**
+	 * Is a package partially read
+	 * @return
+	 */
+	public boolean isPackagePending() {
+		return packageBuffer != null || packageHeaderBuffer.position() > 0;
+	}
+
+	/**
+	 * Copy the read data into the header or the package buffer
+	 * @param readBuffer
+	 * @throws PackageEncodeException
+	 */
+	private void readPackageData(final ByteBuffer readBuffer) throws PackageEncodeException {
+
+		if(packageBuffer == null) {
+			transferBytes(readBuffer, packageHeaderBuffer);
+
+			if(packageHeaderBuffer.hasRemaining()) {
+				return;
+			}
+
+			packageBuffer = allocatePackageBuffer(packageHeaderBuffer);
+			packageHeaderBuffer.clear();
+		}
+
+		transferBytes(readBuffer, packageBuffer);
+
+		if(! packageBuffer.hasRemaining()) {
+			final ByteBuffer encodedPackage = packageBuffer;
+			packageBuffer = null;
+			packageConsumer.accept(encodedPackage);
+		}
+	}
+
+	/**
+	 * Allocate the buffer for the full package. The total length of the package is
+	 * read from the package header and the routing header.
+	 *
+	 * @param headerBuffer
+	 * @return
+	 * @throws PackageEncodeException
+	 */
+	private static ByteBuffer allocatePackageBuffer(final ByteBuffer headerBuffer) throws PackageEncodeException {
+
+		final byte[] header = headerBuffer.array();
+		final byte routedOrDirect = header[12];
+		int routingListLength = 0;
+
+		if(routedOrDirect == RoutingHeader.ROUTED_PACKAGE) {
+			final byte[] routingListLengthBytes = {header[16], header[17]};
+			routingListLength = DataEncoderHelper.readShortFromByte(routingListLengthBytes);
+		} else if(routedOrDirect != RoutingHeader.DIRECT_PACKAGE) {
+			throw new PackageEncodeException("Invalid package routing type, unable to decode package "
+					+ "header: " + routedOrDirect);
+		}
+
+		final int bodyLength = (int) NetworkPackageDecoder.getBodyLengthFromRequestPackage(headerBuffer);
+		final int headerLength = PACKAGE_HEADER_LENGTH + routingListLength;
+
+		final ByteBuffer encodedPackage = ByteBuffer.allocate(headerLength + bodyLength);
+		encodedPackage.put(header);
+		return encodedPackage;
+	}
+
+	/**
+	 * Transfer the bytes from the source to the destination buffer
+	 * @param source
+	 * @param destination
+	 */
+	private static void transferBytes(final ByteBuffer source, final ByteBuffer destination) {
+		final int bytes = Math.min(source.remaining(), destination.remaining());
+		final int sourceLimit = source.limit();
+		source.limit(source.position() + bytes);
+		destination.put(source);
+		source.limit(sourceLimit);
+	}
+	
+	/**
+	 * Get the header length (package and routing header) of an encoded package
+	 * @param encodedPackage
+	 * @return
+	 */
+	public static int getPackageHeaderLength(final ByteBuffer encodedPackage) {
+		final byte[] data = encodedPackage.array();
+
+		if(data[12] != RoutingHeader.ROUTED_PACKAGE) {
+			return PACKAGE_HEADER_LENGTH;
+		}
+
+		final byte[] routingListLengthBytes = {data[16], data[17]};
+		return PACKAGE_HEADER_LENGTH + DataEncoderHelper.readShortFromByte(routingListLengthBytes);
+	}
+}
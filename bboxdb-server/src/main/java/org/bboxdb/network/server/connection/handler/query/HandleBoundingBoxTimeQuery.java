@@ -32,9 +32,9 @@ import org.bboxdb.network.server.StreamClientQuery;
 import org.bboxdb.network.server.connection.ClientConnectionHandler;
 import org.bboxdb.storage.entity.TupleStoreName;
 import org.bboxdb.storage.queryprocessor.OperatorTreeBuilder;
-import org.bboxdb.storage.queryprocessor.operator.NewerAsInsertTimeSeclectionOperator;
 import org.bboxdb.storage.queryprocessor.operator.Operator;
-import org.bboxdb.storage.queryprocessor.operator.SpatialIndexReadOperator;
+import org.bboxdb.storage.queryprocessor.operator.SpatialTimeIndexReadOperator;
+import org.bboxdb.storage.sstable.timeindex.TimeIndexType;
 import org.bboxdb.storage.tuplestore.manager.TupleStoreManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -77,17 +77,16 @@ public class HandleBoundingBoxTimeQuery implements QueryHandler {
 					}
 					
 					final Hyperrectangle boundingBox = queryRequest.getBoundingBox();
-					final SpatialIndexReadOperator operator = new SpatialIndexReadOperator(storageManager.get(0), boundingBox);
 					
-					final Operator operator1 = new NewerAsInsertTimeSeclectionOperator(queryRequest.getTimestamp(), 
-							operator);
-					
-					return operator1;
+					// Read only the tuples that are contained in the spatial and the time index
+					return new SpatialTimeIndexReadOperator(storageManager.get(0), boundingBox, 
+							TimeIndexType.INSERT_TIME, queryRequest.getTimestamp());
 				}
 			};
 			
 			final StreamClientQuery clientQuery = new StreamClientQuery(operatorTreeBuilder, queryRequest.isPagingEnabled(), 
-					queryRequest.getTuplesPerPage(), clientConnectionHandler, packageSequence, Arrays.asList(requestTable));
+					queryRequest.getTuplesPerPage(), clientConnectionHandler, packageSequence, Arrays.asList(requestTable),
+					queryRequest.getRoutingHeader(), queryRequest.getBoundingBox());
 			
 			clientConnectionHandler.getActiveQueries().put(packageSequence, clientQuery);
 			clientConnectionHandler.sendNextResultsForQuery(packageSequence, packageSequence);
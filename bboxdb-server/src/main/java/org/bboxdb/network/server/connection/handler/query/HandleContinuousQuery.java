@@ -66,7 +66,7 @@ public class HandleContinuousQuery implements QueryHandler {
 			}
 						
 			final ClientQuery clientQuery = new ContinuousClientQuery(queryPlan,
-					clientConnectionHandler, packageSequence);
+					clientConnectionHandler, packageSequence, queryRequest.getResultCredits());
 			
 			clientConnectionHandler.getActiveQueries().put(packageSequence, clientQuery);
 			clientConnectionHandler.sendNextResultsForQuery(packageSequence, packageSequence);
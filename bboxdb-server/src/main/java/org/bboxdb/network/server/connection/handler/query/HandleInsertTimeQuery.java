@@ -22,6 +22,7 @@ import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.List;
 
+import org.bboxdb.commons.math.Hyperrectangle;
 import org.bboxdb.network.packages.PackageEncodeException;
 import org.bboxdb.network.packages.request.QueryInsertTimeRequest;
 import org.bboxdb.network.packages.response.ErrorResponse;
@@ -31,9 +32,9 @@ import org.bboxdb.network.server.StreamClientQuery;
 import org.bboxdb.network.server.connection.ClientConnectionHandler;
 import org.bboxdb.storage.entity.TupleStoreName;
 import org.bboxdb.storage.queryprocessor.OperatorTreeBuilder;
-import org.bboxdb.storage.queryprocessor.operator.FullTablescanOperator;
-import org.bboxdb.storage.queryprocessor.operator.NewerAsInsertTimeSeclectionOperator;
 import org.bboxdb.storage.queryprocessor.operator.Operator;
+import org.bboxdb.storage.queryprocessor.operator.TimeIndexReadOperator;
+import org.bboxdb.storage.sstable.timeindex.TimeIndexType;
 import org.bboxdb.storage.tuplestore.manager.TupleStoreManager;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -76,16 +77,18 @@ public class HandleInsertTimeQuery implements QueryHandler {
 						throw new IllegalArgumentException("This operator tree needs 1 storage manager");
 					}
 					
-					final FullTablescanOperator tablescanOperator = new FullTablescanOperator(storageManager.get(0));
 					final long timestamp = queryRequest.getTimestamp();
-					final Operator opeator = new NewerAsInsertTimeSeclectionOperator(timestamp, tablescanOperator);
-
-					return opeator;
+					
+					// Skip the tuple stores without newer inserts and 
+					// read only the newer tuples of the SSTables
+					return new TimeIndexReadOperator(storageManager.get(0), 
+							TimeIndexType.INSERT_TIME, timestamp);
 				}
 			};
 			
 			final StreamClientQuery clientQuery = new StreamClientQuery(operatorTreeBuilder, queryRequest.isPagingEnabled(), 
-					queryRequest.getTuplesPerPage(), clientConnectionHandler, packageSequence, Arrays.asList(requestTable));
+					queryRequest.getTuplesPerPage(), clientConnectionHandler, packageSequence, Arrays.asList(requestTable),
+					queryRequest.getRoutingHeader(), Hyperrectangle.FULL_SPACE);
 			
 			clientConnectionHandler.getActiveQueries().put(packageSequence, clientQuery);
 			clientConnectionHandler.sendNextResultsForQuery(packageSequence, packageSequence);
@@ -31,8 +31,8 @@ import org.bboxdb.network.server.StreamClientQuery;
 import org.bboxdb.network.server.connection.ClientConnectionHandler;
 import org.bboxdb.storage.entity.TupleStoreName;
 import org.bboxdb.storage.queryprocessor.OperatorTreeBuilder;
-import org.bboxdb.storage.queryprocessor.operator.IndexedSpatialJoinOperator;
 import org.bboxdb.storage.queryprocessor.operator.Operator;
+import org.bboxdb.storage.queryprocessor.operator.PartitionedSpatialJoinOperator;
 import org.bboxdb.storage.queryprocessor.operator.SpatialIndexReadOperator;
 import org.bboxdb.storage.tuplestore.manager.TupleStoreManager;
 import org.slf4j.Logger;
@@ -44,7 +44,6 @@ public class HandleJoinQuery implements QueryHandler {
 	 * The Logger
 	 */
 	private final static Logger logger = LoggerFactory.getLogger(HandleJoinQuery.class);
-	
 
 	@Override
 	/**
@@ -79,13 +78,11 @@ public class HandleJoinQuery implements QueryHandler {
 						throw new IllegalArgumentException("This operator tree needs more than one storage manager");
 					}
 					
-					Operator operator1 = new SpatialIndexReadOperator(storageManager.get(0), boundingBox);
-					SpatialIndexReadOperator indexReader = new SpatialIndexReadOperator(storageManager.get(1));
-					operator1 = new IndexedSpatialJoinOperator(operator1, indexReader);
-					
-					for(int i = 3; i < storageManager.size(); i++) {
-						indexReader = new SpatialIndexReadOperator(storageManager.get(i));
-						operator1 = new IndexedSpatialJoinOperator(operator1, indexReader);
+					final TupleStoreManager outerStorageManager = storageManager.get(0);
+					Operator operator1 = new SpatialIndexReadOperator(outerStorageManager, boundingBox);
+
+					for(int i = 1; i < storageManager.size(); i++) {
+						operator1 = buildJoinOperator(operator1, storageManager.get(i));
 					}
 					
 					return operator1;
@@ -93,7 +90,8 @@ public class HandleJoinQuery implements QueryHandler {
 			};
 					
 			final StreamClientQuery clientQuery = new StreamClientQuery(operatorTreeBuilder, queryRequest.isPagingEnabled(), 
-					queryRequest.getTuplesPerPage(), clientConnectionHandler, packageSequence, requestTables);
+					queryRequest.getTuplesPerPage(), clientConnectionHandler, packageSequence, requestTables,
+					queryRequest.getRoutingHeader(), boundingBox);
 			
 			clientConnectionHandler.getActiveQueries().put(packageSequence, clientQuery);
 			clientConnectionHandler.sendNextResultsForQuery(packageSequence, packageSequence);
@@ -102,4 +100,20 @@ public class HandleJoinQuery implements QueryHandler {
 			clientConnectionHandler.writeResultPackage(new ErrorResponse(packageSequence, ErrorMessages.ERROR_EXCEPTION));	
 		}		
 	}
+
+	/**
+	 * Build the join operator. The partitioned join decides on the real inputs 
+	 * whether the index nested loop join (small outer input) or the partitioned
+	 * join (both inputs big, read only once) is used.
+	 *
+	 * @param outerOperator
+	 * @param innerStorageManager
+	 * @return
+	 */
+	private Operator buildJoinOperator(final Operator outerOperator, 
+			final TupleStoreManager innerStorageManager) {
+
+		final SpatialIndexReadOperator indexReader = new SpatialIndexReadOperator(innerStorageManager);
+		return new PartitionedSpatialJoinOperator(outerOperator, indexReader);
+	}
 }
@@ -70,7 +70,8 @@ public class HandleKeyQuery implements QueryHandler {
 					final String key = queryKeyRequest.getKey();
 					
 					final ClientQuery clientQuery = new KeyClientQuery(key, queryKeyRequest.isPagingEnabled(), 
-							queryKeyRequest.getTuplesPerPage(), clientConnectionHandler, packageSequence, requestTable);
+							queryKeyRequest.getTuplesPerPage(), clientConnectionHandler, packageSequence, requestTable,
+							queryKeyRequest.getRoutingHeader());
 					
 					clientConnectionHandler.getActiveQueries().put(packageSequence, clientQuery);
 					clientConnectionHandler.sendNextResultsForQuery(packageSequence, packageSequence);
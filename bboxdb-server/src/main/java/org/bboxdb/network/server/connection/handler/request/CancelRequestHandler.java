@@ -59,6 +59,8 @@ public class CancelRequestHandler implements RequestHandler {
 				clientQuery.close();
 			} 
 			
+			clientConnectionHandler.removePendingPageRequests(queryToCancel);
+			
 			removeLocks(packageSequence, clientConnectionHandler, queryToCancel);
 			
 			logger.info("Sending success for canceling query {} (request package {})", 
@@ -20,7 +20,9 @@ package org.bboxdb.network.server.connection.handler.request;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 
+import org.bboxdb.network.NetworkCompression;
 import org.bboxdb.network.NetworkConst;
+import org.bboxdb.network.capabilities.PeerCapabilities;
 import org.bboxdb.network.packages.PackageEncodeException;
 import org.bboxdb.network.packages.request.HelloRequest;
 import org.bboxdb.network.packages.response.ErrorResponse;
@@ -48,7 +50,8 @@ public class HandshakeHandler implements RequestHandler {
 		
 		try {	
 			final HelloRequest heloRequest = HelloRequest.decodeRequest(encodedPackage);
-			clientConnectionHandler.setConnectionCapabilities(heloRequest.getPeerCapabilities());
+			final PeerCapabilities connectionCapabilities = negotiateCapabilities(heloRequest.getPeerCapabilities());
+			clientConnectionHandler.setConnectionCapabilities(connectionCapabilities);
 
 			final HelloResponse responsePackage = new HelloResponse(packageSequence, 
 					NetworkConst.PROTOCOL_VERSION, clientConnectionHandler.getConnectionCapabilities());
@@ -65,4 +68,32 @@ public class HandshakeHandler implements RequestHandler {
 			return false;
 		}
 	}
+	
+	/**
+	 * Keep only the capabilities of the client that are supported by the server. The
+	 * negotiated bit tells the client that the capabilities are not just echoed.
+	 * 
+	 * @param clientCapabilities
+	 * @return
+	 */
+	private PeerCapabilities negotiateCapabilities(final PeerCapabilities clientCapabilities) {
+		final PeerCapabilities connectionCapabilities = new PeerCapabilities();
+		connectionCapabilities.setNegotiated();
+		connectionCapabilities.setReferencePointFilter();
+		connectionCapabilities.setResultCredits();
+		
+		if(clientCapabilities.hasGZipCompression()) {
+			connectionCapabilities.setGZipCompression();
+		}
+		
+		if(clientCapabilities.hasSnappyCompression()) {
+			connectionCapabilities.setSnappyCompression();
+		}
+		
+		if(clientCapabilities.hasZstdCompression() && NetworkCompression.isZstdAvailable()) {
+			connectionCapabilities.setZstdCompression();
+		}
+		
+		return connectionCapabilities;
+	}
 }
@@ -129,7 +129,7 @@ public class InsertTupleHandler implements RequestHandler {
 	 * @param e
 	 * @return
 	 */
-	private String buildErrorMessage(final String message, final Throwable e) {
+	static String buildErrorMessage(final String message, final Throwable e) {
 		final StringBuilder sb = new StringBuilder(message);
 
 		sb.append(" ");
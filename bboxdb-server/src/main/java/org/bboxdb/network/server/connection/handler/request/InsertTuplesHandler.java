@@ -0,0 +1,235 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2018 the BBoxDB project
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ *
+ *******************************************************************************/
+package org.bboxdb.network.server.connection.handler.request;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.bboxdb.commons.RejectedException;
+import org.bboxdb.commons.math.Hyperrectangle;
+import org.bboxdb.distribution.DistributionGroupConfigurationCache;
+import org.bboxdb.distribution.partitioner.SpacePartitioner;
+import org.bboxdb.distribution.partitioner.SpacePartitionerCache;
+import org.bboxdb.distribution.region.DistributionRegionIdMapper;
+import org.bboxdb.misc.BBoxDBException;
+import org.bboxdb.network.packages.PackageEncodeException;
+import org.bboxdb.network.packages.request.InsertTuplesRequest;
+import org.bboxdb.network.packages.response.ErrorResponse;
+import org.bboxdb.network.routing.PackageRouter;
+import org.bboxdb.network.routing.RoutingHeader;
+import org.bboxdb.network.routing.RoutingHop;
+import org.bboxdb.network.server.ErrorMessages;
+import org.bboxdb.network.server.connection.ClientConnectionHandler;
+import org.bboxdb.network.server.connection.lock.LockManager;
+import org.bboxdb.storage.entity.DistributionGroupConfiguration;
+import org.bboxdb.storage.entity.Tuple;
+import org.bboxdb.storage.entity.TupleStoreName;
+import org.bboxdb.storage.tuplestore.manager.TupleStoreManager;
+import org.bboxdb.storage.tuplestore.manager.TupleStoreManagerRegistry;
+import org.bboxdb.storage.tuplestore.manager.TupleStoreManagerRegistryHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+public class InsertTuplesHandler implements RequestHandler {
+
+	/**
+	 * The Logger
+	 */
+	private final static Logger logger = LoggerFactory.getLogger(InsertTuplesHandler.class);
+
+	@Override
+	/**
+	 * Handle the insert tuples request
+	 */
+	public boolean handleRequest(final ByteBuffer encodedPackage,
+			final short packageSequence, final ClientConnectionHandler clientConnectionHandler)
+					throws IOException, PackageEncodeException {
+
+		if(logger.isDebugEnabled()) {
+			logger.debug("Got insert tuples request");
+		}
+
+		try {
+			final InsertTuplesRequest insertTuplesRequest = InsertTuplesRequest.decodeTuple(encodedPackage);
+
+			// Do the tuples have the right dimension?
+			final String distributionGroup = insertTuplesRequest.getTable().getDistributionGroup();
+			final DistributionGroupConfiguration groupConfiguration = DistributionGroupConfigurationCache
+					.getInstance().getDistributionGroupConfiguration(distributionGroup);
+			
+			final int groupDimensions = groupConfiguration.getDimensions();
+
+			for(final Tuple tuple : insertTuplesRequest.getTuples()) {
+				final Hyperrectangle boundingBox = tuple.getBoundingBox();
+				
+				if(boundingBox.equals(Hyperrectangle.FULL_SPACE)) {
+					continue;
+				}
+				
+				final int tupleDimensions = boundingBox.getDimension();
+
+				if(groupDimensions != tupleDimensions) {
+					final String errorMessage = ErrorMessages.ERROR_TUPLE_HAS_WRONG_DIMENSION
+							+ " Group " + groupDimensions + " tuple " + tupleDimensions;
+					final ErrorResponse responsePackage = new ErrorResponse(packageSequence, errorMessage);
+					clientConnectionHandler.writeResultPackage(responsePackage);
+					return true;
+				}
+			}
+
+			final RoutingHeader routingHeader = insertTuplesRequest.getRoutingHeader();
+
+			if(! routingHeader.isRoutedPackage()) {
+				final String errorMessage = ErrorMessages.ERROR_PACKAGE_NOT_ROUTED;
+				logger.error(errorMessage);
+				final ErrorResponse responsePackage = new ErrorResponse(packageSequence, errorMessage);
+				clientConnectionHandler.writeResultPackage(responsePackage);
+				return true;
+			}
+
+			processPackageLocally(packageSequence, clientConnectionHandler, insertTuplesRequest);
+
+		} catch(RejectedException e) {
+			final String errorMessage = InsertTupleHandler.buildErrorMessage(
+					ErrorMessages.ERROR_LOCAL_OPERATION_REJECTED_RETRY, e);
+			final ErrorResponse responsePackage = new ErrorResponse(packageSequence, errorMessage);
+			clientConnectionHandler.writeResultPackage(responsePackage);
+		} catch (Throwable e) {
+			logger.error("Error while inserting tuples", e);
+			final String errorMessage = InsertTupleHandler.buildErrorMessage(ErrorMessages.ERROR_EXCEPTION, e);
+			final ErrorResponse responsePackage = new ErrorResponse(packageSequence, errorMessage);
+			clientConnectionHandler.writeResultPackage(responsePackage);
+		}
+
+		return true;
+	}
+
+	/**
+	 * @param packageSequence
+	 * @param clientConnectionHandler
+	 * @param insertTuplesRequest
+	 * @throws BBoxDBException
+	 * @throws RejectedException
+	 * @throws PackageEncodeException
+	 */
+	private void processPackageLocally(final short packageSequence,
+			final ClientConnectionHandler clientConnectionHandler,
+			final InsertTuplesRequest insertTuplesRequest)
+			throws BBoxDBException, RejectedException, PackageEncodeException {
+
+		final List<Tuple> tuples = insertTuplesRequest.getTuples();
+		final TupleStoreName requestTable = insertTuplesRequest.getTable();
+		final TupleStoreManagerRegistry storageRegistry = clientConnectionHandler.getStorageRegistry();
+
+		final RoutingHeader routingHeader = insertTuplesRequest.getRoutingHeader();
+		final RoutingHop localHop = routingHeader.getRoutingHop();
+
+		PackageRouter.checkLocalSystemNameMatchesAndThrowException(localHop);
+
+		// Remove old locks
+		final LockManager lockManager = clientConnectionHandler.getLockManager();
+		final String table = requestTable.getFullnameWithoutPrefix();
+		
+		for(final Tuple tuple : tuples) {
+			lockManager.removeLockForConnectionAndKey(clientConnectionHandler, table, tuple.getKey());
+		}
+
+		final List<Long> distributionRegions = localHop.getDistributionRegions();
+		processInsertPackage(tuples, requestTable, storageRegistry, distributionRegions);
+		forwardRoutedPackage(packageSequence, clientConnectionHandler, insertTuplesRequest);
+	}
+
+	/**
+	 * Forward the routed package
+	 *
+	 * @param packageSequence
+	 * @param clientConnectionHandler
+	 * @param insertTuplesRequest
+	 */
+	private void forwardRoutedPackage(final short packageSequence,
+			final ClientConnectionHandler clientConnectionHandler,
+			final InsertTuplesRequest insertTuplesRequest) {
+
+		final PackageRouter packageRouter = clientConnectionHandler.getPackageRouter();
+		packageRouter.performInsertTuplesPackageRoutingAsync(packageSequence, insertTuplesRequest);
+	}
+
+	/**
+	 * Insert the tuples into the local storage. The tuples are grouped by the 
+	 * local region table and each group is written with one call.
+	 * 
+	 * @param tuples
+	 * @param requestTable
+	 * @param storageRegistry
+	 * @param distributionRegions
+	 * @throws RejectedException
+	 */
+	protected void processInsertPackage(final List<Tuple> tuples, final TupleStoreName requestTable,
+			final TupleStoreManagerRegistry storageRegistry, final List<Long> distributionRegions) 
+					throws RejectedException {
+
+		try {
+			final String fullname = requestTable.getDistributionGroup();
+			final SpacePartitioner spacePartitioner = SpacePartitionerCache
+					.getInstance().getSpacePartitionerForGroupName(fullname);
+
+			final DistributionRegionIdMapper regionIdMapper = spacePartitioner
+					.getDistributionRegionIdMapper();
+			
+			final Collection<TupleStoreName> localTables = regionIdMapper.convertRegionIdToTableNames(
+						requestTable, distributionRegions);
+
+			if(localTables.isEmpty()) {
+				throw new BBoxDBException("Got no local tables for routed package");
+			}
+
+			// Are some tables unknown and needs to be created?
+			TupleStoreManagerRegistryHelper.createMissingTables(requestTable, storageRegistry,
+					localTables);
+
+			// Insert tuples
+			for(final TupleStoreName tupleStoreName : localTables) {
+				
+				final long regionid = tupleStoreName.getRegionId().getAsLong();
+				
+				final Hyperrectangle space 
+					= regionIdMapper.getSpaceForRegionId(regionid);
+				
+				final List<Tuple> tuplesForRegion = tuples.stream()
+						.filter(t -> space.intersects(t.getBoundingBox()))
+						.collect(Collectors.toList());
+				
+				if(tuplesForRegion.isEmpty()) {
+					logger.debug("Not inserting into region {} because no tuple intersects {}", 
+							regionid, space);
+					continue;
+				}
+				
+				final TupleStoreManager storageManager = storageRegistry.getTupleStoreManager(tupleStoreName);
+				storageManager.put(tuplesForRegion);
+			}
+		} catch (RejectedException e) {
+			throw e;
+		} catch (Throwable e) {
+			throw new RejectedException(e);
+		}
+	}
+}
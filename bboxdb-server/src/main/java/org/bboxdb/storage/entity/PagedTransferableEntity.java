@@ -17,6 +17,8 @@
  *******************************************************************************/
 package org.bboxdb.storage.entity;
 
+import org.bboxdb.commons.math.Hyperrectangle;
+
 public interface PagedTransferableEntity {
 
 	/**
@@ -24,4 +26,10 @@ public interface PagedTransferableEntity {
 	 * @return
 	 */
 	public EntityIdentifier getEntityIdentifier();
+	
+	/**
+	 * Get the bounding box of the entity
+	 * @return
+	 */
+	public Hyperrectangle getBoundingBox();
 }
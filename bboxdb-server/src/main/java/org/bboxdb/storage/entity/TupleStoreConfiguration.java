@@ -25,7 +25,9 @@ import java.io.IOException;
 import java.util.HashMap;
 import java.util.Map;
 
+import org.bboxdb.storage.sstable.SSTableCompression;
 import org.bboxdb.storage.tuplestore.manager.TupleStoreManager;
+import org.bboxdb.storage.wal.WriteAheadLogSyncPolicy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.yaml.snakeyaml.Yaml;
@@ -56,6 +58,21 @@ public class TupleStoreConfiguration {
 	 * The spatial index reader
 	 */
 	protected String spatialIndexReader = "org.bboxdb.storage.sstable.spatialindex.rtree.mmf.RTreeMMFReader";
+	
+	/**
+	 * The sync policy of the write ahead log
+	 */
+	protected WriteAheadLogSyncPolicy walSyncPolicy = WriteAheadLogSyncPolicy.NONE;
+	
+	/**
+	 * The compression of the SSTable data files
+	 */
+	protected SSTableCompression sstableCompression = SSTableCompression.NONE;
+	
+	/**
+	 * Maintain a key directory for the key queries
+	 */
+	protected boolean keyDirectory = false;
 
 	/**
 	 * The logger
@@ -109,6 +126,30 @@ public class TupleStoreConfiguration {
 		this.spatialIndexReader = spatialIndexReader;
 	}
 
+	public WriteAheadLogSyncPolicy getWalSyncPolicy() {
+		return walSyncPolicy;
+	}
+
+	public void setWalSyncPolicy(final WriteAheadLogSyncPolicy walSyncPolicy) {
+		this.walSyncPolicy = walSyncPolicy;
+	}
+
+	public SSTableCompression getSstableCompression() {
+		return sstableCompression;
+	}
+
+	public void setSstableCompression(final SSTableCompression sstableCompression) {
+		this.sstableCompression = sstableCompression;
+	}
+
+	public boolean isKeyDirectory() {
+		return keyDirectory;
+	}
+
+	public void setKeyDirectory(final boolean keyDirectory) {
+		this.keyDirectory = keyDirectory;
+	}
+
 	@Override
 	public int hashCode() {
 		final int prime = 31;
@@ -118,6 +159,9 @@ public class TupleStoreConfiguration {
 		result = prime * result + ((spatialIndexWriter == null) ? 0 : spatialIndexWriter.hashCode());
 		result = prime * result + (int) (ttl ^ (ttl >>> 32));
 		result = prime * result + versions;
+		result = prime * result + ((walSyncPolicy == null) ? 0 : walSyncPolicy.hashCode());
+		result = prime * result + ((sstableCompression == null) ? 0 : sstableCompression.hashCode());
+		result = prime * result + (keyDirectory ? 1231 : 1237);
 		return result;
 	}
 
@@ -146,6 +190,12 @@ public class TupleStoreConfiguration {
 			return false;
 		if (versions != other.versions)
 			return false;
+		if (walSyncPolicy != other.walSyncPolicy)
+			return false;
+		if (sstableCompression != other.sstableCompression)
+			return false;
+		if (keyDirectory != other.keyDirectory)
+			return false;
 		return true;
 	}
 
@@ -153,7 +203,8 @@ public class TupleStoreConfiguration {
 	public String toString() {
 		return "TupleStoreConfiguration [allowDuplicates=" + allowDuplicates + ", ttl=" + ttl + ", versions=" + versions
 				+ ", spatialIndexWriter=" + spatialIndexWriter + ", spatialIndexReader=" + spatialIndexReader
-				+ "]";
+				+ ", walSyncPolicy=" + walSyncPolicy + ", sstableCompression=" + sstableCompression 
+				+ ", keyDirectory=" + keyDirectory + "]";
 	}
 
 	/**
@@ -194,6 +245,9 @@ public class TupleStoreConfiguration {
 	    data.put("spatialIndexWriter", spatialIndexWriter);
 	    data.put("ttl", ttl);
 		data.put("versions", versions);
+		data.put("walSyncPolicy", walSyncPolicy.name());
+		data.put("sstableCompression", sstableCompression.name());
+		data.put("keyDirectory", keyDirectory);
 		return data;
 	}
 	
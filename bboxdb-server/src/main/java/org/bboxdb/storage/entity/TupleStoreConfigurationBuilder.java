@@ -19,6 +19,9 @@ package org.bboxdb.storage.entity;
 
 import java.util.concurrent.TimeUnit;
 
+import org.bboxdb.storage.sstable.SSTableCompression;
+import org.bboxdb.storage.wal.WriteAheadLogSyncPolicy;
+
 public class TupleStoreConfigurationBuilder {
 
 	protected final TupleStoreConfiguration ssTableConfiguration;
@@ -85,6 +88,36 @@ public class TupleStoreConfigurationBuilder {
 		return this;
 	}
 	
+	/**
+	 * Use the write ahead log sync policy
+	 * @param walSyncPolicy
+	 * @return
+	 */
+	public TupleStoreConfigurationBuilder withWalSyncPolicy(final WriteAheadLogSyncPolicy walSyncPolicy) {
+		ssTableConfiguration.setWalSyncPolicy(walSyncPolicy);
+		return this;
+	}
+	
+	/**
+	 * Use the compression for the SSTable data files
+	 * @param sstableCompression
+	 * @return
+	 */
+	public TupleStoreConfigurationBuilder withSSTableCompression(final SSTableCompression sstableCompression) {
+		ssTableConfiguration.setSstableCompression(sstableCompression);
+		return this;
+	}
+	
+	/**
+	 * Maintain a key directory, so key queries are only sent to the regions of the key
+	 * @param keyDirectory
+	 * @return
+	 */
+	public TupleStoreConfigurationBuilder withKeyDirectory(final boolean keyDirectory) {
+		ssTableConfiguration.setKeyDirectory(keyDirectory);
+		return this;
+	}
+	
 	/**
 	 * Return the resulting configuration object
 	 * @return
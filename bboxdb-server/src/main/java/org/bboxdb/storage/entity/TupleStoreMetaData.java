@@ -37,6 +37,11 @@ public class TupleStoreMetaData {
 	 */
 	protected long tuples = 0;
 	
+	/**
+	 * The amount of deleted tuple markers
+	 */
+	protected long deletedTuples = 0;
+	
 	/**
 	 * The version timestamp of the oldest tuple
 	 */
@@ -62,6 +67,16 @@ public class TupleStoreMetaData {
 	 */
 	protected int dimensions;
 	
+	/**
+	 * The smallest key of all tuples
+	 */
+	protected String minKey;
+	
+	/**
+	 * The biggest key of all tuples
+	 */
+	protected String maxKey;
+	
 	/**
 	 * The logger
 	 */
@@ -77,12 +92,21 @@ public class TupleStoreMetaData {
 	public TupleStoreMetaData(final long tuples, final long oldestTuple, final long newestTuple, 
 			final long newestTupleInsertedTimstamp, final double[] boundingBoxData) {
 		
+		this(tuples, oldestTuple, newestTuple, newestTupleInsertedTimstamp, boundingBoxData, null, null);
+	}
+	
+	public TupleStoreMetaData(final long tuples, final long oldestTuple, final long newestTuple, 
+			final long newestTupleInsertedTimstamp, final double[] boundingBoxData, 
+			final String minKey, final String maxKey) {
+		
 		this.tuples = tuples;
 		this.oldestTupleVersionTimestamp = oldestTuple;
 		this.newestTupleVersionTimestamp = newestTuple;
 		this.newestTupleInsertedTimstamp = newestTupleInsertedTimstamp;
 		this.boundingBoxData = boundingBoxData;
 		this.dimensions = boundingBoxData.length / 2;
+		this.minKey = minKey;
+		this.maxKey = maxKey;
 	}
 	
 	/**
@@ -119,11 +143,14 @@ public class TupleStoreMetaData {
 	protected Map<String, Object> getPropertyMap() {
 		final Map<String, Object> data = new HashMap<String, Object>();	
 		data.put("tuples", tuples);
+		data.put("deletedTuples", deletedTuples);
 	    data.put("oldestTupleVersionTimestamp", oldestTupleVersionTimestamp);
 	    data.put("newestTupleVersionTimestamp", newestTupleVersionTimestamp);
 	    data.put("newestTupleInsertedTimstamp", newestTupleInsertedTimstamp);
 		data.put("dimensions", dimensions);
 	    data.put("boundingBoxData", boundingBoxData);
+	    data.put("minKey", minKey);
+	    data.put("maxKey", maxKey);
 		return data;
 	}
 	
@@ -207,12 +234,39 @@ public class TupleStoreMetaData {
 		this.tuples = tuples;
 	}
 
+	public long getDeletedTuples() {
+		return deletedTuples;
+	}
+
+	public void setDeletedTuples(final long deletedTuples) {
+		this.deletedTuples = deletedTuples;
+	}
+
+	public String getMinKey() {
+		return minKey;
+	}
+
+	public void setMinKey(final String minKey) {
+		this.minKey = minKey;
+	}
+
+	public String getMaxKey() {
+		return maxKey;
+	}
+
+	public void setMaxKey(final String maxKey) {
+		this.maxKey = maxKey;
+	}
+
 	@Override
 	public int hashCode() {
 		final int prime = 31;
 		int result = 1;
 		result = prime * result + Arrays.hashCode(boundingBoxData);
+		result = prime * result + (int) (deletedTuples ^ (deletedTuples >>> 32));
 		result = prime * result + dimensions;
+		result = prime * result + ((maxKey == null) ? 0 : maxKey.hashCode());
+		result = prime * result + ((minKey == null) ? 0 : minKey.hashCode());
 		result = prime * result + (int) (newestTupleInsertedTimstamp ^ (newestTupleInsertedTimstamp >>> 32));
 		result = prime * result + (int) (newestTupleVersionTimestamp ^ (newestTupleVersionTimestamp >>> 32));
 		result = prime * result + (int) (oldestTupleVersionTimestamp ^ (oldestTupleVersionTimestamp >>> 32));
@@ -231,8 +285,20 @@ public class TupleStoreMetaData {
 		TupleStoreMetaData other = (TupleStoreMetaData) obj;
 		if (!Arrays.equals(boundingBoxData, other.boundingBoxData))
 			return false;
+		if (deletedTuples != other.deletedTuples)
+			return false;
 		if (dimensions != other.dimensions)
 			return false;
+		if (maxKey == null) {
+			if (other.maxKey != null)
+				return false;
+		} else if (!maxKey.equals(other.maxKey))
+			return false;
+		if (minKey == null) {
+			if (other.minKey != null)
+				return false;
+		} else if (!minKey.equals(other.minKey))
+			return false;
 		if (newestTupleInsertedTimstamp != other.newestTupleInsertedTimstamp)
 			return false;
 		if (newestTupleVersionTimestamp != other.newestTupleVersionTimestamp)
@@ -246,10 +312,11 @@ public class TupleStoreMetaData {
 
 	@Override
 	public String toString() {
-		return "SStableMetaData [tuples=" + tuples + ", oldestTupleVersionTimestamp=" + oldestTupleVersionTimestamp
+		return "SStableMetaData [tuples=" + tuples + ", deletedTuples=" + deletedTuples 
+				+ ", oldestTupleVersionTimestamp=" + oldestTupleVersionTimestamp
 				+ ", newestTupleVersionTimestamp=" + newestTupleVersionTimestamp + ", newestTupleInsertedTimstamp="
 				+ newestTupleInsertedTimstamp + ", boundingBoxData=" + Arrays.toString(boundingBoxData)
-				+ ", dimensions=" + dimensions + "]";
+				+ ", dimensions=" + dimensions + ", minKey=" + minKey + ", maxKey=" + maxKey + "]";
 	}
 
 }
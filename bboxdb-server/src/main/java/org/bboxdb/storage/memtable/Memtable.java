@@ -19,13 +19,17 @@ package org.bboxdb.storage.memtable;
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.HashSet;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.bboxdb.commons.math.Hyperrectangle;
 import org.bboxdb.misc.BBoxDBService;
@@ -36,12 +40,22 @@ import org.bboxdb.storage.entity.TupleStoreName;
 import org.bboxdb.storage.sstable.spatialindex.SpatialIndexBuilder;
 import org.bboxdb.storage.sstable.spatialindex.SpatialIndexBuilderFactory;
 import org.bboxdb.storage.sstable.spatialindex.SpatialIndexEntry;
+import org.bboxdb.storage.sstable.timeindex.TimeIndexType;
 import org.bboxdb.storage.tuplestore.ReadWriteTupleStore;
 import org.bboxdb.storage.util.TupleHelper;
 import org.bboxdb.storage.wal.WriteAheadLogWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.collect.Iterators;
+
+/**
+ * The memtable can be written by multiple threads in parallel. A writer 
+ * reserves a slot in the data array with a CAS operation, the tuple is 
+ * additionally registered in a key ordered skip list. Readers don't
+ * take any locks, only the (not thread safe) spatial index is guarded 
+ * by a read write lock.
+ */
 public class Memtable implements BBoxDBService, ReadWriteTupleStore {
 	
 	/**
@@ -52,17 +66,22 @@ public class Memtable implements BBoxDBService, ReadWriteTupleStore {
 	/**
 	 * The memtable
 	 */
-	private final Tuple[] data;
+	private final AtomicReferenceArray<Tuple> data;
 	
 	/**
 	 * The spatial index
 	 */
 	private final SpatialIndexBuilder spatialIndexBuilder;
 	
+	/**
+	 * The lock for the spatial index
+	 */
+	private final ReadWriteLock spatialIndexLock;
+	
 	/**
 	 * The next free position in the data array
 	 */
-	private int freePos;
+	private final AtomicInteger freePos;
 	
 	/**
 	 * Maximal number of entries keep in memory
@@ -77,7 +96,7 @@ public class Memtable implements BBoxDBService, ReadWriteTupleStore {
 	/**
 	 * Current memory size in bytes
 	 */
-	private long sizeInMemory;
+	private final AtomicLong sizeInMemory;
 	
 	/**
 	 * The timestamp when the memtable is created
@@ -87,22 +106,37 @@ public class Memtable implements BBoxDBService, ReadWriteTupleStore {
 	/**
 	 * The oldest tuple
 	 */
-	private long oldestTupleTimestamp;
+	private final AtomicLong oldestTupleTimestamp;
 	
 	/**
 	 * The newest tuple
 	 */
-	private long newestTupleTimestamp;
+	private final AtomicLong newestTupleTimestamp;
+	
+	/**
+	 * The newest inserted timestamp
+	 */
+	private final AtomicLong newestInsertedTimestamp;
 	
 	/**
 	 * The reference counter
 	 */
 	private final AtomicInteger usage;
 	
+	/**
+	 * The amount of active writer
+	 */
+	private final AtomicInteger activeWriter;
+	
 	/**
 	 * Is a deletion performed after (usage == 0)
 	 */
-	private boolean pendingDelete;
+	private volatile boolean pendingDelete;
+	
+	/**
+	 * Is the memtable sealed (no further writes are accepted)
+	 */
+	private volatile boolean sealed;
 	
 	/**
 	 * The write ahead log writer
@@ -110,9 +144,9 @@ public class Memtable implements BBoxDBService, ReadWriteTupleStore {
 	private final WriteAheadLogWriter walWriter;
 	
 	/**
-	 * The key position map
+	 * The tuple versions, ordered by key
 	 */
-	private final Map<String, Set<Integer>> keyPositions;
+	private final ConcurrentSkipListMap<String, Queue<Tuple>> keyVersions;
 	
 	/**
 	 * The Logger
@@ -127,30 +161,33 @@ public class Memtable implements BBoxDBService, ReadWriteTupleStore {
 		this.maxSizeInMemory = maxSizeInMemory;
 		this.walWriter = walWriter;
 		
-		this.data = new Tuple[entries];
-		this.freePos = -1;
-		this.sizeInMemory = 0;
+		this.data = new AtomicReferenceArray<>(entries);
+		this.freePos = new AtomicInteger(-1);
+		this.sizeInMemory = new AtomicLong(0);
 		
 		this.spatialIndexBuilder = SpatialIndexBuilderFactory.getInstance();
+		this.spatialIndexLock = new ReentrantReadWriteLock();
 		
 		this.createdTimestamp = System.currentTimeMillis();
-		this.oldestTupleTimestamp = -1;
-		this.newestTupleTimestamp = -1;
+		this.oldestTupleTimestamp = new AtomicLong(-1);
+		this.newestTupleTimestamp = new AtomicLong(-1);
+		this.newestInsertedTimestamp = new AtomicLong(-1);
 		
 		this.usage = new AtomicInteger(0);
+		this.activeWriter = new AtomicInteger(0);
 		this.pendingDelete = false;
-		this.keyPositions = new HashMap<>();
+		this.sealed = false;
+		this.keyVersions = new ConcurrentSkipListMap<>();
 	}
 
 	@Override
 	public void init() {
-		if(freePos != -1) {
+		if(! freePos.compareAndSet(-1, 0)) {
 			logger.error("init() called on an initalized memtable");
 			return;
 		}
 		
 		logger.debug("Initializing a new memtable for table: {}", table.getFullname());
-		freePos = 0;
 	}
 
 	@Override
@@ -161,36 +198,190 @@ public class Memtable implements BBoxDBService, ReadWriteTupleStore {
 	@Override
 	public void put(final Tuple tuple) throws StorageManagerException {
 		
-		assert (usage.get() > 0);
+		final boolean stored = tryPut(tuple);
 		
-		if(freePos >= maxEntries) {
-			throw new StorageManagerException("Unable to store a new tuple, all memtable slots are full");
+		if(! stored) {
+			throw new StorageManagerException("Unable to store a new tuple, all memtable "
+					+ "slots are full or memtable is sealed");
 		}
+	}
+
+	/**
+	 * Try to store the tuple. This method can be called by multiple threads in parallel.
+	 * 
+	 * @param tuple
+	 * @return false if the memtable is sealed, full or all slots are used
+	 * @throws StorageManagerException
+	 */
+	public boolean tryPut(final Tuple tuple) throws StorageManagerException {
+		return tryPut(Collections.singletonList(tuple), 0) == 1;
+	}
+	
+	/**
+	 * Try to store the tuples, beginning at the given offset. The WAL records 
+	 * of all stored tuples are written (and synced) together. This method can be 
+	 * called by multiple threads in parallel.
+	 * 
+	 * @param tuples
+	 * @param offset
+	 * @return the number of stored tuples, less than the remaining tuples if 
+	 *         the memtable is sealed, full or all slots are used
+	 * @throws StorageManagerException
+	 */
+	public int tryPut(final List<Tuple> tuples, final int offset) throws StorageManagerException {
+		
+		assert (usage.get() > 0);
+		
+		activeWriter.incrementAndGet();
 		
-		if(walWriter != null) {
-			walWriter.addTuple(tuple);
+		try {
+			if(sealed) {
+				return 0;
+			}
+			
+			final List<Tuple> storedTuples = new ArrayList<>(tuples.size() - offset);
+			final int[] positions = new int[tuples.size() - offset];
+			
+			for(int i = offset; i < tuples.size(); i++) {
+				final Tuple tuple = tuples.get(i);
+				final int tupleSize = tuple.getSize();
+				
+				if(! reserveSize(tupleSize)) {
+					break;
+				}
+				
+				final int position = reserveSlot();
+				
+				if(position == -1) {
+					sizeInMemory.addAndGet(-tupleSize);
+					break;
+				}
+				
+				data.set(position, tuple);
+				positions[storedTuples.size()] = position;
+				storedTuples.add(tuple);
+			}
+			
+			if(storedTuples.isEmpty()) {
+				return 0;
+			}
+			
+			if(walWriter != null) {
+				walWriter.addTuples(storedTuples);
+			}
+			
+			for(int i = 0; i < storedTuples.size(); i++) {
+				indexTuple(storedTuples.get(i), positions[i]);
+			}
+			
+			return storedTuples.size();
+		} finally {
+			activeWriter.decrementAndGet();
 		}
-
-		data[freePos] = tuple;
-		final SpatialIndexEntry indexEntry = new SpatialIndexEntry(tuple.getBoundingBox(), freePos);
-		spatialIndexBuilder.insert(indexEntry);
+	}
+	
+	/**
+	 * Register the stored tuple in the key versions and the spatial index
+	 * 
+	 * @param tuple
+	 * @param position
+	 */
+	private void indexTuple(final Tuple tuple, final int position) {
+		keyVersions.computeIfAbsent(tuple.getKey(), (e) -> new ConcurrentLinkedQueue<>()).add(tuple);
 		
-		keyPositions.computeIfAbsent(tuple.getKey(), (e) -> new HashSet<>()).add(freePos);
+		final SpatialIndexEntry indexEntry = new SpatialIndexEntry(tuple.getBoundingBox(), position);
 		
-		freePos++;
-		sizeInMemory = sizeInMemory + tuple.getSize();
+		spatialIndexLock.writeLock().lock();
+		try {
+			spatialIndexBuilder.insert(indexEntry);
+		} finally {
+			spatialIndexLock.writeLock().unlock();
+		}
+		
+		final long versionTimestamp = tuple.getVersionTimestamp();
+		oldestTupleTimestamp.accumulateAndGet(versionTimestamp, 
+				(c, t) -> c == -1 ? t : Math.min(c, t));
+		newestTupleTimestamp.accumulateAndGet(versionTimestamp, 
+				(c, t) -> c == -1 ? t : Math.max(c, t));
+		newestInsertedTimestamp.accumulateAndGet(tuple.getReceivedTimestamp(), Math::max);
+	}
+
+	/**
+	 * Reserve the memory for a new tuple. The size is reserved before the tuple 
+	 * is stored, so parallel writers can not push the memtable past its limit. 
+	 * Like in the single threaded case, the last accepted tuple can exceed the limit.
+	 * 
+	 * @param tupleSize
+	 * @return false if the memtable is full
+	 */
+	private boolean reserveSize(final int tupleSize) {
+		while(true) {
+			final long size = sizeInMemory.get();
+			
+			if(size >= maxSizeInMemory) {
+				return false;
+			}
+			
+			if(sizeInMemory.compareAndSet(size, size + tupleSize)) {
+				return true;
+			}
+		}
+	}
+	
+	/**
+	 * Reserve the next free slot in the data array
+	 * @return the slot or -1 if the memtable is full
+	 */
+	private int reserveSlot() {
+		while(true) {
+			final int position = freePos.get();
+			
+			if(position < 0 || position >= maxEntries) {
+				return -1;
+			}
+			
+			if(freePos.compareAndSet(position, position + 1)) {
+				return position;
+			}
+		}
+	}
+	
+	/**
+	 * Seal the memtable. No further writes are accepted and the method
+	 * waits until all in flight writes are completed.
+	 */
+	public void seal() {
+		sealed = true;
 		
-		if(oldestTupleTimestamp == -1) {
-			oldestTupleTimestamp = tuple.getVersionTimestamp();
-		} else {
-			oldestTupleTimestamp = Math.min(oldestTupleTimestamp, tuple.getVersionTimestamp());
+		while(activeWriter.get() > 0) {
+			Thread.yield();
 		}
+	}
+	
+	/**
+	 * Is the memtable sealed
+	 * @return
+	 */
+	public boolean isSealed() {
+		return sealed;
+	}
+	
+	/**
+	 * Read the tuple from the given slot. The slot is reserved before the tuple
+	 * is stored, so a concurrent reader could see an empty slot for a short moment. 
+	 * 
+	 * @param position
+	 * @return
+	 */
+	private Tuple readSlot(final int position) {
+		Tuple tuple = data.get(position);
 		
-		if(newestTupleTimestamp == -1) {
-			newestTupleTimestamp = tuple.getVersionTimestamp();
-		} else {
-			newestTupleTimestamp = Math.max(newestTupleTimestamp, tuple.getVersionTimestamp());
+		while(tuple == null && position < freePos.get()) {
+			Thread.yield();
+			tuple = data.get(position);
 		}
+		
+		return tuple;
 	}
 
 	/**
@@ -202,18 +393,13 @@ public class Memtable implements BBoxDBService, ReadWriteTupleStore {
 		
 		assert (usage.get() > 0) : "Usage is 0";
 		
-		final List<Tuple> resultList = new ArrayList<>();
-		final Set<Integer> positions = keyPositions.get(key);
-		
-		if(positions == null || positions.isEmpty()) {
-			return resultList;
-		}
+		final Queue<Tuple> versions = keyVersions.get(key);
 		
-		for(final int pos : positions) {
-			resultList.add(data[pos]);
+		if(versions == null) {
+			return new ArrayList<>();
 		}
 		
-		return resultList;
+		return new ArrayList<>(versions);
 	}
 	
 	/**
@@ -229,21 +415,28 @@ public class Memtable implements BBoxDBService, ReadWriteTupleStore {
 	}
 
 	/**
-	 * Get a sorted list with all recent tuples
-	 * @return 
+	 * Get a sorted list with all recent tuples. The key order is maintained
+	 * by the skip list, only the versions of a key need to be sorted.
 	 * 
+	 * @return 
 	 */
 	public List<Tuple> getSortedTupleList() {
 		assert (usage.get() > 0);
 
-		final List<Tuple> resultList = new ArrayList<>(freePos + 1);
+		final List<Tuple> resultList = new ArrayList<>(Math.max(0, freePos.get()));
 		
-		for(int i = 0; i < freePos; i++) {
-			resultList.add(data[i]);
+		for(final Queue<Tuple> versions : keyVersions.values()) {
+			
+			if(versions.size() == 1) {
+				resultList.addAll(versions);
+				continue;
+			}
+			
+			final List<Tuple> sortedVersions = new ArrayList<>(versions);
+			sortedVersions.sort(TupleHelper.TUPLE_KEY_AND_VERSION_COMPARATOR);
+			resultList.addAll(sortedVersions);
 		}
 		
-		resultList.sort(TupleHelper.TUPLE_KEY_AND_VERSION_COMPARATOR);
-		
 		return resultList;
 	}
 	
@@ -255,12 +448,14 @@ public class Memtable implements BBoxDBService, ReadWriteTupleStore {
 	public void clear() {
 		logger.debug("Clear on memtable {} called", table);
 		
-		for(int i = 0; i < data.length; i++) {
-			data[i] = null;
+		for(int i = 0; i < data.length(); i++) {
+			data.set(i, null);
 		}
 		
-		this.freePos = 0;
-		this.sizeInMemory = 0;		
+		keyVersions.clear();
+		
+		this.freePos.set(0);
+		this.sizeInMemory.set(0);		
 	}
 	
 	/**
@@ -271,12 +466,12 @@ public class Memtable implements BBoxDBService, ReadWriteTupleStore {
 	public boolean isFull() {
 		
 		// Check size of the table
-		if(sizeInMemory >= maxSizeInMemory) {
+		if(sizeInMemory.get() >= maxSizeInMemory) {
 			return true;
 		}
 		
 		// Check number of entries
-		if(freePos + 1 > maxEntries) {
+		if(freePos.get() + 1 > maxEntries) {
 			return true;
 		}
 		
@@ -287,7 +482,7 @@ public class Memtable implements BBoxDBService, ReadWriteTupleStore {
 	 * Is this memtable empty?
 	 */
 	public boolean isEmpty() {
-		if(freePos <= 0) {
+		if(freePos.get() <= 0) {
 			return true;
 		}
 		
@@ -308,7 +503,7 @@ public class Memtable implements BBoxDBService, ReadWriteTupleStore {
 	 */
 	@Override
 	public long getSize() {
-		return sizeInMemory;
+		return sizeInMemory.get();
 	}
 	
 	/**
@@ -332,7 +527,7 @@ public class Memtable implements BBoxDBService, ReadWriteTupleStore {
 		return new Iterator<Tuple>() {
 
 			private int entry = 0;
-			private int lastEntry = freePos;
+			private final int lastEntry = freePos.get();
 			
 			@Override
 			public boolean hasNext() {
@@ -342,11 +537,11 @@ public class Memtable implements BBoxDBService, ReadWriteTupleStore {
 			@Override
 			public Tuple next() {
 				
-				if(entry > lastEntry) {
+				if(entry >= lastEntry) {
 					throw new IllegalStateException("Requesting wrong position: " + entry + " of " + lastEntry);
 				}
 				
-				final Tuple tuple = data[entry];
+				final Tuple tuple = readSlot(entry);
 				entry++;
 				return tuple;
 			}
@@ -358,14 +553,51 @@ public class Memtable implements BBoxDBService, ReadWriteTupleStore {
 		};
 	}
 
+	@Override
+	public Iterator<Tuple> getSortedIterator() {
+		
+		assert (usage.get() > 0);
+		
+		final Iterator<Queue<Tuple>> keyIterator = keyVersions.values().iterator();
+		
+		return new Iterator<Tuple>() {
+			
+			/**
+			 * The unconsumed versions of the current key
+			 */
+			private final List<Tuple> versions = new ArrayList<>();
+
+			@Override
+			public boolean hasNext() {
+				while(versions.isEmpty() && keyIterator.hasNext()) {
+					versions.addAll(keyIterator.next());
+					versions.sort(TupleHelper.TUPLE_KEY_AND_VERSION_COMPARATOR);
+				}
+				
+				return ! versions.isEmpty();
+			}
+
+			@Override
+			public Tuple next() {
+				
+				if(! hasNext()) {
+					throw new IllegalStateException("All tuples are consumed");
+				}
+				
+				return versions.remove(0);
+			}
+		};
+	}
+
 	@Override
 	public long getNewestTupleInsertedTimestamp() {
-		if(freePos == 0) {
+		final long newestInserted = newestInsertedTimestamp.get();
+		
+		if(newestInserted == -1) {
 			return System.currentTimeMillis();
 		}
 		
-		final Tuple mostRecentTuple = data[freePos - 1];
-		return mostRecentTuple.getReceivedTimestamp();
+		return newestInserted;
 	}
 	
 	/**
@@ -374,7 +606,7 @@ public class Memtable implements BBoxDBService, ReadWriteTupleStore {
 	 */
 	@Override
 	public long getOldestTupleVersionTimestamp() {
-		return oldestTupleTimestamp;
+		return oldestTupleTimestamp.get();
 	}
 
 	/**
@@ -383,12 +615,36 @@ public class Memtable implements BBoxDBService, ReadWriteTupleStore {
 	 */
 	@Override
 	public long getNewestTupleVersionTimestamp() {
-		return newestTupleTimestamp;
+		return newestTupleTimestamp.get();
+	}
+	
+	/**
+	 * The memtable can receive new tuples while it is read, so
+	 * it is never skipped by the query processing
+	 */
+	@Override
+	public boolean mightContainKey(final String key) {
+		return true;
+	}
+	
+	@Override
+	public boolean mightContainBoundingBox(final Hyperrectangle boundingBox) {
+		return true;
+	}
+	
+	@Override
+	public boolean mightContainNewerVersions(final long versionTimestamp) {
+		return true;
+	}
+	
+	@Override
+	public boolean mightContainNewerInserts(final long insertTimestamp) {
+		return true;
 	}
 
 	@Override
 	public void deleteOnClose() {
-		logger.debug("deleteOnClose called and we have {} references", usage.get());
+		logger.debug("deleteOnClose called and we have {} references", usage.get());
 
 		pendingDelete = true;
 		
@@ -420,7 +676,7 @@ public class Memtable implements BBoxDBService, ReadWriteTupleStore {
 	 * Clear if no other references are hold
 	 */
 	private void clearIfUnreferenced() {
-		logger.debug("Release called and we have {} references", usage.get());
+		logger.debug("Release called and we have {} references", usage.get());
 
 		if(usage.get() == 0) {
 			clear();
@@ -448,14 +704,14 @@ public class Memtable implements BBoxDBService, ReadWriteTupleStore {
 	
 	@Override
 	public long getNumberOfTuples() {
-		return freePos;
+		return freePos.get();
 	}
 
 	@Override
 	public Tuple getTupleAtPosition(final long position) {		
 		assert (usage.get() > 0);
 
-		return data[(int) position];
+		return readSlot((int) position);
 	}
 
 	@Override
@@ -464,14 +720,22 @@ public class Memtable implements BBoxDBService, ReadWriteTupleStore {
 				+ ", sizeInMemory=" + sizeInMemory + ", createdTimestamp="
 				+ createdTimestamp + ", oldestTupleTimestamp="
 				+ oldestTupleTimestamp + ", newestTupleTimestamp="
-				+ newestTupleTimestamp +", pendingDelete=" + pendingDelete + "]";
+				+ newestTupleTimestamp +", pendingDelete=" + pendingDelete 
+				+ ", sealed=" + sealed + "]";
 	}
 
 	@Override
 	public Iterator<Tuple> getAllTuplesInBoundingBox(final Hyperrectangle boundingBox) {
 		assert (usage.get() > 0);
 
-		final List<? extends SpatialIndexEntry> matchingKeys = spatialIndexBuilder.getEntriesForRegion(boundingBox);
+		final List<? extends SpatialIndexEntry> matchingKeys;
+		
+		spatialIndexLock.readLock().lock();
+		try {
+			matchingKeys = spatialIndexBuilder.getEntriesForRegion(boundingBox);
+		} finally {
+			spatialIndexLock.readLock().unlock();
+		}
 		
 		final Iterator<? extends SpatialIndexEntry> keyIterator = matchingKeys.iterator();
 		
@@ -486,11 +750,30 @@ public class Memtable implements BBoxDBService, ReadWriteTupleStore {
 			public Tuple next() {
 				final SpatialIndexEntry entry = keyIterator.next();
 				final int pos = (int) entry.getValue();
-				return data[pos];
+				return data.get(pos);
 			}
 		};
 	}
 
+	@Override
+	public Iterator<Tuple> getAllTuplesInBoundingBox(final Hyperrectangle boundingBox, 
+			final TimeIndexType timeIndexType, final long timestamp) {
+		
+		final Iterator<Tuple> newerTuples = Iterators.filter(getAllTuplesInBoundingBox(boundingBox), 
+				t -> timeIndexType.isNewer(t, timestamp));
+		
+		// Deleted tuples have no bounding box, the newer deletions are always returned
+		final Iterator<Tuple> newerDeletions = Iterators.filter(iterator(), 
+				t -> t instanceof DeletedTuple && timeIndexType.isNewer(t, timestamp));
+		
+		return Iterators.concat(newerTuples, newerDeletions);
+	}
+	
+	@Override
+	public Iterator<Tuple> getAllTuplesNewerAs(final TimeIndexType timeIndexType, final long timestamp) {
+		return Iterators.filter(iterator(), t -> timeIndexType.isNewer(t, timestamp));
+	}
+
 	@Override
 	public boolean isPersistent() {
 		return false;
@@ -200,7 +200,7 @@ public class MemtableWriterRunnable extends ExceptionSafeRunnable {
 
 		try (final SSTableWriter ssTableWriter = new SSTableWriter(
 				dataDirectory, sstableManager.getTupleStoreName(), tableNumber,
-				memtable.getMaxEntries())) {
+				memtable.getMaxEntries(), sstableManager.getSSTableCompression())) {
 
 			ssTableWriter.open();
 			ssTableWriter.addTuples(memtable.getSortedTupleList());
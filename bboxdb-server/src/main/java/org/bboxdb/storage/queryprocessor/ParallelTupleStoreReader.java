@@ -0,0 +1,318 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2018 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.storage.queryprocessor;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.bboxdb.commons.concurrent.ExecutorUtil;
+import org.bboxdb.storage.entity.Tuple;
+import org.bboxdb.storage.tuplestore.ReadOnlyTupleStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+
+/**
+ * Read the tuples of multiple tuple stores in parallel. The stores are read in 
+ * chunks of CHUNK_SIZE tuples by the workers of a bounded pool, at most 'parallelism' 
+ * chunks of one query are read at the same time. The next chunk of a store is only 
+ * requested when the consumer has taken the previous chunk, so a slow consumer 
+ * slows down the reading without blocking a worker.
+ * 
+ * A failure of a worker is rethrown by hasNext(), the result is never truncated silently.
+ */
+public class ParallelTupleStoreReader implements Iterator<Tuple>, Closeable {
+
+	/**
+	 * The maximal amount of tuples that are read by one task
+	 */
+	public final static int CHUNK_SIZE = 1000;
+	
+	/**
+	 * The time to wait for a chunk before the closed flag is checked
+	 */
+	private final static long CHUNK_WAIT_TIMEOUT_MS = 100;
+
+	/**
+	 * The pool that reads the tuple stores, shared by all queries. The tasks 
+	 * never wait for the consumer, so the pool is bounded. When the queue is full, 
+	 * the chunk is read by the consumer.
+	 */
+	private final static ThreadPoolExecutor READER_POOL;
+	
+	static {
+		final int threads = Runtime.getRuntime().availableProcessors();
+		final AtomicInteger threadNumber = new AtomicInteger();
+		
+		READER_POOL = ExecutorUtil.getBoundThreadPoolExecutor(threads, threads * 4);
+		READER_POOL.allowCoreThreadTimeOut(true);
+		READER_POOL.setThreadFactory((r) -> {
+			final Thread thread = new Thread(r);
+			thread.setName("Tuple store reader thread " + threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	/**
+	 * The function that creates the iterator for a tuple store
+	 */
+	private final Function<ReadOnlyTupleStore, Iterator<Tuple>> iteratorSupplier;
+	
+	/**
+	 * The tuple stores that have more tuples and are not read at the moment
+	 */
+	private final Deque<StoreReadTask> pendingTasks;
+	
+	/**
+	 * The tasks that are read at the moment, in submission order
+	 */
+	private final Deque<StoreReadTask> runningTasks;
+
+	/**
+	 * The amount of chunks that are read in parallel
+	 */
+	private final int parallelism;
+	
+	/**
+	 * The current chunk of tuples
+	 */
+	private Iterator<Tuple> currentChunk;
+
+	/**
+	 * The next tuple
+	 */
+	private Tuple nextTuple = null;
+
+	/**
+	 * Is the reader closed
+	 */
+	private volatile boolean closed = false;
+
+	/**
+	 * The Logger
+	 */
+	private final static Logger logger = LoggerFactory.getLogger(ParallelTupleStoreReader.class);
+
+	public ParallelTupleStoreReader(final List<ReadOnlyTupleStore> tupleStores,
+			final Function<ReadOnlyTupleStore, Iterator<Tuple>> iteratorSupplier, final int parallelism) {
+
+		this.iteratorSupplier = iteratorSupplier;
+		this.parallelism = Math.max(1, parallelism);
+		this.pendingTasks = new ConcurrentLinkedDeque<>();
+		this.runningTasks = new ConcurrentLinkedDeque<>();
+		this.currentChunk = Collections.emptyIterator();
+		
+		for(final ReadOnlyTupleStore tupleStore : tupleStores) {
+			pendingTasks.add(new StoreReadTask(tupleStore));
+		}
+
+		submitPendingTasks();
+	}
+
+	/**
+	 * Submit pending tasks until 'parallelism' tasks are running
+	 */
+	private void submitPendingTasks() {
+		while(! closed && runningTasks.size() < parallelism && ! pendingTasks.isEmpty()) {
+			final StoreReadTask readTask = pendingTasks.poll();
+			readTask.chunkFuture = READER_POOL.submit(readTask::readChunk);
+			runningTasks.add(readTask);
+		}
+	}
+
+	@Override
+	public boolean hasNext() {
+		while(nextTuple == null) {
+			
+			if(closed) {
+				return false;
+			}
+			
+			if(currentChunk.hasNext()) {
+				nextTuple = currentChunk.next();
+				continue;
+			}
+			
+			// The task stays in the running tasks until the chunk is read, 
+			// so close() waits for the task
+			final StoreReadTask readTask = runningTasks.peek();
+			
+			// All tuple stores are read
+			if(readTask == null) {
+				return false;
+			}
+			
+			final List<Tuple> chunk = waitForChunk(readTask);
+			
+			if(chunk == null) {
+				return false;
+			}
+			
+			runningTasks.remove(readTask);
+			currentChunk = chunk.iterator();
+			
+			if(! readTask.isDone()) {
+				pendingTasks.addFirst(readTask);
+			}
+			
+			submitPendingTasks();
+		}
+
+		return true;
+	}
+	
+	/**
+	 * Wait until the chunk of the task is read. 
+	 * @param readTask
+	 * @return the chunk or null, if the reader was closed
+	 */
+	private List<Tuple> waitForChunk(final StoreReadTask readTask) {
+		try {
+			while(! closed) {
+				try {
+					return readTask.chunkFuture.get(CHUNK_WAIT_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+				} catch (TimeoutException e) {
+					// Check the closed flag and wait again
+				}
+			}
+			
+			return null;
+		} catch (InterruptedException e) {
+			close();
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while reading the tuple stores", e);
+		} catch (ExecutionException e) {
+			close();
+			throw new IllegalStateException("Unable to read tuple store " + readTask.tupleStore, e.getCause());
+		}
+	}
+
+	@Override
+	public Tuple next() {
+		if(nextTuple == null) {
+			throw new NoSuchElementException("Tuple is null, did you called hasNext before?");
+		}
+
+		final Tuple resultTuple = nextTuple;
+		nextTuple = null;
+		return resultTuple;
+	}
+
+	/**
+	 * Stop the reading and wait until the running chunks are read. After this 
+	 * method returns, the tuple stores are no longer accessed and can be released.
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		pendingTasks.clear();
+		
+		StoreReadTask readTask = null;
+		
+		while((readTask = runningTasks.poll()) != null) {
+			try {
+				Uninterruptibles.getUninterruptibly(readTask.chunkFuture);
+			} catch (ExecutionException e) {
+				logger.debug("Got exception while closing the reader", e.getCause());
+			}
+		}
+		
+		currentChunk = Collections.emptyIterator();
+		nextTuple = null;
+	}
+	
+	private class StoreReadTask {
+		
+		/**
+		 * The tuple store
+		 */
+		private final ReadOnlyTupleStore tupleStore;
+		
+		/**
+		 * The iterator of the tuple store (null, until the first chunk is read)
+		 */
+		private Iterator<Tuple> iterator;
+		
+		/**
+		 * Are all tuples read
+		 */
+		private boolean done;
+		
+		/**
+		 * The future of the chunk that is read
+		 */
+		private Future<List<Tuple>> chunkFuture;
+		
+		public StoreReadTask(final ReadOnlyTupleStore tupleStore) {
+			this.tupleStore = tupleStore;
+			this.iterator = null;
+			this.done = false;
+		}
+		
+		/**
+		 * Read the next chunk of the tuple store. The chunks of one store are 
+		 * read one after another, the future of the previous chunk is 
+		 * completed before the next chunk is submitted. 
+		 * 
+		 * @return
+		 */
+		public List<Tuple> readChunk() {
+			final List<Tuple> chunk = new ArrayList<>();
+
+			if(closed) {
+				done = true;
+				return chunk;
+			}
+			
+			if(iterator == null) {
+				iterator = iteratorSupplier.apply(tupleStore);
+			}
+			
+			while(iterator != null && chunk.size() < CHUNK_SIZE && iterator.hasNext()) {
+				chunk.add(iterator.next());
+			}
+			
+			done = (iterator == null || ! iterator.hasNext());
+			
+			return chunk;
+		}
+		
+		/**
+		 * Are all tuples read
+		 * @return
+		 */
+		public boolean isDone() {
+			return done;
+		}
+	}
+}
@@ -24,10 +24,12 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Set;
 
+import org.bboxdb.misc.BBoxDBConfigurationManager;
 import org.bboxdb.storage.StorageManagerException;
 import org.bboxdb.storage.entity.JoinedTuple;
 import org.bboxdb.storage.entity.Tuple;
 import org.bboxdb.storage.entity.TupleStoreName;
+import org.bboxdb.storage.queryprocessor.ParallelTupleStoreReader;
 import org.bboxdb.storage.tuplestore.ReadOnlyTupleStore;
 import org.bboxdb.storage.tuplestore.manager.TupleStoreAquirer;
 import org.bboxdb.storage.tuplestore.manager.TupleStoreManager;
@@ -178,6 +180,16 @@ public abstract class AbstractTablescanOperator implements Operator {
 	 * Is the iterator ready?
 	 */
 	protected boolean ready;
+	
+	/**
+	 * The max amount of tuple stores that are read in parallel
+	 */
+	protected int parallelism;
+	
+	/**
+	 * The parallel reader of the tuple stores (if active)
+	 */
+	protected ParallelTupleStoreReader parallelReader;
 
 	/**
 	 * The Logger
@@ -189,6 +201,7 @@ public abstract class AbstractTablescanOperator implements Operator {
 		this.ready = false;
 		this.unprocessedStorages = new LinkedList<ReadOnlyTupleStore>();
 		this.seenTuples = new HashSet<>();
+		this.parallelism = BBoxDBConfigurationManager.getConfiguration().getStorageQueryParallelism();
 	}
 	
 	/**
@@ -198,8 +211,16 @@ public abstract class AbstractTablescanOperator implements Operator {
 	public void close() {
 		ready = false;
 		
+		// Stop the parallel reader before the tables are released
+		if(parallelReader != null) {
+			parallelReader.close();
+			parallelReader = null;
+		}
+		
+		// Release the tables only once, close is called again on every new iterator
 		if(tupleStoreAquirer != null) {
 			tupleStoreAquirer.close();
+			tupleStoreAquirer = null;
 		}
 		
 		unprocessedStorages.clear();
@@ -213,7 +234,7 @@ public abstract class AbstractTablescanOperator implements Operator {
 	protected void aquireStorage() {
 		try {
 			close();
-			tupleStoreAquirer = new TupleStoreAquirer(tupleStoreManager);
+			tupleStoreAquirer = new TupleStoreAquirer(tupleStoreManager, this::isTupleStoreNeeded);
 			unprocessedStorages.addAll(tupleStoreAquirer.getTupleStores());
 			ready = true;		
 		} catch (StorageManagerException e) {
@@ -230,6 +251,15 @@ public abstract class AbstractTablescanOperator implements Operator {
 		return tupleStoreManager.getTupleStoreName();
 	}
 	
+	/**
+	 * Is the tuple store needed to answer the query?
+	 * @param tupleStore
+	 * @return
+	 */
+	protected boolean isTupleStoreNeeded(final ReadOnlyTupleStore tupleStore) {
+		return true;
+	}
+	
 	/**
 	 * Setup the next tuplestore
 	 * @param nextStorage 
@@ -243,10 +273,38 @@ public abstract class AbstractTablescanOperator implements Operator {
 	 */
 	protected abstract void filterTupleVersions(final List<Tuple> tupleVersions);
 	
+	/**
+	 * Get the max amount of tuple stores that are read in parallel
+	 * @return
+	 */
+	public int getParallelism() {
+		return parallelism;
+	}
+	
+	/**
+	 * Set the max amount of tuple stores that are read in parallel (1 = sequential)
+	 * @param parallelism
+	 */
+	public void setParallelism(final int parallelism) {
+		this.parallelism = parallelism;
+	}
+	
 	public Iterator<JoinedTuple> iterator() {
 
 		aquireStorage();
 		
-		return new TablescanIterator();
+		final TablescanIterator tablescanIterator = new TablescanIterator();
+		
+		// Read the tuple stores in parallel, the version resolution for the 
+		// read keys is still done by the iterator
+		if(parallelism > 1 && unprocessedStorages.size() > 1) {
+			parallelReader = new ParallelTupleStoreReader(new ArrayList<>(unprocessedStorages), 
+					this::setupNewTuplestore, parallelism);
+			
+			unprocessedStorages.clear();
+			tablescanIterator.activeIterator = parallelReader;
+		}
+		
+		return tablescanIterator;
 	}
 }
@@ -17,26 +17,122 @@
  *******************************************************************************/
 package org.bboxdb.storage.queryprocessor.operator;
 
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
 
+import org.bboxdb.commons.DuplicateResolver;
+import org.bboxdb.commons.SortedIteratorMerger;
+import org.bboxdb.storage.StorageManagerException;
+import org.bboxdb.storage.entity.JoinedTuple;
 import org.bboxdb.storage.entity.Tuple;
+import org.bboxdb.storage.entity.TupleStoreName;
+import org.bboxdb.storage.sstable.duplicateresolver.TupleDuplicateResolverFactory;
 import org.bboxdb.storage.tuplestore.ReadOnlyTupleStore;
+import org.bboxdb.storage.tuplestore.manager.TupleStoreAquirer;
 import org.bboxdb.storage.tuplestore.manager.TupleStoreManager;
+import org.bboxdb.storage.util.TupleHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
-public class FullTablescanOperator extends AbstractTablescanOperator {
+import com.google.common.collect.Iterators;
+
+/**
+ * Read all tuples of the tuple store. The key ordered iterators of the memtables 
+ * and the sstables are merged and the versions of a key are resolved with the 
+ * duplicate resolver of the tuple store. Each tuple store is read in one 
+ * sequential pass, only the versions of the current key are kept in memory.
+ */
+public class FullTablescanOperator implements Operator {
+	
+	/**
+	 * The sstable manager
+	 */
+	protected final TupleStoreManager tupleStoreManager;
+	
+	/**
+	 * The aquired storages
+	 */
+	protected TupleStoreAquirer tupleStoreAquirer;
+	
+	/**
+	 * The filter for the tuple stores
+	 */
+	protected final Predicate<ReadOnlyTupleStore> tupleStoreFilter;
+	
+	/**
+	 * The Logger
+	 */
+	private static final Logger logger = LoggerFactory.getLogger(FullTablescanOperator.class);
 	
 	public FullTablescanOperator(final TupleStoreManager tupleStoreManager) {
-		super(tupleStoreManager);
+		this(tupleStoreManager, (s) -> true);
+	}
+	
+	/**
+	 * Read only the tuple stores that match the filter. The filter should only skip 
+	 * tuple stores whose tuples are removed by the following operators anyway 
+	 * (e.g., tuple stores without versions that are newer than the timestamp 
+	 * of a version time selection).
+	 * 
+	 * @param tupleStoreManager
+	 * @param tupleStoreFilter
+	 */
+	public FullTablescanOperator(final TupleStoreManager tupleStoreManager, 
+			final Predicate<ReadOnlyTupleStore> tupleStoreFilter) {
+		
+		this.tupleStoreManager = tupleStoreManager;
+		this.tupleStoreFilter = tupleStoreFilter;
+	}
+	
+	/**
+	 * Get the tuple store name
+	 * @return
+	 */
+	public TupleStoreName getTupleStoreName() {
+		return tupleStoreManager.getTupleStoreName();
 	}
 
 	@Override
-	protected Iterator<Tuple> setupNewTuplestore(final ReadOnlyTupleStore nextStorage) {
-		return nextStorage.iterator();
+	public Iterator<JoinedTuple> iterator() {
+		
+		close();
+		
+		try {
+			tupleStoreAquirer = new TupleStoreAquirer(tupleStoreManager, tupleStoreFilter);
+		} catch (StorageManagerException e) {
+			logger.error("Unable to aquire tables", e);
+			close();
+			return Collections.emptyIterator();
+		}
+		
+		final List<Iterator<Tuple>> iterators = tupleStoreAquirer.getTupleStores()
+				.stream()
+				.map(ReadOnlyTupleStore::getSortedIterator)
+				.collect(Collectors.toList());
+		
+		final DuplicateResolver<Tuple> duplicateResolver = TupleDuplicateResolverFactory.build(
+				tupleStoreManager.getTupleStoreConfiguration());
+		
+		final SortedIteratorMerger<Tuple> sortedIteratorMerger = new SortedIteratorMerger<>(
+				iterators, TupleHelper.TUPLE_KEY_COMPARATOR, duplicateResolver);
+		
+		final String tupleStorename = getTupleStoreName().getFullnameWithoutPrefix();
+		
+		return Iterators.transform(sortedIteratorMerger.iterator(), 
+				t -> new JoinedTuple(t, tupleStorename));
 	}
 	
+	/**
+	 * Cleanup all aquired tables
+	 */
 	@Override
-	protected void filterTupleVersions(List<Tuple> tupleVersions) {
-		// Do nothing
+	public void close() {
+		if(tupleStoreAquirer != null) {
+			tupleStoreAquirer.close();
+			tupleStoreAquirer = null;
+		}
 	}
 }
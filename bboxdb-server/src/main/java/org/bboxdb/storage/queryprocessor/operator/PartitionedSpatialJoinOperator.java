@@ -0,0 +1,828 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2018 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.storage.queryprocessor.operator;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+import org.bboxdb.commons.CloseableHelper;
+import org.bboxdb.commons.concurrent.ExecutorUtil;
+import org.bboxdb.commons.math.Hyperrectangle;
+import org.bboxdb.storage.entity.JoinedTuple;
+import org.bboxdb.storage.entity.Tuple;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.Iterators;
+
+/**
+ * A spatial join based on grid partitioning. Both inputs are read once and
+ * assigned to the stripes of a grid on the first dimension. Each stripe is joined
+ * with a plane sweep, the stripes are processed in parallel. A result pair is only
+ * reported in the stripe that contains the lower point of the intersection
+ * (reference point), so no duplicates are produced.
+ *
+ * The decision for the join algorithm is based on the real inputs. When the outer 
+ * input contains less than minPartitionedTuples tuples, or one of the inputs 
+ * contains more than maxBufferedTuples tuples, the IndexedSpatialJoinOperator is used, 
+ * which streams the outer input and performs one index lookup per outer tuple.
+ * 
+ * The inputs of the partitioned join are kept in memory, the result is streamed. 
+ * The stripes are joined in chunks of CHUNK_SIZE results by a dedicated executor,
+ * only a bounded amount of chunks is computed ahead of the consumer.
+ */
+public class PartitionedSpatialJoinOperator implements Operator {
+
+	/**
+	 * The amount of partitions per available core
+	 */
+	private final static int PARTITIONS_PER_CORE = 4;
+	
+	/**
+	 * The default minimal amount of outer tuples to use the partitioned join
+	 */
+	public final static int DEFAULT_MIN_PARTITIONED_TUPLES = 10_000;
+	
+	/**
+	 * The default maximal amount of tuples per input that are read into memory
+	 */
+	public final static int DEFAULT_MAX_BUFFERED_TUPLES = 1_000_000;
+	
+	/**
+	 * The maximal amount of results that are computed by one task
+	 */
+	private final static int CHUNK_SIZE = 1000;
+	
+	/**
+	 * The amount of chunks that are computed ahead of the consumer
+	 */
+	private final static int MAX_RUNNING_CHUNKS = Runtime.getRuntime().availableProcessors();
+
+	/**
+	 * The executor for the join tasks, shared by all joins. The tasks never 
+	 * block, so the executor is bounded. When the queue is full, the 
+	 * chunk is computed by the consumer.
+	 */
+	private final static ThreadPoolExecutor JOIN_EXECUTOR;
+	
+	static {
+		final int threads = Runtime.getRuntime().availableProcessors();
+		final AtomicInteger threadNumber = new AtomicInteger();
+		
+		JOIN_EXECUTOR = ExecutorUtil.getBoundThreadPoolExecutor(threads, threads * MAX_RUNNING_CHUNKS);
+		JOIN_EXECUTOR.allowCoreThreadTimeOut(true);
+		JOIN_EXECUTOR.setThreadFactory((r) -> {
+			final Thread thread = new Thread(r);
+			thread.setName("Partitioned join thread " + threadNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+	
+	/**
+	 * The tuple stream operator
+	 */
+	private final Operator tupleStreamOperator;
+
+	/**
+	 * The index reader
+	 */
+	private final SpatialIndexReadOperator indexReader;
+
+	/**
+	 * The amount of partitions
+	 */
+	private final int partitions;
+	
+	/**
+	 * The minimal amount of outer tuples to use the partitioned join
+	 */
+	private final int minPartitionedTuples;
+	
+	/**
+	 * The maximal amount of tuples per input that are read into memory
+	 */
+	private final int maxBufferedTuples;
+	
+	/**
+	 * The iterator of the partitioned join (null, if not used)
+	 */
+	private PartitionedJoinIterator joinIterator;
+
+	/**
+	 * The Logger
+	 */
+	private final static Logger logger = LoggerFactory.getLogger(PartitionedSpatialJoinOperator.class);
+
+	public PartitionedSpatialJoinOperator(final Operator tupleStreamOperator,
+			final SpatialIndexReadOperator indexReader) {
+
+		this(tupleStreamOperator, indexReader,
+				Runtime.getRuntime().availableProcessors() * PARTITIONS_PER_CORE,
+				DEFAULT_MIN_PARTITIONED_TUPLES, DEFAULT_MAX_BUFFERED_TUPLES);
+	}
+
+	public PartitionedSpatialJoinOperator(final Operator tupleStreamOperator,
+			final SpatialIndexReadOperator indexReader, final int partitions, 
+			final int minPartitionedTuples, final int maxBufferedTuples) {
+
+		if(partitions < 1) {
+			throw new IllegalArgumentException("The amount of partitions has to be > 0: " + partitions);
+		}
+		
+		if(maxBufferedTuples < 1) {
+			throw new IllegalArgumentException("The amount of buffered tuples has to be > 0: " + maxBufferedTuples);
+		}
+
+		this.tupleStreamOperator = tupleStreamOperator;
+		this.indexReader = indexReader;
+		this.partitions = partitions;
+		this.minPartitionedTuples = minPartitionedTuples;
+		this.maxBufferedTuples = maxBufferedTuples;
+	}
+
+	/**
+	 * Close all iterators
+	 */
+	@Override
+	public void close() {
+		if(joinIterator != null) {
+			joinIterator.close();
+		}
+		
+		CloseableHelper.closeWithoutException(tupleStreamOperator);
+		CloseableHelper.closeWithoutException(indexReader);
+	}
+
+	/**
+	 * Get the query processing result
+	 * @return
+	 */
+	@Override
+	public Iterator<JoinedTuple> iterator() {
+		final Iterator<JoinedTuple> outerIterator = tupleStreamOperator.iterator();
+		final List<JoinEntry<JoinedTuple>> outerEntries = new ArrayList<>();
+		
+		while(outerEntries.size() < maxBufferedTuples && outerIterator.hasNext()) {
+			final JoinedTuple tuple = outerIterator.next();
+			outerEntries.add(new JoinEntry<>(tuple, tuple.getBoundingBox()));
+		}
+		
+		if(outerEntries.isEmpty()) {
+			return Collections.emptyIterator();
+		}
+		
+		if(outerEntries.size() < minPartitionedTuples || outerIterator.hasNext()) {
+			return executeIndexJoin(outerEntries, outerIterator);
+		}
+
+		// Read all tuples of the inner table that can intersect an outer tuple
+		final Hyperrectangle coveringBox = getCoveringBox(outerEntries);
+		indexReader.setBoundingBox(coveringBox);
+
+		final Iterator<JoinedTuple> innerIterator = indexReader.iterator();
+		final List<JoinEntry<Tuple>> innerEntries = new ArrayList<>();
+		
+		while(innerEntries.size() < maxBufferedTuples && innerIterator.hasNext()) {
+			final Tuple tuple = innerIterator.next().convertToSingleTupleIfPossible();
+			innerEntries.add(new JoinEntry<>(tuple, tuple.getBoundingBox()));
+		}
+		
+		final boolean innerExhausted = ! innerIterator.hasNext();
+		CloseableHelper.closeWithoutException(indexReader);
+		
+		if(! innerExhausted) {
+			return executeIndexJoin(outerEntries, outerIterator);
+		}
+		
+		logger.debug("Using partitioned join for {} and {} tuples", outerEntries.size(), innerEntries.size());
+		
+		final String innerTupleStoreName = indexReader.getTupleStoreName().getFullnameWithoutPrefix();
+		joinIterator = new PartitionedJoinIterator(buildJoinTasks(outerEntries, innerEntries, innerTupleStoreName));
+		return joinIterator;
+	}
+	
+	/**
+	 * Execute the join with the index join. The already read outer tuples are 
+	 * joined first, then the remaining tuples of the outer input.
+	 * 
+	 * @param outerEntries
+	 * @param outerIterator
+	 * @return
+	 */
+	private Iterator<JoinedTuple> executeIndexJoin(final List<JoinEntry<JoinedTuple>> outerEntries, 
+			final Iterator<JoinedTuple> outerIterator) {
+		
+		logger.debug("Using index join, {} outer tuples read", outerEntries.size());
+		
+		final Operator outerOperator = new Operator() {
+			
+			@Override
+			public Iterator<JoinedTuple> iterator() {
+				return Iterators.concat(Iterators.transform(outerEntries.iterator(), e -> e.element), 
+						outerIterator);
+			}
+			
+			@Override
+			public void close() {
+				CloseableHelper.closeWithoutException(tupleStreamOperator);
+			}
+		};
+		
+		// Every probe of the index join reads only a few tuples, 
+		// reading the tuple stores in parallel doesn't pay off
+		indexReader.setParallelism(1);
+		
+		return new IndexedSpatialJoinOperator(outerOperator, indexReader).iterator();
+	}
+
+	/**
+	 * Build the join tasks for both inputs
+	 * @param outerEntries
+	 * @param innerEntries
+	 * @param innerTupleStoreName
+	 * @return
+	 */
+	private List<JoinTask> buildJoinTasks(final List<JoinEntry<JoinedTuple>> outerEntries, 
+			final List<JoinEntry<Tuple>> innerEntries, final String innerTupleStoreName) {
+		
+		final List<JoinTask> joinTasks = new ArrayList<>();
+
+		// Entries without a position (e.g., the full space of deleted tuples)
+		// can't be partitioned, they are joined with a nested loop
+		final List<JoinEntry<JoinedTuple>> unpartitionableOuter = removeUnpartitionable(outerEntries);
+		final List<JoinEntry<Tuple>> unpartitionableInner = removeUnpartitionable(innerEntries);
+
+		joinTasks.add(new NestedLoopJoinTask(unpartitionableOuter, innerEntries, innerTupleStoreName));
+		joinTasks.add(new NestedLoopJoinTask(unpartitionableOuter, unpartitionableInner, innerTupleStoreName));
+		joinTasks.add(new NestedLoopJoinTask(outerEntries, unpartitionableInner, innerTupleStoreName));
+		
+		if(outerEntries.isEmpty() || innerEntries.isEmpty()) {
+			return joinTasks;
+		}
+
+		final double gridLow = Math.min(getLowestCoordinate(outerEntries), getLowestCoordinate(innerEntries));
+		final double gridHigh = Math.max(getHighestCoordinate(outerEntries), getHighestCoordinate(innerEntries));
+		final Grid grid = new Grid(gridLow, gridHigh, partitions);
+
+		final List<List<JoinEntry<JoinedTuple>>> outerPartitions = grid.partition(outerEntries);
+		final List<List<JoinEntry<Tuple>>> innerPartitions = grid.partition(innerEntries);
+
+		for(int partition = 0; partition < grid.getPartitions(); partition++) {
+			joinTasks.add(new PartitionJoinTask(grid, partition, outerPartitions.get(partition), 
+					innerPartitions.get(partition), innerTupleStoreName));
+		}
+		
+		return joinTasks;
+	}
+
+	/**
+	 * Build the joined tuple
+	 * @param outerTuple
+	 * @param innerTuple
+	 * @param innerTupleStoreName
+	 * @return
+	 */
+	private static JoinedTuple buildJoinedTuple(final JoinedTuple outerTuple, final Tuple innerTuple,
+			final String innerTupleStoreName) {
+
+		final List<String> tupleStoreNames = new ArrayList<>(outerTuple.getTupleStoreNames());
+		final List<Tuple> tuples = new ArrayList<>(outerTuple.getTuples());
+
+		tupleStoreNames.add(innerTupleStoreName);
+		tuples.add(innerTuple);
+
+		return new JoinedTuple(tuples, tupleStoreNames);
+	}
+
+	/**
+	 * Get the bounding box that covers all entries. If one entry covers the
+	 * full space, the full space is returned.
+	 * @param entries
+	 * @return
+	 */
+	private static <T> Hyperrectangle getCoveringBox(final List<JoinEntry<T>> entries) {
+		Hyperrectangle coveringBox = null;
+
+		for(final JoinEntry<T> entry : entries) {
+			if(! entry.isPartitionable()) {
+				return Hyperrectangle.FULL_SPACE;
+			}
+
+			if(coveringBox == null) {
+				coveringBox = entry.boundingBox;
+			} else {
+				coveringBox = Hyperrectangle.getCoveringBox(coveringBox, entry.boundingBox);
+			}
+		}
+
+		return coveringBox;
+	}
+
+	/**
+	 * Remove the unpartitionable entries from the list
+	 * @param entries
+	 * @return the removed entries
+	 */
+	private static <T> List<JoinEntry<T>> removeUnpartitionable(final List<JoinEntry<T>> entries) {
+		final List<JoinEntry<T>> unpartitionable = entries.stream()
+				.filter(e -> ! e.isPartitionable())
+				.collect(Collectors.toList());
+
+		if(! unpartitionable.isEmpty()) {
+			entries.removeIf(e -> ! e.isPartitionable());
+		}
+
+		return unpartitionable;
+	}
+
+	/**
+	 * Get the lowest coordinate of the entries
+	 * @param entries
+	 * @return
+	 */
+	private static <T> double getLowestCoordinate(final List<JoinEntry<T>> entries) {
+		return entries.stream().mapToDouble(e -> e.low).min().getAsDouble();
+	}
+
+	/**
+	 * Get the highest coordinate of the entries
+	 * @param entries
+	 * @return
+	 */
+	private static <T> double getHighestCoordinate(final List<JoinEntry<T>> entries) {
+		return entries.stream().mapToDouble(e -> e.high).max().getAsDouble();
+	}
+	
+	private static class PartitionedJoinIterator implements Iterator<JoinedTuple> {
+		
+		/**
+		 * The tasks that have more results and are not running
+		 */
+		private final Deque<JoinTask> pendingTasks;
+		
+		/**
+		 * The running tasks, in submission order
+		 */
+		private final Deque<JoinTask> runningTasks;
+		
+		/**
+		 * The current chunk of results
+		 */
+		private Iterator<JoinedTuple> currentChunk;
+		
+		/**
+		 * Is the iterator closed
+		 */
+		private volatile boolean closed;
+		
+		public PartitionedJoinIterator(final List<JoinTask> joinTasks) {
+			this.pendingTasks = new ArrayDeque<>(joinTasks);
+			this.runningTasks = new ArrayDeque<>();
+			this.currentChunk = Collections.emptyIterator();
+			this.closed = false;
+		}
+
+		@Override
+		public boolean hasNext() {
+			
+			while(! currentChunk.hasNext()) {
+				if(closed) {
+					return false;
+				}
+				
+				while(runningTasks.size() < MAX_RUNNING_CHUNKS && ! pendingTasks.isEmpty()) {
+					final JoinTask joinTask = pendingTasks.poll();
+					joinTask.chunkFuture = JOIN_EXECUTOR.submit(() -> joinTask.nextChunk(CHUNK_SIZE));
+					runningTasks.add(joinTask);
+				}
+				
+				final JoinTask joinTask = runningTasks.poll();
+				
+				if(joinTask == null) {
+					return false;
+				}
+				
+				currentChunk = getChunk(joinTask).iterator();
+				
+				if(! joinTask.isDone()) {
+					pendingTasks.addFirst(joinTask);
+				}
+			}
+			
+			return true;
+		}
+		
+		/**
+		 * Get the computed chunk of the task
+		 * @param joinTask
+		 * @return
+		 */
+		private List<JoinedTuple> getChunk(final JoinTask joinTask) {
+			try {
+				return joinTask.chunkFuture.get();
+			} catch (InterruptedException e) {
+				close();
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while waiting for the join result", e);
+			} catch (ExecutionException e) {
+				close();
+				throw new IllegalStateException("Unable to compute the join result", e.getCause());
+			}
+		}
+
+		@Override
+		public JoinedTuple next() {
+			if(! hasNext()) {
+				throw new IllegalStateException("No more results, do you forget to call hasNext()?");
+			}
+			
+			return currentChunk.next();
+		}
+		
+		/**
+		 * Cancel the running tasks, no further chunks are computed
+		 */
+		public void close() {
+			closed = true;
+			runningTasks.forEach(t -> t.chunkFuture.cancel(false));
+		}
+	}
+	
+	private abstract static class JoinTask {
+		
+		/**
+		 * The future of the chunk that is computed
+		 */
+		private Future<List<JoinedTuple>> chunkFuture;
+		
+		/**
+		 * Compute the next chunk of results
+		 * @param maxResults
+		 * @return
+		 */
+		protected abstract List<JoinedTuple> nextChunk(final int maxResults);
+		
+		/**
+		 * Are all results computed
+		 * @return
+		 */
+		protected abstract boolean isDone();
+	}
+	
+	private static class NestedLoopJoinTask extends JoinTask {
+		
+		/**
+		 * The outer entries
+		 */
+		private final List<JoinEntry<JoinedTuple>> outerEntries;
+		
+		/**
+		 * The inner entries
+		 */
+		private final List<JoinEntry<Tuple>> innerEntries;
+		
+		/**
+		 * The name of the inner tuple store
+		 */
+		private final String innerTupleStoreName;
+		
+		/**
+		 * The position in the outer entries
+		 */
+		private int outerPos = 0;
+		
+		/**
+		 * The position in the inner entries
+		 */
+		private int innerPos = 0;
+
+		public NestedLoopJoinTask(final List<JoinEntry<JoinedTuple>> outerEntries, 
+				final List<JoinEntry<Tuple>> innerEntries, final String innerTupleStoreName) {
+			
+			this.outerEntries = outerEntries;
+			this.innerEntries = innerEntries;
+			this.innerTupleStoreName = innerTupleStoreName;
+		}
+
+		@Override
+		protected List<JoinedTuple> nextChunk(final int maxResults) {
+			final List<JoinedTuple> result = new ArrayList<>();
+			
+			while(result.size() < maxResults && ! isDone()) {
+				final JoinEntry<JoinedTuple> outerEntry = outerEntries.get(outerPos);
+				final JoinEntry<Tuple> innerEntry = innerEntries.get(innerPos);
+				
+				if(innerEntry.boundingBox.intersects(outerEntry.boundingBox)) {
+					result.add(buildJoinedTuple(outerEntry.element, innerEntry.element, innerTupleStoreName));
+				}
+				
+				innerPos++;
+				
+				if(innerPos == innerEntries.size()) {
+					innerPos = 0;
+					outerPos++;
+				}
+			}
+			
+			return result;
+		}
+
+		@Override
+		protected boolean isDone() {
+			return outerPos >= outerEntries.size() || innerEntries.isEmpty();
+		}
+	}
+	
+	private static class PartitionJoinTask extends JoinTask {
+		
+		/**
+		 * The grid
+		 */
+		private final Grid grid;
+		
+		/**
+		 * The partition of the task
+		 */
+		private final int partition;
+		
+		/**
+		 * The outer entries of the partition
+		 */
+		private final List<JoinEntry<JoinedTuple>> outerEntries;
+		
+		/**
+		 * The inner entries of the partition
+		 */
+		private final List<JoinEntry<Tuple>> innerEntries;
+		
+		/**
+		 * The name of the inner tuple store
+		 */
+		private final String innerTupleStoreName;
+		
+		/**
+		 * Are the entries sorted
+		 */
+		private boolean sorted = false;
+		
+		/**
+		 * The position in the outer entries
+		 */
+		private int outerPos = 0;
+		
+		/**
+		 * The position in the inner entries
+		 */
+		private int innerPos = 0;
+		
+		/**
+		 * The position of the running scan (-1 if no scan is running)
+		 */
+		private int scanPos = -1;
+		
+		/**
+		 * Does the running scan read the inner entries for an outer entry
+		 */
+		private boolean scanInner = false;
+
+		public PartitionJoinTask(final Grid grid, final int partition, 
+				final List<JoinEntry<JoinedTuple>> outerEntries, final List<JoinEntry<Tuple>> innerEntries, 
+				final String innerTupleStoreName) {
+			
+			this.grid = grid;
+			this.partition = partition;
+			this.outerEntries = outerEntries;
+			this.innerEntries = innerEntries;
+			this.innerTupleStoreName = innerTupleStoreName;
+		}
+
+		/**
+		 * Join the entries of the partition with a plane sweep on the first dimension.
+		 * The sweep stops after maxResults results and is continued by the next call.
+		 */
+		@Override
+		protected List<JoinedTuple> nextChunk(final int maxResults) {
+			final List<JoinedTuple> result = new ArrayList<>();
+			
+			if(! sorted) {
+				outerEntries.sort(JoinEntry.LOW_COMPARATOR);
+				innerEntries.sort(JoinEntry.LOW_COMPARATOR);
+				sorted = true;
+			}
+			
+			while(result.size() < maxResults && ! isDone()) {
+				
+				// Start the next scan
+				if(scanPos < 0) {
+					scanInner = outerEntries.get(outerPos).low <= innerEntries.get(innerPos).low;
+					scanPos = scanInner ? innerPos : outerPos;
+				}
+				
+				if(scanInner) {
+					final JoinEntry<JoinedTuple> outerEntry = outerEntries.get(outerPos);
+					
+					if(scanPos >= innerEntries.size() || innerEntries.get(scanPos).low > outerEntry.high) {
+						outerPos++;
+						scanPos = -1;
+						continue;
+					}
+					
+					joinIfReferencePartition(outerEntry, innerEntries.get(scanPos), result);
+				} else {
+					final JoinEntry<Tuple> innerEntry = innerEntries.get(innerPos);
+					
+					if(scanPos >= outerEntries.size() || outerEntries.get(scanPos).low > innerEntry.high) {
+						innerPos++;
+						scanPos = -1;
+						continue;
+					}
+					
+					joinIfReferencePartition(outerEntries.get(scanPos), innerEntry, result);
+				}
+				
+				scanPos++;
+			}
+			
+			return result;
+		}
+		
+		/**
+		 * Add the joined tuple to the result, if both entries intersect and
+		 * the partition contains the reference point of the intersection
+		 * @param outerEntry
+		 * @param innerEntry
+		 * @param result
+		 */
+		private void joinIfReferencePartition(final JoinEntry<JoinedTuple> outerEntry, 
+				final JoinEntry<Tuple> innerEntry, final List<JoinedTuple> result) {
+
+			final double referencePoint = Math.max(outerEntry.low, innerEntry.low);
+
+			if(grid.getPartition(referencePoint) != partition) {
+				return;
+			}
+
+			if(! innerEntry.boundingBox.intersects(outerEntry.boundingBox)) {
+				return;
+			}
+
+			result.add(buildJoinedTuple(outerEntry.element, innerEntry.element, innerTupleStoreName));
+		}
+
+		@Override
+		protected boolean isDone() {
+			return outerPos >= outerEntries.size() || innerPos >= innerEntries.size();
+		}
+	}
+
+	private static class JoinEntry<T> {
+
+		/**
+		 * Order the entries by the low coordinate
+		 */
+		private final static Comparator<JoinEntry<?>> LOW_COMPARATOR
+			= (e1, e2) -> Double.compare(e1.low, e2.low);
+
+		/**
+		 * The element
+		 */
+		private final T element;
+
+		/**
+		 * The bounding box of the element
+		 */
+		private final Hyperrectangle boundingBox;
+
+		/**
+		 * The low coordinate in the first dimension
+		 */
+		private final double low;
+
+		/**
+		 * The high coordinate in the first dimension
+		 */
+		private final double high;
+
+		public JoinEntry(final T element, final Hyperrectangle boundingBox) {
+			this.element = element;
+			this.boundingBox = boundingBox;
+
+			if(isPartitionable()) {
+				this.low = boundingBox.getCoordinateLow(0);
+				this.high = boundingBox.getCoordinateHigh(0);
+			} else {
+				this.low = Double.NaN;
+				this.high = Double.NaN;
+			}
+		}
+
+		/**
+		 * Can the entry be assigned to partitions?
+		 * @return
+		 */
+		public boolean isPartitionable() {
+			return boundingBox != null
+					&& boundingBox != Hyperrectangle.FULL_SPACE
+					&& boundingBox.getDimension() > 0;
+		}
+	}
+
+	private static class Grid {
+
+		/**
+		 * The low coordinate of the grid
+		 */
+		private final double low;
+
+		/**
+		 * The width of a partition
+		 */
+		private final double partitionWidth;
+
+		/**
+		 * The amount of partitions
+		 */
+		private final int partitions;
+
+		public Grid(final double low, final double high, final int partitions) {
+			this.low = low;
+
+			// All entries are located at the same position
+			if(high <= low) {
+				this.partitions = 1;
+				this.partitionWidth = 1;
+			} else {
+				this.partitions = partitions;
+				this.partitionWidth = (high - low) / partitions;
+			}
+		}
+
+		/**
+		 * Get the partition for the coordinate
+		 * @param coordinate
+		 * @return
+		 */
+		public int getPartition(final double coordinate) {
+			final int partition = (int) ((coordinate - low) / partitionWidth);
+			return Math.max(0, Math.min(partitions - 1, partition));
+		}
+
+		/**
+		 * Assign the entries to all partitions that are overlapped by the entry
+		 * @param entries
+		 * @return
+		 */
+		public <T> List<List<JoinEntry<T>>> partition(final List<JoinEntry<T>> entries) {
+			final List<List<JoinEntry<T>>> result = new ArrayList<>(partitions);
+
+			for(int i = 0; i < partitions; i++) {
+				result.add(new ArrayList<>());
+			}
+
+			for(final JoinEntry<T> entry : entries) {
+				final int firstPartition = getPartition(entry.low);
+				final int lastPartition = getPartition(entry.high);
+
+				for(int p = firstPartition; p <= lastPartition; p++) {
+					result.get(p).add(entry);
+				}
+			}
+
+			return result;
+		}
+
+		/**
+		 * Get the amount of partitions
+		 * @return
+		 */
+		public int getPartitions() {
+			return partitions;
+		}
+	}
+}
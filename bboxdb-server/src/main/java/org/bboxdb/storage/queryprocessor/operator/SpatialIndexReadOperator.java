@@ -51,6 +51,11 @@ public class SpatialIndexReadOperator extends AbstractTablescanOperator {
 		this.boundingBox = boundingBox;
 	}
 
+	@Override
+	protected boolean isTupleStoreNeeded(final ReadOnlyTupleStore tupleStore) {
+		return tupleStore.mightContainBoundingBox(boundingBox);
+	}
+
 	@Override
 	protected Iterator<Tuple> setupNewTuplestore(final ReadOnlyTupleStore nextStorage) {
 		return nextStorage.getAllTuplesInBoundingBox(boundingBox);
@@ -0,0 +1,110 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2018 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.storage.queryprocessor.operator;
+
+import java.util.Iterator;
+import java.util.List;
+
+import org.bboxdb.commons.math.Hyperrectangle;
+import org.bboxdb.storage.StorageManagerException;
+import org.bboxdb.storage.entity.DeletedTuple;
+import org.bboxdb.storage.entity.Tuple;
+import org.bboxdb.storage.sstable.timeindex.TimeIndexType;
+import org.bboxdb.storage.tuplestore.ReadOnlyTupleStore;
+import org.bboxdb.storage.tuplestore.manager.TupleStoreManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.Iterators;
+
+/**
+ * Read the tuples that are inside the bounding box and newer than a timestamp. 
+ * The SSTables read only the tuples that are contained in the spatial index 
+ * and in the time index. 
+ * 
+ * Deleted tuples have no bounding box. A newer deletion is part of the result, 
+ * if an older version of the tuple was inside of the bounding box.
+ */
+public class SpatialTimeIndexReadOperator extends SpatialIndexReadOperator {
+
+	/**
+	 * The type of the timestamp
+	 */
+	protected final TimeIndexType timeIndexType;
+	
+	/**
+	 * The timestamp
+	 */
+	protected final long timestamp;
+	
+	/**
+	 * The Logger
+	 */
+	private static final Logger logger = LoggerFactory.getLogger(SpatialTimeIndexReadOperator.class);
+	
+	public SpatialTimeIndexReadOperator(final TupleStoreManager tupleStoreManager, 
+			final Hyperrectangle boundingBox, final TimeIndexType timeIndexType, 
+			final long timestamp) {
+		
+		super(tupleStoreManager, boundingBox);
+		this.timeIndexType = timeIndexType;
+		this.timestamp = timestamp;
+	}
+	
+	/**
+	 * The bounding box of the tuple store is not checked, because tuple stores 
+	 * outside of the bounding box can contain newer deletions
+	 */
+	@Override
+	protected boolean isTupleStoreNeeded(final ReadOnlyTupleStore tupleStore) {
+		return timeIndexType.mightContainNewerTuples(tupleStore, timestamp);
+	}
+	
+	@Override
+	protected Iterator<Tuple> setupNewTuplestore(final ReadOnlyTupleStore nextStorage) {
+		final Iterator<Tuple> newerTuples = nextStorage.getAllTuplesInBoundingBox(boundingBox, 
+				timeIndexType, timestamp);
+		
+		return Iterators.filter(newerTuples, 
+				t -> ! (t instanceof DeletedTuple) || wasInBoundingBox(t.getKey()));
+	}
+	
+	/**
+	 * Was a version of the tuple inside of the bounding box
+	 * @param key
+	 * @return
+	 */
+	private boolean wasInBoundingBox(final String key) {
+		try {
+			final List<Tuple> versions = tupleStoreManager.getAllTupleVersionsForKey(key);
+			
+			return versions.stream()
+					.filter(t -> ! (t instanceof DeletedTuple))
+					.anyMatch(t -> t.getBoundingBox() != null && t.getBoundingBox().intersects(boundingBox));
+		} catch (StorageManagerException e) {
+			logger.error("Unable to read the versions of the key " + key, e);
+			return true;
+		}
+	}
+	
+	@Override
+	protected void filterTupleVersions(final List<Tuple> tupleVersions) {
+		super.filterTupleVersions(tupleVersions);
+		tupleVersions.removeIf(t -> ! timeIndexType.isNewer(t, timestamp));
+	}
+}
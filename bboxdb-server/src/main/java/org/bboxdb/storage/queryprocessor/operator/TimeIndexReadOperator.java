@@ -0,0 +1,67 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2018 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.storage.queryprocessor.operator;
+
+import java.util.Iterator;
+import java.util.List;
+
+import org.bboxdb.storage.entity.Tuple;
+import org.bboxdb.storage.sstable.timeindex.TimeIndexType;
+import org.bboxdb.storage.tuplestore.ReadOnlyTupleStore;
+import org.bboxdb.storage.tuplestore.manager.TupleStoreManager;
+
+/**
+ * Read the tuples that are newer than a timestamp. Tuple stores that only contain 
+ * older tuples are skipped, the SSTables are read with the time index. So, the costs 
+ * of the query are proportional to the number of newer tuples.
+ */
+public class TimeIndexReadOperator extends AbstractTablescanOperator {
+
+	/**
+	 * The type of the timestamp
+	 */
+	protected final TimeIndexType timeIndexType;
+	
+	/**
+	 * The timestamp
+	 */
+	protected final long timestamp;
+	
+	public TimeIndexReadOperator(final TupleStoreManager tupleStoreManager, 
+			final TimeIndexType timeIndexType, final long timestamp) {
+		
+		super(tupleStoreManager);
+		this.timeIndexType = timeIndexType;
+		this.timestamp = timestamp;
+	}
+
+	@Override
+	protected boolean isTupleStoreNeeded(final ReadOnlyTupleStore tupleStore) {
+		return timeIndexType.mightContainNewerTuples(tupleStore, timestamp);
+	}
+
+	@Override
+	protected Iterator<Tuple> setupNewTuplestore(final ReadOnlyTupleStore nextStorage) {
+		return nextStorage.getAllTuplesNewerAs(timeIndexType, timestamp);
+	}
+
+	@Override
+	protected void filterTupleVersions(final List<Tuple> tupleVersions) {
+		tupleVersions.removeIf(t -> ! timeIndexType.isNewer(t, timestamp));
+	}
+}
@@ -0,0 +1,254 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2018 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.storage.sstable;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import org.bboxdb.network.NetworkCompression;
+
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdException;
+
+public enum SSTableCompression {
+	
+	/**
+	 * The tuples are written without blocks and without compression
+	 */
+	NONE((byte) 0),
+	
+	/**
+	 * The tuples are written into blocks, compressed with deflate
+	 */
+	DEFLATE((byte) 1),
+	
+	/**
+	 * The tuples are written into blocks, compressed with zstd
+	 */
+	ZSTD((byte) 2);
+	
+	/**
+	 * The zstd level, the blocks are written once and read often, so 
+	 * the default level is used instead of the fastest network level
+	 */
+	private final static int ZSTD_LEVEL = 3;
+	
+	/**
+	 * The id of the codec in the data file
+	 */
+	private final byte id;
+	
+	private SSTableCompression(final byte id) {
+		this.id = id;
+	}
+	
+	/**
+	 * Get the id of the codec
+	 * @return
+	 */
+	public byte getId() {
+		return id;
+	}
+	
+	/**
+	 * Get the codec for the given id
+	 * @param id
+	 * @return the codec or null
+	 */
+	public static SSTableCompression fromId(final byte id) {
+		for(final SSTableCompression compression : values()) {
+			if(compression.id == id) {
+				return compression;
+			}
+		}
+		
+		return null;
+	}
+	
+	/**
+	 * Is the codec available on this platform
+	 * @return
+	 */
+	public boolean isAvailable() {
+		if(this == ZSTD) {
+			return NetworkCompression.isZstdAvailable();
+		}
+		
+		return true;
+	}
+	
+	/**
+	 * Compress the given bytes
+	 * @param bytes
+	 * @return
+	 * @throws IOException 
+	 */
+	public byte[] compress(final byte[] bytes) throws IOException {
+		
+		switch(this) {
+			case NONE:
+				return bytes;
+			case ZSTD:
+				assertAvailable();
+				return zstdCompress(bytes);
+			default:
+				return deflate(bytes);
+		}
+	}
+	
+	/**
+	 * Decompress the given bytes
+	 * @param bytes
+	 * @param uncompressedLength
+	 * @return
+	 * @throws IOException
+	 */
+	public byte[] decompress(final byte[] bytes, final int uncompressedLength) throws IOException {
+		
+		switch(this) {
+			case NONE:
+				return bytes;
+			case ZSTD:
+				assertAvailable();
+				return zstdDecompress(bytes, uncompressedLength);
+			default:
+				return inflate(bytes, uncompressedLength);
+		}
+	}
+	
+	/**
+	 * Ensure that the native library of the codec is loaded
+	 * @throws IOException
+	 */
+	private void assertAvailable() throws IOException {
+		if(! isAvailable()) {
+			throw new IOException("The codec " + this + " is not available on this platform");
+		}
+	}
+	
+	/**
+	 * Compress the given bytes with deflate
+	 * @param bytes
+	 * @return
+	 */
+	private static byte[] deflate(final byte[] bytes) {
+		final Deflater deflater = new Deflater();
+		
+		try {
+			deflater.setInput(bytes);
+			deflater.finish();
+			
+			final ByteArrayOutputStream bos = new ByteArrayOutputStream(bytes.length);
+			final byte[] buffer = new byte[4096];
+			
+			while(! deflater.finished()) {
+				final int length = deflater.deflate(buffer);
+				bos.write(buffer, 0, length);
+			}
+			
+			return bos.toByteArray();
+		} finally {
+			deflater.end();
+		}
+	}
+	
+	/**
+	 * Decompress the given bytes with inflate
+	 * @param bytes
+	 * @param uncompressedLength
+	 * @return
+	 * @throws IOException
+	 */
+	private static byte[] inflate(final byte[] bytes, final int uncompressedLength) throws IOException {
+		final Inflater inflater = new Inflater();
+		
+		try {
+			inflater.setInput(bytes);
+			
+			final byte[] result = new byte[uncompressedLength];
+			int position = 0;
+			
+			while(position < uncompressedLength && ! inflater.finished()) {
+				final int length = inflater.inflate(result, position, uncompressedLength - position);
+				
+				if(length == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+					break;
+				}
+				
+				position = position + length;
+			}
+			
+			if(position != uncompressedLength) {
+				throw new IOException("Unable to decompress block, got " + position 
+						+ " bytes, expected " + uncompressedLength);
+			}
+			
+			return result;
+		} catch (DataFormatException e) {
+			throw new IOException(e);
+		} finally {
+			inflater.end();
+		}
+	}
+	
+	/**
+	 * Compress the given bytes into a zstd frame
+	 * @param bytes
+	 * @return
+	 * @throws IOException
+	 */
+	private static byte[] zstdCompress(final byte[] bytes) throws IOException {
+		try {
+			return Zstd.compress(bytes, ZSTD_LEVEL);
+		} catch (ZstdException e) {
+			throw new IOException(e);
+		}
+	}
+	
+	/**
+	 * Decompress the given zstd frame
+	 * @param bytes
+	 * @param uncompressedLength
+	 * @return
+	 * @throws IOException
+	 */
+	private static byte[] zstdDecompress(final byte[] bytes, final int uncompressedLength) throws IOException {
+		final byte[] result = new byte[uncompressedLength];
+		final long resultLength;
+		
+		try {
+			resultLength = Zstd.decompress(result, bytes);
+		} catch (ZstdException e) {
+			throw new IOException(e);
+		}
+		
+		if(Zstd.isError(resultLength)) {
+			throw new IOException("Unable to decompress block: " + Zstd.getErrorName(resultLength));
+		}
+		
+		if(resultLength != uncompressedLength) {
+			throw new IOException("Unable to decompress block, got " + resultLength 
+					+ " bytes, expected " + uncompressedLength);
+		}
+		
+		return result;
+	}
+}
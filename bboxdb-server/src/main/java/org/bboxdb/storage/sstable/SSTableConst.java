@@ -26,25 +26,64 @@ public class SSTableConst {
 	 */
 	public final static byte[] MAGIC_BYTES_SSTABLE = "bboxdb".getBytes();
 	
+	/**
+	 * The magic bytes at the beginning of every block compressed SSTable file. The 
+	 * magic bytes are followed by the id of the compression codec (byte)
+	 */
+	public final static byte[] MAGIC_BYTES_SSTABLE_BLOCK = "bboxdb-block".getBytes();
+	
 	/**
 	 * The magic bytes at the beginning of every write ahead log file
 	 */
 	public final static byte[] MAGIC_BYTES_WAL = "bboxdb-wal".getBytes();
 	
 	/**
-	 * The magic bytes at the beginning of every SSTable index file
+	 * The magic bytes at the beginning of every write ahead log file with framed records
+	 */
+	public final static byte[] MAGIC_BYTES_WAL_FRAMED = "bboxdb-fwal".getBytes();
+	
+	/**
+	 * The size of the record header in the write ahead log (length and crc)
+	 */
+	public final static int WAL_RECORD_HEADER_BYTES = 8;
+	
+	/**
+	 * The magic bytes at the beginning of every SSTable index file (version 1)
 	 */
 	public final static byte[] MAGIC_BYTES_INDEX = "bboxdb-idx".getBytes();
 	
+	/**
+	 * The magic bytes at the beginning of every versioned SSTable index file (version >= 2). 
+	 * The magic bytes are followed by the version of the layout (short)
+	 */
+	public final static byte[] MAGIC_BYTES_INDEX_VERSIONED = "bboxdb-vidx".getBytes();
+	
 	/**
 	 * The magic bytes at the beginning of every spatial index file
 	 */
 	public final static byte[] MAGIC_BYTES_SPATIAL_RTREE_INDEX = "bboxdb-sidx".getBytes();
 	
+	/**
+	 * The magic bytes at the beginning of every time index file
+	 */
+	public final static byte[] MAGIC_BYTES_TIME_INDEX = "bboxdb-tidx".getBytes();
+	
+	/**
+	 * The SSTable layout with 32 bit tuple positions in the index file and tuple 
+	 * positions in the spatial index
+	 */
+	public final static short SST_VERSION_1 = 1;
+	
+	/**
+	 * The SSTable layout with 64 bit tuple positions in the index file and index
+	 * entry numbers in the spatial index
+	 */
+	public final static short SST_VERSION_2 = 2;
+	
 	/**
 	 * The current version of the SSTable layout format
 	 */
-	public final static short SST_VERSION = 1;
+	public final static short SST_VERSION = SST_VERSION_2;
 	
 	/**
 	 * The prefix for every SSTable file
@@ -66,6 +105,11 @@ public class SSTableConst {
 	 */
 	public final static String SST_SPATIAL_INDEX_SUFFIX = ".sidx";
 
+	/**
+	 * The suffix for every time index file
+	 */
+	public final static String SST_TIME_INDEX_SUFFIX = ".tidx";
+
 	/**
 	 * The suffix for persistent bloom filters
 	 */
@@ -92,14 +136,63 @@ public class SSTableConst {
 	public static final String TUPLE_STORE_METADATA = "tuplestore.meta";
 
 	/**
-	 * Format of the index file:
+	 * Format of the index file (version 1):
 	 * 
 	 * -------------------------------------------------
 	 * | Tuple-Position | Tuple-Position |  .........  |
 	 * |     4 Byte     |     4 Byte     |  .........  |
 	 * -------------------------------------------------
 	 */
-	public final static int INDEX_ENTRY_BYTES = 4;
+	public final static int INDEX_ENTRY_BYTES_V1 = 4;
+	
+	/**
+	 * Format of the index file (version 2):
+	 * 
+	 * -------------------------------------------------
+	 * | Tuple-Position | Tuple-Position |  .........  |
+	 * |     8 Byte     |     8 Byte     |  .........  |
+	 * -------------------------------------------------
+	 */
+	public final static int INDEX_ENTRY_BYTES = 8;
+	
+	/**
+	 * Format of an entry in the time index file. The file contains all entries
+	 * ordered by the version timestamp, followed by all entries ordered by the 
+	 * insert timestamp:
+	 * 
+	 * -----------------------------------------------
+	 * | Timestamp | Index entry | Flags |  .......  |
+	 * |  8 Byte   |    4 Byte   | 1 Byte|  .......  |
+	 * -----------------------------------------------
+	 */
+	public final static int TIME_INDEX_ENTRY_BYTES = 13;
+	
+	/**
+	 * The flag for deleted tuples in the time index
+	 */
+	public final static byte TIME_INDEX_FLAG_DELETED = 0x01;
+	
+	/**
+	 * Format of a block in a block compressed SSTable:
+	 * 
+	 * ---------------------------------------------------------------------------
+	 * | Compressed length | Uncompressed length | CRC32 of block | Block data   |
+	 * |       4 Byte      |        4 Byte       |     4 Byte     |   n Byte     |
+	 * ---------------------------------------------------------------------------
+	 */
+	public final static int BLOCK_HEADER_BYTES = 12;
+	
+	/**
+	 * The uncompressed size of a block. A block is written when this size is 
+	 * reached, so the tuple offsets in a block are always smaller than 2^16
+	 */
+	public final static int BLOCK_SIZE = 64 * 1024;
+	
+	/**
+	 * The bits of a tuple position that are used for the offset in the block. The
+	 * remaining bits contain the position of the block in the file.
+	 */
+	public final static int BLOCK_OFFSET_BITS = 16;
 	
 	/**
 	 * Marker for deleted tuples
@@ -137,10 +230,21 @@ public class SSTableConst {
 	
 	
 	/**
-	 * The maximal size for one SSTable. SStables are mapped into memory, the JVM can only
-	 * map files up to 2 GB. Therefore the limit is set to 1.9 GB.
+	 * The size of the segments for mapping the files into memory. The JVM can only 
+	 * map regions up to 2 GB, bigger files are mapped with multiple segments.
+	 */
+	public final static long MAPPED_SEGMENT_SIZE = 1024 * 1024 * 1024;
+	
+	/**
+	 * The minimal amount of tuples of a spatial query result that enables the 
+	 * prefetching of the tuples
+	 */
+	public final static int PREFETCH_MIN_TUPLES = 64;
+	
+	/**
+	 * The maximal gap between two tuples (in bytes) that are prefetched together
 	 */
-	public final static int MAX_SSTABLE_SIZE = 2040109465;
+	public final static long PREFETCH_MAX_GAP = 16 * 1024;
 	
 	/**
 	 * The maximal amount of unflushed memtables per SSTable
@@ -182,6 +182,19 @@ public class SSTableHelper {
 				+ SSTableConst.SST_SPATIAL_INDEX_SUFFIX;
 	}
 	
+	/**
+	 * The full name of the time index file for a given relation
+	 * 
+	 * @param directory
+	 * @param name
+	 * 
+	 * @return e.g. /tmp/bboxdb/data/relation1/sstable_relation1_2.tidx
+	 */
+	public static String getSSTableTimeIndexFilename(final String directory, final TupleStoreName name, final int tablenumber) {
+		return getSSTableBase(directory, name, tablenumber)
+				+ SSTableConst.SST_TIME_INDEX_SUFFIX;
+	}
+	
 	/**
 	 * The full name of the SSTable metadata file for a given relation
 	 * 
@@ -237,6 +250,16 @@ public class SSTableHelper {
 				&& filename.endsWith(SSTableConst.SST_SPATIAL_INDEX_SUFFIX);
 	}
 
+	/**
+	 * Belongs the given filename to a time index file?
+	 * @param filename
+	 * @return
+	 */
+	public static boolean isFileNameTimeIndex(final String filename) {
+		return filename.startsWith(SSTableConst.SST_FILE_PREFIX) 
+				&& filename.endsWith(SSTableConst.SST_TIME_INDEX_SUFFIX);
+	}
+
 	/**
 	 * Belongs the given filename to a SSTable meta file?
 	 * @param filename
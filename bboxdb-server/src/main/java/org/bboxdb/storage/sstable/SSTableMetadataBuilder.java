@@ -18,6 +18,7 @@
 package org.bboxdb.storage.sstable;
 
 import org.bboxdb.commons.math.Hyperrectangle;
+import org.bboxdb.storage.entity.DeletedTuple;
 import org.bboxdb.storage.entity.Tuple;
 import org.bboxdb.storage.entity.TupleStoreMetaData;
 
@@ -28,6 +29,11 @@ public class SSTableMetadataBuilder {
 	 */
 	protected long tuples = 0;
 	
+	/**
+	 * The amount of deleted tuple markers
+	 */
+	protected long deletedTuples = 0;
+	
 	/**
 	 * The version timestamp of the oldest tuple
 	 */
@@ -48,12 +54,26 @@ public class SSTableMetadataBuilder {
 	 */
 	protected Hyperrectangle boundingBox;
 	
+	/**
+	 * The smallest key
+	 */
+	protected String minKey;
+	
+	/**
+	 * The biggest key
+	 */
+	protected String maxKey;
+	
 	/**
 	 * Update the metadata 
 	 */
 	public void addTuple(final Tuple tuple) {
 		tuples++;
 		
+		if(tuple instanceof DeletedTuple) {
+			deletedTuples++;
+		}
+		
 		if(boundingBox == null) {
 			boundingBox = tuple.getBoundingBox();
 		} else {
@@ -66,6 +86,17 @@ public class SSTableMetadataBuilder {
 		newestTupleVersionTimstamp = Math.max(newestTupleVersionTimstamp, tuple.getVersionTimestamp());
 		oldestTupleVersionTimestamp = Math.min(oldestTupleVersionTimestamp, tuple.getVersionTimestamp());
 		newestTupleInsertedTimstamp = Math.max(newestTupleInsertedTimstamp, tuple.getReceivedTimestamp());
+		
+		// Update the key range
+		final String key = tuple.getKey();
+		
+		if(minKey == null || key.compareTo(minKey) < 0) {
+			minKey = key;
+		}
+		
+		if(maxKey == null || key.compareTo(maxKey) > 0) {
+			maxKey = key;
+		}
 	}
 	
 	/**
@@ -79,7 +110,12 @@ public class SSTableMetadataBuilder {
 			boundingBoxArray = boundingBox.toDoubleArray();
 		}
 		
-		return new TupleStoreMetaData(tuples, oldestTupleVersionTimestamp, 
-				newestTupleVersionTimstamp, newestTupleInsertedTimstamp, boundingBoxArray);
+		final TupleStoreMetaData metaData = new TupleStoreMetaData(tuples, oldestTupleVersionTimestamp, 
+				newestTupleVersionTimstamp, newestTupleInsertedTimstamp, boundingBoxArray,
+				minKey, maxKey);
+		
+		metaData.setDeletedTuples(deletedTuples);
+		
+		return metaData;
 	}
 }
@@ -18,6 +18,7 @@
 package org.bboxdb.storage.sstable;
 
 import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
@@ -25,7 +26,10 @@ import java.io.IOException;
 import java.io.OutputStream;
 import java.io.RandomAccessFile;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
+import java.util.zip.CRC32;
 
 import org.bboxdb.commons.io.DataEncoderHelper;
 import org.bboxdb.storage.BloomFilterBuilder;
@@ -36,6 +40,7 @@ import org.bboxdb.storage.entity.TupleStoreName;
 import org.bboxdb.storage.sstable.spatialindex.SpatialIndexBuilder;
 import org.bboxdb.storage.sstable.spatialindex.SpatialIndexBuilderFactory;
 import org.bboxdb.storage.sstable.spatialindex.SpatialIndexEntry;
+import org.bboxdb.storage.sstable.timeindex.TimeIndexBuilder;
 import org.bboxdb.storage.util.TupleHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -93,6 +98,11 @@ public class SSTableWriter implements AutoCloseable {
 	 */
 	private File spatialIndexFile;
 	
+	/**
+	 * The time index file
+	 */
+	private File timeIndexFile;
+	
 	/**
 	 * The meta data file
 	 */
@@ -113,10 +123,36 @@ public class SSTableWriter implements AutoCloseable {
 	 */
 	private final SpatialIndexBuilder spatialIndex;
 	
+	/**
+	 * The entries of the spatial index. The entries are collected and 
+	 * bulk loaded into the spatial index when the sstable is closed.
+	 */
+	private final List<SpatialIndexEntry> spatialIndexEntries;
+	
+	/**
+	 * The time index
+	 */
+	private final TimeIndexBuilder timeIndex;
+	
 	/**
 	 * The error flag
 	 */
 	private boolean exceptionDuringWrite;
+	
+	/**
+	 * The number of written index entries
+	 */
+	private int writtenIndexEntries;
+	
+	/**
+	 * The compression of the data file
+	 */
+	private final SSTableCompression compression;
+	
+	/**
+	 * The tuples of the current block (only used for block compressed tables)
+	 */
+	private final ByteArrayOutputStream blockBuffer;
 
 	/**
 	 * The amount of written tuple bytes
@@ -142,11 +178,20 @@ public class SSTableWriter implements AutoCloseable {
 	public SSTableWriter(final String directory, final TupleStoreName name, 
 			final int tablenumber, final long estimatedNumberOfTuples) {
 		
+		this(directory, name, tablenumber, estimatedNumberOfTuples, SSTableCompression.NONE);
+	}
+	
+	public SSTableWriter(final String directory, final TupleStoreName name, 
+			final int tablenumber, final long estimatedNumberOfTuples, 
+			final SSTableCompression compression) {
+		
 		this.directory = directory;
 		this.name = name;
 		this.tablenumber = tablenumber;		
 		this.metadataBuilder = new SSTableMetadataBuilder();
 		this.exceptionDuringWrite = false;
+		this.compression = compression;
+		this.blockBuffer = new ByteArrayOutputStream(SSTableConst.BLOCK_SIZE);
 		
 		// Bloom Filter
 		final String sstableBloomFilterFilename = SSTableHelper.getSSTableBloomFilterFilename(directory, name, tablenumber);
@@ -157,6 +202,12 @@ public class SSTableWriter implements AutoCloseable {
 		final String spatialIndexFilename =  SSTableHelper.getSSTableSpatialIndexFilename(directory, name, tablenumber);
 		this.spatialIndexFile = new File(spatialIndexFilename);
 		this.spatialIndex = SpatialIndexBuilderFactory.getInstance();
+		this.spatialIndexEntries = new ArrayList<>();
+		
+		// Time index
+		final String timeIndexFilename = SSTableHelper.getSSTableTimeIndexFilename(directory, name, tablenumber);
+		this.timeIndexFile = new File(timeIndexFilename);
+		this.timeIndex = new TimeIndexBuilder();
 		
 		// Metadata
 		final String ssTableMetadataFilename = SSTableHelper.getSSTableMetadataFilename(directory, name, tablenumber);
@@ -200,10 +251,17 @@ public class SSTableWriter implements AutoCloseable {
 			logger.debug("Writing new SSTable for relation: {} file: {}", name.getFullname(), sstableOutputFileName);
 			final BufferedOutputStream sstableFileOutputStream = new BufferedOutputStream(new FileOutputStream(sstableFile));
 			sstableOutputStream = new CountingOutputStream(sstableFileOutputStream);
-			sstableOutputStream.write(SSTableConst.MAGIC_BYTES_SSTABLE);
+			
+			if(isBlockCompressed()) {
+				sstableOutputStream.write(SSTableConst.MAGIC_BYTES_SSTABLE_BLOCK);
+				sstableOutputStream.write(compression.getId());
+			} else {
+				sstableOutputStream.write(SSTableConst.MAGIC_BYTES_SSTABLE);
+			}
 			
 			sstableIndexOutputStream = new BufferedOutputStream(new FileOutputStream(sstableIndexFile));
-			sstableIndexOutputStream.write(SSTableConst.MAGIC_BYTES_INDEX);
+			sstableIndexOutputStream.write(SSTableConst.MAGIC_BYTES_INDEX_VERSIONED);
+			sstableIndexOutputStream.write(DataEncoderHelper.shortToByteBuffer(SSTableConst.SST_VERSION).array());
 		} catch (FileNotFoundException e) {
 			exceptionDuringWrite = true;
 			throw new StorageManagerException("Unable to open output file", e);
@@ -222,6 +280,7 @@ public class SSTableWriter implements AutoCloseable {
 					name.getFullname(), tablenumber, sstableFile.getName());
 
 			if(sstableOutputStream != null) {
+				writeBlock();
 				sstableOutputStream.close();
 				sstableOutputStream = null;
 			}
@@ -232,6 +291,7 @@ public class SSTableWriter implements AutoCloseable {
 			}
 			
 			writeSpatialIndex();
+			timeIndex.writeToFile(timeIndexFile);
 			writeBloomFilter();
 			writeMetadata();
 			
@@ -273,6 +333,10 @@ public class SSTableWriter implements AutoCloseable {
 			spatialIndexFile.delete();
 		}
 		
+		if(timeIndexFile != null && timeIndexFile.exists()) {
+			timeIndexFile.delete();
+		}
+		
 		if(metadataFile != null && metadataFile.exists()) {
 			metadataFile.delete();
 		}
@@ -287,6 +351,8 @@ public class SSTableWriter implements AutoCloseable {
 		try (   
 				final RandomAccessFile file = new RandomAccessFile(spatialIndexFile, "rw" );
 			) {
+			spatialIndex.bulkInsert(spatialIndexEntries);
+			spatialIndexEntries.clear();
 			spatialIndex.writeToFile(file);
 			file.close();
 		}
@@ -331,13 +397,13 @@ public class SSTableWriter implements AutoCloseable {
 	 * @throws StorageManagerException 
 	 */
 	public void addTuple(final Tuple tuple) throws StorageManagerException {
-		final int tuplePosition = addTupleWithoutSpatialIndex(tuple);
+		final int indexEntry = addTupleWithoutSpatialIndex(tuple);
 		
 		// Add tuple to the spatial index
 		final SpatialIndexEntry sIndexentry 
-			= new SpatialIndexEntry(tuple.getBoundingBox(), tuplePosition);
+			= new SpatialIndexEntry(tuple.getBoundingBox(), indexEntry);
 		
-		spatialIndex.insert(sIndexentry);
+		spatialIndexEntries.add(sIndexentry);
 	}
 	
 	/**
@@ -364,35 +430,111 @@ public class SSTableWriter implements AutoCloseable {
 	 * Write the tuple without building the spatial index 
 	 * (e.g., for writing pre indexed data) 
 	 * @param tuple
-	 * @return
+	 * @return the number of the index entry of the tuple
 	 * @throws StorageManagerException
 	 */
 	public int addTupleWithoutSpatialIndex(final Tuple tuple) throws StorageManagerException {
 		try {
-			// Add Tuple to the index
-			final int tuplePosition = (int) sstableOutputStream.getCount();
-			writeIndexEntry(tuplePosition);
+			final long writtenBytes;
 			
-			final int newPosition = (int) sstableOutputStream.getCount();
-			final int writtenBytes = newPosition - tuplePosition;
+			if(isBlockCompressed()) {
+				writtenBytes = addTupleToBlock(tuple);
+			} else {
+				// Add Tuple to the index
+				final long tuplePosition = sstableOutputStream.getCount();
+				writeIndexEntry(tuplePosition);
+				
+				// Add Tuple to the SSTable file
+				TupleHelper.writeTupleToStream(tuple, sstableOutputStream);
+				writtenBytes = sstableOutputStream.getCount() - tuplePosition;
+			}
 			
-			// Add Tuple to the SSTable file
-			TupleHelper.writeTupleToStream(tuple, sstableOutputStream);
 			metadataBuilder.addTuple(tuple);
 			
 			// Add tuple to the bloom filter
 			bloomFilter.put(tuple.getKey());
 			
+			// Add tuple to the time index
+			timeIndex.addTuple(tuple, writtenIndexEntries);
+			
 			writtenTuplesTotal.inc();
 			writtenTuplesBytes.inc(writtenBytes);
 			
-			return tuplePosition;
+			return writtenIndexEntries++;
 		} catch (IOException e) {
 			exceptionDuringWrite = true;
 			throw new StorageManagerException("Unable to write tuple to SSTable", e);
 		}
 	}
 
+	/**
+	 * Add the tuple to the current block. The position of the tuple in the index is
+	 * the position of the block in the file combined with the offset of the tuple 
+	 * in the uncompressed block.
+	 * 
+	 * @param tuple
+	 * @return the written bytes
+	 * @throws IOException
+	 */
+	private long addTupleToBlock(final Tuple tuple) throws IOException {
+		
+		if(blockBuffer.size() >= SSTableConst.BLOCK_SIZE) {
+			writeBlock();
+		}
+		
+		final int offsetInBlock = blockBuffer.size();
+		final long tuplePosition = (sstableOutputStream.getCount() << SSTableConst.BLOCK_OFFSET_BITS) 
+				| offsetInBlock;
+		
+		writeIndexEntry(tuplePosition);
+		TupleHelper.writeTupleToStream(tuple, blockBuffer);
+		
+		return blockBuffer.size() - offsetInBlock;
+	}
+	
+	/**
+	 * Compress the current block and write it to the SSTable file
+	 * 
+	 * Format of the block:
+	 * 
+	 * ---------------------------------------------------------------------------
+	 * | Compressed length | Uncompressed length | CRC32 of block | Block data   |
+	 * |       4 Byte      |        4 Byte       |     4 Byte     |   n Byte     |
+	 * ---------------------------------------------------------------------------
+	 * 
+	 * @throws IOException
+	 */
+	private void writeBlock() throws IOException {
+		
+		if(blockBuffer.size() == 0) {
+			return;
+		}
+		
+		final byte[] uncompressedBytes = blockBuffer.toByteArray();
+		final byte[] compressedBytes = compression.compress(uncompressedBytes);
+		
+		final CRC32 crc = new CRC32();
+		crc.update(compressedBytes);
+		
+		final ByteBuffer header = ByteBuffer.allocate(SSTableConst.BLOCK_HEADER_BYTES);
+		header.order(DataEncoderHelper.APPLICATION_BYTE_ORDER);
+		header.putInt(compressedBytes.length);
+		header.putInt(uncompressedBytes.length);
+		header.putInt((int) crc.getValue());
+		
+		sstableOutputStream.write(header.array());
+		sstableOutputStream.write(compressedBytes);
+		blockBuffer.reset();
+	}
+	
+	/**
+	 * Is the data file written in compressed blocks
+	 * @return
+	 */
+	private boolean isBlockCompressed() {
+		return compression != SSTableCompression.NONE;
+	}
+
 	/** 
 	 * Append an entry to the index file.
 	 * 
@@ -400,15 +542,15 @@ public class SSTableWriter implements AutoCloseable {
 	 * 
 	 * -------------------------------------------------
 	 * | Tuple-Position | Tuple-Position |  .........  |
- 	 * |     4 Byte     |     4 Byte     |  .........  |
+ 	 * |     8 Byte     |     8 Byte     |  .........  |
 	 * -------------------------------------------------
 	 * 
 	 * @param keyLengthBytes
 	 * @param keyPosition
 	 * @throws IOException
 	 */
-	private void writeIndexEntry(final int tuplePosition) throws IOException {
-		final ByteBuffer tuplePositionBytes = DataEncoderHelper.intToByteBuffer(tuplePosition);
+	private void writeIndexEntry(final long tuplePosition) throws IOException {
+		final ByteBuffer tuplePositionBytes = DataEncoderHelper.longToByteBuffer(tuplePosition);
 		sstableIndexOutputStream.write(tuplePositionBytes.array());
 	}
 
@@ -449,7 +591,7 @@ public class SSTableWriter implements AutoCloseable {
 	 * @return
 	 */
 	public long getWrittenBytes() {
-		return sstableOutputStream.getCount();
+		return sstableOutputStream.getCount() + blockBuffer.size();
 	}
 	
 	/**
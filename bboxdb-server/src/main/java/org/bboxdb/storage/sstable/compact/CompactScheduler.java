@@ -0,0 +1,265 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2018 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.storage.sstable.compact;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.bboxdb.storage.entity.TupleStoreName;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.util.concurrent.RateLimiter;
+
+import io.prometheus.client.Gauge;
+
+public class CompactScheduler {
+
+	/**
+	 * The executor for the compactions. The pending compactions are 
+	 * ordered by their priority.
+	 */
+	private final ThreadPoolExecutor executor;
+
+	/**
+	 * The tuple stores with a pending or running compaction
+	 */
+	private final Set<TupleStoreName> scheduledTupleStores = ConcurrentHashMap.newKeySet();
+
+	/**
+	 * The rate limiter for the read and written bytes of the compactions (null = unlimited)
+	 */
+	private final RateLimiter rateLimiter;
+
+	/**
+	 * The amount of running compactions
+	 */
+	private final AtomicInteger runningCompactions = new AtomicInteger(0);
+
+	/**
+	 * The sequence number of the scheduled compactions
+	 */
+	private final AtomicLong scheduleSequence = new AtomicLong(0);
+
+	/**
+	 * The storage label
+	 */
+	private final String performanceCounterLabel;
+
+	/**
+	 * The pending compactions counter
+	 */
+	private final static Gauge pendingCompactionsTotal = Gauge.build()
+			.name("bboxdb_pending_compactions")
+			.help("Total pending compactions")
+			.labelNames("storage").register();
+
+	/**
+	 * The running compactions counter
+	 */
+	private final static Gauge runningCompactionsTotal = Gauge.build()
+			.name("bboxdb_running_compactions")
+			.help("Total running compactions")
+			.labelNames("storage").register();
+
+	/**
+	 * The Logger
+	 */
+	private final static Logger logger = LoggerFactory.getLogger(CompactScheduler.class);
+
+	public CompactScheduler(final String storageName, final int compactThreads, 
+			final long compactBytesPerSecond) {
+		
+		if(compactThreads < 1) {
+			throw new IllegalArgumentException("Unable to create scheduler with " 
+					+ compactThreads + " threads");
+		}
+		
+		this.performanceCounterLabel = storageName;
+		
+		final AtomicInteger threadNumber = new AtomicInteger(0);
+		
+		this.executor = new ThreadPoolExecutor(compactThreads, compactThreads, 0, 
+				TimeUnit.MILLISECONDS, new PriorityBlockingQueue<>(), (r) -> {
+					final Thread thread = new Thread(r);
+					thread.setName(threadNumber.incrementAndGet() + ". Compact thread for: " + storageName);
+					return thread;
+				});
+		
+		if(compactBytesPerSecond > 0) {
+			this.rateLimiter = RateLimiter.create(compactBytesPerSecond);
+		} else {
+			this.rateLimiter = null;
+		}
+	}
+
+	/**
+	 * Schedule a compaction for the tuple store. Only one compaction per tuple store 
+	 * is pending or running at the same time.
+	 * 
+	 * @param tupleStoreName
+	 * @param priority - compactions with a higher priority are executed first
+	 * @param compactTask
+	 * @return false if a compaction for the tuple store is already scheduled
+	 */
+	public boolean scheduleCompact(final TupleStoreName tupleStoreName, final double priority, 
+			final Runnable compactTask) {
+		
+		if(! scheduledTupleStores.add(tupleStoreName)) {
+			return false;
+		}
+		
+		pendingCompactionsTotal.labels(performanceCounterLabel).inc();
+		
+		final PrioritizedCompactTask task = new PrioritizedCompactTask(tupleStoreName, 
+				priority, scheduleSequence.getAndIncrement(), compactTask);
+		
+		try {
+			executor.execute(task);
+		} catch (RejectedExecutionException e) {
+			logger.debug("Unable to schedule compact for {}, scheduler is shut down", tupleStoreName);
+			pendingCompactionsTotal.labels(performanceCounterLabel).dec();
+			scheduledTupleStores.remove(tupleStoreName);
+			return false;
+		}
+		
+		return true;
+	}
+
+	/**
+	 * Is a compaction for the tuple store pending or running
+	 * @param tupleStoreName
+	 * @return
+	 */
+	public boolean isCompactScheduled(final TupleStoreName tupleStoreName) {
+		return scheduledTupleStores.contains(tupleStoreName);
+	}
+
+	/**
+	 * Get the amount of pending compactions
+	 * @return
+	 */
+	public int getPendingCompactions() {
+		return executor.getQueue().size();
+	}
+
+	/**
+	 * Get the amount of running compactions
+	 * @return
+	 */
+	public int getRunningCompactions() {
+		return runningCompactions.get();
+	}
+
+	/**
+	 * Get the rate limiter for the read and written bytes of the compactions
+	 * @return the rate limiter or null, if the compactions are not limited
+	 */
+	public RateLimiter getRateLimiter() {
+		return rateLimiter;
+	}
+
+	/**
+	 * Stop the running and discard the pending compactions
+	 * @throws InterruptedException 
+	 */
+	public void shutdown() throws InterruptedException {
+		final List<Runnable> pendingTasks = executor.shutdownNow();
+		pendingCompactionsTotal.labels(performanceCounterLabel).dec(pendingTasks.size());
+		
+		if(! executor.awaitTermination(30, TimeUnit.SECONDS)) {
+			logger.warn("Compact threads for {} are not terminated", performanceCounterLabel);
+		}
+		
+		scheduledTupleStores.clear();
+	}
+
+	/**
+	 * A compaction task with a priority
+	 */
+	private class PrioritizedCompactTask implements Runnable, Comparable<PrioritizedCompactTask> {
+
+		/**
+		 * The tuple store to compact
+		 */
+		private final TupleStoreName tupleStoreName;
+
+		/**
+		 * The priority of the task
+		 */
+		private final double priority;
+
+		/**
+		 * The sequence number of the task
+		 */
+		private final long sequence;
+
+		/**
+		 * The compact task
+		 */
+		private final Runnable compactTask;
+
+		public PrioritizedCompactTask(final TupleStoreName tupleStoreName, final double priority, 
+				final long sequence, final Runnable compactTask) {
+			
+			this.tupleStoreName = tupleStoreName;
+			this.priority = priority;
+			this.sequence = sequence;
+			this.compactTask = compactTask;
+		}
+
+		@Override
+		public void run() {
+			pendingCompactionsTotal.labels(performanceCounterLabel).dec();
+			runningCompactionsTotal.labels(performanceCounterLabel).inc();
+			runningCompactions.incrementAndGet();
+			
+			try {
+				logger.debug("Executing compact for {} with priority {}", tupleStoreName, priority);
+				compactTask.run();
+			} catch(Throwable e) {
+				logger.error("Got exception during compact of " + tupleStoreName, e);
+			} finally {
+				runningCompactions.decrementAndGet();
+				runningCompactionsTotal.labels(performanceCounterLabel).dec();
+				scheduledTupleStores.remove(tupleStoreName);
+			}
+		}
+
+		/**
+		 * Higher priorities first, tasks with the same priority in the order of scheduling
+		 */
+		@Override
+		public int compareTo(final PrioritizedCompactTask otherTask) {
+			final int priorityResult = Double.compare(otherTask.priority, priority);
+			
+			if(priorityResult != 0) {
+				return priorityResult;
+			}
+			
+			return Long.compare(sequence, otherTask.sequence);
+		}
+	}
+}
@@ -29,6 +29,14 @@ public interface MergeStrategy {
 	 */
 	public abstract MergeTask getMergeTask(final List<SSTableFacade> sstables);
 
+	/**
+	 * Calculate the priority of a compaction of the sstables. Compactions
+	 * with a higher priority are executed first.
+	 * @param sstables
+	 * @return
+	 */
+	public abstract double getCompactPriority(final List<SSTableFacade> sstables);
+
 	/**
 	 * Get the delay for the compact thread
 	 * @return
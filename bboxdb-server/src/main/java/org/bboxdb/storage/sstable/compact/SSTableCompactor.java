@@ -20,6 +20,8 @@ package org.bboxdb.storage.sstable.compact;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
 import java.util.stream.Collectors;
 
 import org.bboxdb.commons.DuplicateResolver;
@@ -27,15 +29,17 @@ import org.bboxdb.commons.SortedIteratorMerger;
 import org.bboxdb.storage.StorageManagerException;
 import org.bboxdb.storage.entity.DeletedTuple;
 import org.bboxdb.storage.entity.Tuple;
-import org.bboxdb.storage.sstable.SSTableConst;
 import org.bboxdb.storage.sstable.SSTableWriter;
 import org.bboxdb.storage.sstable.duplicateresolver.TupleDuplicateResolverFactory;
 import org.bboxdb.storage.sstable.reader.SSTableKeyIndexReader;
 import org.bboxdb.storage.tuplestore.manager.TupleStoreManager;
+import org.bboxdb.storage.tuplestore.manager.TupleStoreManagerState;
 import org.bboxdb.storage.util.TupleHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.util.concurrent.RateLimiter;
+
 public class SSTableCompactor {
 
 	/**
@@ -79,6 +83,37 @@ public class SSTableCompactor {
 	 */
 	private boolean successfully = true;
 
+	/**
+	 * The rate limiter for the read and written bytes (null = unlimited)
+	 */
+	private RateLimiter rateLimiter = null;
+
+	/**
+	 * The read and written bytes that are not acquired from the rate limiter
+	 */
+	private int unthrottledBytes = 0;
+
+	/**
+	 * The lock that is held by the caller and released while the compaction 
+	 * waits for the rate limiter (null = no lock is released)
+	 */
+	private Lock throttleReleasedLock = null;
+
+	/**
+	 * The amount of read and written bytes
+	 */
+	private long processedBytes = 0;
+
+	/**
+	 * The bytes that are acquired at once from the rate limiter
+	 */
+	private final static int THROTTLE_CHUNK_BYTES = 64 * 1024;
+
+	/**
+	 * The max time to wait for the rate limiter before the thread state is checked
+	 */
+	private final static long THROTTLE_WAIT_MS = 100;
+
 	/**
 	 * The logger
 	 */
@@ -129,6 +164,7 @@ public class SSTableCompactor {
 
 			for(final Tuple tuple : sortedIteratorMerger) {
 				checkForTermination(tuple);
+				throttle(tuple.getSize());
 				addTupleToWriter(tuple);
 			}
 
@@ -186,9 +222,62 @@ public class SSTableCompactor {
 			return;
 		}
 
-		openNewWriterIfNeeded(tuple);
+		openWriterIfNeeded();
 		sstableWriter.addTuple(tuple);
 		writtenTuples++;
+		throttle(tuple.getSize());
+	}
+
+	/**
+	 * Account the read or written bytes and wait, until the rate limiter 
+	 * permits the bytes
+	 * 
+	 * @param bytes
+	 * @throws StorageManagerException 
+	 */
+	private void throttle(final int bytes) throws StorageManagerException {
+		processedBytes += bytes;
+		
+		if(rateLimiter == null) {
+			return;
+		}
+		
+		unthrottledBytes += bytes;
+		
+		if(unthrottledBytes < THROTTLE_CHUNK_BYTES) {
+			return;
+		}
+		
+		if(rateLimiter.tryAcquire(unthrottledBytes)) {
+			unthrottledBytes = 0;
+			return;
+		}
+		
+		// Don't block region changes while waiting for the rate limiter
+		if(throttleReleasedLock != null) {
+			throttleReleasedLock.unlock();
+		}
+		
+		try {
+			while(! rateLimiter.tryAcquire(unthrottledBytes, THROTTLE_WAIT_MS, TimeUnit.MILLISECONDS)) {
+				Thread.sleep(THROTTLE_WAIT_MS);
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new StorageManagerException("The curent thread is interrupted, stop compact");
+		} finally {
+			if(throttleReleasedLock != null) {
+				throttleReleasedLock.lock();
+			}
+		}
+		
+		unthrottledBytes = 0;
+		
+		// A region split has changed the tuple store while the lock was released
+		if(tupleStoreManager.getSstableManagerState() == TupleStoreManagerState.READ_ONLY) {
+			throw new StorageManagerException("Tuple store " + tupleStoreManager.getTupleStoreName() 
+				+ " was switched to read only while the compact was throttled");
+		}
 	}
 
 	/**
@@ -237,23 +326,14 @@ public class SSTableCompactor {
 	}
 
 	/**
-	 * Create a new table if the size of the open table hits the threshold
-	 * @param resultList
-	 * @param tuple
+	 * Open the output table, if the table is not already open. SSTables are 
+	 * mapped in segments, so the size of the output table is not limited.
 	 * @throws StorageManagerException
 	 */
-	private void openNewWriterIfNeeded(final Tuple tuple)
-			throws StorageManagerException {
+	private void openWriterIfNeeded() throws StorageManagerException {
 
 		if(sstableWriter == null) {
 			sstableWriter = openNewSSTableWriter();
-			return;
-		}
-
-		// Check max table size limit
-		if(sstableWriter.getWrittenBytes() + tuple.getSize() > SSTableConst.MAX_SSTABLE_SIZE) {
-			sstableWriter.close();
-			sstableWriter = openNewSSTableWriter();
 		}
 	}
 
@@ -272,7 +352,7 @@ public class SSTableCompactor {
 		final int tablenumber = tupleStoreManager.increaseTableNumber();
 
 		final SSTableWriter sstableWriter = new SSTableWriter(directory, tupleStoreManager.getTupleStoreName(),
-				tablenumber, estimatedMaxNumberOfEntries);
+				tablenumber, estimatedMaxNumberOfEntries, tupleStoreManager.getSSTableCompression());
 
 		sstableWriter.open();
 		resultList.add(sstableWriter);
@@ -297,6 +377,33 @@ public class SSTableCompactor {
 		this.majorCompaction = majorCompaction;
 	}
 
+	/**
+	 * Set the rate limiter for the read and written bytes. The rate limiter is 
+	 * shared by all compactions of a storage.
+	 * @param rateLimiter
+	 */
+	public void setRateLimiter(final RateLimiter rateLimiter) {
+		this.rateLimiter = rateLimiter;
+	}
+
+	/**
+	 * Set the lock that is held by the caller during the compaction. The lock is 
+	 * released while the compaction waits for the rate limiter, so the hold time 
+	 * of the lock is not extended by the throttling.
+	 * @param throttleReleasedLock
+	 */
+	public void setThrottleReleasedLock(final Lock throttleReleasedLock) {
+		this.throttleReleasedLock = throttleReleasedLock;
+	}
+
+	/**
+	 * Get the amount of read and written bytes
+	 * @return
+	 */
+	public long getProcessedBytes() {
+		return processedBytes;
+	}
+
 	/**
 	 * Get the amount of read tuples
 	 * @return
@@ -20,6 +20,8 @@ package org.bboxdb.storage.sstable.compact;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.stream.Collectors;
 
 import org.bboxdb.commons.RejectedException;
@@ -50,6 +52,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.RateLimiter;
 
 public class SSTableServiceRunnable extends ExceptionSafeRunnable {
 	
@@ -63,6 +66,12 @@ public class SSTableServiceRunnable extends ExceptionSafeRunnable {
 	 */
 	protected final DiskStorage storage;
 	
+	/**
+	 * The region change lock. Compactions are executed concurrently (read lock), region
+	 * splits and merges are executed exclusive (write lock).
+	 */
+	protected final ReadWriteLock regionChangeLock = new ReentrantReadWriteLock();
+	
 	/**
 	 * The logger
 	 */
@@ -100,10 +109,13 @@ public class SSTableServiceRunnable extends ExceptionSafeRunnable {
 	}
 
 	/**
-	 * Execute a new compaction
+	 * Schedule the needed compactions and execute the region merges. The compactions 
+	 * are executed by the compact scheduler of the storage; this method returns 
+	 * without waiting for them. Only called by the service thread.
+	 * 
 	 * @throws InterruptedException 
 	 */
-	public synchronized void execute() throws InterruptedException {
+	private void execute() throws InterruptedException {
 		
 		final TupleStoreManagerRegistry storageRegistry = storage.getTupleStoreManagerRegistry();
 		final String location = storage.getBasedir().getAbsolutePath();
@@ -114,7 +126,8 @@ public class SSTableServiceRunnable extends ExceptionSafeRunnable {
 	}
 
 	/**
-	 * Process the tuple stores
+	 * Process the tuple stores. The compactions are executed by the compact 
+	 * scheduler of the storage.
 	 * 
 	 * @param storageRegistry
 	 * @param tupleStores
@@ -123,9 +136,15 @@ public class SSTableServiceRunnable extends ExceptionSafeRunnable {
 	private void processTupleStores(final TupleStoreManagerRegistry storageRegistry,
 			final List<TupleStoreName> tupleStores) throws InterruptedException {
 		
+		final CompactScheduler compactScheduler = storage.getCompactScheduler();
+		
 		for(final TupleStoreName tupleStoreName: tupleStores) {
 			try {
-				logger.debug("Running compact for: {}", tupleStoreName);
+				if(compactScheduler.isCompactScheduled(tupleStoreName)) {
+					logger.debug("Compact for {} is already scheduled", tupleStoreName);
+					continue;
+				}
+				
 				final TupleStoreManager tupleStoreManager = storageRegistry.getTupleStoreManager(tupleStoreName);
 				
 				if(tupleStoreManager.getSstableManagerState() == TupleStoreManagerState.READ_ONLY) {
@@ -140,8 +159,18 @@ public class SSTableServiceRunnable extends ExceptionSafeRunnable {
 			
 				final List<SSTableFacade> facades = getAllTupleStores(tupleStoreManager);
 				final MergeTask mergeTask = mergeStrategy.getMergeTask(facades);
-				executeCompactTask(mergeTask, tupleStoreManager);
-				testForRegionOverflow(tupleStoreManager);
+				
+				if(mergeTask.getTaskType() == MergeTaskType.UNKNOWN) {
+					testForRegionOverflow(tupleStoreManager);
+					continue;
+				}
+				
+				final double priority = mergeStrategy.getCompactPriority(facades);
+				
+				logger.debug("Schedule compact for {} with priority {}", tupleStoreName, priority);
+				
+				compactScheduler.scheduleCompact(tupleStoreName, priority, 
+						() -> executeScheduledCompact(tupleStoreName));
 				
 			} catch (StorageManagerException | BBoxDBException e) {
 				logger.error("Error while merging tables", e);	
@@ -149,6 +178,44 @@ public class SSTableServiceRunnable extends ExceptionSafeRunnable {
 		}		
 	}
 	
+	/**
+	 * Execute the scheduled compaction of the tuple store. The merge task is 
+	 * determined again, the tables might be changed since the compaction 
+	 * was scheduled.
+	 * 
+	 * @param tupleStoreName
+	 */
+	private void executeScheduledCompact(final TupleStoreName tupleStoreName) {
+		
+		final TupleStoreManagerRegistry storageRegistry = storage.getTupleStoreManagerRegistry();
+		
+		try {
+			logger.debug("Running compact for: {}", tupleStoreName);
+			final TupleStoreManager tupleStoreManager = storageRegistry.getTupleStoreManager(tupleStoreName);
+			
+			regionChangeLock.readLock().lockInterruptibly();
+			
+			try {
+				if(tupleStoreManager.getSstableManagerState() == TupleStoreManagerState.READ_ONLY) {
+					logger.debug("Skipping compact for read only sstable manager: {}" , tupleStoreName);
+					return;
+				}
+				
+				final List<SSTableFacade> facades = getAllTupleStores(tupleStoreManager);
+				final MergeTask mergeTask = mergeStrategy.getMergeTask(facades);
+				executeCompactTask(mergeTask, tupleStoreManager, true);
+			} finally {
+				regionChangeLock.readLock().unlock();
+			}
+			
+			testForRegionOverflow(tupleStoreManager);
+		} catch (StorageManagerException | BBoxDBException e) {
+			logger.error("Error while merging tables", e);	
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+	
 	/**
 	 * Should the compact run be skipped?
 	 * @param tupleStoreName
@@ -228,16 +295,21 @@ public class SSTableServiceRunnable extends ExceptionSafeRunnable {
 	}
 
 	/**
-	 * Merge multiple facades into a new one
+	 * Merge multiple facades into a new one. Throttled compactions are executed by the
+	 * compact scheduler and hold the read lock of the region changes, which is released 
+	 * while the compaction waits for the rate limiter. Unthrottled compactions are used 
+	 * for the forced compactions of region splits, which hold the write lock.
+	 * 
 	 * @param sstableManager 
+	 * @param throttled
 	 *
 	 * @throws StorageManagerException
 	 * @throws InterruptedException 
 	 * @throws ZookeeperException 
 	 * @throws BBoxDBException 
 	 */
-	private void executeCompactTask(final MergeTask mergeTask, final TupleStoreManager sstableManager) 
-			throws StorageManagerException, BBoxDBException, InterruptedException {
+	private void executeCompactTask(final MergeTask mergeTask, final TupleStoreManager sstableManager,
+			final boolean throttled) throws StorageManagerException, BBoxDBException, InterruptedException {
 		
 		if(mergeTask.getTaskType() == MergeTaskType.UNKNOWN) {
 			return;
@@ -263,6 +335,12 @@ public class SSTableServiceRunnable extends ExceptionSafeRunnable {
 		// Run the compact process
 		final SSTableCompactor ssTableCompactor = new SSTableCompactor(sstableManager, reader);
 		ssTableCompactor.setMajorCompaction(majorCompaction);
+		
+		if(throttled) {
+			ssTableCompactor.setRateLimiter(getRateLimiter());
+			ssTableCompactor.setThrottleReleasedLock(regionChangeLock.readLock());
+		}
+		
 		ssTableCompactor.executeCompactation();
 		final List<SSTableWriter> newTables = ssTableCompactor.getResultList();
 
@@ -272,9 +350,25 @@ public class SSTableServiceRunnable extends ExceptionSafeRunnable {
 				ssTableCompactor.getReadTuples(), ssTableCompactor.getWrittenTuples(), 
 				mergeFactor);
 		
+		logger.debug("Compactation processed {} bytes", ssTableCompactor.getProcessedBytes());
+		
 		registerNewFacadeAndDeleteOldInstances(sstableManager, facades, newTables);		
 	}
 
+	/**
+	 * Get the rate limiter for the compactions of the storage
+	 * @return the rate limiter or null
+	 */
+	private RateLimiter getRateLimiter() {
+		final CompactScheduler compactScheduler = storage.getCompactScheduler();
+		
+		if(compactScheduler == null) {
+			return null;
+		}
+		
+		return compactScheduler.getRateLimiter();
+	}
+
 	/**
 	 * Does the region needs to be split?
 	 * @param sstableManager
@@ -333,9 +427,15 @@ public class SSTableServiceRunnable extends ExceptionSafeRunnable {
 		final TupleStoreManagerRegistry tupleStoreManagerRegistry = storage.getTupleStoreManagerRegistry();
 		final RegionSplitter regionSplitter = new RegionSplitter(tupleStoreManagerRegistry);
 
-		forceMajorCompact(sstableManager);
+		// Wait for the running compactions
+		regionChangeLock.writeLock().lockInterruptibly();
 		
-		regionSplitter.splitRegion(regionToSplit, spacePartitioner, tupleStoreManagerRegistry);
+		try {
+			forceMajorCompact(sstableManager);
+			regionSplitter.splitRegion(regionToSplit, spacePartitioner, tupleStoreManagerRegistry);
+		} finally {
+			regionChangeLock.writeLock().unlock();
+		}
 	}
 
 	/**
@@ -370,7 +470,21 @@ public class SSTableServiceRunnable extends ExceptionSafeRunnable {
 			if(RegionMergeHelper.isRegionUnderflow(sources, localInstanceName)) {
 				final TupleStoreManagerRegistry tupleStoreManagerRegistry = storage.getTupleStoreManagerRegistry();
 				final RegionMerger regionMerger = new RegionMerger(tupleStoreManagerRegistry);
-				regionMerger.mergeRegion(sources, spacePartitioner, tupleStoreManagerRegistry);	
+				
+				// Wait for the running compactions
+				try {
+					regionChangeLock.writeLock().lockInterruptibly();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+				
+				try {
+					regionMerger.mergeRegion(sources, spacePartitioner, tupleStoreManagerRegistry);
+				} finally {
+					regionChangeLock.writeLock().unlock();
+				}
+				
 				return;
 			}	
 		}
@@ -391,7 +505,7 @@ public class SSTableServiceRunnable extends ExceptionSafeRunnable {
 		final MergeTask mergeTask = new MergeTask();
 		mergeTask.setTaskType(MergeTaskType.MAJOR);
 		mergeTask.setCompactTables(getAllTupleStores(sstableManager));
-		executeCompactTask(mergeTask, sstableManager);
+		executeCompactTask(mergeTask, sstableManager, false);
 	}
 
 	/**
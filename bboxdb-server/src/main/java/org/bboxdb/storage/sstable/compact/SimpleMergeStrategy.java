@@ -127,6 +127,35 @@ public class SimpleMergeStrategy implements MergeStrategy {
 		return smallCompacts;
 	}
 	
+	/**
+	 * The priority is based on the amount of small (not compacted) tables, the amount 
+	 * of tables (the read amplification) and the ratio of deleted tuple markers.
+	 */
+	@Override
+	public double getCompactPriority(final List<SSTableFacade> sstables) {
+		
+		final long smallTableThreshold = getSmallTableThreshold();
+		
+		final long smallTables = sstables
+			.stream()
+			.filter(f -> f.getSsTableMetadata().getTuples() < smallTableThreshold)
+			.count();
+		
+		final long tuples = sstables
+			.stream()
+			.mapToLong(f -> f.getSsTableMetadata().getTuples())
+			.sum();
+		
+		final long deletedTuples = sstables
+			.stream()
+			.mapToLong(f -> f.getSsTableMetadata().getDeletedTuples())
+			.sum();
+		
+		final double deletedTupleRatio = (tuples == 0) ? 0 : (double) deletedTuples / (double) tuples;
+		
+		return smallTables + sstables.size() + (deletedTupleRatio * MAX_MERGE_TABLES_PER_MINOR_JOB);
+	}
+	
 	@Override
 	public long getCompactorDelay() {
 		return SSTableConst.COMPACT_THREAD_DELAY;
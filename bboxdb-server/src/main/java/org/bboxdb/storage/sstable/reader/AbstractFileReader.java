@@ -20,7 +20,6 @@ package org.bboxdb.storage.sstable.reader;
 import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
-import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
 import java.util.Arrays;
 
@@ -28,9 +27,9 @@ import org.bboxdb.commons.concurrent.AcquirableResource;
 import org.bboxdb.commons.io.UnsafeMemoryHelper;
 import org.bboxdb.commons.service.AcquirableService;
 import org.bboxdb.misc.BBoxDBService;
-import org.bboxdb.misc.Const;
 import org.bboxdb.storage.StorageManagerException;
 import org.bboxdb.storage.entity.TupleStoreName;
+import org.bboxdb.storage.sstable.SSTableConst;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -59,7 +58,7 @@ public abstract class AbstractFileReader implements BBoxDBService, AcquirableRes
 	/**
 	 * The memory region
 	 */
-	protected MappedByteBuffer memory;
+	protected MappedFileSegments memory;
 
 	/**
 	 * The file to read
@@ -123,12 +122,7 @@ public abstract class AbstractFileReader implements BBoxDBService, AcquirableRes
 
 		final byte[] expectedMagicBytes = getMagicBytes();
 
-		// Validate file - read the magic from the beginning
-		final byte[] magicBytes = new byte[expectedMagicBytes.length];
-
-		memory.get(magicBytes, 0, expectedMagicBytes.length);
-
-		if(! Arrays.equals(magicBytes, expectedMagicBytes)) {
+		if(! hasBytesAtPosition(0, expectedMagicBytes)) {
 			throw new StorageManagerException("File " + file + " does not contain the magic bytes");
 		}
 	}
@@ -140,11 +134,29 @@ public abstract class AbstractFileReader implements BBoxDBService, AcquirableRes
 	protected abstract byte[] getMagicBytes();
 
 	/**
-	 * Reset the position to the first element
+	 * Does the file contain the given bytes at the given position
+	 * @param position
+	 * @param expectedBytes
+	 * @return
+	 */
+	protected boolean hasBytesAtPosition(final long position, final byte[] expectedBytes) {
+		
+		if(memory.size() < position + expectedBytes.length) {
+			return false;
+		}
+		
+		final byte[] bytes = new byte[expectedBytes.length];
+		memory.getBuffer(position, bytes.length).get(bytes, 0, bytes.length);
+		
+		return Arrays.equals(bytes, expectedBytes);
+	}
+	
+	/**
+	 * Get the size of the segments that are used to map the file into memory
+	 * @return
 	 */
-	protected void resetPosition() {
-		final byte[] magicBytes = getMagicBytes();
-		memory.position(magicBytes.length);
+	protected long getSegmentSize() {
+		return SSTableConst.MAPPED_SEGMENT_SIZE;
 	}
 
 	/**
@@ -161,8 +173,7 @@ public abstract class AbstractFileReader implements BBoxDBService, AcquirableRes
 
 			randomAccessFile = new RandomAccessFile(file, "r");
 			fileChannel = randomAccessFile.getChannel();
-			memory = fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, fileChannel.size());
-			memory.order(Const.APPLICATION_BYTE_ORDER);
+			memory = new MappedFileSegments(fileChannel, getSegmentSize());
 			validateFile();
 
 			serviceState.dispatchToRunning();
@@ -203,7 +214,8 @@ public abstract class AbstractFileReader implements BBoxDBService, AcquirableRes
 			return;
 		}
 
-		UnsafeMemoryHelper.unmapMemory(memory);
+		memory.unmap();
+		memory = null;
 	}
 
 	/**
@@ -314,7 +326,7 @@ public abstract class AbstractFileReader implements BBoxDBService, AcquirableRes
 	 * Get the memory buffer
 	 * @return
 	 */
-	public MappedByteBuffer getMemory() {
+	public MappedFileSegments getMemory() {
 		return memory;
 	}
 
@@ -0,0 +1,259 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2018 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.storage.sstable.reader;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import org.bboxdb.commons.io.DataEncoderHelper;
+import org.bboxdb.commons.io.UnsafeMemoryHelper;
+import org.bboxdb.misc.Const;
+
+/**
+ * A file that is mapped into memory with multiple segments. The JVM can only map 
+ * up to 2 GB with one MappedByteBuffer, so bigger files are split into segments. 
+ * 
+ * All read methods use absolute positions and don't change the state of the 
+ * segments, so the file can be read by concurrent threads without synchronization.
+ */
+public class MappedFileSegments {
+
+	/**
+	 * The mapped segments
+	 */
+	private final MappedByteBuffer[] segments;
+	
+	/**
+	 * The size of one segment
+	 */
+	private final long segmentSize;
+	
+	/**
+	 * The size of the file
+	 */
+	private final long size;
+	
+	/**
+	 * The page size used for prefetching
+	 */
+	private final static int PAGE_SIZE = 4096;
+	
+	public MappedFileSegments(final FileChannel fileChannel, final long segmentSize) throws IOException {
+		
+		if(segmentSize <= 0 || segmentSize > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException("Invalid segment size: " + segmentSize);
+		}
+		
+		this.segmentSize = segmentSize;
+		this.size = fileChannel.size();
+		
+		final int numberOfSegments = (int) ((size + segmentSize - 1) / segmentSize);
+		this.segments = new MappedByteBuffer[numberOfSegments];
+		
+		try {
+			for(int i = 0; i < numberOfSegments; i++) {
+				final long segmentStart = i * segmentSize;
+				final long segmentLength = Math.min(segmentSize, size - segmentStart);
+				
+				segments[i] = fileChannel.map(FileChannel.MapMode.READ_ONLY, segmentStart, segmentLength);
+				segments[i].order(Const.APPLICATION_BYTE_ORDER);
+			}
+		} catch(IOException e) {
+			unmap();
+			throw e;
+		}
+	}
+	
+	/**
+	 * Get the byte at the given position
+	 * @param position
+	 * @return
+	 */
+	public byte get(final long position) {
+		checkRange(position, 1);
+		return getSegment(position).get(getOffset(position));
+	}
+	
+	/**
+	 * Get the short at the given position
+	 * @param position
+	 * @return
+	 */
+	public short getShort(final long position) {
+		if(isInOneSegment(position, DataEncoderHelper.SHORT_BYTES)) {
+			return getSegment(position).getShort(getOffset(position));
+		}
+		
+		return getBuffer(position, DataEncoderHelper.SHORT_BYTES).getShort();
+	}
+	
+	/**
+	 * Get the int at the given position
+	 * @param position
+	 * @return
+	 */
+	public int getInt(final long position) {
+		if(isInOneSegment(position, DataEncoderHelper.INT_BYTES)) {
+			return getSegment(position).getInt(getOffset(position));
+		}
+		
+		return getBuffer(position, DataEncoderHelper.INT_BYTES).getInt();
+	}
+	
+	/**
+	 * Get the long at the given position
+	 * @param position
+	 * @return
+	 */
+	public long getLong(final long position) {
+		if(isInOneSegment(position, DataEncoderHelper.LONG_BYTES)) {
+			return getSegment(position).getLong(getOffset(position));
+		}
+		
+		return getBuffer(position, DataEncoderHelper.LONG_BYTES).getLong();
+	}
+	
+	/**
+	 * Get a buffer with the given region of the file. If the region is 
+	 * contained in one segment, the buffer is a read only view on the mapped 
+	 * memory. Otherwise, the data is copied into a new buffer.
+	 * 
+	 * @param position
+	 * @param length
+	 * @return
+	 */
+	public ByteBuffer getBuffer(final long position, final int length) {
+		
+		if(isInOneSegment(position, length)) {
+			final int offset = getOffset(position);
+			final ByteBuffer view = getSegment(position).asReadOnlyBuffer();
+			view.position(offset);
+			view.limit(offset + length);
+			
+			final ByteBuffer slice = view.slice();
+			slice.order(Const.APPLICATION_BYTE_ORDER);
+			return slice;
+		}
+		
+		final ByteBuffer buffer = ByteBuffer.allocate(length);
+		buffer.order(Const.APPLICATION_BYTE_ORDER);
+		
+		long readPosition = position;
+		
+		while(buffer.hasRemaining()) {
+			final int offset = getOffset(readPosition);
+			final ByteBuffer view = getSegment(readPosition).duplicate();
+			final int bytesToCopy = Math.min(buffer.remaining(), view.limit() - offset);
+			view.position(offset);
+			view.limit(offset + bytesToCopy);
+			buffer.put(view);
+			readPosition = readPosition + bytesToCopy;
+		}
+		
+		buffer.flip();
+		return buffer;
+	}
+	
+	/**
+	 * Read one byte of each page of the region in file order. Java provides no
+	 * madvise() call, touching the pages sequentially lets the operating system
+	 * read ahead and reads the region in one sequential pass. The prefetching
+	 * is only a hint, the read bytes are not used.
+	 * 
+	 * @param position
+	 * @param length
+	 */
+	public void prefetch(final long position, final long length) {
+		final long end = Math.min(size, position + length);
+		
+		for(long pagePosition = Math.max(0, position); pagePosition < end; 
+				pagePosition = pagePosition + PAGE_SIZE) {
+			
+			getSegment(pagePosition).get(getOffset(pagePosition));
+		}
+	}
+	
+	/**
+	 * Is the region contained in one segment
+	 * @param position
+	 * @param length
+	 * @return
+	 */
+	private boolean isInOneSegment(final long position, final int length) {
+		checkRange(position, length);
+		return getOffset(position) + (long) length <= getSegment(position).limit();
+	}
+	
+	/**
+	 * Check that the region is contained in the file
+	 * @param position
+	 * @param length
+	 */
+	private void checkRange(final long position, final int length) {
+		if(position < 0 || length < 0 || position + length > size) {
+			throw new IndexOutOfBoundsException("Unable to read " + length 
+					+ " bytes at position " + position + " file size is " + size);
+		}
+	}
+	
+	/**
+	 * Get the segment for the position
+	 * @param position
+	 * @return
+	 */
+	private MappedByteBuffer getSegment(final long position) {
+		return segments[(int) (position / segmentSize)];
+	}
+	
+	/**
+	 * Get the offset of the position in the segment
+	 * @param position
+	 * @return
+	 */
+	private int getOffset(final long position) {
+		return (int) (position % segmentSize);
+	}
+	
+	/**
+	 * Get the size of the file
+	 * @return
+	 */
+	public long size() {
+		return size;
+	}
+	
+	/**
+	 * Get the number of segments
+	 * @return
+	 */
+	public int getNumberOfSegments() {
+		return segments.length;
+	}
+	
+	/**
+	 * Unmap all segments
+	 */
+	public void unmap() {
+		for(int i = 0; i < segments.length; i++) {
+			UnsafeMemoryHelper.unmapMemory(segments[i]);
+			segments[i] = null;
+		}
+	}
+}
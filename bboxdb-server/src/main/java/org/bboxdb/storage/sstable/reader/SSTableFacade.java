@@ -21,26 +21,35 @@ import java.io.File;
 import java.io.IOException;
 import java.io.RandomAccessFile;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.concurrent.atomic.AtomicInteger;
 
 import org.bboxdb.commons.math.Hyperrectangle;
+import org.bboxdb.misc.BBoxDBConfigurationManager;
 import org.bboxdb.misc.BBoxDBException;
 import org.bboxdb.misc.BBoxDBService;
 import org.bboxdb.storage.BloomFilterBuilder;
 import org.bboxdb.storage.StorageManagerException;
+import org.bboxdb.storage.entity.DeletedTuple;
 import org.bboxdb.storage.entity.Tuple;
 import org.bboxdb.storage.entity.TupleStoreMetaData;
 import org.bboxdb.storage.entity.TupleStoreName;
+import org.bboxdb.storage.sstable.SSTableConst;
 import org.bboxdb.storage.sstable.SSTableHelper;
 import org.bboxdb.storage.sstable.spatialindex.SpatialIndexEntry;
 import org.bboxdb.storage.sstable.spatialindex.SpatialIndexReader;
 import org.bboxdb.storage.sstable.spatialindex.SpatialIndexReaderFactory;
+import org.bboxdb.storage.sstable.timeindex.TimeIndexReader;
+import org.bboxdb.storage.sstable.timeindex.TimeIndexType;
 import org.bboxdb.storage.tuplestore.ReadOnlyTupleStore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.collect.Iterators;
 import com.google.common.hash.BloomFilter;
 
 public class SSTableFacade implements BBoxDBService, ReadOnlyTupleStore {
@@ -70,11 +79,21 @@ public class SSTableFacade implements BBoxDBService, ReadOnlyTupleStore {
 	 */
 	protected final TupleStoreMetaData ssTableMetadata;
 	
+	/**
+	 * The bounding box of the indexed tuples from the metadata (null if unknown)
+	 */
+	protected final Hyperrectangle metadataBoundingBox;
+	
 	/**
 	 * The spatial index
 	 */
 	protected SpatialIndexReader spatialIndex;
 	
+	/**
+	 * The time index (null for tables written without time index)
+	 */
+	protected TimeIndexReader timeIndex;
+	
 	/**
 	 * The Bloom filter
 	 */
@@ -119,12 +138,34 @@ public class SSTableFacade implements BBoxDBService, ReadOnlyTupleStore {
 		// Meta data
 		final File metadataFile = getMetadataFile(directory, tablename, tablenumber);
 		ssTableMetadata = TupleStoreMetaData.importFromYamlFile(metadataFile);
+		metadataBoundingBox = getMetadataBoundingBox(ssTableMetadata);
 		
 		this.usage = new AtomicInteger(0);
 		deleteOnClose = false;
 		this.keyCacheElements = keyCacheElements;
 	}
 
+	/**
+	 * Get the bounding box of the indexed tuples from the metadata
+	 * @param metadata
+	 * @return the bounding box or null, if the bounding box is unknown
+	 */
+	private static Hyperrectangle getMetadataBoundingBox(final TupleStoreMetaData metadata) {
+		
+		if(metadata == null || metadata.getBoundingBoxData() == null) {
+			return null;
+		}
+		
+		final double[] boundingBoxData = metadata.getBoundingBoxData();
+		
+		// Tables without indexed tuples have no bounding box
+		if(boundingBoxData.length == 0) {
+			return null;
+		}
+		
+		return new Hyperrectangle(boundingBoxData);
+	}
+
 	/**
 	 * Get the spatial index file
 	 * @param directory
@@ -138,6 +179,18 @@ public class SSTableFacade implements BBoxDBService, ReadOnlyTupleStore {
 		return spatialIndexFile;
 	}
 
+	/**
+	 * Get the time index file
+	 * @param directory
+	 * @param tablename
+	 * @param tablenumber
+	 * @return
+	 */
+	protected File getTimeIndexFile(final String directory, final TupleStoreName tablename, final int tablenumber) {
+		final String timeIndexFileName = SSTableHelper.getSSTableTimeIndexFilename(directory, tablename, tablenumber);
+		return new File(timeIndexFileName);
+	}
+
 	/**
 	 * Get the bloomfilter file
 	 * @param directory
@@ -171,6 +224,29 @@ public class SSTableFacade implements BBoxDBService, ReadOnlyTupleStore {
 		}
 	}
 	
+	/**
+	 * Load the time index from file. Tables that are written by older versions
+	 * have no time index, the time queries read the whole table in this case.
+	 * @param timeIndexFile
+	 */
+	protected void loadTimeIndex(final File timeIndexFile) {
+		
+		if(! timeIndexFile.exists()) {
+			logger.debug("Time index file {} does not exist, working without time index", timeIndexFile);
+			timeIndex = null;
+			return;
+		}
+		
+		try {
+			final TimeIndexReader timeIndexReader = new TimeIndexReader();
+			timeIndexReader.readFromFile(timeIndexFile);
+			timeIndex = timeIndexReader;
+		} catch (StorageManagerException e) {
+			logger.warn("Unable to load the time index", e);
+			timeIndex = null;
+		}
+	}
+	
 	/**
 	 * Load the boom filter from file
 	 * @param bloomFilterFile
@@ -215,6 +291,12 @@ public class SSTableFacade implements BBoxDBService, ReadOnlyTupleStore {
 			
 			ssTableReader.init();
 			
+			if(ssTableReader.isBlockCompressed()) {
+				final int blockCacheEntries = BBoxDBConfigurationManager.getConfiguration()
+						.getSstableBlockCacheEntries();
+				ssTableReader.activateBlockCache(blockCacheEntries);
+			}
+			
 			ssTableKeyIndexReader.init();
 			ssTableKeyIndexReader.activateKeyCache(keyCacheElements);
 			
@@ -222,6 +304,10 @@ public class SSTableFacade implements BBoxDBService, ReadOnlyTupleStore {
 			final File spatialIndexFile = getSpatialIndexFile(directory, tablename, tablenumber);
 			loadSpatialIndex(spatialIndexFile); 
 			
+			// Time index
+			final File timeIndexFile = getTimeIndexFile(directory, tablename, tablenumber);
+			loadTimeIndex(timeIndexFile);
+			
 			// Bloom filter
 			final File bloomFilterFile = getBloomFilterFile(directory, tablename, tablenumber);
 			loadBloomFilter(bloomFilterFile);
@@ -243,6 +329,10 @@ public class SSTableFacade implements BBoxDBService, ReadOnlyTupleStore {
 		if(spatialIndex != null) {
 			spatialIndex.close();
 		}
+		
+		if(timeIndex != null) {
+			timeIndex.close();
+		}
 	}
 
 	@Override
@@ -331,6 +421,10 @@ public class SSTableFacade implements BBoxDBService, ReadOnlyTupleStore {
 			final File spatialIndexFile = getSpatialIndexFile(directory, tablename, tablenumber);
 			spatialIndexFile.delete();
 			
+			// Delete time index
+			final File timeIndexFile = getTimeIndexFile(directory, tablename, tablenumber);
+			timeIndexFile.delete();
+			
 			// Delete bloom filter
 			final File bloomFilterFile = getBloomFilterFile(directory, tablename, tablenumber);
 			bloomFilterFile.delete();
@@ -382,10 +476,63 @@ public class SSTableFacade implements BBoxDBService, ReadOnlyTupleStore {
 		return ssTableMetadata.getNewestTupleInsertedTimstamp();
 	}
 
+	@Override
+	public boolean mightContainKey(final String key) {
+		
+		if(ssTableMetadata == null) {
+			return true;
+		}
+		
+		final String minKey = ssTableMetadata.getMinKey();
+		final String maxKey = ssTableMetadata.getMaxKey();
+
+		// Tables written by older versions have no key range
+		if(minKey == null || maxKey == null) {
+			return true;
+		}
+		
+		return key.compareTo(minKey) >= 0 && key.compareTo(maxKey) <= 0;
+	}
+	
+	@Override
+	public boolean mightContainBoundingBox(final Hyperrectangle boundingBox) {
+		
+		if(metadataBoundingBox == null) {
+			return true;
+		}
+		
+		return metadataBoundingBox.intersects(boundingBox);
+	}
+	
+	@Override
+	public boolean mightContainNewerVersions(final long versionTimestamp) {
+		
+		if(ssTableMetadata == null) {
+			return true;
+		}
+		
+		return ssTableMetadata.getNewestTupleVersionTimestamp() > versionTimestamp;
+	}
+	
+	@Override
+	public boolean mightContainNewerInserts(final long insertTimestamp) {
+		
+		if(ssTableMetadata == null) {
+			return true;
+		}
+		
+		return ssTableMetadata.getNewestTupleInsertedTimstamp() > insertTimestamp;
+	}
+
 	@Override
 	public List<Tuple> get(final String key) throws StorageManagerException {
 		
 		assert (usage.get() > 0);
+		
+		// Check the key range of the table
+		if(! mightContainKey(key)) {
+			return new ArrayList<>();
+		}
 
 		// Check bloom filter first
 		if(bloomfilter == null) {
@@ -398,9 +545,9 @@ public class SSTableFacade implements BBoxDBService, ReadOnlyTupleStore {
 		}
 		
 		final List<Tuple> resultList = new ArrayList<>();
-		final List<Integer> positions = ssTableKeyIndexReader.getPositionsForTuple(key);
+		final List<Long> positions = ssTableKeyIndexReader.getPositionsForTuple(key);
 		
-		for(final Integer position : positions) {
+		for(final Long position : positions) {
 			resultList.add(ssTableReader.getTupleAtPosition(position));
 		}
 		
@@ -415,6 +562,15 @@ public class SSTableFacade implements BBoxDBService, ReadOnlyTupleStore {
 		return ssTableKeyIndexReader.iterator();
 	}
 
+	@Override
+	public Iterator<Tuple> getSortedIterator() {
+		
+		assert (usage.get() > 0);
+		
+		// The tuples are written ordered by key
+		return ssTableKeyIndexReader.iterator();
+	}
+
 	@Override
 	public long getNumberOfTuples() {
 
@@ -446,31 +602,204 @@ public class SSTableFacade implements BBoxDBService, ReadOnlyTupleStore {
 	@Override
 	public Iterator<Tuple> getAllTuplesInBoundingBox(final Hyperrectangle boundingBox) {
 		assert (usage.get() > 0);
+		
+		// Check the bounding box of the table
+		if(! mightContainBoundingBox(boundingBox)) {
+			return Collections.emptyIterator();
+		}
 
-		List<SpatialIndexEntry> entries;
+		final long[] positions;
 		
 		try {
-			entries = spatialIndex.getEntriesForRegion(boundingBox);
-		} catch (StorageManagerException e) {
+			positions = getSortedTuplePositions(spatialIndex.getEntriesForRegion(boundingBox));
+		} catch (StorageManagerException | IOException e) {
 			throw new RuntimeException(e);
 		}
 		
-		final Iterator<SpatialIndexEntry> entryIterator = entries.iterator();
+		return getTuplesAtPositions(positions);
+	}
+	
+	@Override
+	public Iterator<Tuple> getAllTuplesInBoundingBox(final Hyperrectangle boundingBox, 
+			final TimeIndexType timeIndexType, final long timestamp) {
+		
+		assert (usage.get() > 0);
+		
+		if(! timeIndexType.mightContainNewerTuples(this, timestamp)) {
+			return Collections.emptyIterator();
+		}
+		
+		if(timeIndex == null) {
+			return Iterators.filter(ssTableKeyIndexReader.iterator(), 
+					t -> timeIndexType.isNewer(t, timestamp) && isDeletedOrInBoundingBox(t, boundingBox));
+		}
+		
+		try {
+			// Deleted tuples have no bounding box, the newer deletions are always read
+			final long[] deletedPositions = convertEntriesToPositions(
+					timeIndex.getDeletedEntriesNewerAs(timeIndexType, timestamp));
+			
+			if(! mightContainBoundingBox(boundingBox)) {
+				return getTuplesAtPositions(deletedPositions);
+			}
+			
+			// Read only the tuples that are contained in the spatial and in the time index
+			final long[] spatialPositions = getSortedTuplePositions(spatialIndex.getEntriesForRegion(boundingBox));
+			final long[] timePositions = convertEntriesToPositions(timeIndex.getEntriesNewerAs(timeIndexType, timestamp));
+			final long[] positions = intersectSortedPositions(spatialPositions, timePositions);
+			
+			return getTuplesAtPositions(unionSortedPositions(positions, deletedPositions));
+		} catch (StorageManagerException | IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+	
+	/**
+	 * Is the tuple deleted or intersects the tuple the bounding box
+	 * @param tuple
+	 * @param boundingBox
+	 * @return
+	 */
+	private static boolean isDeletedOrInBoundingBox(final Tuple tuple, final Hyperrectangle boundingBox) {
+		
+		if(tuple instanceof DeletedTuple) {
+			return true;
+		}
+		
+		return tuple.getBoundingBox() != null && tuple.getBoundingBox().intersects(boundingBox);
+	}
+	
+	@Override
+	public Iterator<Tuple> getAllTuplesNewerAs(final TimeIndexType timeIndexType, final long timestamp) {
+		
+		assert (usage.get() > 0);
+		
+		if(! timeIndexType.mightContainNewerTuples(this, timestamp)) {
+			return Collections.emptyIterator();
+		}
+		
+		if(timeIndex == null) {
+			return Iterators.filter(ssTableKeyIndexReader.iterator(), t -> timeIndexType.isNewer(t, timestamp));
+		}
+		
+		try {
+			final long[] positions = convertEntriesToPositions(timeIndex.getEntriesNewerAs(timeIndexType, timestamp));
+			return getTuplesAtPositions(positions);
+		} catch (IOException e) {
+			throw new RuntimeException(e);
+		}
+	}
+	
+	/**
+	 * Convert the sorted index entries into sorted tuple positions. The tuples are 
+	 * written in the order of the index entries, so the order is preserved.
+	 * @param entries
+	 * @return
+	 * @throws IOException
+	 */
+	private long[] convertEntriesToPositions(final long[] entries) throws IOException {
+		final long[] positions = new long[entries.length];
+		
+		for(int i = 0; i < entries.length; i++) {
+			positions[i] = ssTableKeyIndexReader.convertEntryToPosition(entries[i]);
+		}
+		
+		return positions;
+	}
+	
+	/**
+	 * Intersect two sorted position arrays
+	 * @param positions1
+	 * @param positions2
+	 * @return
+	 */
+	private static long[] intersectSortedPositions(final long[] positions1, final long[] positions2) {
+		final long[] result = new long[Math.min(positions1.length, positions2.length)];
+		int resultLength = 0;
+		int pos1 = 0;
+		int pos2 = 0;
+		
+		while(pos1 < positions1.length && pos2 < positions2.length) {
+			if(positions1[pos1] < positions2[pos2]) {
+				pos1++;
+			} else if(positions1[pos1] > positions2[pos2]) {
+				pos2++;
+			} else {
+				result[resultLength++] = positions1[pos1];
+				pos1++;
+				pos2++;
+			}
+		}
+		
+		return Arrays.copyOf(result, resultLength);
+	}
+	
+	/**
+	 * Merge two sorted position arrays, positions that are contained 
+	 * in both arrays are only added once
+	 * @param positions1
+	 * @param positions2
+	 * @return
+	 */
+	private static long[] unionSortedPositions(final long[] positions1, final long[] positions2) {
+		final long[] result = new long[positions1.length + positions2.length];
+		int resultLength = 0;
+		int pos1 = 0;
+		int pos2 = 0;
+		
+		while(pos1 < positions1.length || pos2 < positions2.length) {
+			if(pos2 == positions2.length || (pos1 < positions1.length && positions1[pos1] < positions2[pos2])) {
+				result[resultLength++] = positions1[pos1++];
+			} else if(pos1 == positions1.length || positions1[pos1] > positions2[pos2]) {
+				result[resultLength++] = positions2[pos2++];
+			} else {
+				result[resultLength++] = positions1[pos1];
+				pos1++;
+				pos2++;
+			}
+		}
+		
+		return Arrays.copyOf(result, resultLength);
+	}
+	
+	/**
+	 * Read the tuples at the given sorted positions. Runs of tuples that are 
+	 * stored close together are prefetched.
+	 * @param positions
+	 * @return
+	 */
+	private Iterator<Tuple> getTuplesAtPositions(final long[] positions) {
 		
 		return new Iterator<Tuple>() {
+			
+			/**
+			 * The next position to read
+			 */
+			private int nextPosition = 0;
+			
+			/**
+			 * The positions until this position are prefetched
+			 */
+			private int prefetchedPosition = 0;
 
 			@Override
 			public boolean hasNext() {
-				return entryIterator.hasNext();
+				return nextPosition < positions.length;
 			}
 
 			@Override
 			public Tuple next() {
-				final SpatialIndexEntry entry = entryIterator.next();
-				final int tuplePosition = entry.getValue();
+				
+				if(! hasNext()) {
+					throw new NoSuchElementException();
+				}
+				
+				if(nextPosition >= prefetchedPosition) {
+					prefetchedPosition = prefetchRun(positions, nextPosition);
+				}
 				
 				try {
-					return ssTableReader.getTupleAtPosition(tuplePosition);
+					return ssTableReader.getTupleAtPosition(positions[nextPosition++]);
 				} catch (StorageManagerException e) {
 					throw new RuntimeException(e);
 				}
@@ -478,6 +807,67 @@ public class SSTableFacade implements BBoxDBService, ReadOnlyTupleStore {
 		};
 	}
 
+	/**
+	 * Get the positions of the tuples in the data file, ordered by the position. The 
+	 * R-tree returns the entries in the order of its nodes, reading the tuples in this 
+	 * order causes random reads in the data file. Version 1 tables store the tuple 
+	 * position in the spatial index, newer versions the index entry. The index entries
+	 * are ordered like the tuples in the data file.
+	 * 
+	 * @param entries
+	 * @return
+	 * @throws IOException
+	 */
+	private long[] getSortedTuplePositions(final List<SpatialIndexEntry> entries) 
+			throws IOException {
+		
+		final long[] positions = new long[entries.size()];
+		
+		for(int i = 0; i < positions.length; i++) {
+			positions[i] = entries.get(i).getValue();
+		}
+		
+		Arrays.sort(positions);
+		
+		if(ssTableKeyIndexReader.getFormatVersion() != SSTableConst.SST_VERSION_1) {
+			for(int i = 0; i < positions.length; i++) {
+				positions[i] = ssTableKeyIndexReader.convertEntryToPosition(positions[i]);
+			}
+		}
+		
+		return positions;
+	}
+	
+	/**
+	 * Prefetch the run of tuples that starts at the given position. The tuples of a 
+	 * run are stored close together in the data file and are read in one sequential 
+	 * pass. Small results are not prefetched.
+	 * 
+	 * @param positions
+	 * @param start
+	 * @return the end of the run (exclusive)
+	 */
+	private int prefetchRun(final long[] positions, final int start) {
+		
+		if(positions.length < SSTableConst.PREFETCH_MIN_TUPLES) {
+			return positions.length;
+		}
+		
+		int end = start + 1;
+		
+		while(end < positions.length 
+				&& positions[end] - positions[end - 1] <= SSTableConst.PREFETCH_MAX_GAP) {
+			end++;
+		}
+		
+		if(end - start > 1) {
+			final long length = positions[end - 1] - positions[start] + SSTableConst.PREFETCH_MAX_GAP;
+			ssTableReader.prefetch(positions[start], length);
+		}
+		
+		return end;
+	}
+
 	@Override
 	public boolean isPersistent() {
 		return true;
@@ -19,11 +19,15 @@ package org.bboxdb.storage.sstable.reader;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
 
+import org.bboxdb.commons.io.DataEncoderHelper;
 import org.bboxdb.storage.StorageManagerException;
 import org.bboxdb.storage.entity.Tuple;
 import org.bboxdb.storage.sstable.SSTableConst;
@@ -46,11 +50,32 @@ public class SSTableKeyIndexReader extends AbstractFileReader implements Iterabl
 	 * The key cache <Tuple Number, Key>
 	 */
 	protected LoadingCache<Long, String> keyCache;
+	
+	/**
+	 * The version of the layout of the index file
+	 */
+	protected short formatVersion;
+	
+	/**
+	 * The size of the header of the index file
+	 */
+	protected int headerBytes;
+	
+	/**
+	 * The size of one index entry
+	 */
+	protected int indexEntryBytes;
 
 	/**
 	 * The Logger
 	 */
 	private static final Logger logger = LoggerFactory.getLogger(SSTableKeyIndexReader.class);
+	
+	/**
+	 * Is the default charset compatible to ASCII (needed for the in place key compare)
+	 */
+	private static final boolean ASCII_COMPATIBLE_CHARSET = Arrays.asList(StandardCharsets.UTF_8, 
+			StandardCharsets.ISO_8859_1, StandardCharsets.US_ASCII).contains(Charset.defaultCharset());
 
 	public SSTableKeyIndexReader(final SSTableReader sstableReader) throws StorageManagerException {
 		super(sstableReader.getDirectory(), sstableReader.getName(), sstableReader.getTablebumber());
@@ -96,31 +121,33 @@ public class SSTableKeyIndexReader extends AbstractFileReader implements Iterabl
 	 * @return
 	 * @throws StorageManagerException
 	 */
-	public List<Integer> getPositionsForTuple(final String key) throws StorageManagerException {
+	public List<Long> getPositionsForTuple(final String key) throws StorageManagerException {
 
 		try {
+			final byte[] keyBytes = getComparableKeyBytes(key);
+			
 			int firstEntry = 0;
 			int lastEntry = getNumberOfEntries() - 1;
 
 			// Check key is > then first value
-			final String firstValue = getKeyForIndexEntry(firstEntry);
-			if(firstValue.equals(key)) {
-				return fillKeyPositionArrayFromIndexEntry(key, firstEntry);
+			final int firstValueCompare = compareKeyForIndexEntry(firstEntry, key, keyBytes);
+			if(firstValueCompare == 0) {
+				return fillKeyPositionArrayFromIndexEntry(key, keyBytes, firstEntry);
 			}
 
 			// Not found
-			if(firstValue.compareTo(key) > 0) {
+			if(firstValueCompare > 0) {
 				return new ArrayList<>();
 			}
 
 			// Check if key is < then first value
-			final String lastValue = getKeyForIndexEntry(lastEntry);
-			if(lastValue.equals(key)) {
-				return fillKeyPositionArrayFromIndexEntry(key, lastEntry);
+			final int lastValueCompare = compareKeyForIndexEntry(lastEntry, key, keyBytes);
+			if(lastValueCompare == 0) {
+				return fillKeyPositionArrayFromIndexEntry(key, keyBytes, lastEntry);
 			}
 
 			// Not found
-			if(lastValue.compareTo(key) < 0) {
+			if(lastValueCompare < 0) {
 				return new ArrayList<>();
 			}
 
@@ -132,13 +159,13 @@ public class SSTableKeyIndexReader extends AbstractFileReader implements Iterabl
 					logger.debug("Low: " + firstEntry + " Up: " + lastEntry + " Pos: " + curEntry);
 				}*/
 
-				final String curEntryValue = getKeyForIndexEntry(curEntry);
+				final int curEntryCompare = compareKeyForIndexEntry(curEntry, key, keyBytes);
 
-				if(curEntryValue.equals(key)) {
-					return fillKeyPositionArrayFromIndexEntry(key, curEntry);
+				if(curEntryCompare == 0) {
+					return fillKeyPositionArrayFromIndexEntry(key, keyBytes, curEntry);
 				}
 
-				if(key.compareTo(curEntryValue) > 0) {
+				if(curEntryCompare < 0) {
 					firstEntry = curEntry + 1;
 				} else {
 					lastEntry = curEntry - 1;
@@ -162,8 +189,8 @@ public class SSTableKeyIndexReader extends AbstractFileReader implements Iterabl
 	 * @throws StorageManagerException
 	 * @throws IOException
 	 */
-	protected List<Integer> fillKeyPositionArrayFromIndexEntry(final String key, final int indexEntry)
-			throws IOException, StorageManagerException {
+	protected List<Long> fillKeyPositionArrayFromIndexEntry(final String key, final byte[] keyBytes, 
+			final int indexEntry) throws IOException, StorageManagerException {
 
 		final List<Integer> resultList = new ArrayList<>();
 		final int lastEntry = getNumberOfEntries() - 1;
@@ -173,9 +200,7 @@ public class SSTableKeyIndexReader extends AbstractFileReader implements Iterabl
 		// Scan upper index entries
 		int indexEntryTest = indexEntry + 1;
 		while(indexEntryTest <= lastEntry) {
-			final String curEntryValue = getKeyForIndexEntry(indexEntryTest);
-
-			if(curEntryValue.equals(key)) {
+			if(compareKeyForIndexEntry(indexEntryTest, key, keyBytes) == 0) {
 				resultList.add(indexEntryTest);
 			} else {
 				break;
@@ -188,9 +213,7 @@ public class SSTableKeyIndexReader extends AbstractFileReader implements Iterabl
 		indexEntryTest = indexEntry - 1;
 
 		while(indexEntryTest >= 0) {
-			final String curEntryValue = getKeyForIndexEntry(indexEntryTest);
-
-			if(curEntryValue.equals(key)) {
+			if(compareKeyForIndexEntry(indexEntryTest, key, keyBytes) == 0) {
 				resultList.add(indexEntryTest);
 			} else {
 				break;
@@ -200,13 +223,57 @@ public class SSTableKeyIndexReader extends AbstractFileReader implements Iterabl
 		}
 
 		// Convert index positions
-		final List<Integer> positions = new ArrayList<>();
+		final List<Long> positions = new ArrayList<>();
 		for(final int pos : resultList) {
 			positions.add(convertEntryToPosition(pos));
 		}
 
 		return positions;
 	}
+	
+	/**
+	 * Get the bytes of the key, if the key can be compared in place with the 
+	 * stored keys. The keys are sorted by their string representation. For ASCII 
+	 * keys and an ASCII compatible encoding, the byte order is equal to the string 
+	 * order. Otherwise null is returned and the keys need to be decoded.
+	 * 
+	 * @param key
+	 * @return
+	 */
+	protected static byte[] getComparableKeyBytes(final String key) {
+		
+		if(! ASCII_COMPATIBLE_CHARSET) {
+			return null;
+		}
+		
+		for(int i = 0; i < key.length(); i++) {
+			if(key.charAt(i) > 0x7F) {
+				return null;
+			}
+		}
+		
+		return key.getBytes();
+	}
+	
+	/**
+	 * Compare the key of the index entry with the given key
+	 * @param entry
+	 * @param key
+	 * @param keyBytes - the bytes of the key or null if the key can not be compared in place
+	 * @return
+	 * @throws IOException
+	 * @throws StorageManagerException
+	 */
+	protected int compareKeyForIndexEntry(final long entry, final String key, final byte[] keyBytes) 
+			throws IOException, StorageManagerException {
+		
+		if(keyBytes == null) {
+			return getKeyForIndexEntry(entry).compareTo(key);
+		}
+		
+		final long position = convertEntryToPosition(entry);
+		return sstableReader.compareKeyOfTupleAtPosition(position, keyBytes);
+	}
 
 	/**
 	 * Get the string key for index entry
@@ -235,7 +302,7 @@ public class SSTableKeyIndexReader extends AbstractFileReader implements Iterabl
 	 * @throws IOException
 	 */
 	protected String readKeyFromBytePos(final long entry) throws IOException {
-		final int position = convertEntryToPosition(entry);
+		final long position = convertEntryToPosition(entry);
 		return sstableReader.decodeOnlyKeyFromTupleAtPosition(position);
 	}
 
@@ -247,7 +314,7 @@ public class SSTableKeyIndexReader extends AbstractFileReader implements Iterabl
 	 * @throws StorageManagerException
 	 */
 	public Tuple getTupleForIndexEntry(final long entry) throws IOException, StorageManagerException {
-		final int position = convertEntryToPosition(entry);
+		final long position = convertEntryToPosition(entry);
 		return sstableReader.getTupleAtPosition(position);
 	}
 
@@ -257,24 +324,24 @@ public class SSTableKeyIndexReader extends AbstractFileReader implements Iterabl
 	 * @return
 	 * @throws IOException
 	 */
-	protected synchronized int convertEntryToPosition(final long entry) throws IOException {
+	public long convertEntryToPosition(final long entry) throws IOException {
+		
+		// Memory was unmapped
 		if(! acquire()) {
 			throw new IOException("Unable to aquire");
 		}
 
-		// Memory was unmapped
-		if(! serviceState.isInRunningState()) {
-			throw new IOException("Not in running state");
+		try {
+			final long indexPosition = (entry * indexEntryBytes) + headerBytes;
+			
+			if(formatVersion == SSTableConst.SST_VERSION_1) {
+				return memory.getInt(indexPosition);
+			}
+			
+			return memory.getLong(indexPosition);
+		} finally {
+			release();
 		}
-
-		final byte[] magicBytes = getMagicBytes();
-
-		memory.position((int) ((entry * SSTableConst.INDEX_ENTRY_BYTES) + magicBytes.length));
-		final int position = memory.getInt();
-
-		release();
-
-		return position;
 	}
 
 	/**
@@ -288,9 +355,7 @@ public class SSTableKeyIndexReader extends AbstractFileReader implements Iterabl
 				return 0;
 			}
 
-			final byte[] magicBytes = getMagicBytes();
-
-			return (int) ((fileChannel.size() - magicBytes.length) / SSTableConst.INDEX_ENTRY_BYTES);
+			return (int) ((fileChannel.size() - headerBytes) / indexEntryBytes);
 		} catch (IOException e) {
 			logger.error("IO Exception while reading from index", e);
 		}
@@ -369,6 +434,44 @@ public class SSTableKeyIndexReader extends AbstractFileReader implements Iterabl
 
 	@Override
 	protected byte[] getMagicBytes() {
-		return SSTableConst.MAGIC_BYTES_INDEX;
+		return SSTableConst.MAGIC_BYTES_INDEX_VERSIONED;
+	}
+	
+	/**
+	 * Read the magic bytes and the version of the index file. Files without 
+	 * a version are read as version 1 files.
+	 */
+	@Override
+	protected void validateFile() throws StorageManagerException {
+		
+		if(hasBytesAtPosition(0, SSTableConst.MAGIC_BYTES_INDEX)) {
+			formatVersion = SSTableConst.SST_VERSION_1;
+			headerBytes = SSTableConst.MAGIC_BYTES_INDEX.length;
+			indexEntryBytes = SSTableConst.INDEX_ENTRY_BYTES_V1;
+			return;
+		}
+		
+		final byte[] magicBytes = SSTableConst.MAGIC_BYTES_INDEX_VERSIONED;
+		headerBytes = magicBytes.length + DataEncoderHelper.SHORT_BYTES;
+
+		if(! hasBytesAtPosition(0, magicBytes) || memory.size() < headerBytes) {
+			throw new StorageManagerException("File " + file + " does not contain the magic bytes");
+		}
+		
+		formatVersion = memory.getShort(magicBytes.length);
+		
+		if(formatVersion != SSTableConst.SST_VERSION_2) {
+			throw new StorageManagerException("File " + file + " has an unsupported version: " + formatVersion);
+		}
+		
+		indexEntryBytes = SSTableConst.INDEX_ENTRY_BYTES;
+	}
+	
+	/**
+	 * Get the version of the layout of the index file
+	 * @return
+	 */
+	public short getFormatVersion() {
+		return formatVersion;
 	}
 }
\ No newline at end of file
@@ -19,17 +19,25 @@ package org.bboxdb.storage.sstable.reader;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.ExecutionException;
+import java.util.zip.CRC32;
 
 import org.bboxdb.commons.io.DataEncoderHelper;
 import org.bboxdb.storage.StorageManagerException;
 import org.bboxdb.storage.entity.Tuple;
 import org.bboxdb.storage.entity.TupleStoreName;
+import org.bboxdb.storage.sstable.SSTableCompression;
 import org.bboxdb.storage.sstable.SSTableConst;
 import org.bboxdb.storage.sstable.SSTableHelper;
 import org.bboxdb.storage.util.TupleHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+
 import io.prometheus.client.Counter;
 
 public class SSTableReader extends AbstractFileReader {
@@ -55,23 +63,119 @@ public class SSTableReader extends AbstractFileReader {
 			.name("bboxdb_read_tuple_bytes")
 			.help("Total read tuple bytes").register();
 	
+	/**
+	 * The total decompressed blocks counter
+	 */
+	protected final static Counter readBlocksTotal = Counter.build()
+			.name("bboxdb_read_block_total")
+			.help("Total decompressed blocks").register();
+	
+	/**
+	 * The compression of the data file
+	 */
+	protected SSTableCompression compression = SSTableCompression.NONE;
+	
+	/**
+	 * The cache for decompressed blocks
+	 */
+	protected LoadingCache<Long, ByteBuffer> blockCache = null;
+	
 	/**
 	 * The Logger
 	 */
 	private static final Logger logger = LoggerFactory.getLogger(SSTableReader.class);
 	
+	/**
+	 * The offset of the key in an encoded tuple
+	 */
+	private static final int KEY_OFFSET = DataEncoderHelper.SHORT_BYTES  // Key-Length
+			+ DataEncoderHelper.INT_BYTES			// BBOX-Length
+			+ DataEncoderHelper.INT_BYTES 			// Data-Length
+			+ DataEncoderHelper.LONG_BYTES			// Version Timestamp
+			+ DataEncoderHelper.LONG_BYTES;			// Received Timetamp	
+	
 
 	public SSTableReader(final String directory, final TupleStoreName tablename, final int tablenumer) throws StorageManagerException {
 		super(directory, tablename, tablenumer);
 	}
 	
+	/**
+	 * Activate the block cache
+	 * @param elements
+	 */
+	public void activateBlockCache(final int elements) {
+
+		if(blockCache != null) {
+			throw new RuntimeException("Blockcache was already be initiliazed");
+		}
+
+		// Don't activate the cache
+		if(elements == 0) {
+			return;
+		}
+
+		blockCache = CacheBuilder.newBuilder()
+				.maximumSize(elements)
+				.build(new CacheLoader<Long, ByteBuffer>() {
+
+			@Override
+			public ByteBuffer load(final Long blockPosition) throws Exception {
+				return readBlock(blockPosition);
+			}
+
+		});
+	}
+	
+	/**
+	 * Validate the magic bytes and read the compression of the data file
+	 */
+	@Override
+	protected void validateFile() throws StorageManagerException {
+		
+		final byte[] blockMagicBytes = SSTableConst.MAGIC_BYTES_SSTABLE_BLOCK;
+		
+		if(! hasBytesAtPosition(0, blockMagicBytes)) {
+			compression = SSTableCompression.NONE;
+			super.validateFile();
+			return;
+		}
+		
+		if(memory.size() <= blockMagicBytes.length) {
+			throw new StorageManagerException("File " + file + " does not contain a compression codec");
+		}
+		
+		final byte compressionId = memory.get(blockMagicBytes.length);
+		compression = SSTableCompression.fromId(compressionId);
+		
+		if(compression == null || compression == SSTableCompression.NONE) {
+			throw new StorageManagerException("File " + file + " has an unsupported compression: " 
+					+ compressionId);
+		}
+	}
+	
+	/**
+	 * Is the data file written in compressed blocks
+	 * @return
+	 */
+	public boolean isBlockCompressed() {
+		return compression != SSTableCompression.NONE;
+	}
+	
+	/**
+	 * Get the compression of the data file
+	 * @return
+	 */
+	public SSTableCompression getCompression() {
+		return compression;
+	}
+	
 	/**
 	 * Scan the whole SSTable for the Tuple
 	 * @param key
 	 * @return the tuple or null	
 	 * @throws StorageManagerException 
 	 */
-	public synchronized Tuple scanForTuple(final String key) throws StorageManagerException {
+	public Tuple scanForTuple(final String key) throws StorageManagerException {
 		logger.info("Scanning table " + tablenumber + " for " + key);
 
 		try {
@@ -79,14 +183,54 @@ public class SSTableReader extends AbstractFileReader {
 				throw new IOException("Unable to aquire");
 			}
 			
-			resetPosition();
+			try {
+				if(isBlockCompressed()) {
+					return scanBlocksForTuple(key);
+				}
+				
+				long position = getMagicBytes().length;
+				
+				while(position < memory.size()) {
+					final ByteBuffer tupleBuffer = getTupleBuffer(memory, position);
+					final Tuple tuple = TupleHelper.decodeTuple(tupleBuffer);
+					position = position + tupleBuffer.limit();
+	
+					// The keys are stored in lexicographical order. If the
+					// next key of the sstable is greater then our search key,
+					// then the key is not contained in this table.
+					if(tuple.getKey().compareTo(key) > 0) {
+						return null;
+					}
+					
+					if(tuple.getKey().equals(key)) {
+						return tuple;
+					}
+				}
+			} finally {
+				release();
+			}
+		} catch (IOException e) {
+			throw new StorageManagerException(e);
+		} 
+		
+		return null;
+	}
+	
+	/**
+	 * Scan all blocks of the SSTable for the Tuple
+	 * @param key
+	 * @return the tuple or null
+	 * @throws IOException
+	 */
+	private Tuple scanBlocksForTuple(final String key) throws IOException {
+		long blockPosition = SSTableConst.MAGIC_BYTES_SSTABLE_BLOCK.length + 1;
+		
+		while(blockPosition < memory.size()) {
+			final ByteBuffer block = getBlock(blockPosition);
 			
-			while(memory.hasRemaining()) {
-				final Tuple tuple = TupleHelper.decodeTuple(memory);
-
-				// The keys are stored in lexicographical order. If the
-				// next key of the sstable is greater then our search key,
-				// then the key is not contained in this table.
+			while(block.hasRemaining()) {
+				final Tuple tuple = TupleHelper.decodeTuple(block);
+				
 				if(tuple.getKey().compareTo(key) > 0) {
 					return null;
 				}
@@ -95,11 +239,9 @@ public class SSTableReader extends AbstractFileReader {
 					return tuple;
 				}
 			}
-		
-		} catch (IOException e) {
-			throw new StorageManagerException(e);
-		} finally {
-			release();
+			
+			final int compressedLength = memory.getInt(blockPosition);
+			blockPosition = blockPosition + SSTableConst.BLOCK_HEADER_BYTES + compressedLength;
 		}
 		
 		return null;
@@ -112,24 +254,20 @@ public class SSTableReader extends AbstractFileReader {
 	 * @return The tuple
 	 * @throws StorageManagerException
 	 */
-	public synchronized Tuple getTupleAtPosition(final int position) throws StorageManagerException {
+	public Tuple getTupleAtPosition(final long position) throws StorageManagerException {
+		
+		// The memory was unmapped
+		if(! acquire()) {
+			logger.warn("Read request to unmapped memory for relation: " + name);
+			return null;
+		}
 		
 		try {
-			// The memory was unmapped
-			if(! serviceState.isInRunningState()) {
-				logger.warn("Read request to unmapped memory for relation: " + name);
-				return null;
-			}
-			
-			acquire();
-			memory.position(position);
-			
-			final Tuple tuple = TupleHelper.decodeTuple(memory);
-			final int newPosition = memory.position();
-			final int readBytes = newPosition - position;
+			final ByteBuffer tupleBuffer = getTupleBuffer(position);
+			final Tuple tuple = TupleHelper.decodeTuple(tupleBuffer);
 
 			readTuplesTotal.inc();
-			readTuplesBytes.inc(readBytes);
+			readTuplesBytes.inc(tupleBuffer.limit());
 			
 			return tuple;
 		} catch (Exception e) {
@@ -143,37 +281,196 @@ public class SSTableReader extends AbstractFileReader {
 		}
 	}
 	
+	/**
+	 * Read the region of the data file in one sequential pass. The 
+	 * call is ignored for block compressed tables.
+	 * 
+	 * @param position
+	 * @param length
+	 */
+	public void prefetch(final long position, final long length) {
+		
+		if(isBlockCompressed()) {
+			return;
+		}
+		
+		// The memory was unmapped
+		if(! acquire()) {
+			return;
+		}
+		
+		try {
+			memory.prefetch(position, length);
+		} finally {
+			release();
+		}
+	}
+	
+	/**
+	 * Get the buffer with the encoded tuple at the given position. For block 
+	 * compressed tables, the position contains the position of the block and
+	 * the offset of the tuple in the uncompressed block.
+	 * 
+	 * @param position
+	 * @return
+	 * @throws IOException 
+	 */
+	private ByteBuffer getTupleBuffer(final long position) throws IOException {
+		
+		if(! isBlockCompressed()) {
+			return getTupleBuffer(memory, position);
+		}
+		
+		final long blockPosition = position >>> SSTableConst.BLOCK_OFFSET_BITS;
+		final int offsetInBlock = (int) (position & ((1 << SSTableConst.BLOCK_OFFSET_BITS) - 1));
+		
+		final ByteBuffer block = getBlock(blockPosition);
+		block.position(offsetInBlock);
+		
+		final short keyLength = block.getShort(offsetInBlock);
+		final int boxLength = block.getInt(offsetInBlock + DataEncoderHelper.SHORT_BYTES);
+		final int dataLength = block.getInt(offsetInBlock + DataEncoderHelper.SHORT_BYTES 
+				+ DataEncoderHelper.INT_BYTES);
+		
+		block.limit(offsetInBlock + KEY_OFFSET + keyLength + boxLength + dataLength);
+		
+		final ByteBuffer tupleBuffer = block.slice();
+		tupleBuffer.order(DataEncoderHelper.APPLICATION_BYTE_ORDER);
+		return tupleBuffer;
+	}
+	
+	/**
+	 * Get the buffer with the encoded tuple at the given position of the memory
+	 * @param memory
+	 * @param position
+	 * @return
+	 */
+	private static ByteBuffer getTupleBuffer(final MappedFileSegments memory, final long position) {
+		final short keyLength = memory.getShort(position);
+		final int boxLength = memory.getInt(position + DataEncoderHelper.SHORT_BYTES);
+		final int dataLength = memory.getInt(position + DataEncoderHelper.SHORT_BYTES 
+				+ DataEncoderHelper.INT_BYTES);
+		
+		final int tupleLength = KEY_OFFSET + keyLength + boxLength + dataLength;
+		
+		return memory.getBuffer(position, tupleLength);
+	}
+	
+	/**
+	 * Get the decompressed block at the given position. The returned buffer 
+	 * can be modified by the caller.
+	 * 
+	 * @param blockPosition
+	 * @return
+	 * @throws IOException
+	 */
+	private ByteBuffer getBlock(final long blockPosition) throws IOException {
+		
+		if(blockCache == null) {
+			return readBlock(blockPosition);
+		}
+		
+		try {
+			final ByteBuffer block = blockCache.get(blockPosition).duplicate();
+			block.order(DataEncoderHelper.APPLICATION_BYTE_ORDER);
+			return block;
+		} catch (ExecutionException e) {
+			throw new IOException(e.getCause());
+		}
+	}
+	
+	/**
+	 * Read, verify and decompress the block at the given position
+	 * @param blockPosition
+	 * @return
+	 * @throws IOException
+	 */
+	private ByteBuffer readBlock(final long blockPosition) throws IOException {
+		final int compressedLength = memory.getInt(blockPosition);
+		final int uncompressedLength = memory.getInt(blockPosition + DataEncoderHelper.INT_BYTES);
+		final int expectedChecksum = memory.getInt(blockPosition + 2 * DataEncoderHelper.INT_BYTES);
+		
+		final byte[] compressedBytes = new byte[compressedLength];
+		memory.getBuffer(blockPosition + SSTableConst.BLOCK_HEADER_BYTES, compressedLength)
+			.get(compressedBytes, 0, compressedBytes.length);
+		
+		final CRC32 crc = new CRC32();
+		crc.update(compressedBytes);
+		
+		if((int) crc.getValue() != expectedChecksum) {
+			throw new IOException("Checksum mismatch in block at position " + blockPosition 
+					+ " of file " + file);
+		}
+		
+		final byte[] uncompressedBytes = compression.decompress(compressedBytes, uncompressedLength);
+		readBlocksTotal.inc();
+		
+		final ByteBuffer block = ByteBuffer.wrap(uncompressedBytes).asReadOnlyBuffer();
+		block.order(DataEncoderHelper.APPLICATION_BYTE_ORDER);
+		return block;
+	}
+	
 	/**
 	 * Decode only the key of the tuple
 	 * @return
 	 * @throws IOException 
 	 */
-	public synchronized String decodeOnlyKeyFromTupleAtPosition(final int position) throws IOException {
+	public String decodeOnlyKeyFromTupleAtPosition(final long position) throws IOException {
 		
 		if(! acquire()) {
 			throw new IOException("Unable to aquire");
 		}
 		
 		try {
-			memory.position(position);
-			
-			final short keyLength = memory.getShort();
-	
-			final int sizeToSkip = DataEncoderHelper.INT_BYTES			// BBOX-Length
-					+ DataEncoderHelper.INT_BYTES 						// Data-Length
-					+ DataEncoderHelper.LONG_BYTES						// Version Timestamp
-					+ DataEncoderHelper.LONG_BYTES;						// Received Timetamp		
-			
-			memory.position(memory.position() + sizeToSkip);
+			final ByteBuffer tupleBuffer = getTupleBuffer(position);
+			final short keyLength = tupleBuffer.getShort(0);
 			
 			final byte[] keyBytes = new byte[keyLength];
-			memory.get(keyBytes, 0, keyBytes.length);
+			tupleBuffer.position(KEY_OFFSET);
+			tupleBuffer.get(keyBytes, 0, keyBytes.length);
 			
 			readTupleKeysTotal.inc();
 			
 			return new String(keyBytes);
-		} catch(Exception e) {
-			throw e;
+		} finally {
+			release();
+		}
+	}
+	
+	/**
+	 * Compare the key of the tuple at the given position with the given key. The
+	 * key is compared in place on the mapped memory (or the decompressed block), 
+	 * without decoding the key.
+	 * 
+	 * @param position
+	 * @param keyBytes
+	 * @return a value < 0 if the key of the tuple is smaller, 0 if the keys 
+	 *         are equal and a value > 0 if the key of the tuple is greater 
+	 * @throws IOException
+	 */
+	public int compareKeyOfTupleAtPosition(final long position, final byte[] keyBytes) throws IOException {
+		
+		if(! acquire()) {
+			throw new IOException("Unable to aquire");
+		}
+		
+		try {
+			final ByteBuffer tupleBuffer = getTupleBuffer(position);
+			final short keyLength = tupleBuffer.getShort(0);
+			final int bytesToCompare = Math.min(keyLength, keyBytes.length);
+			
+			readTupleKeysTotal.inc();
+
+			for(int i = 0; i < bytesToCompare; i++) {
+				final int tupleByte = tupleBuffer.get(KEY_OFFSET + i) & 0xFF;
+				final int searchByte = keyBytes[i] & 0xFF;
+				
+				if(tupleByte != searchByte) {
+					return tupleByte - searchByte;
+				}
+			}
+			
+			return keyLength - keyBytes.length;
 		} finally {
 			release();
 		}
@@ -19,6 +19,7 @@ package org.bboxdb.storage.sstable.spatialindex.rtree;
 
 import java.io.RandomAccessFile;
 import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Deque;
 import java.util.List;
 
@@ -88,8 +89,48 @@ public class RTreeBuilder implements SpatialIndexBuilder {
 		rTreeSerializer.writeToStream(randomAccessFile);
 	}
 
+	/**
+	 * Insert the elements. If the tree is empty, the tree is build with 
+	 * the Sort-Tile-Recursive algorithm, which produces a packed tree with
+	 * completely filled nodes. Otherwise, the elements are inserted one by one.
+	 */
 	@Override
 	public boolean bulkInsert(final List<SpatialIndexEntry> elements) {
+		
+		if(rootNode.getSize() != 0) {
+			return insertAll(elements);
+		}
+		
+		final List<SpatialIndexEntry> validElements = new ArrayList<>(elements.size());
+		
+		for(final SpatialIndexEntry entry : elements) {
+			if(isValidEntry(entry)) {
+				validElements.add(entry);
+			}
+		}
+		
+		// Packing requires entries with the same dimension
+		final boolean sameDimension = validElements.stream()
+				.mapToInt(e -> e.getBoundingBox().getDimension())
+				.distinct()
+				.count() <= 1;
+		
+		if(validElements.isEmpty() || ! sameDimension) {
+			return insertAll(elements);
+		}
+		
+		final SortTileRecursivePacker packer = new SortTileRecursivePacker(nodeFactory, maxNodeSize);
+		rootNode = packer.pack(validElements);
+		
+		return validElements.size() == elements.size();
+	}
+
+	/**
+	 * Insert the elements one by one
+	 * @param elements
+	 * @return
+	 */
+	private boolean insertAll(final List<SpatialIndexEntry> elements) {
 		boolean result = true;
 
 		for(final SpatialIndexEntry entry : elements) {
@@ -102,6 +143,15 @@ public class RTreeBuilder implements SpatialIndexBuilder {
 
 		return result;
 	}
+	
+	/**
+	 * Can the entry be stored in the index
+	 * @param entry
+	 * @return
+	 */
+	private boolean isValidEntry(final SpatialIndexEntry entry) {
+		return entry.getBoundingBox() != null && entry.getBoundingBox() != Hyperrectangle.FULL_SPACE;
+	}
 
 	/**
 	 * Insert the given RTreeSpatialIndexEntry into the tree
@@ -111,7 +161,7 @@ public class RTreeBuilder implements SpatialIndexBuilder {
 	@Override
 	public boolean insert(final SpatialIndexEntry entry) {
 
-		if(entry.getBoundingBox() == null || entry.getBoundingBox() == Hyperrectangle.FULL_SPACE) {
+		if(! isValidEntry(entry)) {
 			return false;
 		}
 
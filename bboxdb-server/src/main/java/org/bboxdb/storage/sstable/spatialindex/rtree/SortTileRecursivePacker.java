@@ -0,0 +1,158 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2018 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.storage.sstable.spatialindex.rtree;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+import org.bboxdb.commons.math.Hyperrectangle;
+import org.bboxdb.storage.sstable.spatialindex.BoundingBoxEntity;
+import org.bboxdb.storage.sstable.spatialindex.SpatialIndexEntry;
+
+/**
+ * Build a packed R-tree with the Sort-Tile-Recursive (STR) algorithm 
+ * (Leutenegger et al. 1997). The entries are sorted by the center of the first 
+ * dimension and cut into slabs, each slab is sorted by the next dimension and so on.
+ * Each resulting tile becomes one completely filled node. The same procedure is 
+ * applied to the nodes of each level until only the root node is left.
+ */
+public class SortTileRecursivePacker {
+	
+	/**
+	 * The node factory
+	 */
+	private final RTreeNodeFactory nodeFactory;
+	
+	/**
+	 * The max size of a node
+	 */
+	private final int maxNodeSize;
+
+	public SortTileRecursivePacker(final RTreeNodeFactory nodeFactory, final int maxNodeSize) {
+		this.nodeFactory = nodeFactory;
+		this.maxNodeSize = maxNodeSize;
+	}
+	
+	/**
+	 * Pack the entries into a tree and return the root node. All entries 
+	 * need to have the same dimension.
+	 * 
+	 * @param entries
+	 * @return
+	 */
+	public RTreeDirectoryNode pack(final List<SpatialIndexEntry> entries) {
+		
+		if(entries.isEmpty()) {
+			final RTreeDirectoryNode rootNode = nodeFactory.buildDirectoryNode();
+			rootNode.updateBoundingBox();
+			return rootNode;
+		}
+		
+		final int dimension = entries.get(0).getBoundingBox().getDimension();
+		
+		List<RTreeDirectoryNode> level = packLevel(new ArrayList<>(entries), dimension, 
+				(n, e) -> n.getIndexEntries().add(e));
+		
+		while(level.size() > 1) {
+			level = packLevel(level, dimension, (n, c) -> {
+				n.addDirectoryNodeChild(c);
+				c.setParentNode(n);
+			});
+		}
+		
+		return level.get(0);
+	}
+	
+	/**
+	 * Pack the elements into nodes
+	 * @param elements
+	 * @param dimension
+	 * @param addToNode
+	 * @return
+	 */
+	private <T extends BoundingBoxEntity> List<RTreeDirectoryNode> packLevel(final List<T> elements,
+			final int dimension, final BiConsumer<RTreeDirectoryNode, T> addToNode) {
+		
+		final List<List<T>> tiles = new ArrayList<>();
+		tile(elements, 0, dimension, tiles);
+		
+		final List<RTreeDirectoryNode> nodes = new ArrayList<>(tiles.size());
+		
+		for(final List<T> tile : tiles) {
+			final RTreeDirectoryNode node = nodeFactory.buildDirectoryNode();
+			
+			for(final T element : tile) {
+				addToNode.accept(node, element);
+			}
+			
+			node.updateBoundingBox();
+			nodes.add(node);
+		}
+		
+		return nodes;
+	}
+
+	/**
+	 * Sort the elements by the given dimension and cut them into slabs. The 
+	 * slabs are processed recursively with the next dimension. In the last 
+	 * dimension, the slabs are cut into tiles of the max node size.
+	 * 
+	 * @param elements
+	 * @param currentDimension
+	 * @param dimensions
+	 * @param tiles
+	 */
+	private <T extends BoundingBoxEntity> void tile(final List<T> elements, final int currentDimension, 
+			final int dimensions, final List<List<T>> tiles) {
+		
+		elements.sort(Comparator.comparingDouble(e -> getCenter(e.getBoundingBox(), currentDimension)));
+		
+		final int remainingDimensions = dimensions - currentDimension;
+		
+		if(remainingDimensions <= 1) {
+			for(int pos = 0; pos < elements.size(); pos = pos + maxNodeSize) {
+				final int end = Math.min(pos + maxNodeSize, elements.size());
+				tiles.add(new ArrayList<>(elements.subList(pos, end)));
+			}
+			return;
+		}
+		
+		// The number of nodes needed and the number of slabs in this dimension
+		final int nodes = (int) Math.ceil(elements.size() / (double) maxNodeSize);
+		final int slabs = (int) Math.ceil(Math.pow(nodes, 1.0 / remainingDimensions));
+		final int slabSize = maxNodeSize * (int) Math.ceil(nodes / (double) slabs);
+		
+		for(int pos = 0; pos < elements.size(); pos = pos + slabSize) {
+			final int end = Math.min(pos + slabSize, elements.size());
+			final List<T> slab = new ArrayList<>(elements.subList(pos, end));
+			tile(slab, currentDimension + 1, dimensions, tiles);
+		}
+	}
+	
+	/**
+	 * Get the center of the bounding box in the given dimension
+	 * @param boundingBox
+	 * @param dimension
+	 * @return
+	 */
+	private static double getCenter(final Hyperrectangle boundingBox, final int dimension) {
+		return (boundingBox.getCoordinateLow(dimension) + boundingBox.getCoordinateHigh(dimension)) / 2.0;
+	}
+}
@@ -18,7 +18,7 @@
 package org.bboxdb.storage.sstable.spatialindex.rtree.mmf;
 
 import java.io.IOException;
-import java.nio.MappedByteBuffer;
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -61,7 +61,7 @@ public class DirectoryNode {
 	 * @param maxNodeSize
 	 * @throws IOException 
 	 */
-	public void initFromByteBuffer(final MappedByteBuffer memory, final int maxNodeSize) throws IOException {
+	public void initFromByteBuffer(final ByteBuffer memory, final int maxNodeSize) throws IOException {
 		nodeId = memory.getInt();				
 		
 		// Bounding box data
@@ -19,6 +19,7 @@ package org.bboxdb.storage.sstable.spatialindex.rtree.mmf;
 
 import java.io.IOException;
 import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
 import java.nio.MappedByteBuffer;
 import java.nio.channels.FileChannel;
 import java.util.ArrayList;
@@ -97,21 +98,25 @@ public class RTreeMMFReader extends AbstractRTreeReader {
 	}
 
 	@Override
-	public synchronized List<SpatialIndexEntry> getEntriesForRegion(final Hyperrectangle boundingBox) 
+	public List<SpatialIndexEntry> getEntriesForRegion(final Hyperrectangle boundingBox) 
 			throws StorageManagerException {
 		
 		final List<SpatialIndexEntry> resultList = new ArrayList<>();
 		final Queue<Integer> readTasks = new LinkedTransferQueue<>();
 		readTasks.add(firstNodePos);
 		
+		// Use an own view of the memory, concurrent queries don't need to be synchronized
+		final ByteBuffer view = memory.duplicate();
+		view.order(Const.APPLICATION_BYTE_ORDER);
+		
 		try {
 			
 			while(! readTasks.isEmpty()) {
 			
 				final int position = readTasks.remove();
-				memory.position(position);
+				view.position(position);
 				final DirectoryNode directoryNode = new DirectoryNode();
-				directoryNode.initFromByteBuffer(memory, maxNodeSize);
+				directoryNode.initFromByteBuffer(view, maxNodeSize);
 				
 				if(directoryNode.getBoundingBox().intersects(boundingBox)) {
 					readTasks.addAll(directoryNode.getChildNodes());
@@ -0,0 +1,147 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2018 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.storage.sstable.timeindex;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+import org.bboxdb.commons.io.DataEncoderHelper;
+import org.bboxdb.storage.entity.DeletedTuple;
+import org.bboxdb.storage.entity.Tuple;
+import org.bboxdb.storage.sstable.SSTableConst;
+
+/**
+ * Collects the version and the insert timestamps of the tuples of a SSTable and 
+ * writes them ordered by the timestamp into the time index file.
+ * 
+ * Format of the file:
+ * 
+ * ---------------------------------------------------------------------------
+ * | Magic bytes | Entries | Entries by version time | Entries by insert time |
+ * |   11 Byte   | 4 Byte  |      n * 13 Byte        |      n * 13 Byte       |
+ * ---------------------------------------------------------------------------
+ */
+public class TimeIndexBuilder {
+	
+	/**
+	 * The version timestamps
+	 */
+	private long[] versionTimestamps = new long[1024];
+	
+	/**
+	 * The insert timestamps
+	 */
+	private long[] insertTimestamps = new long[1024];
+	
+	/**
+	 * The index entries
+	 */
+	private int[] indexEntries = new int[1024];
+	
+	/**
+	 * The flags of the entries
+	 */
+	private byte[] flags = new byte[1024];
+	
+	/**
+	 * The number of collected entries
+	 */
+	private int entries = 0;
+	
+	/**
+	 * Add the timestamps of the tuple 
+	 * @param tuple
+	 * @param indexEntry
+	 */
+	public void addTuple(final Tuple tuple, final int indexEntry) {
+		
+		if(entries == indexEntries.length) {
+			final int newSize = entries * 2;
+			versionTimestamps = Arrays.copyOf(versionTimestamps, newSize);
+			insertTimestamps = Arrays.copyOf(insertTimestamps, newSize);
+			indexEntries = Arrays.copyOf(indexEntries, newSize);
+			flags = Arrays.copyOf(flags, newSize);
+		}
+		
+		versionTimestamps[entries] = tuple.getVersionTimestamp();
+		insertTimestamps[entries] = tuple.getReceivedTimestamp();
+		indexEntries[entries] = indexEntry;
+		flags[entries] = (tuple instanceof DeletedTuple) ? SSTableConst.TIME_INDEX_FLAG_DELETED : 0;
+		entries++;
+	}
+	
+	/**
+	 * Get the number of collected entries
+	 * @return
+	 */
+	public int getEntries() {
+		return entries;
+	}
+	
+	/**
+	 * Write the index to the given file
+	 * @param file
+	 * @throws IOException
+	 */
+	public void writeToFile(final File file) throws IOException {
+		
+		try (   final FileOutputStream fos = new FileOutputStream(file);
+				final OutputStream outputStream = new BufferedOutputStream(fos);
+			) {
+			
+			outputStream.write(SSTableConst.MAGIC_BYTES_TIME_INDEX);
+			outputStream.write(DataEncoderHelper.intToByteBuffer(entries).array());
+			
+			writeOrderedEntries(outputStream, versionTimestamps);
+			writeOrderedEntries(outputStream, insertTimestamps);
+		}
+	}
+
+	/**
+	 * Write the entries ordered by the given timestamps
+	 * @param outputStream
+	 * @param timestamps
+	 * @throws IOException
+	 */
+	private void writeOrderedEntries(final OutputStream outputStream, final long[] timestamps) 
+			throws IOException {
+		
+		final int[] order = IntStream.range(0, entries)
+				.boxed()
+				.sorted((i1, i2) -> Long.compare(timestamps[i1], timestamps[i2]))
+				.mapToInt(i -> i)
+				.toArray();
+		
+		final ByteBuffer buffer = ByteBuffer.allocate(SSTableConst.TIME_INDEX_ENTRY_BYTES);
+		buffer.order(DataEncoderHelper.APPLICATION_BYTE_ORDER);
+		
+		for(final int pos : order) {
+			buffer.clear();
+			buffer.putLong(timestamps[pos]);
+			buffer.putInt(indexEntries[pos]);
+			buffer.put(flags[pos]);
+			outputStream.write(buffer.array());
+		}
+	}
+}
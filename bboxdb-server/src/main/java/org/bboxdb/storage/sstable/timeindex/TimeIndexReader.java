@@ -0,0 +1,200 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2018 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.storage.sstable.timeindex;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+import org.bboxdb.commons.io.DataEncoderHelper;
+import org.bboxdb.storage.StorageManagerException;
+import org.bboxdb.storage.sstable.SSTableConst;
+import org.bboxdb.storage.sstable.reader.MappedFileSegments;
+
+/**
+ * Reads the time index of a SSTable. The entries of the index are ordered by 
+ * the timestamp, so the entries that are newer than a timestamp are located 
+ * with a binary search and read in one sequential pass.
+ */
+public class TimeIndexReader implements Closeable {
+	
+	/**
+	 * The mapped index file
+	 */
+	private MappedFileSegments memory;
+	
+	/**
+	 * The number of entries per timestamp type
+	 */
+	private int entries;
+	
+	/**
+	 * The size of the file header
+	 */
+	private final static int HEADER_BYTES = SSTableConst.MAGIC_BYTES_TIME_INDEX.length 
+			+ DataEncoderHelper.INT_BYTES;
+	
+	/**
+	 * Read the index from the given file
+	 * @param file
+	 * @throws StorageManagerException
+	 */
+	public void readFromFile(final File file) throws StorageManagerException {
+		
+		try (   final RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+				final FileChannel fileChannel = randomAccessFile.getChannel();
+			) {
+			
+			memory = new MappedFileSegments(fileChannel, Integer.MAX_VALUE);
+			
+			if(memory.size() < HEADER_BYTES) {
+				throw new StorageManagerException("Time index file is too short: " + file);
+			}
+			
+			final byte[] magicBytes = new byte[SSTableConst.MAGIC_BYTES_TIME_INDEX.length];
+			memory.getBuffer(0, magicBytes.length).get(magicBytes);
+			
+			if(! Arrays.equals(magicBytes, SSTableConst.MAGIC_BYTES_TIME_INDEX)) {
+				throw new StorageManagerException("Time index file " + file + " contains unknown magic bytes");
+			}
+			
+			entries = memory.getInt(SSTableConst.MAGIC_BYTES_TIME_INDEX.length);
+			
+			final long expectedSize = HEADER_BYTES + 2L * entries * SSTableConst.TIME_INDEX_ENTRY_BYTES;
+			
+			if(memory.size() != expectedSize) {
+				throw new StorageManagerException("Time index file " + file + " has size " 
+						+ memory.size() + ", expected " + expectedSize);
+			}
+		} catch (IOException e) {
+			close();
+			throw new StorageManagerException(e);
+		} catch (StorageManagerException e) {
+			close();
+			throw e;
+		}
+	}
+	
+	/**
+	 * Get the index entries of the tuples that are newer than the timestamp. 
+	 * The entries are ordered ascending, like the tuples in the data file.
+	 * 
+	 * @param timeIndexType
+	 * @param timestamp
+	 * @return
+	 */
+	public long[] getEntriesNewerAs(final TimeIndexType timeIndexType, final long timestamp) {
+		return getEntriesNewerAs(timeIndexType, timestamp, false);
+	}
+	
+	/**
+	 * Get the index entries of the deleted tuples that are newer than the timestamp. 
+	 * The entries are ordered ascending, like the tuples in the data file.
+	 * 
+	 * @param timeIndexType
+	 * @param timestamp
+	 * @return
+	 */
+	public long[] getDeletedEntriesNewerAs(final TimeIndexType timeIndexType, final long timestamp) {
+		return getEntriesNewerAs(timeIndexType, timestamp, true);
+	}
+	
+	/**
+	 * Get the index entries that are newer than the timestamp
+	 * @param timeIndexType
+	 * @param timestamp
+	 * @param onlyDeleted
+	 * @return
+	 */
+	private long[] getEntriesNewerAs(final TimeIndexType timeIndexType, final long timestamp, 
+			final boolean onlyDeleted) {
+		
+		if(memory == null) {
+			throw new IllegalStateException("The time index is not loaded");
+		}
+		
+		final long sectionStart = HEADER_BYTES + (long) timeIndexType.ordinal() 
+				* entries * SSTableConst.TIME_INDEX_ENTRY_BYTES;
+		
+		// Binary search for the first timestamp that is newer
+		int low = 0;
+		int high = entries;
+		
+		while(low < high) {
+			final int middle = (low + high) >>> 1;
+			
+			if(getTimestamp(sectionStart, middle) > timestamp) {
+				high = middle;
+			} else {
+				low = middle + 1;
+			}
+		}
+		
+		final long[] result = new long[entries - low];
+		int resultLength = 0;
+		
+		for(int entry = low; entry < entries; entry++) {
+			final long entryPosition = sectionStart + (long) entry * SSTableConst.TIME_INDEX_ENTRY_BYTES;
+			
+			if(onlyDeleted) {
+				final byte flags = memory.get(entryPosition + DataEncoderHelper.LONG_BYTES 
+						+ DataEncoderHelper.INT_BYTES);
+				
+				if((flags & SSTableConst.TIME_INDEX_FLAG_DELETED) == 0) {
+					continue;
+				}
+			}
+			
+			result[resultLength++] = memory.getInt(entryPosition + DataEncoderHelper.LONG_BYTES);
+		}
+		
+		final long[] sortedResult = Arrays.copyOf(result, resultLength);
+		Arrays.sort(sortedResult);
+		
+		return sortedResult;
+	}
+
+	/**
+	 * Get the timestamp of the n-th entry in the section
+	 * @param sectionStart
+	 * @param entry
+	 * @return
+	 */
+	private long getTimestamp(final long sectionStart, final int entry) {
+		return memory.getLong(sectionStart + (long) entry * SSTableConst.TIME_INDEX_ENTRY_BYTES);
+	}
+	
+	/**
+	 * Get the number of indexed tuples
+	 * @return
+	 */
+	public int getEntries() {
+		return entries;
+	}
+
+	@Override
+	public void close() {
+		if(memory != null) {
+			memory.unmap();
+			memory = null;
+		}
+	}
+}
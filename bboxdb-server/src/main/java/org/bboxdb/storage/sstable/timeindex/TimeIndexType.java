@@ -0,0 +1,71 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2018 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.storage.sstable.timeindex;
+
+import org.bboxdb.storage.entity.Tuple;
+import org.bboxdb.storage.tuplestore.ReadOnlyTupleStore;
+
+public enum TimeIndexType {
+	
+	/**
+	 * The version timestamp of the tuple
+	 */
+	VERSION_TIME,
+	
+	/**
+	 * The timestamp when the tuple was received
+	 */
+	INSERT_TIME;
+	
+	/**
+	 * Get the indexed timestamp of the tuple
+	 * @param tuple
+	 * @return
+	 */
+	public long getTimestamp(final Tuple tuple) {
+		if(this == VERSION_TIME) {
+			return tuple.getVersionTimestamp();
+		}
+		
+		return tuple.getReceivedTimestamp();
+	}
+	
+	/**
+	 * Is the indexed timestamp of the tuple newer than the given timestamp
+	 * @param tuple
+	 * @param timestamp
+	 * @return
+	 */
+	public boolean isNewer(final Tuple tuple, final long timestamp) {
+		return getTimestamp(tuple) > timestamp;
+	}
+	
+	/**
+	 * Might the tuple store contain tuples that are newer than the timestamp
+	 * @param tupleStore
+	 * @param timestamp
+	 * @return
+	 */
+	public boolean mightContainNewerTuples(final ReadOnlyTupleStore tupleStore, final long timestamp) {
+		if(this == VERSION_TIME) {
+			return tupleStore.mightContainNewerVersions(timestamp);
+		}
+		
+		return tupleStore.mightContainNewerInserts(timestamp);
+	}
+}
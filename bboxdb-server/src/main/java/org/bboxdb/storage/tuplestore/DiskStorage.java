@@ -31,6 +31,7 @@ import org.bboxdb.storage.entity.MemtableAndTupleStoreManagerPair;
 import org.bboxdb.storage.memtable.MemtableWriterRunnable;
 import org.bboxdb.storage.sstable.SSTableCheckpointRunnable;
 import org.bboxdb.storage.sstable.SSTableConst;
+import org.bboxdb.storage.sstable.compact.CompactScheduler;
 import org.bboxdb.storage.sstable.compact.SSTableServiceRunnable;
 import org.bboxdb.storage.tuplestore.manager.TupleStoreManagerRegistry;
 import org.slf4j.Logger;
@@ -75,6 +76,11 @@ public class DiskStorage implements BBoxDBService {
 	 */
 	private final String performanceCounterLabel;
 	
+	/**
+	 * The compact scheduler
+	 */
+	private volatile CompactScheduler compactScheduler;
+	
 	/**
 	 * The unflushed memtable total counter
 	 */
@@ -142,9 +148,15 @@ public class DiskStorage implements BBoxDBService {
 	}
 	
 	/**
-	 * Start the compact thread if needed
+	 * Start the compact scheduler and the thread that schedules the compactions
 	 */
 	private void startCompactThread() {
+		final BBoxDBConfiguration configuration = tupleStoreManagerRegistry.getConfiguration();
+		
+		compactScheduler = new CompactScheduler(basedir.toString(), 
+				configuration.getStorageCompactThreads(), 
+				configuration.getStorageCompactBytesPerSecond());
+		
 		final SSTableServiceRunnable sstableCompactor = new SSTableServiceRunnable(this);
 		final Thread compactThread = new Thread(sstableCompactor);
 		compactThread.setName("Compact thread for: " + basedir);
@@ -181,6 +193,13 @@ public class DiskStorage implements BBoxDBService {
 		ThreadHelper.stopThreads(runningThreads);
 		
 		runningThreads.clear();
+		
+		try {
+			compactScheduler.shutdown();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		
 		serviceState.dispatchToTerminated();
 	}
 
@@ -236,6 +255,14 @@ public class DiskStorage implements BBoxDBService {
 		return basedir;
 	}
 
+	/**
+	 * Get the compact scheduler of this storage
+	 * @return
+	 */
+	public CompactScheduler getCompactScheduler() {
+		return compactScheduler;
+	}
+
 	/**
 	 * Get the storage registry
 	 * @return
@@ -25,6 +25,7 @@ import org.bboxdb.commons.math.Hyperrectangle;
 import org.bboxdb.storage.StorageManagerException;
 import org.bboxdb.storage.entity.Tuple;
 import org.bboxdb.storage.entity.TupleStoreName;
+import org.bboxdb.storage.sstable.timeindex.TimeIndexType;
 
 public interface ReadOnlyTupleStore extends Iterable<Tuple>, AcquirableResource {
 	
@@ -55,6 +56,32 @@ public interface ReadOnlyTupleStore extends Iterable<Tuple>, AcquirableResource
 	 */
 	public Iterator<Tuple> getAllTuplesInBoundingBox(final Hyperrectangle boundingBox);
 	
+	/**
+	 * Get all tuples that are inside the bounding box and that are newer 
+	 * than the timestamp. Deleted tuples have no bounding box, so all
+	 * newer deletions are returned.
+	 * @param boundingBox
+	 * @param timeIndexType
+	 * @param timestamp
+	 * @return
+	 */
+	public Iterator<Tuple> getAllTuplesInBoundingBox(final Hyperrectangle boundingBox, 
+			final TimeIndexType timeIndexType, final long timestamp);
+	
+	/**
+	 * Get all tuples that are newer than the timestamp
+	 * @param timeIndexType
+	 * @param timestamp
+	 * @return
+	 */
+	public Iterator<Tuple> getAllTuplesNewerAs(final TimeIndexType timeIndexType, final long timestamp);
+	
+	/**
+	 * Get all tuples of the storage, ordered by key
+	 * @return
+	 */
+	public Iterator<Tuple> getSortedIterator();
+	
 	/**
 	 * Get the number of tuples in the storage
 	 * @return
@@ -87,6 +114,38 @@ public interface ReadOnlyTupleStore extends Iterable<Tuple>, AcquirableResource
 	 */
 	public long getNewestTupleInsertedTimestamp();
 	
+	/**
+	 * Might the tuple store contain the key? A false result means 
+	 * that the tuple store can't contain the key
+	 * @param key
+	 * @return
+	 */
+	public boolean mightContainKey(final String key);
+	
+	/**
+	 * Might the tuple store contain tuples that intersect the bounding box? 
+	 * A false result means that no indexed tuple intersects the bounding box
+	 * @param boundingBox
+	 * @return
+	 */
+	public boolean mightContainBoundingBox(final Hyperrectangle boundingBox);
+	
+	/**
+	 * Might the tuple store contain versions that are newer than the 
+	 * given version timestamp (in microseconds)?
+	 * @param versionTimestamp
+	 * @return
+	 */
+	public boolean mightContainNewerVersions(final long versionTimestamp);
+	
+	/**
+	 * Might the tuple store contain tuples that are inserted after the 
+	 * given insert timestamp?
+	 * @param insertTimestamp
+	 * @return
+	 */
+	public boolean mightContainNewerInserts(final long insertTimestamp);
+	
 	/**
 	 * Delete the object and persistent data as soon as usage == 0
 	 */
@@ -21,6 +21,7 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
 
 import org.bboxdb.commons.ExceptionHelper;
 import org.bboxdb.commons.Retryer;
@@ -30,14 +31,44 @@ import org.bboxdb.misc.Const;
 import org.bboxdb.storage.StorageManagerException;
 import org.bboxdb.storage.tuplestore.ReadOnlyTupleStore;
 
+import io.prometheus.client.Counter;
+
 public class TupleStoreAquirer implements AutoCloseable {
 
 	private List<ReadOnlyTupleStore> tupleStores;
 	
 	private final TupleStoreManager tupleStoreManager;
 	
+	/**
+	 * The filter for the tuple stores
+	 */
+	private final Predicate<ReadOnlyTupleStore> tupleStoreFilter;
+	
+	/**
+	 * The amount of skipped tuple stores
+	 */
+	private final static Counter skippedTupleStoresTotal = Counter.build()
+			.name("bboxdb_skipped_tuple_stores_total")
+			.help("Tuple stores skipped by the metadata filter")
+			.register();
+	
 	public TupleStoreAquirer(final TupleStoreManager tupleStoreManager) throws StorageManagerException {
+		this(tupleStoreManager, (s) -> true);
+	}
+	
+	/**
+	 * Acquire only the tuple stores that match the filter, e.g., the tuple stores
+	 * whose metadata shows that they might contain a requested key
+	 * 
+	 * @param tupleStoreManager
+	 * @param tupleStoreFilter
+	 * @throws StorageManagerException
+	 */
+	public TupleStoreAquirer(final TupleStoreManager tupleStoreManager, 
+			final Predicate<ReadOnlyTupleStore> tupleStoreFilter) throws StorageManagerException {
+		
 		this.tupleStoreManager = tupleStoreManager;
+		this.tupleStoreFilter = tupleStoreFilter;
 		aquireStorage();
 	}
 
@@ -81,6 +112,12 @@ public class TupleStoreAquirer implements AutoCloseable {
 			final List<ReadOnlyTupleStore> knownStorages = tupleStoreManager.getAllTupleStorages();
 
 			for(final ReadOnlyTupleStore tupleStorage : knownStorages) {
+				
+				if(! tupleStoreFilter.test(tupleStorage)) {
+					skippedTupleStoresTotal.inc();
+					continue;
+				}
+				
 				final boolean canBeUsed = tupleStorage.acquire();
 
 				if(! canBeUsed) {
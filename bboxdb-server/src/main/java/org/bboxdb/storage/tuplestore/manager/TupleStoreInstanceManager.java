@@ -39,7 +39,7 @@ public class TupleStoreInstanceManager {
 	/**
 	 * The active memtable
 	 */
-	private Memtable memtable;
+	private volatile Memtable memtable;
 	
 	/**
 	 * The unflushed memtables
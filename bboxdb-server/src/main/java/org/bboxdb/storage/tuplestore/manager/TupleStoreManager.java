@@ -22,6 +22,7 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Consumer;
 
@@ -40,12 +41,14 @@ import org.bboxdb.misc.BBoxDBConfiguration;
 import org.bboxdb.misc.BBoxDBException;
 import org.bboxdb.misc.BBoxDBService;
 import org.bboxdb.storage.StorageManagerException;
+import org.bboxdb.storage.entity.DeletedTuple;
 import org.bboxdb.storage.entity.DistributionGroupMetadata;
 import org.bboxdb.storage.entity.MemtableAndTupleStoreManagerPair;
 import org.bboxdb.storage.entity.Tuple;
 import org.bboxdb.storage.entity.TupleStoreConfiguration;
 import org.bboxdb.storage.entity.TupleStoreName;
 import org.bboxdb.storage.memtable.Memtable;
+import org.bboxdb.storage.sstable.SSTableCompression;
 import org.bboxdb.storage.sstable.SSTableConst;
 import org.bboxdb.storage.sstable.SSTableHelper;
 import org.bboxdb.storage.sstable.duplicateresolver.TupleDuplicateResolverFactory;
@@ -54,6 +57,7 @@ import org.bboxdb.storage.tuplestore.DiskStorage;
 import org.bboxdb.storage.tuplestore.ReadOnlyTupleStore;
 import org.bboxdb.storage.wal.WriteAheadLogManager;
 import org.bboxdb.storage.wal.WriteAheadLogReader;
+import org.bboxdb.storage.wal.WriteAheadLogSyncPolicy;
 import org.bboxdb.storage.wal.WriteAheadLogWriter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -102,6 +106,11 @@ public class TupleStoreManager implements BBoxDBService {
 	 */
 	protected final List<Consumer<Tuple>> insertCallbacks;
 
+	/**
+	 * The delete callbacks
+	 */
+	protected final List<Consumer<DeletedTuple>> deleteCallbacks;
+
 	/**
 	 * The get performance counter
 	 */
@@ -122,7 +131,8 @@ public class TupleStoreManager implements BBoxDBService {
 		this.tupleStoreName = sstablename;
 		this.nextFreeTableNumber = new AtomicInteger();
 		this.tupleStoreInstances = new TupleStoreInstanceManager();
-		this.insertCallbacks = new ArrayList<>();
+		this.insertCallbacks = new CopyOnWriteArrayList<>();
+		this.deleteCallbacks = new CopyOnWriteArrayList<>();
 
 		// Close open resources when the failed state is entered
 		this.serviceState = new ServiceState();
@@ -152,15 +162,19 @@ public class TupleStoreManager implements BBoxDBService {
 
 			tupleStoreInstances.clear();
 
+			// The metadata contains the WAL sync policy, so it has to be loaded
+			// before the first memtable is created. The WAL files of the old
+			// memtables are determined before the new memtable creates its WAL.
+			loadTuplstoreMetaData();
+			final List<File> oldWalFiles = getWalFiles();
 			initNewMemtable();
 			scanForExistingTables();
-			loadTuplstoreMetaData();
 
 			nextFreeTableNumber.set(getLastSequencenumberFromReader() + 1);
 			tupleStoreInstances.setReadWrite();
 
 			// Apply WAL after write access is possible
-			applyWal();
+			applyWal(oldWalFiles);
 
 			// Set to ready before the threads are started
 			serviceState.dispatchToRunning();
@@ -248,13 +262,21 @@ public class TupleStoreManager implements BBoxDBService {
 	}
 
 	/**
-	 * Apply the old write ahead logs
+	 * Get the existing write ahead log files
+	 * @return
 	 */
-	private void applyWal() {
+	private List<File> getWalFiles() {
 		final String storageDir = storage.getBasedir().getAbsolutePath();
 		final String baseDir = SSTableHelper.getSSTableDir(storageDir, tupleStoreName);
 
-		final List<File> walFiles = WriteAheadLogManager.getAllWalFiles(new File(baseDir));
+		return WriteAheadLogManager.getAllWalFiles(new File(baseDir));
+	}
+
+	/**
+	 * Apply the old write ahead logs
+	 * @param walFiles
+	 */
+	private void applyWal(final List<File> walFiles) {
 		logger.debug("Apply old WAL files {}", walFiles);
 
 		for(final File walFile: walFiles) {
@@ -543,6 +565,9 @@ public class TupleStoreManager implements BBoxDBService {
 		} else if(SSTableHelper.isFileNameSpatialIndex(filename)) {
 			logger.info("Deleting spatial index file: {}", file);
 			file.delete();
+		} else if(SSTableHelper.isFileNameTimeIndex(filename)) {
+			logger.info("Deleting time index file: {}", file);
+			file.delete();
 		} else if(SSTableHelper.isFileNameWAL(filename)) {
 			logger.info("Deleting WAL file: {}", file);
 			file.delete();
@@ -568,7 +593,10 @@ public class TupleStoreManager implements BBoxDBService {
 
 		final List<Tuple> tupleList = new ArrayList<>();
 
-		try(final TupleStoreAquirer tupleStoreAquirer = new TupleStoreAquirer(this)) {
+		// Skip the tuple stores that can't contain the key
+		try(final TupleStoreAquirer tupleStoreAquirer 
+				= new TupleStoreAquirer(this, (s) -> s.mightContainKey(key))) {
+			
 			for(final ReadOnlyTupleStore tupleStorage : tupleStoreAquirer.getTupleStores()) {
 				final List<Tuple> resultTuples = tupleStorage.get(key);
 				tupleList.addAll(resultTuples);
@@ -633,6 +661,9 @@ public class TupleStoreManager implements BBoxDBService {
 		final Memtable oldMemtable = tupleStoreInstances.activateNewMemtable(memtable);
 
 		if(oldMemtable != null) {
+			// Wait for all in flight writes before the memtable is flushed
+			oldMemtable.seal();
+			
 			final MemtableAndTupleStoreManagerPair memtableTask
 				= new MemtableAndTupleStoreManagerPair(oldMemtable, this);
 
@@ -656,7 +687,11 @@ public class TupleStoreManager implements BBoxDBService {
 		final String ssTableDir = SSTableHelper.getSSTableDir(storageDir, tupleStoreName);
 
 		try {
-			return new WriteAheadLogWriter(new File(ssTableDir), System.currentTimeMillis());
+			final WriteAheadLogSyncPolicy syncPolicy = (tupleStoreConfiguration == null) 
+					? WriteAheadLogSyncPolicy.NONE : tupleStoreConfiguration.getWalSyncPolicy();
+			
+			return new WriteAheadLogWriter(new File(ssTableDir), System.currentTimeMillis(), 
+					syncPolicy, configuration.getStorageWriteAheadLogSyncInterval());
 		} catch (IOException e) {
 			logger.error("Unable to create write ahead log writer", e);
 			return null;
@@ -682,14 +717,7 @@ public class TupleStoreManager implements BBoxDBService {
 		}
 
 		try {
-			// Ensure that only one memtable is newly created
-			synchronized (this) {
-				if(getMemtable().isFull()) {
-					initNewMemtable();
-				}
-
-				getMemtable().put(tuple);
-			}
+			storeTupleInMemtable(tuple);
 
 			// Notify callbacks
 			insertCallbacks.forEach(c -> c.accept(tuple));
@@ -700,6 +728,46 @@ public class TupleStoreManager implements BBoxDBService {
 		}
 	}
 
+	/**
+	 * Store multiple tuples. The state of the storage manager is checked
+	 * only once for the whole batch and the WAL records of the batch are 
+	 * written and synced together.
+	 *
+	 * @param tuples
+	 * @throws StorageManagerException
+	 * @throws RejectedException
+	 */
+	public void put(final Collection<Tuple> tuples) throws StorageManagerException, RejectedException {
+
+		if(! serviceState.isInRunningState()) {
+			throw new StorageManagerException("Storage manager is not ready: "
+					+ tupleStoreName.getFullname()
+					+ " state: " + serviceState);
+		}
+
+		if(tupleStoreInstances.getState() == TupleStoreManagerState.READ_ONLY) {
+			throw new RejectedException("Storage manager is in read only state: " + tupleStoreName);
+		}
+
+		try {
+			final List<Tuple> tupleList = (tuples instanceof List) 
+					? (List<Tuple>) tuples : new ArrayList<>(tuples);
+			
+			storeTuplesInMemtable(tupleList);
+
+			// Notify callbacks
+			if(! insertCallbacks.isEmpty()) {
+				for(final Tuple tuple : tuples) {
+					insertCallbacks.forEach(c -> c.accept(tuple));
+				}
+			}
+
+		} catch (StorageManagerException e) {
+			serviceState.dispatchToFailed(e);
+			throw e;
+		}
+	}
+
 	/**
 	 * Delete the given tuple
 	 * @param key
@@ -718,21 +786,81 @@ public class TupleStoreManager implements BBoxDBService {
 			throw new RejectedException("Storage manager is in read only state: " + tupleStoreName);
 		}
 
-		// Ensure that only one memtable is newly created
 		try {
-			synchronized (this) {
-				if(getMemtable().isFull()) {
-					initNewMemtable();
-				}
+			final DeletedTuple deletedTuple = new DeletedTuple(key, timestamp);
+			storeTupleInMemtable(deletedTuple);
 
-				getMemtable().delete(key, timestamp);
-			}
+			// Notify callbacks
+			deleteCallbacks.forEach(c -> c.accept(deletedTuple));
 		} catch (StorageManagerException e) {
 			serviceState.dispatchToFailed(e);
 			throw e;
 		}
 	}
 
+	/**
+	 * Store the tuple in the active memtable. The memtable can be written by
+	 * multiple threads in parallel. When the memtable is full or sealed,
+	 * a new memtable is activated and the write is retried.
+	 *
+	 * @param tuple
+	 * @throws StorageManagerException
+	 */
+	private void storeTupleInMemtable(final Tuple tuple) throws StorageManagerException {
+		while(true) {
+			final Memtable memtable = getMemtable();
+
+			if(memtable == null) {
+				throw new StorageManagerException("No active memtable found: " + tupleStoreName);
+			}
+
+			if(! memtable.isFull() && memtable.tryPut(tuple)) {
+				return;
+			}
+
+			replaceFullMemtable(memtable);
+		}
+	}
+
+	/**
+	 * Store the tuples in the active memtable. When the memtable becomes full,
+	 * a new memtable is activated and the remaining tuples are stored there.
+	 *
+	 * @param tuples
+	 * @throws StorageManagerException
+	 */
+	private void storeTuplesInMemtable(final List<Tuple> tuples) throws StorageManagerException {
+		int storedTuples = 0;
+		
+		while(storedTuples < tuples.size()) {
+			final Memtable memtable = getMemtable();
+
+			if(memtable == null) {
+				throw new StorageManagerException("No active memtable found: " + tupleStoreName);
+			}
+
+			if(! memtable.isFull()) {
+				storedTuples += memtable.tryPut(tuples, storedTuples);
+			}
+			
+			if(storedTuples < tuples.size()) {
+				replaceFullMemtable(memtable);
+			}
+		}
+	}
+
+	/**
+	 * Replace the given memtable, if it is still the active memtable.
+	 * Ensures that only one memtable is newly created.
+	 *
+	 * @param memtable
+	 */
+	private synchronized void replaceFullMemtable(final Memtable memtable) {
+		if(getMemtable() == memtable) {
+			initNewMemtable();
+		}
+	}
+
 
 	/**
 	 * Replace memtable delegate
@@ -850,6 +978,28 @@ public class TupleStoreManager implements BBoxDBService {
 		return tupleStoreConfiguration;
 	}
 
+	/**
+	 * Get the compression for new SSTables
+	 * @return
+	 */
+	public SSTableCompression getSSTableCompression() {
+		
+		if(tupleStoreConfiguration == null) {
+			return SSTableCompression.NONE;
+		}
+		
+		final SSTableCompression compression = tupleStoreConfiguration.getSstableCompression();
+		
+		// Write readable tables if the native zstd library is missing
+		if(! compression.isAvailable()) {
+			logger.warn("SSTable compression {} is not available for {}, using {}", 
+					compression, tupleStoreName, SSTableCompression.DEFLATE);
+			return SSTableCompression.DEFLATE;
+		}
+		
+		return compression;
+	}
+
 	/**
 	 * Register a new insert callback
 	 * @param callback
@@ -866,6 +1016,22 @@ public class TupleStoreManager implements BBoxDBService {
 		return insertCallbacks.remove(callback);
 	}
 
+	/**
+	 * Register a new delete callback
+	 * @param callback
+	 */
+	public void registerDeleteCallback(final Consumer<DeletedTuple> callback) {
+		deleteCallbacks.add(callback);
+	}
+
+	/**
+	 * Remove a delete callback
+	 * @return
+	 */
+	public boolean removeDeleteCallback(final Consumer<DeletedTuple> callback) {
+		return deleteCallbacks.remove(callback);
+	}
+
 	/**
 	 * Get the most recent version of the tuple
 	 * e.g. Memtables can contain multiple versions of the key
@@ -901,7 +1067,10 @@ public class TupleStoreManager implements BBoxDBService {
 	 */
 	public List<Tuple> getAllTupleVersionsForKey(final String key) throws StorageManagerException {
 
-		try(final TupleStoreAquirer tupleStoreAquirer = new TupleStoreAquirer(this)) {
+		// Skip the tuple stores that can't contain the key
+		try(final TupleStoreAquirer tupleStoreAquirer 
+				= new TupleStoreAquirer(this, (s) -> s.mightContainKey(key))) {
+			
 			final List<Tuple> resultTuples = new ArrayList<>();
 
 			for(final ReadOnlyTupleStore readOnlyTupleStorage : tupleStoreAquirer.getTupleStores()) {
@@ -19,10 +19,20 @@ package org.bboxdb.storage.util;
 
 import java.util.HashSet;
 import java.util.Set;
+import java.util.function.Predicate;
 
 import org.bboxdb.storage.entity.EntityIdentifier;
 import org.bboxdb.storage.entity.PagedTransferableEntity;
 
+/**
+ * Track the seen entities of a result. The identifiers of the tracked entities 
+ * are stored, so the duplicate detection is exact and the memory usage grows 
+ * linearly with the amount of tracked entities. 
+ * 
+ * The tracked entities can be restricted to the entities that can occur more 
+ * than once in the result (e.g., the entities that are stored in multiple 
+ * regions); all other entities are reported as unseen without being stored.
+ */
 public class EntityDuplicateTracker {
 
 	/**
@@ -30,14 +40,38 @@ public class EntityDuplicateTracker {
 	 */
 	protected Set<EntityIdentifier> seenKeysAndVersions = new HashSet<>();
 	
+	/**
+	 * The entities that need to be tracked
+	 */
+	private final Predicate<PagedTransferableEntity> trackedEntityPredicate;
+	
+	public EntityDuplicateTracker() {
+		this(e -> true);
+	}
+	
+	public EntityDuplicateTracker(final Predicate<PagedTransferableEntity> trackedEntityPredicate) {
+		this.trackedEntityPredicate = trackedEntityPredicate;
+	}
+
+	/**
+	 * Is the entity already seen? Entities that are not tracked are never seen.
+	 * @param entity
+	 * @return
+	 */
 	public boolean isElementAlreadySeen(final PagedTransferableEntity entity) {
 		
-		if(! seenKeysAndVersions.contains(entity.getEntityIdentifier())) {
-			seenKeysAndVersions.add(entity.getEntityIdentifier());
+		if(! trackedEntityPredicate.test(entity)) {
 			return false;
 		}
 		
-		return true;
+		return ! seenKeysAndVersions.add(entity.getEntityIdentifier());
+	}
+
+	/**
+	 * Get the amount of tracked entities
+	 * @return
+	 */
+	public long getTrackedEntities() {
+		return seenKeysAndVersions.size();
 	}
-	
 }
@@ -22,9 +22,12 @@ import java.io.Closeable;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.util.Arrays;
 import java.util.Iterator;
+import java.util.zip.CRC32;
 
+import org.bboxdb.commons.io.DataEncoderHelper;
 import org.bboxdb.storage.StorageManagerException;
 import org.bboxdb.storage.entity.Tuple;
 import org.bboxdb.storage.sstable.SSTableConst;
@@ -51,6 +54,11 @@ public class WriteAheadLogReader implements Closeable, Iterable<Tuple> {
 	 */
 	private static final Logger logger = LoggerFactory.getLogger(WriteAheadLogReader.class);
 
+	/**
+	 * Does the file contain framed records
+	 */
+	private boolean framedRecords;
+
 	/**
 	 * The tuple iterator
 	 */
@@ -76,6 +84,11 @@ public class WriteAheadLogReader implements Closeable, Iterable<Tuple> {
 					return false;
 				}
 
+				if(framedRecords) {
+					nextTuple = readFramedRecord();
+					return nextTuple != null;
+				}
+				
 				nextTuple = TupleHelper.decodeTuple(inputStream);
 
 				return true;
@@ -99,6 +112,47 @@ public class WriteAheadLogReader implements Closeable, Iterable<Tuple> {
 		}
 	}
 
+	/**
+	 * Read the next framed record. A partially written or corrupted record
+	 * marks the end of the log (e.g., a torn write during a crash).
+	 * 
+	 * @return the tuple or null, if the end of the valid log is reached
+	 * @throws IOException
+	 */
+	private Tuple readFramedRecord() throws IOException {
+		final byte[] header = new byte[SSTableConst.WAL_RECORD_HEADER_BYTES];
+		final int headerBytes = ByteStreams.read(inputStream, header, 0, header.length);
+		
+		if(headerBytes != header.length) {
+			logger.warn("Found a torn record header in {}, ignoring the tail of the log", file);
+			return null;
+		}
+		
+		final ByteBuffer headerBuffer = ByteBuffer.wrap(header);
+		headerBuffer.order(DataEncoderHelper.APPLICATION_BYTE_ORDER);
+		final int recordLength = headerBuffer.getInt();
+		final int expectedCrc = headerBuffer.getInt();
+		
+		if(recordLength < 0 || recordLength > inputStream.available()) {
+			logger.warn("Found a torn record in {}, ignoring the tail of the log", file);
+			return null;
+		}
+		
+		final byte[] tupleBytes = new byte[recordLength];
+		ByteStreams.readFully(inputStream, tupleBytes);
+		
+		final CRC32 crc = new CRC32();
+		crc.update(tupleBytes);
+		
+		if((int) crc.getValue() != expectedCrc) {
+			logger.warn("Found a record with an invalid checksum in {}, ignoring the tail of the log", 
+					file);
+			return null;
+		}
+		
+		return TupleHelper.decodeTuple(ByteBuffer.wrap(tupleBytes));
+	}
+
 	public WriteAheadLogReader(final File basedir, final int memtableNumber) throws IOException, StorageManagerException {
 		this(WriteAheadLogManager.getFileForWal(basedir, memtableNumber));
 	}
@@ -113,14 +167,35 @@ public class WriteAheadLogReader implements Closeable, Iterable<Tuple> {
 		this.inputStream = new BufferedInputStream(new FileInputStream(file));
 
 		// Validate file - read the magic from the beginning
-		final byte[] expectedMagic = SSTableConst.MAGIC_BYTES_WAL;
+		if(readMagicBytes(SSTableConst.MAGIC_BYTES_WAL_FRAMED)) {
+			framedRecords = true;
+		} else if(readMagicBytes(SSTableConst.MAGIC_BYTES_WAL)) {
+			framedRecords = false;
+		} else {
+			throw new StorageManagerException("File " + file + " does not contain the magic bytes");
+		}
+	}
+
+	/**
+	 * Read the given magic bytes from the input stream. If the magic bytes
+	 * don't match, the stream is reset to the beginning.
+	 * 
+	 * @param expectedMagic
+	 * @return
+	 * @throws IOException
+	 */
+	private boolean readMagicBytes(final byte[] expectedMagic) throws IOException {
 		final byte[] magicBytes = new byte[expectedMagic.length];
 
-		ByteStreams.readFully(inputStream, magicBytes, 0, expectedMagic.length);
+		inputStream.mark(expectedMagic.length);
+		final int readBytes = ByteStreams.read(inputStream, magicBytes, 0, expectedMagic.length);
 
-		if(! Arrays.equals(magicBytes, expectedMagic)) {
-			throw new StorageManagerException("File " + file + " does not contain the magic bytes");
+		if(readBytes == expectedMagic.length && Arrays.equals(magicBytes, expectedMagic)) {
+			return true;
 		}
+		
+		inputStream.reset();
+		return false;
 	}
 
 	/**
@@ -1,81 +1,431 @@
 /*******************************************************************************
  *
  *    Copyright (C) 2015-2018 the BBoxDB project
- *
+ *  
  *    Licensed under the Apache License, Version 2.0 (the "License");
  *    you may not use this file except in compliance with the License.
  *    You may obtain a copy of the License at
- *
+ *  
  *      http://www.apache.org/licenses/LICENSE-2.0
- *
+ *  
  *    Unless required by applicable law or agreed to in writing, software
  *    distributed under the License is distributed on an "AS IS" BASIS,
  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
  *    See the License for the specific language governing permissions and
- *    limitations under the License.
- *
+ *    limitations under the License. 
+ *    
  *******************************************************************************/
 package org.bboxdb.storage.wal;
 
-import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.Closeable;
 import java.io.File;
-import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
 
+import org.bboxdb.commons.io.DataEncoderHelper;
 import org.bboxdb.storage.StorageManagerException;
 import org.bboxdb.storage.entity.Tuple;
 import org.bboxdb.storage.sstable.SSTableConst;
 import org.bboxdb.storage.util.TupleHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
+/**
+ * The write ahead log writer implements a group commit. Concurrent writers
+ * append their records to a shared buffer. One of the waiting writers becomes
+ * the flusher, it writes the whole buffer and forces the file channel
+ * (depending on the sync policy) once per batch. All other writers wait until
+ * their record is written. With the interval sync policy, a timer additionally
+ * forces written but unsynced records, so the last records before a quiet
+ * period are synced too.
+ * 
+ * Format of a record:
+ * 
+ * ----------------------------------------------
+ * | Record length | CRC32 of tuple | Tuple      |
+ * |     4 Byte    |     4 Byte     | n Byte     |
+ * ----------------------------------------------
+ */
 public class WriteAheadLogWriter implements Closeable {
 
 	/**
-	 * The file writer
+	 * The file channel
+	 */
+	private FileChannel fileChannel;
+
+	/**
+	 * The random access file
 	 */
-	private BufferedOutputStream os;
+	private RandomAccessFile randomAccessFile;
 
 	/**
 	 * The file
 	 */
 	private final File file;
+	
+	/**
+	 * The sync policy
+	 */
+	private final WriteAheadLogSyncPolicy syncPolicy;
+	
+	/**
+	 * The sync interval in milliseconds (used by the interval sync policy)
+	 */
+	private final long syncInterval;
+	
+	/**
+	 * The records that are not written
+	 */
+	private ByteArrayOutputStream pendingRecords;
+	
+	/**
+	 * The sequence number of the last appended record
+	 */
+	private long appendedSequence;
+	
+	/**
+	 * The sequence number of the last written record
+	 */
+	private long writtenSequence;
+	
+	/**
+	 * Is a flush in progress
+	 */
+	private boolean flushInProgress;
+	
+	/**
+	 * The last sync timestamp
+	 */
+	private long lastSyncTimestamp;
+	
+	/**
+	 * Are records written but not forced to disk
+	 */
+	private boolean unsyncedRecords;
+	
+	/**
+	 * The number of performed syncs
+	 */
+	private long syncs;
+	
+	/**
+	 * The exception of the last flush
+	 */
+	private IOException flushException;
+	
+	/**
+	 * The timer task of the interval sync policy
+	 */
+	private ScheduledFuture<?> syncTask;
+	
+	/**
+	 * The timer for the interval sync policy
+	 */
+	private final static ScheduledExecutorService syncScheduler 
+		= Executors.newSingleThreadScheduledExecutor((r) -> {
+			final Thread thread = new Thread(r, "WAL interval sync thread");
+			thread.setDaemon(true);
+			return thread;
+		});
+	
+	/**
+	 * The Logger
+	 */
+	private final static Logger logger = LoggerFactory.getLogger(WriteAheadLogWriter.class);
+	
+	/**
+	 * The default sync interval in milliseconds
+	 */
+	public final static long DEFAULT_SYNC_INTERVAL = 1000;
 
 	public WriteAheadLogWriter(final File basedir, final long memtableNumber) throws IOException {
+		this(basedir, memtableNumber, WriteAheadLogSyncPolicy.NONE, DEFAULT_SYNC_INTERVAL);
+	}
+	
+	public WriteAheadLogWriter(final File basedir, final long memtableNumber, 
+			final WriteAheadLogSyncPolicy syncPolicy, final long syncInterval) throws IOException {
 
 		this.file = WriteAheadLogManager.getFileForWal(basedir, memtableNumber);
+		this.syncPolicy = syncPolicy;
+		this.syncInterval = syncInterval;
 
 		if(file.exists()) {
 			throw new RuntimeException("File " + file + " does already exist");
 		}
 
-		this.os = new BufferedOutputStream(new FileOutputStream(file));
-
-		os.write(SSTableConst.MAGIC_BYTES_WAL);
+		this.randomAccessFile = new RandomAccessFile(file, "rw");
+		this.fileChannel = randomAccessFile.getChannel();
+		this.pendingRecords = new ByteArrayOutputStream();
+		this.appendedSequence = 0;
+		this.writtenSequence = 0;
+		this.flushInProgress = false;
+		this.lastSyncTimestamp = System.currentTimeMillis();
+		this.unsyncedRecords = false;
+		this.syncs = 0;
+		
+		fileChannel.write(ByteBuffer.wrap(SSTableConst.MAGIC_BYTES_WAL_FRAMED));
+		
+		if(syncPolicy == WriteAheadLogSyncPolicy.INTERVAL && syncInterval > 0) {
+			this.syncTask = syncScheduler.scheduleWithFixedDelay(() -> syncUnsyncedRecords(), 
+					syncInterval, syncInterval, TimeUnit.MILLISECONDS);
+		}
 	}
 
 	/**
-	 * Add a tuple to the WAL
+	 * Add a tuple to the WAL. The method returns when the tuple is written
+	 * and synced according to the sync policy.
+	 * 
 	 * @param tuple
-	 * @throws IOException
+	 * @throws StorageManagerException
 	 */
 	public void addTuple(final Tuple tuple) throws StorageManagerException {
+		addTuples(Collections.singletonList(tuple));
+	}
+	
+	/**
+	 * Add multiple tuples to the WAL. The records are appended together, so 
+	 * they are written and synced in one batch. The method returns when the 
+	 * tuples are written and synced according to the sync policy.
+	 * 
+	 * @param tuples
+	 * @throws StorageManagerException
+	 */
+	public void addTuples(final List<Tuple> tuples) throws StorageManagerException {
 		try {
-			assert (os != null) : "Writer can not be null";
-			TupleHelper.writeTupleToStream(tuple, os);
-			os.flush();
+			final List<byte[]> records = new ArrayList<>(tuples.size());
+			
+			for(final Tuple tuple : tuples) {
+				records.add(encodeRecord(tuple));
+			}
+			
+			final long sequence = appendRecords(records);
+			waitUntilWritten(sequence);
 		} catch (IOException e) {
 			throw new StorageManagerException(e);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new StorageManagerException(e);
 		}
 	}
 
 	/**
-	 * Close the WAL writer
+	 * Encode the tuple into a WAL record
+	 * @param tuple
+	 * @return
+	 * @throws IOException
+	 */
+	private byte[] encodeRecord(final Tuple tuple) throws IOException {
+		final ByteArrayOutputStream tupleStream = new ByteArrayOutputStream();
+		TupleHelper.writeTupleToStream(tuple, tupleStream);
+		final byte[] tupleBytes = tupleStream.toByteArray();
+		
+		final CRC32 crc = new CRC32();
+		crc.update(tupleBytes);
+		
+		final ByteBuffer record = ByteBuffer.allocate(SSTableConst.WAL_RECORD_HEADER_BYTES 
+				+ tupleBytes.length);
+		record.order(DataEncoderHelper.APPLICATION_BYTE_ORDER);
+		record.putInt(tupleBytes.length);
+		record.putInt((int) crc.getValue());
+		record.put(tupleBytes);
+		
+		return record.array();
+	}
+
+	/**
+	 * Append the records to the pending records
+	 * @param records
+	 * @return the sequence number of the last record
+	 * @throws IOException
+	 */
+	private synchronized long appendRecords(final List<byte[]> records) throws IOException {
+		if(fileChannel == null) {
+			throw new IOException("WAL writer is already closed: " + file);
+		}
+		
+		for(final byte[] record : records) {
+			pendingRecords.write(record);
+			appendedSequence++;
+		}
+		
+		return appendedSequence;
+	}
+	
+	/**
+	 * Wait until the record with the sequence is written. If no flush is in progress,
+	 * the calling thread becomes the flusher for all pending records.
+	 * 
+	 * @param sequence
+	 * @throws IOException
+	 * @throws InterruptedException
+	 */
+	private void waitUntilWritten(final long sequence) throws IOException, InterruptedException {
+		
+		while(true) {
+			final ByteArrayOutputStream recordsToWrite;
+			final long batchSequence;
+			
+			synchronized (this) {
+				while(flushInProgress && writtenSequence < sequence) {
+					wait();
+				}
+				
+				if(writtenSequence >= sequence) {
+					return;
+				}
+				
+				if(flushException != null) {
+					throw flushException;
+				}
+				
+				flushInProgress = true;
+				recordsToWrite = pendingRecords;
+				batchSequence = appendedSequence;
+				pendingRecords = new ByteArrayOutputStream();
+			}
+			
+			IOException exception = null;
+			
+			try {
+				writeBatch(recordsToWrite);
+			} catch (IOException e) {
+				exception = e;
+			}
+			
+			synchronized (this) {
+				flushInProgress = false;
+				
+				if(exception == null) {
+					writtenSequence = batchSequence;
+				} else {
+					flushException = exception;
+				}
+				
+				notifyAll();
+			}
+			
+			if(exception != null) {
+				throw exception;
+			}
+		}
+	}
+
+	/**
+	 * Write the batch and force the channel according to the sync policy
+	 * @param recordsToWrite
+	 * @throws IOException
+	 */
+	private void writeBatch(final ByteArrayOutputStream recordsToWrite) throws IOException {
+		final ByteBuffer buffer = ByteBuffer.wrap(recordsToWrite.toByteArray());
+		
+		while(buffer.hasRemaining()) {
+			fileChannel.write(buffer);
+		}
+		
+		switch (syncPolicy) {
+		case EVERY_BATCH:
+			forceChannel();
+			break;
+		case INTERVAL:
+			if(System.currentTimeMillis() - lastSyncTimestamp >= syncInterval) {
+				forceChannel();
+			} else {
+				unsyncedRecords = true;
+			}
+			break;
+		default:
+			break;
+		}
+	}
+	
+	/**
+	 * Force the written records to disk
+	 * @throws IOException
+	 */
+	private void forceChannel() throws IOException {
+		fileChannel.force(false);
+		lastSyncTimestamp = System.currentTimeMillis();
+		unsyncedRecords = false;
+		syncs++;
+	}
+	
+	/**
+	 * Force the written records to disk, if they are not synced since the 
+	 * last interval. Called by the timer of the interval sync policy.
+	 */
+	private void syncUnsyncedRecords() {
+		
+		synchronized (this) {
+			if(fileChannel == null || flushInProgress || ! unsyncedRecords) {
+				return;
+			}
+			
+			if(System.currentTimeMillis() - lastSyncTimestamp < syncInterval) {
+				return;
+			}
+			
+			flushInProgress = true;
+		}
+		
+		try {
+			forceChannel();
+		} catch (IOException e) {
+			logger.error("Unable to sync the WAL " + file, e);
+		} finally {
+			synchronized (this) {
+				flushInProgress = false;
+				notifyAll();
+			}
+		}
+	}
+
+	/**
+	 * Close the WAL writer. All pending records are written and synced.
 	 */
 	@Override
-	public void close() throws IOException {
-		if(os != null) {
-			os.close();
-			os = null;
+	public synchronized void close() throws IOException {
+		
+		if(fileChannel == null) {
+			return;
+		}
+		
+		if(syncTask != null) {
+			syncTask.cancel(false);
+		}
+		
+		try {
+			while(flushInProgress) {
+				wait();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		
+		try {
+			writeBatch(pendingRecords);
+			pendingRecords = new ByteArrayOutputStream();
+			writtenSequence = appendedSequence;
+			
+			if(syncPolicy != WriteAheadLogSyncPolicy.NONE) {
+				forceChannel();
+			}
+		} finally {
+			fileChannel.close();
+			randomAccessFile.close();
+			fileChannel = null;
+			randomAccessFile = null;
+			notifyAll();
 		}
 	}
 
@@ -86,6 +436,22 @@ public class WriteAheadLogWriter implements Closeable {
 	public File getFile() {
 		return file;
 	}
+	
+	/**
+	 * Get the sync policy
+	 * @return
+	 */
+	public WriteAheadLogSyncPolicy getSyncPolicy() {
+		return syncPolicy;
+	}
+
+	/**
+	 * Get the number of performed syncs
+	 * @return
+	 */
+	public synchronized long getNumberOfSyncs() {
+		return syncs;
+	}
 
 	/**
 	 * Delete the base file
@@ -0,0 +1,169 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2018 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.test.distribution;
+
+import java.util.Arrays;
+
+import org.bboxdb.commons.math.DoubleInterval;
+import org.bboxdb.commons.math.Hyperrectangle;
+import org.bboxdb.distribution.region.DistributionRegion;
+import org.bboxdb.distribution.region.DistributionRegionHelper;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestReferencePoint {
+
+	/**
+	 * The space of the distribution group
+	 */
+	private final static Hyperrectangle ROOT_SPACE 
+		= Hyperrectangle.createFullCoveringDimensionBoundingBox(2);
+	
+	/**
+	 * The left region
+	 */
+	private final static Hyperrectangle LEFT_SPACE = ROOT_SPACE.splitAndGetLeft(5, 0, true);
+	
+	/**
+	 * The right region
+	 */
+	private final static Hyperrectangle RIGHT_SPACE = ROOT_SPACE.splitAndGetRight(5, 0, false);
+
+	/**
+	 * Test the reference point of a tuple in one region
+	 */
+	@Test(timeout=60000)
+	public void testReferencePointOneRegion() {
+		final Hyperrectangle tupleBox = new Hyperrectangle(1d, 2d, 1d, 2d);
+		final Hyperrectangle queryBox = new Hyperrectangle(0d, 10d, 0d, 10d);
+		
+		Assert.assertTrue(DistributionRegionHelper.isReferencePointInRegion(
+				tupleBox, queryBox, ROOT_SPACE, LEFT_SPACE));
+		Assert.assertFalse(DistributionRegionHelper.isReferencePointInRegion(
+				tupleBox, queryBox, ROOT_SPACE, RIGHT_SPACE));
+	}
+	
+	/**
+	 * Test the reference point of a tuple that is stored in two regions
+	 */
+	@Test(timeout=60000)
+	public void testReferencePointTwoRegions() {
+		final Hyperrectangle tupleBox = new Hyperrectangle(4d, 8d, 1d, 2d);
+		
+		// Reference point is in the left region
+		final Hyperrectangle queryBox1 = new Hyperrectangle(0d, 10d, 0d, 10d);
+		Assert.assertTrue(DistributionRegionHelper.isReferencePointInRegion(
+				tupleBox, queryBox1, ROOT_SPACE, LEFT_SPACE));
+		Assert.assertFalse(DistributionRegionHelper.isReferencePointInRegion(
+				tupleBox, queryBox1, ROOT_SPACE, RIGHT_SPACE));
+		
+		// Reference point is in the right region
+		final Hyperrectangle queryBox2 = new Hyperrectangle(6d, 10d, 0d, 10d);
+		Assert.assertFalse(DistributionRegionHelper.isReferencePointInRegion(
+				tupleBox, queryBox2, ROOT_SPACE, LEFT_SPACE));
+		Assert.assertTrue(DistributionRegionHelper.isReferencePointInRegion(
+				tupleBox, queryBox2, ROOT_SPACE, RIGHT_SPACE));
+		
+		// Reference point is on the split position
+		final Hyperrectangle queryBox3 = new Hyperrectangle(5d, 10d, 0d, 10d);
+		Assert.assertTrue(DistributionRegionHelper.isReferencePointInRegion(
+				tupleBox, queryBox3, ROOT_SPACE, LEFT_SPACE));
+		Assert.assertFalse(DistributionRegionHelper.isReferencePointInRegion(
+				tupleBox, queryBox3, ROOT_SPACE, RIGHT_SPACE));
+	}
+	
+	/**
+	 * Test the reference point without dimensions
+	 */
+	@Test(timeout=60000)
+	public void testReferencePointFullSpace() {
+		final Hyperrectangle tupleBox = new Hyperrectangle(6d, 8d, 1d, 2d);
+		
+		Assert.assertFalse(DistributionRegionHelper.isReferencePointInRegion(
+				tupleBox, Hyperrectangle.FULL_SPACE, ROOT_SPACE, LEFT_SPACE));
+		Assert.assertTrue(DistributionRegionHelper.isReferencePointInRegion(
+				tupleBox, Hyperrectangle.FULL_SPACE, ROOT_SPACE, RIGHT_SPACE));
+		
+		// The tuple is stored in all regions
+		Assert.assertTrue(DistributionRegionHelper.isReferencePointInRegion(
+				Hyperrectangle.FULL_SPACE, Hyperrectangle.FULL_SPACE, ROOT_SPACE, LEFT_SPACE));
+		Assert.assertFalse(DistributionRegionHelper.isReferencePointInRegion(
+				Hyperrectangle.FULL_SPACE, Hyperrectangle.FULL_SPACE, ROOT_SPACE, RIGHT_SPACE));
+		
+		// Unknown region space
+		Assert.assertTrue(DistributionRegionHelper.isReferencePointInRegion(
+				tupleBox, Hyperrectangle.FULL_SPACE, ROOT_SPACE, null));
+	}
+	
+	/**
+	 * Test the reference point of a box with an open begin
+	 */
+	@Test(timeout=60000)
+	public void testReferencePointOpenInterval() {
+		final Hyperrectangle tupleBox = new Hyperrectangle(Arrays.asList(
+				new DoubleInterval(5, 8, false, true), new DoubleInterval(1, 2)));
+		
+		Assert.assertTrue(DistributionRegionHelper.isReferencePointInRegion(
+				tupleBox, Hyperrectangle.FULL_SPACE, ROOT_SPACE, LEFT_SPACE));
+		Assert.assertTrue(DistributionRegionHelper.isReferencePointInRegion(
+				tupleBox, Hyperrectangle.FULL_SPACE, ROOT_SPACE, RIGHT_SPACE));
+	}
+	
+	/**
+	 * Test the nested regions
+	 */
+	@Test(timeout=60000)
+	public void testNestedRegions() {
+		final DistributionRegion root = new DistributionRegion("abc", ROOT_SPACE);
+		final DistributionRegion left = new DistributionRegion("abc", root, LEFT_SPACE, 1);
+		final DistributionRegion right = new DistributionRegion("abc", root, RIGHT_SPACE, 2);
+		root.addChildren(0, left);
+		root.addChildren(1, right);
+
+		Assert.assertFalse(DistributionRegionHelper.containsNestedRegions(Arrays.asList(root)));
+		Assert.assertFalse(DistributionRegionHelper.containsNestedRegions(Arrays.asList(left, right)));
+		Assert.assertTrue(DistributionRegionHelper.containsNestedRegions(Arrays.asList(root, left)));
+		Assert.assertTrue(DistributionRegionHelper.containsNestedRegions(Arrays.asList(right, root)));
+	}
+	
+	/**
+	 * Test the covering leaf region
+	 */
+	@Test(timeout=60000)
+	public void testCoveringLeafRegion() {
+		final DistributionRegion root = new DistributionRegion("abc", ROOT_SPACE);
+		
+		final Hyperrectangle leftBox = new Hyperrectangle(1d, 2d, 1d, 2d);
+		final Hyperrectangle rightBox = new Hyperrectangle(6d, 8d, 1d, 2d);
+		final Hyperrectangle spanningBox = new Hyperrectangle(4d, 8d, 1d, 2d);
+		
+		Assert.assertEquals(root, DistributionRegionHelper.getCoveringLeafRegion(root, leftBox));
+		Assert.assertEquals(root, DistributionRegionHelper.getCoveringLeafRegion(root, spanningBox));
+		
+		final DistributionRegion left = new DistributionRegion("abc", root, LEFT_SPACE, 1);
+		final DistributionRegion right = new DistributionRegion("abc", root, RIGHT_SPACE, 2);
+		root.addChildren(0, left);
+		root.addChildren(1, right);
+		
+		Assert.assertEquals(left, DistributionRegionHelper.getCoveringLeafRegion(root, leftBox));
+		Assert.assertEquals(right, DistributionRegionHelper.getCoveringLeafRegion(root, rightBox));
+		Assert.assertNull(DistributionRegionHelper.getCoveringLeafRegion(root, spanningBox));
+		Assert.assertNull(DistributionRegionHelper.getCoveringLeafRegion(root, Hyperrectangle.FULL_SPACE));
+		Assert.assertNull(DistributionRegionHelper.getCoveringLeafRegion(root, new Hyperrectangle(1d, 2d)));
+	}
+}
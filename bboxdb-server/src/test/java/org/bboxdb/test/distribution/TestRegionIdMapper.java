@@ -17,8 +17,11 @@
  *******************************************************************************/
 package org.bboxdb.test.distribution;
 
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 
@@ -177,6 +180,36 @@ public class TestRegionIdMapper {
 		Assert.assertEquals(3, mappingResult.size());
 	}
 	
+	/**
+	 * Test the mapping with many entries, removed entries and the full space
+	 */
+	@Test(timeout=60000)
+	public void testManyMappings() {
+		final DistributionRegionIdMapper regionIdMapper = new DistributionRegionIdMapper(DISTRIBUTION_REGION_NAME);
+		
+		for(int i = 0; i < 100; i++) {
+			regionIdMapper.addMapping(i, new Hyperrectangle((double) i, i + 0.5d, 0d, 1d));
+		}
+		
+		Assert.assertEquals(100, regionIdMapper.getAllRegionIds().size());
+		
+		final Set<Long> result1 = regionIdMapper.getRegionIdsForRegion(
+				new Hyperrectangle(10.2d, 12.2d, 0.5d, 0.5d));
+		Assert.assertEquals(new HashSet<>(Arrays.asList(10L, 11L, 12L)), result1);
+		
+		regionIdMapper.removeMapping(11);
+		final Set<Long> result2 = regionIdMapper.getRegionIdsForRegion(
+				new Hyperrectangle(10.2d, 12.2d, 0.5d, 0.5d));
+		Assert.assertEquals(new HashSet<>(Arrays.asList(10L, 12L)), result2);
+		
+		regionIdMapper.addMapping(500, Hyperrectangle.FULL_SPACE);
+		final Set<Long> result3 = regionIdMapper.getRegionIdsForRegion(
+				new Hyperrectangle(10.2d, 12.2d, 0.5d, 0.5d));
+		Assert.assertEquals(new HashSet<>(Arrays.asList(10L, 12L, 500L)), result3);
+		
+		Assert.assertEquals(100, regionIdMapper.getRegionIdsForRegion(Hyperrectangle.FULL_SPACE).size());
+	}
+	
 	/**
 	 * Wait until mapping appears
 	 * @throws InterruptedException 
@@ -35,6 +35,9 @@ import org.bboxdb.distribution.zookeeper.TupleStoreAdapter;
 import org.bboxdb.distribution.zookeeper.ZookeeperClientFactory;
 import org.bboxdb.distribution.zookeeper.ZookeeperException;
 import org.bboxdb.misc.BBoxDBException;
+import org.bboxdb.network.client.BBoxDBClient;
+import org.bboxdb.network.client.BBoxDBConnection;
+import org.bboxdb.network.client.future.EmptyResultFuture;
 import org.bboxdb.storage.StorageManagerException;
 import org.bboxdb.storage.entity.DeletedTuple;
 import org.bboxdb.storage.entity.DistributionGroupConfiguration;
@@ -204,6 +207,57 @@ public class TestTupleSink {
 		System.out.println(tupleRedistributor.getStatistics());
 	}
 	
+	/**
+	 * Test the batching of the network sink
+	 * @throws Exception 
+	 */
+	@Test(timeout=60000)
+	public void testNetworkSinkBatching() throws Exception {
+		final BBoxDBConnection connection = Mockito.mock(BBoxDBConnection.class);
+		final BBoxDBClient client = Mockito.mock(BBoxDBClient.class);
+		final EmptyResultFuture future = Mockito.mock(EmptyResultFuture.class);
+		
+		Mockito.when(connection.getBboxDBClient()).thenReturn(client);
+		Mockito.when(client.insertTuplesWithoutKeyDirectory(Mockito.anyString(), Mockito.anyList())).thenReturn(future);
+		Mockito.when(future.isFailed()).thenReturn(false);
+		
+		final NetworkTupleSink tupleSink = new NetworkTupleSink(TABLENAME, connection);
+		
+		final int tuples = NetworkTupleSink.MAX_BATCH_TUPLES * 2 + 10;
+		
+		for(int i = 0; i < tuples; i++) {
+			tupleSink.sinkTuple(new Tuple(Integer.toString(i), 
+					new Hyperrectangle(0.0, 1.0, 0.0, 1.0), "".getBytes()));
+		}
+		
+		(Mockito.verify(client, Mockito.times(2))).insertTuplesWithoutKeyDirectory(Mockito.anyString(), Mockito.anyList());
+		(Mockito.verify(future, Mockito.never())).waitForCompletion();
+
+		tupleSink.flush();
+		(Mockito.verify(client, Mockito.times(3))).insertTuplesWithoutKeyDirectory(Mockito.anyString(), Mockito.anyList());
+		(Mockito.verify(future, Mockito.times(3))).waitForCompletion();
+		Assert.assertEquals(tuples, tupleSink.getSinkedTuples());
+	}
+	
+	/**
+	 * Test the failed batch of the network sink
+	 * @throws Exception 
+	 */
+	@Test(timeout=60000, expected=StorageManagerException.class)
+	public void testNetworkSinkFailedBatch() throws Exception {
+		final BBoxDBConnection connection = Mockito.mock(BBoxDBConnection.class);
+		final BBoxDBClient client = Mockito.mock(BBoxDBClient.class);
+		final EmptyResultFuture future = Mockito.mock(EmptyResultFuture.class);
+		
+		Mockito.when(connection.getBboxDBClient()).thenReturn(client);
+		Mockito.when(client.insertTuplesWithoutKeyDirectory(Mockito.anyString(), Mockito.anyList())).thenReturn(future);
+		Mockito.when(future.isFailed()).thenReturn(true);
+		
+		final NetworkTupleSink tupleSink = new NetworkTupleSink(TABLENAME, connection);
+		tupleSink.sinkTuple(new Tuple("abc", new Hyperrectangle(0.0, 1.0, 0.0, 1.0), "".getBytes()));
+		tupleSink.flush();
+	}
+	
 	/**
 	 * Test the tuple sinks
 	 * @throws StorageManagerException 
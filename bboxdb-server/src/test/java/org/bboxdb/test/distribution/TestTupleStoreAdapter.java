@@ -25,6 +25,8 @@ import org.bboxdb.distribution.zookeeper.ZookeeperException;
 import org.bboxdb.storage.entity.TupleStoreConfiguration;
 import org.bboxdb.storage.entity.TupleStoreConfigurationBuilder;
 import org.bboxdb.storage.entity.TupleStoreName;
+import org.bboxdb.storage.sstable.SSTableCompression;
+import org.bboxdb.storage.wal.WriteAheadLogSyncPolicy;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -123,6 +125,9 @@ public class TestTupleStoreAdapter {
 		final TupleStoreConfiguration tupleStoreConfiguration = TupleStoreConfigurationBuilder.create()
 				.withSpatialIndexReader("reader")
 				.withSpatialIndexWriter("writer")
+				.withWalSyncPolicy(WriteAheadLogSyncPolicy.EVERY_BATCH)
+				.withSSTableCompression(SSTableCompression.DEFLATE)
+				.withKeyDirectory(true)
 				.build();
 		
 		final TupleStoreName tupleStoreName = new TupleStoreName("dg_table1");
@@ -26,6 +26,7 @@ import org.bboxdb.commons.math.Hyperrectangle;
 import org.bboxdb.misc.BBoxDBException;
 import org.bboxdb.network.client.BBoxDB;
 import org.bboxdb.network.client.BBoxDBClient;
+import org.bboxdb.network.client.BBoxDBConnection;
 import org.bboxdb.network.client.future.EmptyResultFuture;
 import org.bboxdb.network.client.future.JoinedTupleListFuture;
 import org.bboxdb.network.client.future.TupleListFuture;
@@ -266,6 +267,106 @@ public class NetworkQueryHelper {
 		System.out.println("=== End testBoundingBoxQueryContinous 2");
 	}
 
+	/**
+	 * Test a bounding box query with trickled tuples, the tuples are sent in one page
+	 * @param bboxDBConnection
+	 * @throws BBoxDBException
+	 * @throws InterruptedException
+	 */
+	public static void testBoundingBoxQueryContinousTrickled(final BBoxDBConnection bboxDBConnection, 
+			final String distributionGroup) throws BBoxDBException, InterruptedException {
+
+		final BBoxDBClient bboxDBClient = bboxDBConnection.getBboxDBClient();
+
+		System.out.println("=== Running testBoundingBoxQueryContinousTrickled");
+		final String table = distributionGroup + "_relation9993";
+
+		// Create table
+		final EmptyResultFuture resultCreateTable = bboxDBClient.createTable(table, new TupleStoreConfiguration());
+		resultCreateTable.waitForCompletion();
+		Assert.assertFalse(resultCreateTable.isFailed());
+
+		final ContinuousQueryPlan constQueryPlan = QueryPlanBuilder
+				.createQueryOnTable(table)
+				.forAllNewTuplesStoredInRegion(-1d, 2d, -1d, 2d)
+				.compareWithStaticRegion(-1d, 2d, -1d, 2d)
+				.build();
+				
+		final JoinedTupleListFuture queryFuture = bboxDBClient.queryContinuous(constQueryPlan);
+		
+		final int tuples = 3;
+		final List<EmptyResultFuture> insertResults = new ArrayList<>();
+		
+		// Send each tuple on its own, without waiting for the compression delay
+		for(int i = 0; i < tuples; i++) {
+			final Tuple tuple = new Tuple(Integer.toString(i), new Hyperrectangle(0d, 1d, 0d, 1d), "".getBytes());
+			insertResults.add(bboxDBClient.insertTuple(table, tuple));
+			bboxDBConnection.flushPendingCompressionPackages();
+			Thread.sleep(10);
+		}
+		
+		for(final EmptyResultFuture insertResult : insertResults) {
+			insertResult.waitForCompletion();
+			Assert.assertFalse(insertResult.isFailed());
+		}
+		
+		System.out.println("=== Wait for query result");
+		queryFuture.waitForCompletion();
+		Assert.assertFalse(queryFuture.isFailed());
+		
+		Assert.assertEquals(tuples, queryFuture.get(0).size());
+
+		bboxDBClient.cancelQuery(queryFuture);
+		
+		System.out.println("=== End testBoundingBoxQueryContinousTrickled");
+	}
+	
+	/**
+	 * Execute a continuous join with enlarged stored tuples and get the keys of 
+	 * the join partners of the stream tuple
+	 * 
+	 * @param bboxDBClient
+	 * @param streamTable
+	 * @param joinTable
+	 * @param streamKey
+	 * @return
+	 * @throws BBoxDBException
+	 * @throws InterruptedException
+	 */
+	public static List<String> executeContinuousJoin(final BBoxDBClient bboxDBClient, 
+			final String streamTable, final String joinTable, final String streamKey) 
+					throws BBoxDBException, InterruptedException {
+		
+		final ContinuousQueryPlan queryPlan = QueryPlanBuilder
+				.createQueryOnTable(streamTable)
+				.forAllNewTuplesStoredInRegion(-1d, 2d, -1d, 2d)
+				.compareWithTable(joinTable)
+				.enlargeStoredTupleBoundBoxByAmount(1)
+				.build();
+		
+		final JoinedTupleListFuture queryFuture = bboxDBClient.queryContinuous(queryPlan);
+		
+		final Tuple tuple = new Tuple(streamKey, new Hyperrectangle(0d, 1d, 0d, 1d), "".getBytes());
+		final EmptyResultFuture insertResult = bboxDBClient.insertTuple(streamTable, tuple);
+		insertResult.waitForCompletion();
+		Assert.assertFalse(insertResult.isFailed());
+		
+		// Wait for the first page, the join partners of the stream tuple are sent together
+		queryFuture.waitForCompletion();
+		Assert.assertFalse(queryFuture.isFailed());
+		
+		final List<String> joinPartners = new ArrayList<>();
+		
+		for(final JoinedTuple joinedTuple : queryFuture.get(0)) {
+			Assert.assertEquals(streamKey, joinedTuple.getTuple(0).getKey());
+			joinPartners.add(joinedTuple.getTuple(1).getKey());
+		}
+		
+		bboxDBClient.cancelQuery(queryFuture);
+		
+		return joinPartners;
+	}
+
 	/**
 	 * Insert and delete tuple
 	 * @param bboxDBConnection
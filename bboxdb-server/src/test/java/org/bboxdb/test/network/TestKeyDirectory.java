@@ -0,0 +1,307 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2018 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.test.network;
+
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import org.bboxdb.BBoxDBMain;
+import org.bboxdb.commons.math.Hyperrectangle;
+import org.bboxdb.commons.MicroSecondTimestampProvider;
+import org.bboxdb.distribution.membership.MembershipConnectionService;
+import org.bboxdb.distribution.partitioner.SpacePartitionerHelper;
+import org.bboxdb.distribution.region.DistributionRegion;
+import org.bboxdb.misc.BBoxDBConfigurationManager;
+import org.bboxdb.misc.BBoxDBException;
+import org.bboxdb.network.client.BBoxDB;
+import org.bboxdb.network.client.BBoxDBCluster;
+import org.bboxdb.network.client.BBoxDBConnection;
+import org.bboxdb.network.client.future.EmptyResultFuture;
+import org.bboxdb.network.client.future.TupleListFuture;
+import org.bboxdb.network.client.tools.KeyDirectoryHelper;
+import org.bboxdb.storage.entity.DeletedTuple;
+import org.bboxdb.storage.entity.Tuple;
+import org.bboxdb.storage.entity.TupleStoreConfigurationBuilder;
+import org.bboxdb.storage.util.EnvironmentHelper;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.google.common.collect.Lists;
+
+public class TestKeyDirectory {
+	/**
+	 * The instance of the software
+	 */
+	private static BBoxDBMain bboxDBMain;
+	
+	/**
+	 * The cluster contact point
+	 */
+	private static final String CLUSTER_CONTACT_POINT = "localhost:2181";
+
+	/**
+	 * The distribution group
+	 */
+	private static final String DISTRIBUTION_GROUP = "testgroupkdir";
+	
+	/**
+	 * The table name
+	 */
+	private static final String TABLENAME = DISTRIBUTION_GROUP + "_testtable";
+	
+	@BeforeClass
+	public static void init() throws Exception {
+		bboxDBMain = new BBoxDBMain();
+		bboxDBMain.init();
+		bboxDBMain.start();
+		
+		// Allow connections to localhost (needed for travis CI test)
+		MembershipConnectionService.getInstance().clearBlacklist();
+						
+		// Wait some time to let the server process start
+		Thread.sleep(5000);
+	}
+	
+	@AfterClass
+	public static void shutdown() throws Exception {
+		if(bboxDBMain != null) {
+			bboxDBMain.stop();
+			bboxDBMain = null;
+		}
+		
+		// Wait some time for socket re-use
+		Thread.sleep(5000);
+	}
+	
+	/**
+	 * Re-create distribution group for each test
+	 * @throws InterruptedException
+	 * @throws BBoxDBException 
+	 */
+	@Before
+	public void before() throws InterruptedException, BBoxDBException {
+		final BBoxDB bboxdbConnection = connectToServer();
+		EnvironmentHelper.recreateDistributionGroup(bboxdbConnection, DISTRIBUTION_GROUP);
+		
+		final String directoryGroupName = KeyDirectoryHelper.KDIR_DGROUP_PREFIX + DISTRIBUTION_GROUP;
+		final EmptyResultFuture resultDelete = bboxdbConnection.deleteDistributionGroup(directoryGroupName);
+		resultDelete.waitForCompletion();
+		Assert.assertFalse(resultDelete.isFailed());
+		
+		final EmptyResultFuture resultCreate = bboxdbConnection.createTable(TABLENAME, 
+				TupleStoreConfigurationBuilder.create().withKeyDirectory(true).build());
+		resultCreate.waitForCompletion();
+		Assert.assertFalse(resultCreate.isFailed());
+		
+		disconnect(bboxdbConnection);
+	}
+	
+	/**
+	 * Disconnect from server
+	 * @param bboxDBConnection
+	 */
+	protected void disconnect(final BBoxDB bboxDBClient) {
+		bboxDBClient.close();
+		Assert.assertFalse(bboxDBClient.isConnected());
+	}
+	
+	/**
+	 * Build a new connection to the bboxdb server
+	 * 
+	 * @return
+	 * @throws InterruptedException 
+	 */
+	protected BBoxDBCluster connectToServer() throws InterruptedException {
+		final String clusterName = BBoxDBConfigurationManager.getConfiguration().getClustername();
+		final BBoxDBCluster bboxdbCluster = new BBoxDBCluster(CLUSTER_CONTACT_POINT, clusterName);
+	
+		final boolean result = bboxdbCluster.connect();
+		Assert.assertTrue(result);
+		
+		Thread.sleep(50);
+		
+		Assert.assertTrue(bboxdbCluster.isConnected());
+		
+		return bboxdbCluster;
+	}
+	
+	@Test(timeout=60000)
+	public void testDirectoryKeys() {
+		final String directoryKey1 = KeyDirectoryHelper.getDirectoryKey("abc", 12);
+		Assert.assertEquals(Optional.of(12L), KeyDirectoryHelper.getRegionIdFromDirectoryKey(directoryKey1, "abc"));
+		Assert.assertFalse(KeyDirectoryHelper.getRegionIdFromDirectoryKey(directoryKey1, "ab").isPresent());
+		Assert.assertFalse(KeyDirectoryHelper.getRegionIdFromDirectoryKey(directoryKey1, "abc#1").isPresent());
+		
+		// Keys containing the separator
+		final String directoryKey2 = KeyDirectoryHelper.getDirectoryKey("abc#1", 7);
+		Assert.assertEquals(Optional.of(7L), KeyDirectoryHelper.getRegionIdFromDirectoryKey(directoryKey2, "abc#1"));
+		Assert.assertFalse(KeyDirectoryHelper.getRegionIdFromDirectoryKey(directoryKey2, "abc").isPresent());
+		Assert.assertFalse(KeyDirectoryHelper.getRegionIdFromDirectoryKey("abc#x", "abc").isPresent());
+	}
+	
+	@Test(timeout=60000)
+	public void testKeyQueryWithDirectory() throws InterruptedException, BBoxDBException {
+		
+		final BBoxDBCluster cluster = connectToServer();
+		final KeyDirectoryHelper keyDirectoryHelper = new KeyDirectoryHelper(cluster);
+		
+		// No tuple is written, the directory is not created and the query is sent to all regions
+		Assert.assertFalse(keyDirectoryHelper.isDirectoryAvailable(TABLENAME));
+		final TupleListFuture queryFuture0 = cluster.queryKey(TABLENAME, "abc");
+		queryFuture0.waitForCompletion();
+		Assert.assertFalse(queryFuture0.isFailed());
+		Assert.assertFalse(queryFuture0.iterator().hasNext());
+		
+		final Tuple tuple1 = new Tuple("abc", new Hyperrectangle(4d, 5d, 4d, 5d), "value1".getBytes());
+		final Tuple tuple2 = new Tuple("def", new Hyperrectangle(1d, 2d, 1d, 2d), "value2".getBytes());
+		
+		final EmptyResultFuture insertFuture1 = cluster.insertTuple(TABLENAME, tuple1);
+		insertFuture1.waitForCompletion();
+		Assert.assertFalse(insertFuture1.isFailed());
+		
+		final EmptyResultFuture insertFuture2 = cluster.insertTuples(TABLENAME, Lists.newArrayList(tuple2));
+		insertFuture2.waitForCompletion();
+		Assert.assertFalse(insertFuture2.isFailed());
+		
+		Assert.assertTrue(keyDirectoryHelper.isDirectoryAvailable(TABLENAME));
+		
+		final List<DistributionRegion> regions1 = getRegionsForKey(keyDirectoryHelper, "abc");
+		Assert.assertNotNull(regions1);
+		Assert.assertFalse(regions1.isEmpty());
+		
+		final List<DistributionRegion> regions2 = getRegionsForKey(keyDirectoryHelper, "def");
+		Assert.assertNotNull(regions2);
+		Assert.assertFalse(regions2.isEmpty());
+		
+		// Unknown key, no region needs to be read
+		final List<DistributionRegion> regions3 = getRegionsForKey(keyDirectoryHelper, "xyz");
+		Assert.assertNotNull(regions3);
+		Assert.assertTrue(regions3.isEmpty());
+		
+		final TupleListFuture queryFuture1 = cluster.queryKey(TABLENAME, "abc");
+		queryFuture1.waitForCompletion();
+		Assert.assertFalse(queryFuture1.isFailed());
+		final List<Tuple> result1 = Lists.newArrayList(queryFuture1.iterator());
+		Assert.assertEquals(1, result1.size());
+		Assert.assertEquals(tuple1, result1.get(0));
+		
+		final TupleListFuture queryFuture2 = cluster.queryKey(TABLENAME, "def");
+		queryFuture2.waitForCompletion();
+		Assert.assertFalse(queryFuture2.isFailed());
+		final List<Tuple> result2 = Lists.newArrayList(queryFuture2.iterator());
+		Assert.assertEquals(1, result2.size());
+		Assert.assertEquals(tuple2, result2.get(0));
+		
+		// Unknown key, the query is not sent to any region
+		final TupleListFuture queryFuture3 = cluster.queryKey(TABLENAME, "xyz");
+		queryFuture3.waitForCompletion();
+		Assert.assertFalse(queryFuture3.isFailed());
+		Assert.assertEquals(0, queryFuture3.getNumberOfResultObjets());
+		Assert.assertFalse(queryFuture3.iterator().hasNext());
+		
+		disconnect(cluster);
+	}
+	
+	/**
+	 * Tuples of a table with a key directory can't be written without the directory
+	 * @throws BBoxDBException 
+	 */
+	@Test(timeout=60000, expected=BBoxDBException.class)
+	public void testDirectWriteRejected() throws BBoxDBException {
+		final int port = BBoxDBConfigurationManager.getConfiguration().getNetworkListenPort();
+		final BBoxDBConnection connection = new BBoxDBConnection(new InetSocketAddress("127.0.0.1", port));
+		
+		final Tuple tuple = new Tuple("abc", new Hyperrectangle(4d, 5d, 4d, 5d), "value1".getBytes());
+		connection.getBboxDBClient().insertTuple(TABLENAME, tuple);
+	}
+	
+	/**
+	 * Test the maintenance of the directory entries
+	 * @throws BBoxDBException 
+	 * @throws InterruptedException 
+	 */
+	@Test(timeout=60000)
+	public void testMaintenanceTuples() throws BBoxDBException, InterruptedException {
+		final BBoxDBCluster cluster = connectToServer();
+		final KeyDirectoryHelper keyDirectoryHelper = new KeyDirectoryHelper(cluster);
+		final DistributionRegion rootRegion = SpacePartitionerHelper.getRootNode(TABLENAME);
+		final long regionId = rootRegion.getRegionId();
+		
+		final long now = MicroSecondTimestampProvider.getNewTimestamp();
+		final long oldTimestamp = now - TimeUnit.MILLISECONDS.toMicros(
+				KeyDirectoryHelper.ENTRY_GRACE_PERIOD_MS) - 1;
+		
+		final Hyperrectangle directoryBox = new Hyperrectangle(1d, 1d);
+		final Tuple entry = new Tuple(KeyDirectoryHelper.getDirectoryKey("abc", regionId), 
+				directoryBox, "".getBytes(), oldTimestamp);
+		final Tuple staleEntry = new Tuple(KeyDirectoryHelper.getDirectoryKey("abc", regionId + 1000), 
+				directoryBox, "".getBytes(), oldTimestamp);
+		final Tuple youngEntry = new Tuple(KeyDirectoryHelper.getDirectoryKey("abc", regionId + 2000), 
+				directoryBox, "".getBytes(), now);
+		final Tuple otherKeyEntry = new Tuple(KeyDirectoryHelper.getDirectoryKey("abcd", regionId), 
+				directoryBox, "".getBytes(), oldTimestamp);
+		
+		final List<Tuple> directoryTuples = Lists.newArrayList(entry, staleEntry, youngEntry, otherKeyEntry);
+		final Tuple tuple = new Tuple("abc", new Hyperrectangle(4d, 5d, 4d, 5d), "value1".getBytes());
+
+		// The stale entry is removed, the entry of the tuple is kept
+		final List<Tuple> result1 = keyDirectoryHelper.getMaintenanceTuples(rootRegion, "abc", 
+				directoryTuples, Lists.newArrayList(tuple), now);
+		Assert.assertEquals(1, result1.size());
+		Assert.assertTrue(result1.get(0) instanceof DeletedTuple);
+		Assert.assertEquals(staleEntry.getKey(), result1.get(0).getKey());
+		Assert.assertEquals(oldTimestamp + 1, result1.get(0).getVersionTimestamp());
+		
+		// The key is deleted, all old entries are removed
+		final List<Tuple> result2 = keyDirectoryHelper.getMaintenanceTuples(rootRegion, "abc", 
+				directoryTuples, new ArrayList<>(), now);
+		Assert.assertEquals(2, result2.size());
+		Assert.assertTrue(result2.stream().allMatch(t -> t instanceof DeletedTuple));
+		
+		// The missing entry is added
+		final List<Tuple> result3 = keyDirectoryHelper.getMaintenanceTuples(rootRegion, "abc", 
+				new ArrayList<>(), Lists.newArrayList(tuple), now);
+		Assert.assertEquals(1, result3.size());
+		Assert.assertEquals(entry.getKey(), result3.get(0).getKey());
+		Assert.assertFalse(result3.get(0) instanceof DeletedTuple);
+		
+		disconnect(cluster);
+	}
+	
+	/**
+	 * Read the regions of the key from the directory
+	 * @param keyDirectoryHelper
+	 * @param key
+	 * @return
+	 * @throws BBoxDBException
+	 * @throws InterruptedException
+	 */
+	private List<DistributionRegion> getRegionsForKey(final KeyDirectoryHelper keyDirectoryHelper, 
+			final String key) throws BBoxDBException, InterruptedException {
+		
+		final TupleListFuture directoryFuture = keyDirectoryHelper.queryDirectory(TABLENAME, key);
+		directoryFuture.waitForCompletion();
+		return keyDirectoryHelper.getRegionsForKey(TABLENAME, key, directoryFuture);
+	}
+}
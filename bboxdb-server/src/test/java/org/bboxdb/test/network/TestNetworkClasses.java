@@ -34,6 +34,7 @@ import org.bboxdb.network.NetworkPackageDecoder;
 import org.bboxdb.network.capabilities.PeerCapabilities;
 import org.bboxdb.network.client.SequenceNumberGenerator;
 import org.bboxdb.network.packages.NetworkPackage;
+import org.bboxdb.network.packages.NetworkRequestPackage;
 import org.bboxdb.network.packages.PackageEncodeException;
 import org.bboxdb.network.packages.request.CancelRequest;
 import org.bboxdb.network.packages.request.CompressionEnvelopeRequest;
@@ -44,6 +45,7 @@ import org.bboxdb.network.packages.request.DeleteTableRequest;
 import org.bboxdb.network.packages.request.DisconnectRequest;
 import org.bboxdb.network.packages.request.HelloRequest;
 import org.bboxdb.network.packages.request.InsertTupleRequest;
+import org.bboxdb.network.packages.request.InsertTuplesRequest;
 import org.bboxdb.network.packages.request.KeepAliveRequest;
 import org.bboxdb.network.packages.request.LockTupleRequest;
 import org.bboxdb.network.packages.request.NextPageRequest;
@@ -73,6 +75,8 @@ import org.bboxdb.storage.entity.TupleStoreConfiguration;
 import org.bboxdb.storage.entity.TupleStoreConfigurationBuilder;
 import org.bboxdb.storage.entity.TupleStoreName;
 import org.bboxdb.storage.util.TupleHelper;
+import org.bboxdb.storage.sstable.SSTableCompression;
+import org.bboxdb.storage.wal.WriteAheadLogSyncPolicy;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -227,6 +231,38 @@ public class TestNetworkClasses {
 		Assert.assertTrue(insertPackage.toString().length() > 10);
 	}
 	
+	/**
+	 * The the encoding and decoding of an insert tuples package
+	 * @throws IOException 
+	 * @throws PackageEncodeException 
+	 */
+	@Test(timeout=60000)
+	public void encodeAndDecodeInsertTuples() throws IOException, PackageEncodeException {
+		final Tuple tuple1 = new Tuple("key1", new Hyperrectangle(1.3244343224, 232.232333343, 34324.343, 343243.0), "abc".getBytes(), 12);
+		final Tuple tuple2 = new Tuple("key2", Hyperrectangle.FULL_SPACE, "def".getBytes(), 13);
+		final Tuple tuple3 = new DeletedTuple("key3", 14);
+		final List<Tuple> tuples = Arrays.asList(tuple1, tuple2, tuple3);
+		
+		final short sequenceNumber = sequenceNumberGenerator.getNextSequenceNummber();
+
+		final InsertTuplesRequest insertPackage = new InsertTuplesRequest(sequenceNumber, 
+				ROUTING_HEADER_ROUTED, new TupleStoreName("test"), tuples);
+		
+		byte[] encodedVersion = networkPackageToByte(insertPackage);
+		Assert.assertNotNull(encodedVersion);
+
+		final ByteBuffer bb = NetworkPackageDecoder.encapsulateBytes(encodedVersion);
+		final InsertTuplesRequest decodedPackage = InsertTuplesRequest.decodeTuple(bb);
+				
+		Assert.assertEquals(tuples, decodedPackage.getTuples());
+		Assert.assertEquals(insertPackage.getTable(), decodedPackage.getTable());
+		Assert.assertEquals(ROUTING_HEADER_ROUTED, decodedPackage.getRoutingHeader());
+		Assert.assertEquals(insertPackage, decodedPackage);
+		Assert.assertEquals(insertPackage.hashCode(), decodedPackage.hashCode());
+		Assert.assertTrue(TupleHelper.isDeletedTuple(decodedPackage.getTuples().get(2)));
+		Assert.assertTrue(insertPackage.toString().length() > 10);
+	}
+	
 	/**
 	 * Test the decoding and the encoding of a joined tuple
 	 * @throws PackageEncodeException 
@@ -462,6 +498,8 @@ public class TestNetworkClasses {
 				.withVersions(666)
 				.withSpatialIndexReader("reader")
 				.withSpatialIndexWriter("writer")
+				.withWalSyncPolicy(WriteAheadLogSyncPolicy.EVERY_BATCH)
+				.withSSTableCompression(SSTableCompression.DEFLATE)
 				.build();
 		
 		final CreateTableRequest createPackage = new CreateTableRequest(sequenceNumber, "test", ssTableConfiguration);
@@ -480,6 +518,87 @@ public class TestNetworkClasses {
 		Assert.assertEquals(createPackage.toString(), decodedPackage.toString());
 	}
 	
+	/**
+	 * The create table request of an uncompressed table has the format of older versions
+	 * @throws IOException 
+	 * @throws PackageEncodeException 
+	 */
+	@Test(timeout=60000)
+	public void encodeAndDecodeCreateTableUncompressed() throws IOException, PackageEncodeException {
+		final short sequenceNumber = sequenceNumberGenerator.getNextSequenceNummber();
+
+		final TupleStoreConfiguration uncompressedConfiguration = TupleStoreConfigurationBuilder
+				.create()
+				.withSpatialIndexReader("reader")
+				.withSpatialIndexWriter("writer")
+				.build();
+		
+		final TupleStoreConfiguration compressedConfiguration = TupleStoreConfigurationBuilder
+				.create()
+				.withSpatialIndexReader("reader")
+				.withSpatialIndexWriter("writer")
+				.withSSTableCompression(SSTableCompression.DEFLATE)
+				.build();
+		
+		final CreateTableRequest uncompressedPackage = new CreateTableRequest(sequenceNumber, 
+				"test", uncompressedConfiguration);
+		
+		final CreateTableRequest compressedPackage = new CreateTableRequest(sequenceNumber, 
+				"test", compressedConfiguration);
+		
+		final byte[] uncompressedBytes = networkPackageToByte(uncompressedPackage);
+		final byte[] compressedBytes = networkPackageToByte(compressedPackage);
+		
+		// Only the compressed table has the trailing compression byte
+		Assert.assertEquals(uncompressedBytes.length + 1, compressedBytes.length);
+		
+		final CreateTableRequest decodedPackage = CreateTableRequest.decodeTuple(
+				NetworkPackageDecoder.encapsulateBytes(uncompressedBytes));
+		
+		Assert.assertEquals(SSTableCompression.NONE, 
+				decodedPackage.getTupleStoreConfiguration().getSstableCompression());
+		Assert.assertEquals(uncompressedPackage, decodedPackage);
+	}
+	
+	/**
+	 * The key directory flag is appended after the compression byte
+	 * @throws IOException 
+	 * @throws PackageEncodeException 
+	 */
+	@Test(timeout=60000)
+	public void encodeAndDecodeCreateTableKeyDirectory() throws IOException, PackageEncodeException {
+		final short sequenceNumber = sequenceNumberGenerator.getNextSequenceNummber();
+
+		final TupleStoreConfiguration defaultConfiguration = TupleStoreConfigurationBuilder
+				.create()
+				.build();
+		
+		final TupleStoreConfiguration keyDirectoryConfiguration = TupleStoreConfigurationBuilder
+				.create()
+				.withKeyDirectory(true)
+				.build();
+		
+		final CreateTableRequest defaultPackage = new CreateTableRequest(sequenceNumber, 
+				"test", defaultConfiguration);
+		
+		final CreateTableRequest keyDirectoryPackage = new CreateTableRequest(sequenceNumber, 
+				"test", keyDirectoryConfiguration);
+		
+		final byte[] defaultBytes = networkPackageToByte(defaultPackage);
+		final byte[] keyDirectoryBytes = networkPackageToByte(keyDirectoryPackage);
+		
+		// The compression byte and the flags are appended
+		Assert.assertEquals(defaultBytes.length + 2, keyDirectoryBytes.length);
+		
+		final CreateTableRequest decodedPackage = CreateTableRequest.decodeTuple(
+				NetworkPackageDecoder.encapsulateBytes(keyDirectoryBytes));
+		
+		Assert.assertTrue(decodedPackage.getTupleStoreConfiguration().isKeyDirectory());
+		Assert.assertEquals(SSTableCompression.NONE, 
+				decodedPackage.getTupleStoreConfiguration().getSstableCompression());
+		Assert.assertEquals(keyDirectoryPackage, decodedPackage);
+	}
+	
 	/**
 	 * Test decoding and encoding of the key query
 	 * @throws IOException 
@@ -550,7 +669,7 @@ public class TestNetworkClasses {
 		final ContinuousConstQueryPlan constQueryPlan = new ContinuousConstQueryPlan(table, new ArrayList<>(), boundingBox, boundingBox, true);
 		final short sequenceNumber = sequenceNumberGenerator.getNextSequenceNummber();
 		
-		final QueryContinuousRequest queryRequest = new QueryContinuousRequest(sequenceNumber, ROUTING_HEADER_ROUTED, constQueryPlan);
+		final QueryContinuousRequest queryRequest = new QueryContinuousRequest(sequenceNumber, ROUTING_HEADER_ROUTED, constQueryPlan, (short) 50);
 		byte[] encodedPackage = networkPackageToByte(queryRequest);
 		Assert.assertNotNull(encodedPackage);
 
@@ -560,10 +679,38 @@ public class TestNetworkClasses {
 
 		final QueryContinuousRequest decodedPackage = QueryContinuousRequest.decodeTuple(bb);
 		Assert.assertEquals(queryRequest.getQueryPlan(), decodedPackage.getQueryPlan());
+		Assert.assertEquals(50, decodedPackage.getResultCredits());
 		Assert.assertEquals(NetworkConst.REQUEST_QUERY_CONTINUOUS_BBOX, NetworkPackageDecoder.getQueryTypeFromRequest(bb));
 		Assert.assertTrue(queryRequest.toString().length() > 10);
 	}
 	
+	/**
+	 * Test decode continuous query without result credits (default credits and older clients)
+	 * @throws IOException 
+	 * @throws PackageEncodeException 
+	 */
+	@Test(timeout=60000)
+	public void testDecodeCointinousBoundingBoxQueryDefaultCredits() throws IOException, PackageEncodeException {
+		final String table = "table1";
+		final Hyperrectangle boundingBox = new Hyperrectangle(10d, 20d);
+		final ContinuousConstQueryPlan constQueryPlan = new ContinuousConstQueryPlan(table, new ArrayList<>(), boundingBox, boundingBox, true);
+		final short sequenceNumber = sequenceNumberGenerator.getNextSequenceNummber();
+		
+		final QueryContinuousRequest defaultRequest = new QueryContinuousRequest(sequenceNumber, ROUTING_HEADER_ROUTED, constQueryPlan);
+		final QueryContinuousRequest creditRequest = new QueryContinuousRequest(sequenceNumber, ROUTING_HEADER_ROUTED, constQueryPlan, (short) 50);
+
+		final byte[] encodedPackage = networkPackageToByte(defaultRequest);
+		Assert.assertNotNull(encodedPackage);
+		
+		// The default credits are not encoded, the package has the format of older clients
+		Assert.assertEquals(networkPackageToByte(creditRequest).length - 2, encodedPackage.length);
+
+		final ByteBuffer bb = NetworkPackageDecoder.encapsulateBytes(encodedPackage);
+		final QueryContinuousRequest decodedPackage = QueryContinuousRequest.decodeTuple(bb);
+		Assert.assertEquals(defaultRequest.getQueryPlan(), decodedPackage.getQueryPlan());
+		Assert.assertEquals(QueryContinuousRequest.DEFAULT_RESULT_CREDITS, decodedPackage.getResultCredits());
+	}
+	
 	/**
 	 * Test decode version time query
 	 * @throws IOException 
@@ -1189,6 +1336,124 @@ public class TestNetworkClasses {
 		Assert.assertEquals(helloPackage.toString(), decodedPackage.toString());
 	}
 	
+	/**
+	 * Test the snappy compression of request packages
+	 * @throws IOException
+	 * @throws PackageEncodeException 
+	 */
+	@Test(timeout=60000)
+	public void testCompressionSnappyRequest() throws IOException, PackageEncodeException {
+		final List<NetworkRequestPackage> insertPackages = new ArrayList<>();
+		
+		for(int i = 0; i < 100; i++) {
+			final Tuple tuple = new Tuple("key" + i, Hyperrectangle.FULL_SPACE, "abcdefghijklmopqrstuvxyz".getBytes(), 12);
+			final short sequenceNumber = sequenceNumberGenerator.getNextSequenceNummber();
+			insertPackages.add(new InsertTupleRequest(sequenceNumber, ROUTING_HEADER_UNROUTED, new TupleStoreName("test"), tuple));
+		}
+		
+		final CompressionEnvelopeRequest compressionPackage = new CompressionEnvelopeRequest(
+				NetworkConst.COMPRESSION_TYPE_SNAPPY, insertPackages);
+		
+		final byte[] encodedVersion = networkPackageToByte(compressionPackage);
+		
+		// Package header (12 bytes) and direct routing header (6 bytes)
+		Assert.assertEquals(NetworkConst.COMPRESSION_TYPE_SNAPPY, encodedVersion[18]);
+
+		final ByteBuffer bb = NetworkPackageDecoder.encapsulateBytes(encodedVersion);
+		final InputStream uncompressedByteStream = CompressionEnvelopeRequest.decodePackage(bb);
+		final byte[] uncompressedBytes = ByteStreams.toByteArray(uncompressedByteStream);
+		final ByteBuffer uncompressedByteBuffer = ByteBuffer.wrap(uncompressedBytes);
+		
+		for(final NetworkRequestPackage insertPackage : insertPackages) {
+			// Package header (12 bytes), direct routing header (6 bytes) and body
+			final long bodyLength = NetworkPackageDecoder.getBodyLengthFromRequestPackage(uncompressedByteBuffer.slice());
+			final int packageLength = (int) (bodyLength + 18);
+			
+			final ByteBuffer packageBuffer = NetworkPackageDecoder.encapsulateBytes(
+					Arrays.copyOfRange(uncompressedBytes, uncompressedByteBuffer.position(), 
+							uncompressedByteBuffer.position() + packageLength));
+			
+			final InsertTupleRequest decodedPackage = InsertTupleRequest.decodeTuple(packageBuffer);
+			Assert.assertEquals(insertPackage, decodedPackage);
+			uncompressedByteBuffer.position(uncompressedByteBuffer.position() + packageLength);
+		}
+		
+		Assert.assertFalse(uncompressedByteBuffer.hasRemaining());
+	}
+	
+	/**
+	 * Test the zstd compression of request packages
+	 * @throws IOException
+	 * @throws PackageEncodeException 
+	 */
+	@Test(timeout=60000)
+	public void testCompressionZstdRequest() throws IOException, PackageEncodeException {
+		final List<NetworkRequestPackage> insertPackages = new ArrayList<>();
+		
+		for(int i = 0; i < 100; i++) {
+			final Tuple tuple = new Tuple("key" + i, Hyperrectangle.FULL_SPACE, "abcdefghijklmopqrstuvxyz".getBytes(), 12);
+			final short sequenceNumber = sequenceNumberGenerator.getNextSequenceNummber();
+			insertPackages.add(new InsertTupleRequest(sequenceNumber, ROUTING_HEADER_UNROUTED, new TupleStoreName("test"), tuple));
+		}
+		
+		final CompressionEnvelopeRequest compressionPackage = new CompressionEnvelopeRequest(
+				NetworkConst.COMPRESSION_TYPE_ZSTD, insertPackages);
+		
+		final byte[] encodedVersion = networkPackageToByte(compressionPackage);
+		
+		// Package header (12 bytes) and direct routing header (6 bytes)
+		Assert.assertEquals(NetworkConst.COMPRESSION_TYPE_ZSTD, encodedVersion[18]);
+
+		final ByteBuffer bb = NetworkPackageDecoder.encapsulateBytes(encodedVersion);
+		final InputStream uncompressedByteStream = CompressionEnvelopeRequest.decodePackage(bb);
+		final byte[] uncompressedBytes = ByteStreams.toByteArray(uncompressedByteStream);
+		final ByteBuffer uncompressedByteBuffer = ByteBuffer.wrap(uncompressedBytes);
+		
+		for(final NetworkRequestPackage insertPackage : insertPackages) {
+			// Package header (12 bytes), direct routing header (6 bytes) and body
+			final long bodyLength = NetworkPackageDecoder.getBodyLengthFromRequestPackage(uncompressedByteBuffer.slice());
+			final int packageLength = (int) (bodyLength + 18);
+			
+			final ByteBuffer packageBuffer = NetworkPackageDecoder.encapsulateBytes(
+					Arrays.copyOfRange(uncompressedBytes, uncompressedByteBuffer.position(), 
+							uncompressedByteBuffer.position() + packageLength));
+			
+			final InsertTupleRequest decodedPackage = InsertTupleRequest.decodeTuple(packageBuffer);
+			Assert.assertEquals(insertPackage, decodedPackage);
+			uncompressedByteBuffer.position(uncompressedByteBuffer.position() + packageLength);
+		}
+		
+		Assert.assertFalse(uncompressedByteBuffer.hasRemaining());
+	}
+	
+	/**
+	 * Small batches are not compressed by the adaptive codecs
+	 * @throws IOException 
+	 * @throws PackageEncodeException 
+	 */
+	@Test(timeout=60000)
+	public void testCompressionAdaptiveReponse() throws IOException, PackageEncodeException {
+		final String tablename = "table1";
+		final Tuple tuple = new Tuple("abc", Hyperrectangle.FULL_SPACE, "databytes".getBytes());
+		
+		final TupleResponse singleTupleResponse = new TupleResponse((short) 4, tablename, tuple);
+		final CompressionEnvelopeResponse compressionEnvelopeResponse = new CompressionEnvelopeResponse(
+				NetworkConst.COMPRESSION_TYPE_SNAPPY, Arrays.asList(singleTupleResponse));
+		final byte[] encodedPackage = networkPackageToByte(compressionEnvelopeResponse);
+		
+		// Package header (12 bytes)
+		Assert.assertEquals(NetworkConst.COMPRESSION_TYPE_NONE, encodedPackage[12]);
+		
+		final ByteBuffer bb = NetworkPackageDecoder.encapsulateBytes(encodedPackage);
+		final InputStream uncompressedByteStream = CompressionEnvelopeResponse.decodePackage(bb);
+		final byte[] uncompressedBytes = ByteStreams.toByteArray(uncompressedByteStream);
+		final ByteBuffer uncompressedByteBuffer = NetworkPackageDecoder.encapsulateBytes(uncompressedBytes);
+
+		final TupleResponse responseDecoded = TupleResponse.decodePackage(uncompressedByteBuffer);
+		Assert.assertEquals(singleTupleResponse.getTable(), responseDecoded.getTable());
+		Assert.assertEquals(singleTupleResponse.getTuple(), responseDecoded.getTuple());
+	}
+	
 	/**
 	 * The the encoding and decoding of a keep alive package
 	 * @throws IOException 
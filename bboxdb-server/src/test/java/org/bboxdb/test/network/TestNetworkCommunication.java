@@ -18,6 +18,8 @@
 package org.bboxdb.test.network;
 
 import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.concurrent.ExecutionException;
 
@@ -35,6 +37,7 @@ import org.bboxdb.network.client.BBoxDBConnection;
 import org.bboxdb.network.client.RoutingHeaderHelper;
 import org.bboxdb.network.client.future.EmptyResultFuture;
 import org.bboxdb.network.client.future.FutureRetryPolicy;
+import org.bboxdb.network.client.future.ThreadedTupleListFutureIterator;
 import org.bboxdb.network.client.future.TupleListFuture;
 import org.bboxdb.network.routing.RoutingHeader;
 import org.bboxdb.network.server.ErrorMessages;
@@ -529,6 +532,70 @@ public class TestNetworkCommunication {
 		disconnect(bboxDBClient);
 	}
 
+	
+	/**
+	 * Tuples that arrive shortly after each other are sent in one page
+	 * @throws InterruptedException
+	 * @throws BBoxDBException
+	 */
+	@Test(timeout=60000)
+	public void testTrickledContinousQuery() throws InterruptedException, BBoxDBException {
+		final BBoxDBConnection bboxdbConnection = connectToServer();
+		final BBoxDBClient bboxDBClient = bboxdbConnection.getBboxDBClient();
+
+		NetworkQueryHelper.testBoundingBoxQueryContinousTrickled(bboxdbConnection, DISTRIBUTION_GROUP);
+		disconnect(bboxDBClient);
+	}
+
+	/**
+	 * The continuous join returns the same result with a cached and an evicted join table
+	 * @throws BBoxDBException
+	 * @throws InterruptedException
+	 */
+	@Test(timeout=60000)
+	public void testContinuousJoinCache() throws InterruptedException, BBoxDBException {
+		final BBoxDBConnection bboxdbConnection = connectToServer();
+		final BBoxDBClient bboxDBClient = bboxdbConnection.getBboxDBClient();
+		
+		final String streamTable = DISTRIBUTION_GROUP + "_joinstream";
+		final String joinTable = DISTRIBUTION_GROUP + "_joinstored";
+		
+		for(final String table : Arrays.asList(streamTable, joinTable)) {
+			final EmptyResultFuture resultCreateTable = bboxDBClient.createTable(table, new TupleStoreConfiguration());
+			resultCreateTable.waitForCompletion();
+			Assert.assertFalse(resultCreateTable.isFailed());
+		}
+		
+		// Intersecting, intersecting after the enlargement and not intersecting
+		final List<Tuple> storedTuples = Arrays.asList(
+				new Tuple("a", new Hyperrectangle(0.5d, 1d, 0.5d, 1d), "".getBytes()),
+				new Tuple("b", new Hyperrectangle(1.5d, 1.8d, 1.5d, 1.8d), "".getBytes()),
+				new Tuple("c", new Hyperrectangle(5d, 6d, 5d, 6d), "".getBytes()));
+		
+		final EmptyResultFuture insertResult = bboxDBClient.insertTuples(joinTable, storedTuples);
+		insertResult.waitForCompletion();
+		Assert.assertFalse(insertResult.isFailed());
+		
+		final long cacheSize = BBoxDBConfigurationManager.getConfiguration().getContinuousJoinCacheSizeMax();
+		
+		try {
+			// The region cache is evicted while it is loaded
+			BBoxDBConfigurationManager.getConfiguration().setContinuousJoinCacheSizeMax(0);
+			final List<String> evictedResult = NetworkQueryHelper.executeContinuousJoin(
+					bboxDBClient, streamTable, joinTable, "s1");
+			
+			BBoxDBConfigurationManager.getConfiguration().setContinuousJoinCacheSizeMax(cacheSize);
+			final List<String> cachedResult = NetworkQueryHelper.executeContinuousJoin(
+					bboxDBClient, streamTable, joinTable, "s2");
+			
+			Assert.assertEquals(Arrays.asList("a"), evictedResult);
+			Assert.assertEquals(evictedResult, cachedResult);
+		} finally {
+			BBoxDBConfigurationManager.getConfiguration().setContinuousJoinCacheSizeMax(cacheSize);
+		}
+		
+		disconnect(bboxDBClient);
+	}
 
 	/**
 	 * Execute the version time query
@@ -668,6 +735,59 @@ public class TestNetworkCommunication {
 		disconnect(bboxDBClient);
 	}
 
+	/**
+	 * Insert some tuples and request it via paging with pages requested in advance
+	 * @throws ExecutionException
+	 * @throws InterruptedException
+	 * @throws BBoxDBException
+	 */
+	@Test(timeout=60000)
+	public void testPagingWithPrefetch() throws Exception {
+		System.out.println("=== Running testPagingWithPrefetch");
+		final String table = DISTRIBUTION_GROUP + "_relation9998";
+
+		final BBoxDBConnection bboxdbConnection = connectToServer();
+		final BBoxDBClient bboxDBClient = bboxdbConnection.getBboxDBClient();
+
+		// Create table
+		final EmptyResultFuture resultCreateTable = bboxDBClient.createTable(table, new TupleStoreConfiguration());
+		resultCreateTable.waitForCompletion();
+		Assert.assertFalse(resultCreateTable.isFailed());
+
+		final int numberOfTuples = 100;
+		
+		for(int i = 0; i < numberOfTuples; i++) {
+			final Tuple tuple = new Tuple(Integer.toString(i), new Hyperrectangle(0d, 1d, 0d, 1d), "abc".getBytes());
+			final EmptyResultFuture result = bboxDBClient.insertTuple(table, tuple);
+			result.waitForCompletion();
+			Assert.assertFalse(result.isFailed());
+		}
+
+		bboxDBClient.setPagingEnabled(true);
+		bboxDBClient.setTuplesPerPage((short) 3);
+
+		for(final int prefetchPages : Arrays.asList(1, 4, 50)) {
+			System.out.println("Prefetch pages = " + prefetchPages);
+			bboxDBClient.setPrefetchPages(prefetchPages);
+			
+			final TupleListFuture future = bboxDBClient.queryRectangle(table, new Hyperrectangle(-10d, 10d, -10d, 10d));
+			future.waitForCompletion();
+			Assert.assertFalse(future.isFailed());
+			
+			final ThreadedTupleListFutureIterator iterator = (ThreadedTupleListFutureIterator) future.iterator();
+			final List<Tuple> resultList = Lists.newArrayList(iterator);
+			iterator.close();
+			
+			Assert.assertEquals(numberOfTuples, resultList.size());
+			Assert.assertEquals(numberOfTuples, resultList.stream().map(t -> t.getKey()).distinct().count());
+			Assert.assertEquals(numberOfTuples, iterator.getDeliveredElements());
+			Assert.assertTrue(iterator.getRequestedPages() >= numberOfTuples / 3);
+		}
+
+		System.out.println("=== End testPagingWithPrefetch");
+		disconnect(bboxDBClient);
+	}
+
 	/**
 	 * Insert a tuple and request it via key
 	 * @throws ExecutionException
@@ -703,6 +823,50 @@ public class TestNetworkCommunication {
 		disconnect(bboxDBClient);
 	}
 
+	/**
+	 * Insert multiple tuples with one request and query them
+	 * @throws ExecutionException
+	 * @throws InterruptedException
+	 * @throws BBoxDBException
+	 */
+	@Test(timeout=60000)
+	public void testInsertTuples() throws InterruptedException, ExecutionException, BBoxDBException {
+		System.out.println("=== Running testInsertTuples");
+		final String table = DISTRIBUTION_GROUP + "_relation12335";
+
+		final BBoxDBConnection bboxdbConnection = connectToServer();
+		final BBoxDBClient bboxDBClient = bboxdbConnection.getBboxDBClient();
+
+		// Create table
+		final EmptyResultFuture resultCreateTable = bboxDBClient.createTable(table, new TupleStoreConfiguration());
+		resultCreateTable.waitForCompletion();
+		Assert.assertFalse(resultCreateTable.isFailed());
+
+		final List<Tuple> tuples = new ArrayList<>();
+		
+		for(int i = 0; i < 100; i++) {
+			final double pos = (double) i;
+			tuples.add(new Tuple(Integer.toString(i), new Hyperrectangle(pos, pos + 1, pos, pos + 1), 
+					"abc".getBytes()));
+		}
+		
+		final EmptyResultFuture insertResult = bboxDBClient.insertTuples(table, tuples);
+		insertResult.waitForCompletion();
+		Assert.assertFalse(insertResult.isFailed());
+
+		final TupleListFuture keyFuture = bboxDBClient.queryKey(table, "42");
+		keyFuture.waitForCompletion();
+		Assert.assertEquals(1, Lists.newArrayList(keyFuture.iterator()).size());
+		
+		final TupleListFuture bboxFuture = bboxDBClient.queryRectangle(table, 
+				new Hyperrectangle(-1d, 10.5d, -1d, 10.5d));
+		bboxFuture.waitForCompletion();
+		Assert.assertEquals(11, Lists.newArrayList(bboxFuture.iterator()).size());
+
+		System.out.println("=== End testInsertTuples");
+		disconnect(bboxDBClient);
+	}
+
 	/**
 	 * Insert a tuple and request it via key
 	 * @throws ExecutionException
@@ -790,10 +954,14 @@ public class TestNetworkCommunication {
 
 		if(compressPackages()) {
 			bboxDBClient.getClientCapabilities().setGZipCompression();
+			bboxDBClient.getClientCapabilities().setSnappyCompression();
 			Assert.assertTrue(bboxDBClient.getClientCapabilities().hasGZipCompression());
+			Assert.assertTrue(bboxDBClient.getClientCapabilities().hasSnappyCompression());
 		} else {
 			bboxDBClient.getClientCapabilities().clearGZipCompression();
+			bboxDBClient.getClientCapabilities().clearSnappyCompression();
 			Assert.assertFalse(bboxDBClient.getClientCapabilities().hasGZipCompression());
+			Assert.assertFalse(bboxDBClient.getClientCapabilities().hasSnappyCompression());
 		}
 
 		Assert.assertFalse(bboxDBClient.isConnected());
@@ -803,8 +971,11 @@ public class TestNetworkCommunication {
 
 		if(compressPackages()) {
 			Assert.assertTrue(bboxDBClient.getConnectionCapabilities().hasGZipCompression());
+			Assert.assertTrue(bboxDBClient.getConnectionCapabilities().hasSnappyCompression());
+			Assert.assertTrue(bboxDBClient.getConnectionCapabilities().isNegotiated());
 		} else {
 			Assert.assertFalse(bboxDBClient.getConnectionCapabilities().hasGZipCompression());
+			Assert.assertFalse(bboxDBClient.getConnectionCapabilities().hasSnappyCompression());
 		}
 
 		return bboxDBClient;
@@ -0,0 +1,222 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2018 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.test.network;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.bboxdb.commons.math.Hyperrectangle;
+import org.bboxdb.distribution.membership.BBoxDBInstance;
+import org.bboxdb.network.NetworkPackageDecoder;
+import org.bboxdb.network.packages.NetworkPackage;
+import org.bboxdb.network.packages.PackageEncodeException;
+import org.bboxdb.network.packages.request.InsertTupleRequest;
+import org.bboxdb.network.packages.request.KeepAliveRequest;
+import org.bboxdb.network.routing.RoutingHeader;
+import org.bboxdb.network.routing.RoutingHop;
+import org.bboxdb.network.server.connection.PackageFramer;
+import org.bboxdb.storage.entity.Tuple;
+import org.bboxdb.storage.entity.TupleStoreName;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestPackageFramer {
+
+	/**
+	 * A routed header
+	 */
+	private final static RoutingHeader ROUTING_HEADER_ROUTED = new RoutingHeader((short) 0, 
+			Arrays.asList(new RoutingHop(new BBoxDBInstance("127.0.0.1:8080"), Arrays.asList(1l, 6l))));
+	
+	/**
+	 * A unrouted header
+	 */
+	private final static RoutingHeader ROUTING_HEADER_UNROUTED = new RoutingHeader(false);
+	
+	/**
+	 * Read a single package in one read
+	 * @throws Exception
+	 */
+	@Test(timeout=60000)
+	public void testSinglePackage() throws Exception {
+		final byte[] encodedPackage = encodePackage(new KeepAliveRequest((short) 1));
+		
+		final List<ByteBuffer> packages = new ArrayList<>();
+		final PackageFramer framer = new PackageFramer(packages::add);
+		framer.readPackages(ByteBuffer.wrap(encodedPackage));
+		
+		Assert.assertEquals(1, packages.size());
+		Assert.assertArrayEquals(encodedPackage, packages.get(0).array());
+		Assert.assertFalse(framer.isPackagePending());
+	}
+	
+	/**
+	 * Read a package byte by byte
+	 * @throws Exception
+	 */
+	@Test(timeout=60000)
+	public void testPartialReads() throws Exception {
+		final byte[] encodedPackage = encodePackage(getInsertRequest((short) 1, ROUTING_HEADER_UNROUTED));
+		
+		final List<ByteBuffer> packages = new ArrayList<>();
+		final PackageFramer framer = new PackageFramer(packages::add);
+		
+		for(int i = 0; i < encodedPackage.length; i++) {
+			Assert.assertTrue(packages.isEmpty());
+			framer.readPackages(ByteBuffer.wrap(encodedPackage, i, 1));
+		}
+		
+		Assert.assertEquals(1, packages.size());
+		Assert.assertArrayEquals(encodedPackage, packages.get(0).array());
+		Assert.assertFalse(framer.isPackagePending());
+	}
+	
+	/**
+	 * Read a package that is split in the header and in the body
+	 * @throws Exception
+	 */
+	@Test(timeout=60000)
+	public void testSplitFrames() throws Exception {
+		final byte[] encodedPackage = encodePackage(getInsertRequest((short) 1, ROUTING_HEADER_ROUTED));
+		
+		// Split in the header, in the routing list and in the body
+		final int[] splitPositions = {5, PackageFramer.PACKAGE_HEADER_LENGTH + 3, encodedPackage.length - 4};
+		
+		final List<ByteBuffer> packages = new ArrayList<>();
+		final PackageFramer framer = new PackageFramer(packages::add);
+		
+		int position = 0;
+		for(final int splitPosition : splitPositions) {
+			framer.readPackages(ByteBuffer.wrap(encodedPackage, position, splitPosition - position));
+			position = splitPosition;
+			Assert.assertTrue(packages.isEmpty());
+			Assert.assertTrue(framer.isPackagePending());
+		}
+		
+		framer.readPackages(ByteBuffer.wrap(encodedPackage, position, encodedPackage.length - position));
+		
+		Assert.assertEquals(1, packages.size());
+		Assert.assertArrayEquals(encodedPackage, packages.get(0).array());
+		Assert.assertFalse(framer.isPackagePending());
+	}
+	
+	/**
+	 * Read multiple routed and unrouted packages in one read, the last package is 
+	 * completed by the next read
+	 * @throws Exception
+	 */
+	@Test(timeout=60000)
+	public void testMultiplePackagesPerRead() throws Exception {
+		final List<byte[]> encodedPackages = new ArrayList<>();
+		
+		for(short i = 0; i < 10; i++) {
+			final RoutingHeader routingHeader = (i % 2 == 0) ? ROUTING_HEADER_ROUTED : ROUTING_HEADER_UNROUTED;
+			encodedPackages.add(encodePackage(getInsertRequest(i, routingHeader)));
+		}
+		
+		final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		for(final byte[] encodedPackage : encodedPackages) {
+			bos.write(encodedPackage);
+		}
+		final byte[] data = bos.toByteArray();
+		
+		final List<ByteBuffer> packages = new ArrayList<>();
+		final PackageFramer framer = new PackageFramer(packages::add);
+		
+		framer.readPackages(ByteBuffer.wrap(data, 0, data.length - 10));
+		Assert.assertEquals(9, packages.size());
+		Assert.assertTrue(framer.isPackagePending());
+
+		framer.readPackages(ByteBuffer.wrap(data, data.length - 10, 10));
+		Assert.assertEquals(10, packages.size());
+		Assert.assertFalse(framer.isPackagePending());
+
+		for(short i = 0; i < 10; i++) {
+			final ByteBuffer encodedPackage = packages.get(i);
+			Assert.assertArrayEquals(encodedPackages.get(i), encodedPackage.array());
+			Assert.assertEquals(i, NetworkPackageDecoder.getRequestIDFromRequestPackage(encodedPackage));
+			
+			final ByteBuffer bb = NetworkPackageDecoder.encapsulateBytes(encodedPackage.array());
+			final InsertTupleRequest request = InsertTupleRequest.decodeTuple(bb);
+			Assert.assertEquals("key" + i, request.getTuple().getKey());
+		}
+	}
+	
+	/**
+	 * Test the header length of routed and unrouted packages
+	 * @throws Exception
+	 */
+	@Test(timeout=60000)
+	public void testHeaderLength() throws Exception {
+		final byte[] unroutedPackage = encodePackage(getInsertRequest((short) 1, ROUTING_HEADER_UNROUTED));
+		final byte[] routedPackage = encodePackage(getInsertRequest((short) 1, ROUTING_HEADER_ROUTED));
+		
+		Assert.assertEquals(PackageFramer.PACKAGE_HEADER_LENGTH, 
+				PackageFramer.getPackageHeaderLength(ByteBuffer.wrap(unroutedPackage)));
+		
+		// The body is identical, so the size difference is the routing list
+		Assert.assertEquals(PackageFramer.PACKAGE_HEADER_LENGTH + routedPackage.length - unroutedPackage.length, 
+				PackageFramer.getPackageHeaderLength(ByteBuffer.wrap(routedPackage)));
+	}
+	
+	/**
+	 * An invalid routing type is rejected
+	 * @throws Exception
+	 */
+	@Test(expected=PackageEncodeException.class)
+	public void testInvalidRoutingType() throws Exception {
+		final byte[] encodedPackage = encodePackage(new KeepAliveRequest((short) 1));
+		encodedPackage[12] = 0x7f;
+		
+		final PackageFramer framer = new PackageFramer((p) -> {});
+		framer.readPackages(ByteBuffer.wrap(encodedPackage));
+	}
+
+	/**
+	 * Get a insert request
+	 * @param sequenceNumber
+	 * @param routingHeader
+	 * @return
+	 */
+	private InsertTupleRequest getInsertRequest(final short sequenceNumber, 
+			final RoutingHeader routingHeader) {
+		
+		final Tuple tuple = new Tuple("key" + sequenceNumber, Hyperrectangle.FULL_SPACE, "abc".getBytes(), 12);
+		return new InsertTupleRequest(sequenceNumber, routingHeader, new TupleStoreName("test"), tuple);
+	}
+
+	/**
+	 * Encode the package
+	 * @param networkPackage
+	 * @return
+	 * @throws IOException
+	 * @throws PackageEncodeException
+	 */
+	private byte[] encodePackage(final NetworkPackage networkPackage) 
+			throws IOException, PackageEncodeException {
+		
+		final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+		networkPackage.writeToOutputStream(bos);
+		bos.close();
+		return bos.toByteArray();
+	}
+}
@@ -17,6 +17,7 @@
  *******************************************************************************/
 package org.bboxdb.test.network;
 
+import org.bboxdb.network.NetworkCompression;
 import org.bboxdb.network.capabilities.PeerCapabilities;
 import org.junit.Assert;
 import org.junit.Test;
@@ -63,6 +64,113 @@ public class TestPeerCapabilities {
 		peerCapabilities.clearGZipCompression();
 	}
 	
+	/**
+	 * Test the compression bits
+	 */
+	@Test(timeout=60000)
+	public void testCompressionBits() {
+		final PeerCapabilities peerCapabilities = new PeerCapabilities();
+		Assert.assertFalse(peerCapabilities.hasCompression());
+		
+		peerCapabilities.setSnappyCompression();
+		Assert.assertTrue(peerCapabilities.hasSnappyCompression());
+		Assert.assertFalse(peerCapabilities.hasGZipCompression());
+		Assert.assertTrue(peerCapabilities.hasCompression());
+		
+		final PeerCapabilities decodedCapabilities = new PeerCapabilities(peerCapabilities.toByteArray());
+		Assert.assertTrue(decodedCapabilities.hasSnappyCompression());
+		
+		peerCapabilities.clearSnappyCompression();
+		Assert.assertFalse(peerCapabilities.hasCompression());
+	}
+	
+	/**
+	 * Test the zstd and the negotiated bit
+	 */
+	@Test(timeout=60000)
+	public void testZstdAndNegotiatedBits() {
+		final PeerCapabilities peerCapabilities = new PeerCapabilities();
+		Assert.assertFalse(peerCapabilities.isNegotiated());
+		
+		peerCapabilities.setZstdCompression();
+		peerCapabilities.setNegotiated();
+		Assert.assertTrue(peerCapabilities.hasZstdCompression());
+		Assert.assertTrue(peerCapabilities.hasCompression());
+		
+		final PeerCapabilities decodedCapabilities = new PeerCapabilities(peerCapabilities.toByteArray());
+		Assert.assertTrue(decodedCapabilities.hasZstdCompression());
+		Assert.assertTrue(decodedCapabilities.isNegotiated());
+		Assert.assertFalse(decodedCapabilities.hasSnappyCompression());
+		
+		peerCapabilities.clearZstdCompression();
+		Assert.assertFalse(peerCapabilities.hasCompression());
+	}
+	
+	/**
+	 * Echoed capabilities (older servers) are only trusted for gzip
+	 */
+	@Test(timeout=60000)
+	public void testCompressionForPeer() {
+		final PeerCapabilities echoedCapabilities = new PeerCapabilities();
+		echoedCapabilities.setGZipCompression();
+		echoedCapabilities.setSnappyCompression();
+		echoedCapabilities.setZstdCompression();
+		Assert.assertEquals(NetworkCompression.GZIP, NetworkCompression.getCompressionForPeer(echoedCapabilities));
+		
+		final PeerCapabilities negotiatedCapabilities = new PeerCapabilities();
+		negotiatedCapabilities.setNegotiated();
+		Assert.assertNull(NetworkCompression.getCompressionForPeer(negotiatedCapabilities));
+
+		negotiatedCapabilities.setGZipCompression();
+		Assert.assertEquals(NetworkCompression.GZIP, NetworkCompression.getCompressionForPeer(negotiatedCapabilities));
+		
+		negotiatedCapabilities.setSnappyCompression();
+		Assert.assertEquals(NetworkCompression.SNAPPY, NetworkCompression.getCompressionForPeer(negotiatedCapabilities));
+		
+		negotiatedCapabilities.setZstdCompression();
+		final NetworkCompression expected = NetworkCompression.isZstdAvailable() 
+				? NetworkCompression.ZSTD : NetworkCompression.SNAPPY;
+		Assert.assertEquals(expected, NetworkCompression.getCompressionForPeer(negotiatedCapabilities));
+	}
+	
+	/**
+	 * The reference point filter is only trusted on negotiated connections
+	 */
+	@Test(timeout=60000)
+	public void testReferencePointFilter() {
+		final PeerCapabilities peerCapabilities = new PeerCapabilities();
+		Assert.assertFalse(peerCapabilities.hasReferencePointFilter());
+		
+		peerCapabilities.setReferencePointFilter();
+		Assert.assertFalse(peerCapabilities.hasReferencePointFilter());
+		Assert.assertFalse(peerCapabilities.hasCompression());
+
+		peerCapabilities.setNegotiated();
+		Assert.assertTrue(peerCapabilities.hasReferencePointFilter());
+		
+		final PeerCapabilities copy = new PeerCapabilities(peerCapabilities.toByteArray());
+		Assert.assertTrue(copy.hasReferencePointFilter());
+	}
+	
+	/**
+	 * The result credits are only sent on negotiated connections
+	 */
+	@Test(timeout=60000)
+	public void testResultCredits() {
+		final PeerCapabilities peerCapabilities = new PeerCapabilities();
+		Assert.assertFalse(peerCapabilities.hasResultCredits());
+		
+		peerCapabilities.setResultCredits();
+		Assert.assertFalse(peerCapabilities.hasResultCredits());
+		Assert.assertFalse(peerCapabilities.hasReferencePointFilter());
+
+		peerCapabilities.setNegotiated();
+		Assert.assertTrue(peerCapabilities.hasResultCredits());
+		
+		final PeerCapabilities copy = new PeerCapabilities(peerCapabilities.toByteArray());
+		Assert.assertTrue(copy.hasResultCredits());
+	}
+	
 	/**
 	 * Test creation with empty bytes
 	 */
@@ -0,0 +1,226 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2018 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.test.query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.bboxdb.commons.MicroSecondTimestampProvider;
+import org.bboxdb.commons.math.Hyperrectangle;
+import org.bboxdb.misc.BBoxDBException;
+import org.bboxdb.network.query.entity.TupleAndBoundingBox;
+import org.bboxdb.network.server.ContinuousJoinRegionCache;
+import org.bboxdb.storage.StorageManagerException;
+import org.bboxdb.storage.entity.Tuple;
+import org.bboxdb.storage.entity.TupleStoreConfigurationBuilder;
+import org.bboxdb.storage.entity.TupleStoreName;
+import org.bboxdb.storage.tuplestore.manager.TupleStoreManager;
+import org.bboxdb.storage.tuplestore.manager.TupleStoreManagerRegistry;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class TestContinuousJoinRegionCache {
+	
+	/**
+	 * The name of the test relation
+	 */
+	private final static TupleStoreName TEST_RELATION = new TupleStoreName("testgroup1_joincache");
+	
+	/**
+	 * The storage registry
+	 */
+	private static TupleStoreManagerRegistry storageRegistry;
+	
+	/**
+	 * The instance of the storage manager
+	 */
+	private TupleStoreManager storageManager;
+	
+	@BeforeClass
+	public static void beforeClass() throws InterruptedException, BBoxDBException {
+		storageRegistry = new TupleStoreManagerRegistry();
+		storageRegistry.init();
+	}
+	
+	@AfterClass
+	public static void afterClass() {
+		if(storageRegistry != null) {
+			storageRegistry.shutdown();
+			storageRegistry = null;
+		}
+	}
+
+	@Before
+	public void init() throws StorageManagerException {
+		storageRegistry.deleteTable(TEST_RELATION);
+		storageRegistry.createTable(TEST_RELATION, TupleStoreConfigurationBuilder.create().build());
+		storageManager = storageRegistry.getTupleStoreManager(TEST_RELATION);
+	}
+	
+	/**
+	 * Insert tuples with the boxes [i, i+1] x [i, i+1]
+	 * @param from
+	 * @param to
+	 * @throws Exception
+	 */
+	private void insertTuples(final int from, final int to) throws Exception {
+		for(int i = from; i < to; i++) {
+			final Hyperrectangle box = new Hyperrectangle((double) i, (double) i + 1, (double) i, (double) i + 1);
+			storageManager.put(new Tuple(Integer.toString(i), box, "abc".getBytes()));
+		}
+	}
+	
+	/**
+	 * Get the keys of the cached tuples in the bounding box
+	 * @param cache
+	 * @param boundingBox
+	 * @return
+	 */
+	private List<String> getKeys(final ContinuousJoinRegionCache cache, final Hyperrectangle boundingBox) {
+		final List<String> keys = new ArrayList<>();
+		
+		for(final TupleAndBoundingBox tuple : cache.getTuples(boundingBox, true)) {
+			keys.add(tuple.getTuple().getKey());
+		}
+		
+		return keys;
+	}
+	
+	@Test(timeout=60000)
+	public void testFillCache() throws Exception {
+		final AtomicLong usedBytes = new AtomicLong(0);
+		
+		insertTuples(0, 10);
+		
+		final ContinuousJoinRegionCache cache = new ContinuousJoinRegionCache(storageManager, 
+				new ArrayList<>(), usedBytes, Long.MAX_VALUE);
+		
+		cache.load();
+		Assert.assertFalse(cache.isEvicted());
+		Assert.assertEquals(10, cache.getCachedTuples());
+		Assert.assertTrue(cache.getCachedBytes() > 0);
+		Assert.assertEquals(cache.getCachedBytes(), usedBytes.get());
+		
+		final List<String> keys = getKeys(cache, new Hyperrectangle(2.5, 3.5, 2.5, 3.5));
+		Assert.assertEquals(2, keys.size());
+		Assert.assertTrue(keys.contains("2"));
+		Assert.assertTrue(keys.contains("3"));
+		
+		// New tuples are added by the insert callback
+		insertTuples(10, 20);
+		Assert.assertEquals(20, cache.getCachedTuples());
+		Assert.assertEquals(cache.getCachedBytes(), usedBytes.get());
+		
+		// A new version replaces the cached version
+		final long bytesBeforeUpdate = cache.getCachedBytes();
+		storageManager.put(new Tuple("5", new Hyperrectangle(100d, 101d, 100d, 101d), "abc".getBytes()));
+		Assert.assertEquals(20, cache.getCachedTuples());
+		Assert.assertEquals(bytesBeforeUpdate, cache.getCachedBytes());
+		Assert.assertFalse(getKeys(cache, new Hyperrectangle(5.5, 5.6, 5.5, 5.6)).contains("5"));
+		Assert.assertTrue(getKeys(cache, new Hyperrectangle(100.5, 100.6, 100.5, 100.6)).contains("5"));
+
+		// A deletion removes the tuple
+		storageManager.delete("5", MicroSecondTimestampProvider.getNewTimestamp());
+		Assert.assertEquals(19, cache.getCachedTuples());
+		Assert.assertTrue(cache.getCachedBytes() < bytesBeforeUpdate);
+		Assert.assertEquals(cache.getCachedBytes(), usedBytes.get());
+		
+		cache.close();
+	}
+	
+	@Test(timeout=60000)
+	public void testEvictOnLoad() throws Exception {
+		final AtomicLong usedBytes = new AtomicLong(0);
+		
+		insertTuples(0, 100);
+		
+		final ContinuousJoinRegionCache cache = new ContinuousJoinRegionCache(storageManager, 
+				new ArrayList<>(), usedBytes, 1024);
+		
+		cache.load();
+		Assert.assertTrue(cache.isEvicted());
+		Assert.assertEquals(0, cache.getCachedTuples());
+		Assert.assertEquals(0, cache.getCachedBytes());
+		Assert.assertEquals(0, usedBytes.get());
+	}
+	
+	@Test(timeout=60000)
+	public void testEvictOnInsert() throws Exception {
+		final AtomicLong usedBytes = new AtomicLong(0);
+		
+		insertTuples(0, 2);
+
+		final ContinuousJoinRegionCache cache1 = new ContinuousJoinRegionCache(storageManager, 
+				new ArrayList<>(), usedBytes, 4096);
+		final ContinuousJoinRegionCache cache2 = new ContinuousJoinRegionCache(storageManager, 
+				new ArrayList<>(), usedBytes, 4096);
+		
+		cache1.load();
+		cache2.load();
+		Assert.assertFalse(cache1.isEvicted());
+		Assert.assertFalse(cache2.isEvicted());
+		Assert.assertEquals(cache1.getCachedBytes() + cache2.getCachedBytes(), usedBytes.get());
+		
+		// The budget is shared, the cache that exceeds the budget is evicted
+		int insertedTuples = 2;
+		while(! cache1.isEvicted() && ! cache2.isEvicted()) {
+			insertTuples(insertedTuples, insertedTuples + 1);
+			insertedTuples++;
+		}
+		
+		Assert.assertTrue(insertedTuples < 100);
+		Assert.assertTrue(cache1.isEvicted() != cache2.isEvicted());
+		
+		final ContinuousJoinRegionCache evictedCache = cache1.isEvicted() ? cache1 : cache2;
+		final ContinuousJoinRegionCache activeCache = cache1.isEvicted() ? cache2 : cache1;
+		
+		Assert.assertEquals(0, evictedCache.getCachedBytes());
+		Assert.assertEquals(insertedTuples, activeCache.getCachedTuples());
+		Assert.assertEquals(activeCache.getCachedBytes(), usedBytes.get());
+		Assert.assertTrue(usedBytes.get() <= 4096);
+		
+		activeCache.close();
+		Assert.assertEquals(0, usedBytes.get());
+	}
+	
+	@Test(timeout=60000)
+	public void testReleaseCache() throws Exception {
+		final AtomicLong usedBytes = new AtomicLong(0);
+		
+		insertTuples(0, 10);
+
+		final ContinuousJoinRegionCache cache = new ContinuousJoinRegionCache(storageManager, 
+				new ArrayList<>(), usedBytes, Long.MAX_VALUE);
+		
+		cache.load();
+		Assert.assertEquals(10, cache.getCachedTuples());
+		
+		cache.close();
+		Assert.assertEquals(0, cache.getCachedTuples());
+		Assert.assertEquals(0, usedBytes.get());
+		
+		// The callbacks are removed
+		insertTuples(10, 20);
+		Assert.assertEquals(0, cache.getCachedTuples());
+		Assert.assertEquals(0, usedBytes.get());
+	}
+}
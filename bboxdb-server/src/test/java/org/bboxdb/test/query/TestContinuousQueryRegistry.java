@@ -0,0 +1,179 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2018 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.test.query;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.bboxdb.commons.math.Hyperrectangle;
+import org.bboxdb.misc.BBoxDBException;
+import org.bboxdb.network.query.ContinuousConstQueryPlan;
+import org.bboxdb.network.query.transformation.EnlargeBoundingBoxByAmountTransformation;
+import org.bboxdb.network.query.transformation.KeyFilterTransformation;
+import org.bboxdb.network.query.transformation.TupleTransformation;
+import org.bboxdb.network.server.ContinuousQueryRegistry;
+import org.bboxdb.storage.StorageManagerException;
+import org.bboxdb.storage.entity.Tuple;
+import org.bboxdb.storage.entity.TupleStoreConfigurationBuilder;
+import org.bboxdb.storage.entity.TupleStoreName;
+import org.bboxdb.storage.tuplestore.manager.TupleStoreManager;
+import org.bboxdb.storage.tuplestore.manager.TupleStoreManagerRegistry;
+import org.junit.AfterClass;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+public class TestContinuousQueryRegistry {
+	
+	/**
+	 * The name of the test relation
+	 */
+	private final static TupleStoreName TEST_RELATION = new TupleStoreName("testgroup1_cqueries");
+	
+	/**
+	 * The storage registry
+	 */
+	private static TupleStoreManagerRegistry storageRegistry;
+	
+	/**
+	 * The instance of the storage manager
+	 */
+	private TupleStoreManager storageManager;
+	
+	@BeforeClass
+	public static void beforeClass() throws InterruptedException, BBoxDBException {
+		storageRegistry = new TupleStoreManagerRegistry();
+		storageRegistry.init();
+	}
+	
+	@AfterClass
+	public static void afterClass() {
+		if(storageRegistry != null) {
+			storageRegistry.shutdown();
+			storageRegistry = null;
+		}
+	}
+
+	@Before
+	public void init() throws StorageManagerException {
+		storageRegistry.deleteTable(TEST_RELATION);
+		storageRegistry.createTable(TEST_RELATION, TupleStoreConfigurationBuilder.create().build());
+		storageManager = storageRegistry.getTupleStoreManager(TEST_RELATION);
+	}
+	
+	/**
+	 * Register a const query and return the received tuples
+	 * @param transformations
+	 * @param compareRectangle
+	 * @param reportPositive
+	 * @param callbacks 
+	 * @return
+	 */
+	private List<Tuple> registerQuery(final List<TupleTransformation> transformations, 
+			final Hyperrectangle compareRectangle, final boolean reportPositive, 
+			final List<Consumer<Tuple>> callbacks) {
+		
+		final List<Tuple> receivedTuples = new ArrayList<>();
+		final Consumer<Tuple> callback = (t) -> receivedTuples.add(t);
+		
+		final ContinuousConstQueryPlan queryPlan = new ContinuousConstQueryPlan(TEST_RELATION.getFullname(), 
+				transformations, Hyperrectangle.FULL_SPACE, compareRectangle, reportPositive);
+		
+		ContinuousQueryRegistry.registerQuery(storageManager, queryPlan, callback);
+		callbacks.add(callback);
+
+		return receivedTuples;
+	}
+	
+	@Test(timeout=60000)
+	public void testDispatchTuples() throws Exception {
+		final List<Consumer<Tuple>> callbacks = new ArrayList<>();
+		
+		final List<Tuple> positive1 = registerQuery(new ArrayList<>(), 
+				new Hyperrectangle(0d, 10d, 0d, 10d), true, callbacks);
+		final List<Tuple> positive2 = registerQuery(new ArrayList<>(), 
+				new Hyperrectangle(20d, 30d, 20d, 30d), true, callbacks);
+		final List<Tuple> negative = registerQuery(new ArrayList<>(), 
+				new Hyperrectangle(0d, 10d, 0d, 10d), false, callbacks);
+		final List<Tuple> fullSpace = registerQuery(new ArrayList<>(), 
+				Hyperrectangle.FULL_SPACE, true, callbacks);
+		final List<Tuple> enlarged = registerQuery(
+				Arrays.asList(new EnlargeBoundingBoxByAmountTransformation(5)), 
+				new Hyperrectangle(24d, 25d, 24d, 25d), true, callbacks);
+		final List<Tuple> keyFilter = registerQuery(
+				Arrays.asList(new KeyFilterTransformation("key2")), 
+				new Hyperrectangle(0d, 100d, 0d, 100d), true, callbacks);
+		
+		Assert.assertEquals(6, ContinuousQueryRegistry.getRegisteredQueries(storageManager));
+
+		final Tuple tuple1 = new Tuple("key1", new Hyperrectangle(1d, 2d, 1d, 2d), "abc".getBytes());
+		final Tuple tuple2 = new Tuple("key2", new Hyperrectangle(21d, 22d, 21d, 22d), "abc".getBytes());
+		final Tuple tuple3 = new Tuple("key3", new Hyperrectangle(1d, 2d, 1d, 2d, 1d, 2d), "abc".getBytes());
+		
+		storageManager.put(tuple1);
+		storageManager.put(tuple2);
+		storageManager.put(tuple3);
+		
+		Assert.assertEquals(Arrays.asList(tuple1), positive1);
+		Assert.assertEquals(Arrays.asList(tuple2), positive2);
+		Assert.assertEquals(Arrays.asList(tuple2, tuple3), negative);
+		Assert.assertEquals(Arrays.asList(tuple1, tuple2, tuple3), fullSpace);
+		Assert.assertEquals(Arrays.asList(tuple2), enlarged);
+		Assert.assertEquals(Arrays.asList(tuple2), keyFilter);
+		
+		for(final Consumer<Tuple> callback : callbacks) {
+			Assert.assertTrue(ContinuousQueryRegistry.removeQuery(storageManager, callback));
+			Assert.assertFalse(ContinuousQueryRegistry.removeQuery(storageManager, callback));
+		}
+		
+		Assert.assertEquals(0, ContinuousQueryRegistry.getRegisteredQueries(storageManager));
+
+		storageManager.put(tuple1);
+		Assert.assertEquals(1, positive1.size());
+		Assert.assertEquals(3, fullSpace.size());
+	}
+	
+	@Test(timeout=60000)
+	public void testManyQueries() throws Exception {
+		final List<Consumer<Tuple>> callbacks = new ArrayList<>();
+		final List<List<Tuple>> results = new ArrayList<>();
+		
+		for(int i = 0; i < 1000; i++) {
+			final Hyperrectangle compareRectangle = new Hyperrectangle((double) i, (double) i + 0.5, 0d, 1d);
+			results.add(registerQuery(new ArrayList<>(), compareRectangle, true, callbacks));
+		}
+		
+		for(int i = 0; i < 1000; i++) {
+			final Hyperrectangle boundingBox = new Hyperrectangle((double) i + 0.1, (double) i + 0.2, 0d, 1d);
+			storageManager.put(new Tuple(Integer.toString(i), boundingBox, "abc".getBytes()));
+		}
+		
+		for(int i = 0; i < 1000; i++) {
+			final List<Tuple> result = results.get(i);
+			Assert.assertEquals(1, result.size());
+			Assert.assertEquals(Integer.toString(i), result.get(0).getKey());
+		}
+		
+		for(final Consumer<Tuple> callback : callbacks) {
+			ContinuousQueryRegistry.removeQuery(storageManager, callback);
+		}
+	}
+}
@@ -0,0 +1,136 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2018 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.test.storage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import org.bboxdb.storage.entity.TupleStoreName;
+import org.bboxdb.storage.sstable.compact.CompactScheduler;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestCompactScheduler {
+
+	/**
+	 * Test the execution order of the compactions
+	 * @throws InterruptedException
+	 */
+	@Test(timeout=60000)
+	public void testCompactPriority() throws InterruptedException {
+		final CompactScheduler compactScheduler = new CompactScheduler("test", 1, 0);
+		final CountDownLatch blockLatch = new CountDownLatch(1);
+		final CountDownLatch doneLatch = new CountDownLatch(3);
+		final List<String> executedTasks = Collections.synchronizedList(new ArrayList<>());
+		
+		try {
+			// Block the compact thread
+			Assert.assertTrue(compactScheduler.scheduleCompact(new TupleStoreName("testgroup1_block"), 
+					1, () -> awaitLatch(blockLatch)));
+			
+			while(compactScheduler.getRunningCompactions() != 1) {
+				Thread.sleep(10);
+			}
+			
+			for(final int priority : Arrays.asList(1, 10, 5)) {
+				final String name = "testgroup1_relation" + priority;
+				
+				Assert.assertTrue(compactScheduler.scheduleCompact(new TupleStoreName(name), priority, () -> {
+					executedTasks.add(name);
+					doneLatch.countDown();
+				}));
+			}
+			
+			Assert.assertEquals(3, compactScheduler.getPendingCompactions());
+			Assert.assertEquals(1, compactScheduler.getRunningCompactions());
+			
+			blockLatch.countDown();
+			doneLatch.await();
+			
+			Assert.assertEquals(Arrays.asList("testgroup1_relation10", "testgroup1_relation5", 
+					"testgroup1_relation1"), executedTasks);
+		} finally {
+			blockLatch.countDown();
+			compactScheduler.shutdown();
+		}
+	}
+	
+	/**
+	 * Only one compaction per tuple store can be scheduled
+	 * @throws InterruptedException
+	 */
+	@Test(timeout=60000)
+	public void testScheduleTwice() throws InterruptedException {
+		final CompactScheduler compactScheduler = new CompactScheduler("test", 2, 0);
+		final CountDownLatch blockLatch = new CountDownLatch(1);
+		final TupleStoreName tupleStoreName = new TupleStoreName("testgroup1_relation1");
+		
+		try {
+			Assert.assertFalse(compactScheduler.isCompactScheduled(tupleStoreName));
+			Assert.assertTrue(compactScheduler.scheduleCompact(tupleStoreName, 1, () -> awaitLatch(blockLatch)));
+			Assert.assertTrue(compactScheduler.isCompactScheduled(tupleStoreName));
+			Assert.assertFalse(compactScheduler.scheduleCompact(tupleStoreName, 1, () -> {}));
+			
+			blockLatch.countDown();
+			
+			while(compactScheduler.isCompactScheduled(tupleStoreName)) {
+				Thread.sleep(10);
+			}
+			
+			Assert.assertEquals(0, compactScheduler.getRunningCompactions());
+			Assert.assertEquals(0, compactScheduler.getPendingCompactions());
+			Assert.assertTrue(compactScheduler.scheduleCompact(tupleStoreName, 1, () -> {}));
+		} finally {
+			blockLatch.countDown();
+			compactScheduler.shutdown();
+		}
+		
+		Assert.assertFalse(compactScheduler.scheduleCompact(tupleStoreName, 1, () -> {}));
+	}
+	
+	/**
+	 * Test the rate limiter
+	 * @throws InterruptedException
+	 */
+	@Test(timeout=60000)
+	public void testRateLimiter() throws InterruptedException {
+		final CompactScheduler compactScheduler1 = new CompactScheduler("test", 1, 0);
+		Assert.assertNull(compactScheduler1.getRateLimiter());
+		compactScheduler1.shutdown();
+		
+		final CompactScheduler compactScheduler2 = new CompactScheduler("test", 1, 1024);
+		Assert.assertNotNull(compactScheduler2.getRateLimiter());
+		Assert.assertEquals(1024, compactScheduler2.getRateLimiter().getRate(), 0.001);
+		compactScheduler2.shutdown();
+	}
+	
+	/**
+	 * Wait for the latch
+	 * @param latch
+	 */
+	private void awaitLatch(final CountDownLatch latch) {
+		try {
+			latch.await();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
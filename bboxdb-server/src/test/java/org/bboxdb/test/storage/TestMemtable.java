@@ -18,8 +18,10 @@
 package org.bboxdb.test.storage;
 
 
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.bboxdb.commons.MicroSecondTimestampProvider;
 import org.bboxdb.commons.ObjectSerializer;
@@ -33,6 +35,7 @@ import org.bboxdb.storage.memtable.Memtable;
 import org.bboxdb.storage.queryprocessor.predicate.NewerAsVersionTimePredicate;
 import org.bboxdb.storage.queryprocessor.predicate.Predicate;
 import org.bboxdb.storage.queryprocessor.predicate.PredicateTupleFilterIterator;
+import org.bboxdb.storage.util.TupleHelper;
 import org.junit.After;
 import org.junit.Assert;
 import org.junit.Before;
@@ -573,4 +576,122 @@ public class TestMemtable {
 		memtable.deleteOnClose();
 		Assert.assertEquals(0, memtable.getSize());
 	}
+	
+	/**
+	 * Test parallel inserts
+	 * @throws Exception 
+	 */
+	@Test(timeout=60000)
+	public void testParallelInsert() throws Exception {
+		final int threads = 10;
+		final int tuplesPerThread = MEMTABLE_MAX_ENTRIES / threads;
+		final List<Thread> writerThreads = new ArrayList<>();
+		final Memtable memtable = new Memtable(MEMTABLE_TABLE_NAME, MEMTABLE_MAX_ENTRIES, 
+				Long.MAX_VALUE, null);
+		memtable.init();
+		memtable.acquire();
+		
+		for(int thread = 0; thread < threads; thread++) {
+			final int threadNumber = thread;
+			final Runnable runnable = () -> {
+				for(int i = 0; i < tuplesPerThread; i++) {
+					final String key = Integer.toString(i);
+					final Tuple tuple = new Tuple(key, null, "abc".getBytes(), threadNumber);
+					try {
+						memtable.put(tuple);
+					} catch (StorageManagerException e) {
+						throw new RuntimeException(e);
+					}
+				}
+			};
+			
+			final Thread writerThread = new Thread(runnable);
+			writerThread.start();
+			writerThreads.add(writerThread);
+		}
+		
+		for(final Thread writerThread : writerThreads) {
+			writerThread.join();
+		}
+		
+		Assert.assertEquals(MEMTABLE_MAX_ENTRIES, memtable.getNumberOfTuples());
+		Assert.assertTrue(memtable.isFull());
+		Assert.assertEquals(threads, memtable.get("1").size());
+		
+		final List<Tuple> sortedTuples = memtable.getSortedTupleList();
+		Assert.assertEquals(MEMTABLE_MAX_ENTRIES, sortedTuples.size());
+		
+		for(int i = 1; i < sortedTuples.size(); i++) {
+			final Tuple tuple1 = sortedTuples.get(i - 1);
+			final Tuple tuple2 = sortedTuples.get(i);
+			Assert.assertTrue(TupleHelper.TUPLE_KEY_AND_VERSION_COMPARATOR.compare(tuple1, tuple2) <= 0);
+		}
+		
+		memtable.release();
+	}
+	
+	/**
+	 * Test parallel inserts into a size limited memtable
+	 * @throws Exception 
+	 */
+	@Test(timeout=60000)
+	public void testParallelInsertSizeLimit() throws Exception {
+		final int threads = 10;
+		final int maxSize = 300;
+		final List<Thread> writerThreads = new ArrayList<>();
+		final AtomicInteger storedTuples = new AtomicInteger(0);
+		final Memtable memtable = new Memtable(MEMTABLE_TABLE_NAME, MEMTABLE_MAX_ENTRIES, 
+				maxSize, null);
+		memtable.init();
+		memtable.acquire();
+		
+		for(int thread = 0; thread < threads; thread++) {
+			final int threadNumber = thread;
+			final Runnable runnable = () -> {
+				for(int i = 0; i < MEMTABLE_MAX_ENTRIES; i++) {
+					final Tuple tuple = new Tuple(Integer.toString(i), null, "abc".getBytes(), threadNumber);
+					try {
+						if(memtable.tryPut(tuple)) {
+							storedTuples.incrementAndGet();
+						}
+					} catch (StorageManagerException e) {
+						throw new RuntimeException(e);
+					}
+				}
+			};
+			
+			final Thread writerThread = new Thread(runnable);
+			writerThread.start();
+			writerThreads.add(writerThread);
+		}
+		
+		for(final Thread writerThread : writerThreads) {
+			writerThread.join();
+		}
+		
+		Assert.assertTrue(memtable.isFull());
+		Assert.assertEquals(maxSize, memtable.getSize());
+		Assert.assertEquals(maxSize / 3, storedTuples.get());
+		Assert.assertEquals(storedTuples.get(), memtable.getNumberOfTuples());
+		
+		memtable.release();
+	}
+	
+	/**
+	 * Test the seal of the memtable
+	 * @throws StorageManagerException 
+	 */
+	@Test(timeout=60000)
+	public void testSeal() throws StorageManagerException {
+		final Tuple createdTuple1 = new Tuple("1", null, "abc".getBytes(), 60);
+		Assert.assertTrue(memtable.tryPut(createdTuple1));
+		Assert.assertFalse(memtable.isSealed());
+		
+		memtable.seal();
+		Assert.assertTrue(memtable.isSealed());
+		
+		final Tuple createdTuple2 = new Tuple("2", null, "abc".getBytes(), 60);
+		Assert.assertFalse(memtable.tryPut(createdTuple2));
+		Assert.assertEquals(1, memtable.getNumberOfTuples());
+	}
 }
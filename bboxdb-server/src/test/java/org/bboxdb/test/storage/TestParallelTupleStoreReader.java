@@ -0,0 +1,150 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2018 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.test.storage;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Function;
+
+import org.bboxdb.commons.math.Hyperrectangle;
+import org.bboxdb.storage.entity.Tuple;
+import org.bboxdb.storage.queryprocessor.ParallelTupleStoreReader;
+import org.bboxdb.storage.tuplestore.ReadOnlyTupleStore;
+import org.junit.Assert;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import com.google.common.collect.Lists;
+
+public class TestParallelTupleStoreReader {
+
+	/**
+	 * The amount of tuples per tuple store
+	 */
+	private final static int TUPLES_PER_STORE = ParallelTupleStoreReader.CHUNK_SIZE * 2 + 500;
+	
+	/**
+	 * Read all tuples of all stores
+	 */
+	@Test(timeout=60000)
+	public void testReadAll() {
+		final List<ReadOnlyTupleStore> tupleStores = createTupleStores(5);
+		
+		for(final int parallelism : new int[] {1, 2, 8}) {
+			final ParallelTupleStoreReader reader = new ParallelTupleStoreReader(tupleStores, 
+					this::createIterator, parallelism);
+			
+			final List<Tuple> tuples = Lists.newArrayList(reader);
+			reader.close();
+			
+			final Set<String> keys = new HashSet<>();
+			tuples.forEach(t -> keys.add(t.getKey()));
+			
+			Assert.assertEquals(5 * TUPLES_PER_STORE, tuples.size());
+			Assert.assertEquals(5 * TUPLES_PER_STORE, keys.size());
+		}
+	}
+	
+	/**
+	 * The failure of a worker is rethrown by the reader
+	 */
+	@Test(timeout=60000, expected=IllegalStateException.class)
+	public void testFailureIsPropagated() {
+		final List<ReadOnlyTupleStore> tupleStores = createTupleStores(3);
+		final ReadOnlyTupleStore failingStore = tupleStores.get(1);
+		
+		final Function<ReadOnlyTupleStore, Iterator<Tuple>> iteratorSupplier = (s) -> {
+			if(s == failingStore) {
+				throw new IllegalArgumentException("Unable to read store");
+			}
+			
+			return createIterator(s);
+		};
+		
+		final ParallelTupleStoreReader reader = new ParallelTupleStoreReader(tupleStores, 
+				iteratorSupplier, 2);
+		
+		try {
+			while(reader.hasNext()) {
+				reader.next();
+			}
+		} finally {
+			reader.close();
+		}
+	}
+	
+	/**
+	 * Unconsumed readers don't block the reading of other readers
+	 */
+	@Test(timeout=60000)
+	public void testUnconsumedReaders() {
+		final List<ReadOnlyTupleStore> tupleStores = createTupleStores(4);
+		final List<ParallelTupleStoreReader> unconsumedReaders = new ArrayList<>();
+		
+		for(int i = 0; i < 100; i++) {
+			final ParallelTupleStoreReader reader = new ParallelTupleStoreReader(tupleStores, 
+					this::createIterator, 4);
+			Assert.assertTrue(reader.hasNext());
+			unconsumedReaders.add(reader);
+		}
+		
+		final ParallelTupleStoreReader reader = new ParallelTupleStoreReader(tupleStores, 
+				this::createIterator, 4);
+		Assert.assertEquals(4 * TUPLES_PER_STORE, Lists.newArrayList(reader).size());
+		reader.close();
+		
+		unconsumedReaders.forEach(r -> r.close());
+		unconsumedReaders.forEach(r -> Assert.assertFalse(r.hasNext()));
+	}
+	
+	/**
+	 * Create the tuple stores
+	 * @param numberOfStores
+	 * @return
+	 */
+	private List<ReadOnlyTupleStore> createTupleStores(final int numberOfStores) {
+		final List<ReadOnlyTupleStore> tupleStores = new ArrayList<>();
+		
+		for(int i = 0; i < numberOfStores; i++) {
+			final ReadOnlyTupleStore tupleStore = Mockito.mock(ReadOnlyTupleStore.class);
+			Mockito.when(tupleStore.getInternalName()).thenReturn("store" + i);
+			tupleStores.add(tupleStore);
+		}
+		
+		return tupleStores;
+	}
+	
+	/**
+	 * Create the iterator for the tuple store
+	 * @param tupleStore
+	 * @return
+	 */
+	private Iterator<Tuple> createIterator(final ReadOnlyTupleStore tupleStore) {
+		final String storeName = tupleStore.getInternalName();
+		final List<Tuple> tuples = new ArrayList<>();
+		
+		for(int i = 0; i < TUPLES_PER_STORE; i++) {
+			tuples.add(new Tuple(storeName + "_" + i, Hyperrectangle.FULL_SPACE, "".getBytes()));
+		}
+		
+		return tuples.iterator();
+	}
+}
@@ -18,10 +18,15 @@
 package org.bboxdb.test.storage;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Random;
 import java.util.stream.Collectors;
 
+import org.bboxdb.commons.CloseableHelper;
+import org.bboxdb.commons.MicroSecondTimestampProvider;
 import org.bboxdb.commons.RejectedException;
 import org.bboxdb.commons.math.Hyperrectangle;
 import org.bboxdb.misc.BBoxDBException;
@@ -29,12 +34,19 @@ import org.bboxdb.storage.StorageManagerException;
 import org.bboxdb.storage.entity.JoinedTuple;
 import org.bboxdb.storage.entity.Tuple;
 import org.bboxdb.storage.entity.TupleStoreConfiguration;
+import org.bboxdb.storage.entity.TupleStoreConfigurationBuilder;
 import org.bboxdb.storage.entity.TupleStoreName;
 import org.bboxdb.storage.queryprocessor.operator.BoundingBoxSelectOperator;
 import org.bboxdb.storage.queryprocessor.operator.FullTablescanOperator;
 import org.bboxdb.storage.queryprocessor.operator.IndexedSpatialJoinOperator;
+import org.bboxdb.storage.queryprocessor.operator.NewerAsInsertTimeSeclectionOperator;
+import org.bboxdb.storage.queryprocessor.operator.NewerAsVersionTimeSelectionOperator;
 import org.bboxdb.storage.queryprocessor.operator.Operator;
+import org.bboxdb.storage.queryprocessor.operator.PartitionedSpatialJoinOperator;
 import org.bboxdb.storage.queryprocessor.operator.SpatialIndexReadOperator;
+import org.bboxdb.storage.queryprocessor.operator.SpatialTimeIndexReadOperator;
+import org.bboxdb.storage.queryprocessor.operator.TimeIndexReadOperator;
+import org.bboxdb.storage.sstable.timeindex.TimeIndexType;
 import org.bboxdb.storage.tuplestore.manager.TupleStoreManager;
 import org.bboxdb.storage.tuplestore.manager.TupleStoreManagerRegistry;
 import org.junit.AfterClass;
@@ -265,6 +277,60 @@ public class TestQueryProcessing {
 		Assert.assertTrue(resultTupleList.contains(tuple3));
 	}	
 
+	/** 
+	 * Full table scan - versions across memtables and tables on disk
+	 * @throws StorageManagerException
+	 * @throws RejectedException 
+	 * @throws IOException 
+	 */
+	@Test(timeout=60000)
+	public void testFullTablescanVersions() throws StorageManagerException, RejectedException, IOException {
+		storageRegistry.deleteTable(TABLE_1);
+		
+		final TupleStoreConfiguration configuration = TupleStoreConfigurationBuilder.create()
+				.allowDuplicates(true)
+				.withVersions(2)
+				.build();
+		
+		storageRegistry.createTable(TABLE_1, configuration);
+		final TupleStoreManager storageManager = storageRegistry.getTupleStoreManager(TABLE_1);
+
+		final Tuple tuple1 = new Tuple("1", new Hyperrectangle(1.0, 2.0, 1.0, 2.0), "value1".getBytes(), 1);
+		final Tuple tuple2 = new Tuple("2", new Hyperrectangle(1.5, 2.5, 1.5, 2.5), "value2".getBytes(), 2);
+		final Tuple tuple3 = new Tuple("1", new Hyperrectangle(1.0, 2.0, 1.0, 2.0), "value3".getBytes(), 3);
+		final Tuple tuple4 = new Tuple("3", new Hyperrectangle(1.0, 2.0, 1.0, 2.0), "value4".getBytes(), 4);
+		final Tuple tuple5 = new Tuple("1", new Hyperrectangle(1.0, 2.0, 1.0, 2.0), "value5".getBytes(), 5);
+
+		storageManager.put(tuple1);
+		storageManager.put(tuple2);
+		storageManager.flush();
+		
+		storageManager.put(tuple3);
+		storageManager.put(tuple4);
+		storageManager.initNewMemtable();
+		
+		storageManager.put(tuple5);
+		
+		final Operator queryPlan = new FullTablescanOperator(storageManager);
+		final List<Tuple> resultTupleList = Lists.newArrayList(queryPlan.iterator())
+				.stream()
+				.map(t -> t.convertToSingleTupleIfPossible())
+				.collect(Collectors.toList());
+		queryPlan.close();
+		
+		Assert.assertEquals(4, resultTupleList.size());
+		Assert.assertFalse(resultTupleList.contains(tuple1));
+		Assert.assertTrue(resultTupleList.contains(tuple3));
+		Assert.assertTrue(resultTupleList.contains(tuple5));
+		
+		// The tuples are returned ordered by key
+		final List<String> keys = resultTupleList.stream()
+				.map(t -> t.getKey())
+				.collect(Collectors.toList());
+		
+		Assert.assertEquals(Arrays.asList("1", "1", "2", "3"), keys);
+	}
+
 	/** 
 	 * Simple Join
 	 * @throws StorageManagerException
@@ -456,4 +522,385 @@ public class TestQueryProcessing {
 		Assert.assertEquals(2, resultList.get(0).getBoundingBox().getDimension());
 		Assert.assertEquals(new Hyperrectangle(4.0d, 5.0d, 4.0d, 5.0d), resultList.get(0).getBoundingBox());
 	}
+	
+	/** 
+	 * The time index read operators have to produce the same result as the 
+	 * selection operators
+	 * @throws StorageManagerException
+	 * @throws RejectedException 
+	 * @throws IOException 
+	 */
+	@Test(timeout=60000)
+	public void testTimeIndexQuery() throws StorageManagerException, RejectedException, IOException {
+		final TupleStoreManager storageManager = storageRegistry.getTupleStoreManager(TABLE_1);
+		final Random random = new Random(12);
+		long timestamp = 0;
+
+		// Create multiple SSTables and update some keys in newer tables
+		for(int table = 0; table < 4; table++) {
+			for(int i = 0; i < 500; i++) {
+				final String key = Integer.toString(random.nextInt(1000));
+				timestamp++;
+				storageManager.put(new Tuple(key, getRandomBox(random), "abc".getBytes(), 
+						timestamp, timestamp));
+			}
+			
+			// Deletions in a SSTable
+			if(table == 2) {
+				for(int i = 10; i < 30; i++) {
+					timestamp++;
+					storageManager.delete(Integer.toString(i), timestamp);
+				}
+			}
+			
+			storageManager.flush();
+		}
+		
+		for(int i = 0; i < 100; i++) {
+			timestamp++;
+			storageManager.put(new Tuple(Integer.toString(i), getRandomBox(random), "abc".getBytes(), 
+					timestamp, timestamp));
+		}
+		
+		storageManager.delete("5", timestamp + 1);
+		
+		final Hyperrectangle queryBox = new Hyperrectangle(10.0, 60.0, 10.0, 60.0);
+		
+		for(final long queryTimestamp : Arrays.asList(0L, 250L, 1000L, 1999L, 2050L, 5000L)) {
+			
+			final Operator versionOperator = new NewerAsVersionTimeSelectionOperator(queryTimestamp, 
+					new FullTablescanOperator(storageManager));
+			final Operator versionIndexOperator = new TimeIndexReadOperator(storageManager, 
+					TimeIndexType.VERSION_TIME, queryTimestamp);
+			assertSameResult(versionOperator, versionIndexOperator);
+			
+			final Operator insertOperator = new NewerAsInsertTimeSeclectionOperator(queryTimestamp, 
+					new FullTablescanOperator(storageManager));
+			final Operator insertIndexOperator = new TimeIndexReadOperator(storageManager, 
+					TimeIndexType.INSERT_TIME, queryTimestamp);
+			assertSameResult(insertOperator, insertIndexOperator);
+			
+			final Operator spatialOperator = new NewerAsInsertTimeSeclectionOperator(queryTimestamp, 
+					new SpatialIndexReadOperator(storageManager, queryBox));
+			final Operator spatialIndexOperator = new SpatialTimeIndexReadOperator(storageManager, 
+					queryBox, TimeIndexType.INSERT_TIME, queryTimestamp);
+			assertSameResult(spatialOperator, spatialIndexOperator);
+		}
+	}
+
+	/**
+	 * Both operators have to produce the same tuples
+	 * @param expectedOperator
+	 * @param operator
+	 * @throws IOException
+	 */
+	private void assertSameResult(final Operator expectedOperator, final Operator operator) 
+			throws IOException {
+		
+		final List<Tuple> expectedResult = Lists.newArrayList(expectedOperator.iterator())
+				.stream()
+				.map(t -> t.getTuple(0))
+				.collect(Collectors.toList());
+		
+		final List<Tuple> result = Lists.newArrayList(operator.iterator())
+				.stream()
+				.map(t -> t.getTuple(0))
+				.collect(Collectors.toList());
+		
+		expectedOperator.close();
+		operator.close();
+		
+		Assert.assertEquals(expectedResult.size(), result.size());
+		Assert.assertEquals(new HashSet<>(expectedResult), new HashSet<>(result));
+	}
+	
+	/** 
+	 * The parallel and the sequential read of the tuple stores have to produce the same result
+	 * @throws StorageManagerException
+	 * @throws RejectedException 
+	 */
+	@Test(timeout=60000)
+	public void testParallelBBoxQuery() throws StorageManagerException, RejectedException {
+		storageRegistry.deleteTable(TABLE_1);
+		storageRegistry.createTable(TABLE_1, new TupleStoreConfiguration());
+		final TupleStoreManager storageManager = storageRegistry.getTupleStoreManager(TABLE_1);
+		
+		final Random random = new Random(42);
+
+		// Create multiple SSTables and update some keys in newer tables
+		for(int table = 0; table < 5; table++) {
+			for(int i = 0; i < 2000; i++) {
+				final String key = Integer.toString(random.nextInt(5000));
+				storageManager.put(new Tuple(key, getRandomBox(random), Integer.toString(table).getBytes()));
+			}
+			storageManager.flush();
+		}
+		
+		// Some tuples in the memtable
+		for(int i = 0; i < 100; i++) {
+			storageManager.put(new Tuple(Integer.toString(i), getRandomBox(random), "memtable".getBytes()));
+		}
+		
+		Assert.assertTrue(storageManager.getAllTupleStorages().size() > 1);
+		
+		final Hyperrectangle queryBox = new Hyperrectangle(10.0, 60.0, 10.0, 60.0);
+		
+		final SpatialIndexReadOperator sequentialOperator = new SpatialIndexReadOperator(storageManager, queryBox);
+		sequentialOperator.setParallelism(1);
+		final List<JoinedTuple> sequentialResult = Lists.newArrayList(sequentialOperator.iterator());
+		sequentialOperator.close();
+		
+		for(final int parallelism : Arrays.asList(2, 4, 16)) {
+			final SpatialIndexReadOperator parallelOperator = new SpatialIndexReadOperator(storageManager, queryBox);
+			parallelOperator.setParallelism(parallelism);
+			final List<JoinedTuple> parallelResult = Lists.newArrayList(parallelOperator.iterator());
+			parallelOperator.close();
+			
+			Assert.assertFalse(parallelResult.isEmpty());
+			Assert.assertEquals(sequentialResult.size(), parallelResult.size());
+			Assert.assertEquals(new HashSet<>(sequentialResult), new HashSet<>(parallelResult));
+		}
+		
+		// Close the operator before the result is consumed
+		final SpatialIndexReadOperator abortedOperator = new SpatialIndexReadOperator(storageManager, 
+				Hyperrectangle.FULL_SPACE);
+		abortedOperator.setParallelism(4);
+		final Iterator<JoinedTuple> abortedIterator = abortedOperator.iterator();
+		Assert.assertTrue(abortedIterator.hasNext());
+		abortedOperator.close();
+	}
+	
+	/** 
+	 * Simple partitioned join
+	 * @throws StorageManagerException
+	 * @throws RejectedException 
+	 */
+	@Test(timeout=60000)
+	public void testPartitionedJoin1() throws StorageManagerException, RejectedException {
+		storageRegistry.deleteTable(TABLE_1);
+		storageRegistry.createTable(TABLE_1, new TupleStoreConfiguration());
+		
+		storageRegistry.deleteTable(TABLE_2);
+		storageRegistry.createTable(TABLE_2, new TupleStoreConfiguration());
+		
+		final TupleStoreManager storageManager1 = storageRegistry.getTupleStoreManager(TABLE_1);
+		final TupleStoreManager storageManager2 = storageRegistry.getTupleStoreManager(TABLE_2);
+
+		final Tuple tuple1 = new Tuple("1a", new Hyperrectangle(1.0, 2.0, 1.0, 2.0), "value1".getBytes());
+		final Tuple tuple2 = new Tuple("2a", new Hyperrectangle(4.0, 5.0, 4.0, 5.0), "value2".getBytes());
+		
+		final Tuple tuple3 = new Tuple("1b", new Hyperrectangle(1.5, 2.5, 1.5, 2.5), "value3".getBytes());
+		final Tuple tuple4 = new Tuple("2b", new Hyperrectangle(2.5, 5.5, 2.5, 5.5), "value4".getBytes());
+
+		// Table1
+		storageManager1.put(tuple1);
+		storageManager1.put(tuple2);
+		
+		// Table2
+		storageManager2.put(tuple3);
+		storageManager2.put(tuple4);
+		
+		final Hyperrectangle queryBox = new Hyperrectangle(3.0, 10.0, 3.0, 10.0);
+		final SpatialIndexReadOperator operator1 = new SpatialIndexReadOperator(storageManager1, queryBox);
+		final SpatialIndexReadOperator operator2 = new SpatialIndexReadOperator(storageManager2);
+		
+		final PartitionedSpatialJoinOperator joinQueryProcessor = new PartitionedSpatialJoinOperator(operator1, 
+				operator2, 4, 0, PartitionedSpatialJoinOperator.DEFAULT_MAX_BUFFERED_TUPLES);
+		
+		final List<JoinedTuple> resultList = Lists.newArrayList(joinQueryProcessor.iterator());
+		joinQueryProcessor.close();
+
+		Assert.assertEquals(1, resultList.size());
+		Assert.assertEquals(2, resultList.get(0).getNumberOfTuples());
+		Assert.assertEquals(tuple2, resultList.get(0).getTuple(0));
+		Assert.assertEquals(tuple4, resultList.get(0).getTuple(1));
+		Assert.assertEquals(new Hyperrectangle(4.0d, 5.0d, 4.0d, 5.0d), resultList.get(0).getBoundingBox());
+	}
+	
+	/** 
+	 * Partitioned join of three tables
+	 * @throws StorageManagerException
+	 * @throws RejectedException 
+	 */
+	@Test(timeout=60000)
+	public void testPartitionedDoubleJoin() throws StorageManagerException, RejectedException {
+		storageRegistry.deleteTable(TABLE_1);
+		storageRegistry.createTable(TABLE_1, new TupleStoreConfiguration());
+		
+		storageRegistry.deleteTable(TABLE_2);
+		storageRegistry.createTable(TABLE_2, new TupleStoreConfiguration());
+		
+		storageRegistry.deleteTable(TABLE_3);
+		storageRegistry.createTable(TABLE_3, new TupleStoreConfiguration());
+		
+		final TupleStoreManager storageManager1 = storageRegistry.getTupleStoreManager(TABLE_1);
+		final TupleStoreManager storageManager2 = storageRegistry.getTupleStoreManager(TABLE_2);
+		final TupleStoreManager storageManager3 = storageRegistry.getTupleStoreManager(TABLE_3);
+
+		storageManager1.put(new Tuple("1a", new Hyperrectangle(1.0, 2.0, 1.0, 2.0), "value1".getBytes()));
+		storageManager1.put(new Tuple("2a", new Hyperrectangle(4.0, 5.0, 4.0, 5.0), "value2".getBytes()));
+		storageManager2.put(new Tuple("1b", new Hyperrectangle(1.5, 2.5, 1.5, 2.5), "value3".getBytes()));
+		storageManager2.put(new Tuple("2b", new Hyperrectangle(2.5, 5.5, 2.5, 5.5), "value4".getBytes()));
+		storageManager3.put(new Tuple("1c", new Hyperrectangle(2.5, 5.5, 2.5, 5.5), "value4".getBytes()));
+		
+		final SpatialIndexReadOperator operator1 = new SpatialIndexReadOperator(storageManager1, Hyperrectangle.FULL_SPACE);
+		final SpatialIndexReadOperator operator2 = new SpatialIndexReadOperator(storageManager2);
+		final SpatialIndexReadOperator operator3 = new SpatialIndexReadOperator(storageManager3);
+
+		final Operator joinQueryProcessor1 = new PartitionedSpatialJoinOperator(operator1, operator2, 3, 0, 100);
+		final Operator joinQueryProcessor2 = new PartitionedSpatialJoinOperator(joinQueryProcessor1, operator3, 3, 0, 100);
+		
+		final List<JoinedTuple> resultList = Lists.newArrayList(joinQueryProcessor2.iterator());
+		CloseableHelper.closeWithoutException(joinQueryProcessor2);
+		
+		Assert.assertEquals(1, resultList.size());
+		Assert.assertEquals(3, resultList.get(0).getNumberOfTuples());
+		Assert.assertEquals(new Hyperrectangle(4.0d, 5.0d, 4.0d, 5.0d), resultList.get(0).getBoundingBox());
+	}
+	
+	/** 
+	 * The partitioned join and the index join have to produce the same result
+	 * @throws StorageManagerException
+	 * @throws RejectedException 
+	 */
+	@Test(timeout=60000)
+	public void testPartitionedJoinEqualsIndexJoin() throws StorageManagerException, RejectedException {
+		storageRegistry.deleteTable(TABLE_1);
+		storageRegistry.createTable(TABLE_1, new TupleStoreConfiguration());
+		
+		storageRegistry.deleteTable(TABLE_2);
+		storageRegistry.createTable(TABLE_2, new TupleStoreConfiguration());
+		
+		final TupleStoreManager storageManager1 = storageRegistry.getTupleStoreManager(TABLE_1);
+		final TupleStoreManager storageManager2 = storageRegistry.getTupleStoreManager(TABLE_2);
+
+		final Random random = new Random(42);
+		
+		for(int i = 0; i < 500; i++) {
+			storageManager1.put(new Tuple("a" + i, getRandomBox(random), "".getBytes()));
+			storageManager2.put(new Tuple("b" + i, getRandomBox(random), "".getBytes()));
+		}
+		
+		// A deleted tuple covers the full space
+		storageManager2.delete("b1", MicroSecondTimestampProvider.getNewTimestamp());
+		
+		final Hyperrectangle queryBox = new Hyperrectangle(10.0, 60.0, 10.0, 60.0);
+		
+		final Operator indexJoin = new IndexedSpatialJoinOperator(
+				new SpatialIndexReadOperator(storageManager1, queryBox), 
+				new SpatialIndexReadOperator(storageManager2));
+		
+		final List<JoinedTuple> indexJoinResult = Lists.newArrayList(indexJoin.iterator());
+		CloseableHelper.closeWithoutException(indexJoin);
+		
+		for(final int partitions : Arrays.asList(1, 7, 64)) {
+			final Operator partitionedJoin = new PartitionedSpatialJoinOperator(
+					new SpatialIndexReadOperator(storageManager1, queryBox), 
+					new SpatialIndexReadOperator(storageManager2), partitions, 0, 1000);
+			
+			final List<JoinedTuple> partitionedJoinResult = Lists.newArrayList(partitionedJoin.iterator());
+			CloseableHelper.closeWithoutException(partitionedJoin);
+
+			Assert.assertFalse(partitionedJoinResult.isEmpty());
+			Assert.assertEquals(indexJoinResult.size(), partitionedJoinResult.size());
+			Assert.assertEquals(new HashSet<>(indexJoinResult), new HashSet<>(partitionedJoinResult));
+		}
+	}
+	
+	/** 
+	 * The partitioned join falls back to the index join for small outer 
+	 * inputs and for inputs that are too big to be buffered
+	 * @throws StorageManagerException
+	 * @throws RejectedException 
+	 */
+	@Test(timeout=60000)
+	public void testPartitionedJoinFallback() throws StorageManagerException, RejectedException {
+		storageRegistry.deleteTable(TABLE_1);
+		storageRegistry.createTable(TABLE_1, new TupleStoreConfiguration());
+		
+		storageRegistry.deleteTable(TABLE_2);
+		storageRegistry.createTable(TABLE_2, new TupleStoreConfiguration());
+		
+		final TupleStoreManager storageManager1 = storageRegistry.getTupleStoreManager(TABLE_1);
+		final TupleStoreManager storageManager2 = storageRegistry.getTupleStoreManager(TABLE_2);
+
+		final Random random = new Random(42);
+		
+		for(int i = 0; i < 500; i++) {
+			storageManager1.put(new Tuple("a" + i, getRandomBox(random), "".getBytes()));
+		}
+		
+		for(int i = 0; i < 1000; i++) {
+			storageManager2.put(new Tuple("b" + i, getRandomBox(random), "".getBytes()));
+		}
+		
+		final Operator indexJoin = new IndexedSpatialJoinOperator(
+				new SpatialIndexReadOperator(storageManager1, Hyperrectangle.FULL_SPACE), 
+				new SpatialIndexReadOperator(storageManager2));
+		
+		final List<JoinedTuple> indexJoinResult = Lists.newArrayList(indexJoin.iterator());
+		CloseableHelper.closeWithoutException(indexJoin);
+		Assert.assertFalse(indexJoinResult.isEmpty());
+
+		// Small outer input, outer input too big, inner input too big
+		final List<int[]> limits = Arrays.asList(new int[] {1000, 2000}, new int[] {0, 10}, new int[] {0, 600});
+		
+		for(final int[] limit : limits) {
+			final Operator partitionedJoin = new PartitionedSpatialJoinOperator(
+					new SpatialIndexReadOperator(storageManager1, Hyperrectangle.FULL_SPACE), 
+					new SpatialIndexReadOperator(storageManager2), 7, limit[0], limit[1]);
+			
+			final List<JoinedTuple> partitionedJoinResult = Lists.newArrayList(partitionedJoin.iterator());
+			CloseableHelper.closeWithoutException(partitionedJoin);
+
+			Assert.assertEquals(new HashSet<>(indexJoinResult), new HashSet<>(partitionedJoinResult));
+			Assert.assertEquals(indexJoinResult.size(), partitionedJoinResult.size());
+		}
+	}
+	
+	/** 
+	 * The result of a partition is computed in multiple chunks
+	 * @throws StorageManagerException
+	 * @throws RejectedException 
+	 */
+	@Test(timeout=60000)
+	public void testPartitionedJoinLargeResult() throws StorageManagerException, RejectedException {
+		storageRegistry.deleteTable(TABLE_1);
+		storageRegistry.createTable(TABLE_1, new TupleStoreConfiguration());
+		
+		storageRegistry.deleteTable(TABLE_2);
+		storageRegistry.createTable(TABLE_2, new TupleStoreConfiguration());
+		
+		final TupleStoreManager storageManager1 = storageRegistry.getTupleStoreManager(TABLE_1);
+		final TupleStoreManager storageManager2 = storageRegistry.getTupleStoreManager(TABLE_2);
+
+		// All tuples intersect each other
+		for(int i = 0; i < 100; i++) {
+			storageManager1.put(new Tuple("a" + i, new Hyperrectangle(i / 10.0, 20.0, 1.0, 2.0), "".getBytes()));
+			storageManager2.put(new Tuple("b" + i, new Hyperrectangle(i / 10.0, 20.0, 1.0, 2.0), "".getBytes()));
+		}
+		
+		for(final int partitions : Arrays.asList(1, 7)) {
+			final Operator partitionedJoin = new PartitionedSpatialJoinOperator(
+					new SpatialIndexReadOperator(storageManager1, Hyperrectangle.FULL_SPACE), 
+					new SpatialIndexReadOperator(storageManager2), partitions, 0, 1000);
+			
+			final List<JoinedTuple> partitionedJoinResult = Lists.newArrayList(partitionedJoin.iterator());
+			CloseableHelper.closeWithoutException(partitionedJoin);
+
+			Assert.assertEquals(100 * 100, partitionedJoinResult.size());
+			Assert.assertEquals(100 * 100, new HashSet<>(partitionedJoinResult).size());
+		}
+	}
+	
+	/**
+	 * Get a random box in the space [0, 100]
+	 * @param random
+	 * @return
+	 */
+	private Hyperrectangle getRandomBox(final Random random) {
+		final double x = random.nextDouble() * 95;
+		final double y = random.nextDouble() * 95;
+		return new Hyperrectangle(x, x + random.nextDouble() * 5, y, y + random.nextDouble() * 5);
+	}
 }
@@ -17,25 +17,49 @@
  *******************************************************************************/
 package org.bboxdb.test.storage;
 
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.stream.Collectors;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
+import org.bboxdb.commons.io.DataEncoderHelper;
 import org.bboxdb.commons.io.FileUtil;
 import org.bboxdb.commons.math.Hyperrectangle;
 import org.bboxdb.misc.BBoxDBConfigurationManager;
+import org.bboxdb.misc.Const;
 import org.bboxdb.storage.entity.DeletedTuple;
 import org.bboxdb.storage.entity.Tuple;
 import org.bboxdb.storage.entity.TupleStoreName;
+import org.bboxdb.storage.StorageManagerException;
+import org.bboxdb.storage.sstable.SSTableCompression;
+import org.bboxdb.storage.sstable.SSTableConst;
 import org.bboxdb.storage.sstable.SSTableHelper;
 import org.bboxdb.storage.sstable.SSTableWriter;
+import org.bboxdb.storage.sstable.reader.MappedFileSegments;
 import org.bboxdb.storage.sstable.reader.SSTableFacade;
 import org.bboxdb.storage.sstable.reader.SSTableKeyIndexReader;
 import org.bboxdb.storage.sstable.reader.SSTableReader;
+import org.bboxdb.storage.sstable.spatialindex.SpatialIndexEntry;
+import org.bboxdb.storage.sstable.spatialindex.rtree.RTreeBuilder;
 import org.bboxdb.storage.tuplestore.ReadOnlyTupleStore;
 import org.junit.Assert;
+import org.junit.Assume;
 import org.junit.Test;
 
+import com.google.common.collect.Lists;
+
 public class TestSSTable {
 	
 	/**
@@ -157,6 +181,497 @@ public class TestSSTable {
 		Assert.assertEquals(tupleList.size(), tupleCounter);
 	}
 
+	/**
+	 * Test the key lookup with duplicates
+	 * @throws Exception
+	 */
+	@Test(timeout=60000)
+	public void testKeyLookup() throws Exception {
+		final List<Tuple> tupleList = new ArrayList<>();
+		tupleList.add(new Tuple("a", Hyperrectangle.FULL_SPACE, "abc".getBytes()));
+		tupleList.add(new Tuple("ab", Hyperrectangle.FULL_SPACE, "abc".getBytes()));
+		tupleList.add(new Tuple("ab", Hyperrectangle.FULL_SPACE, "def".getBytes()));
+		tupleList.add(new Tuple("abc", Hyperrectangle.FULL_SPACE, "abc".getBytes()));
+		tupleList.add(new Tuple("b", Hyperrectangle.FULL_SPACE, "abc".getBytes()));
+		
+		final SSTableReader sstableReader = writeAndOpenSSTable(tupleList);
+		final SSTableKeyIndexReader ssTableIndexReader = new SSTableKeyIndexReader(sstableReader);
+		ssTableIndexReader.init();
+		
+		Assert.assertEquals(1, ssTableIndexReader.getPositionsForTuple("a").size());
+		Assert.assertEquals(2, ssTableIndexReader.getPositionsForTuple("ab").size());
+		Assert.assertEquals(1, ssTableIndexReader.getPositionsForTuple("abc").size());
+		Assert.assertEquals(1, ssTableIndexReader.getPositionsForTuple("b").size());
+		Assert.assertTrue(ssTableIndexReader.getPositionsForTuple("").isEmpty());
+		Assert.assertTrue(ssTableIndexReader.getPositionsForTuple("aa").isEmpty());
+		Assert.assertTrue(ssTableIndexReader.getPositionsForTuple("abcd").isEmpty());
+		Assert.assertTrue(ssTableIndexReader.getPositionsForTuple("c").isEmpty());
+		
+		final long position = ssTableIndexReader.getPositionsForTuple("abc").get(0);
+		Assert.assertEquals("abc", sstableReader.decodeOnlyKeyFromTupleAtPosition(position));
+		Assert.assertEquals(tupleList.get(3), sstableReader.getTupleAtPosition(position));
+		
+		ssTableIndexReader.shutdown();
+		sstableReader.shutdown();
+	}
+	
+	/**
+	 * Test the key lookup with non ASCII keys
+	 * @throws Exception
+	 */
+	@Test(timeout=60000)
+	public void testKeyLookupNonASCII() throws Exception {
+		Assume.assumeTrue(StandardCharsets.UTF_8.equals(Charset.defaultCharset()));
+		
+		final List<Tuple> tupleList = new ArrayList<>();
+		tupleList.add(new Tuple("a", Hyperrectangle.FULL_SPACE, "abc".getBytes()));
+		tupleList.add(new Tuple("b", Hyperrectangle.FULL_SPACE, "abc".getBytes()));
+		tupleList.add(new Tuple("\u00e4b", Hyperrectangle.FULL_SPACE, "abc".getBytes()));
+		tupleList.add(new Tuple("\u00f6", Hyperrectangle.FULL_SPACE, "abc".getBytes()));
+		
+		final SSTableReader sstableReader = writeAndOpenSSTable(tupleList);
+		final SSTableKeyIndexReader ssTableIndexReader = new SSTableKeyIndexReader(sstableReader);
+		ssTableIndexReader.init();
+
+		Assert.assertEquals(1, ssTableIndexReader.getPositionsForTuple("b").size());
+		Assert.assertEquals(1, ssTableIndexReader.getPositionsForTuple("\u00e4b").size());
+		Assert.assertEquals(1, ssTableIndexReader.getPositionsForTuple("\u00f6").size());
+		Assert.assertTrue(ssTableIndexReader.getPositionsForTuple("c").isEmpty());
+		Assert.assertTrue(ssTableIndexReader.getPositionsForTuple("\u00e4").isEmpty());
+		Assert.assertTrue(ssTableIndexReader.getPositionsForTuple("\u00ff").isEmpty());
+		
+		ssTableIndexReader.shutdown();
+		sstableReader.shutdown();
+	}
+	
+	/**
+	 * Write the tuples into a new sstable and open the sstable
+	 * @param tupleList
+	 * @return
+	 * @throws Exception
+	 */
+	protected SSTableReader writeAndOpenSSTable(final List<Tuple> tupleList) throws Exception {
+		return writeAndOpenSSTable(tupleList, SSTableCompression.NONE);
+	}
+	
+	/**
+	 * Write the tuples into a new sstable with the given compression and open the sstable
+	 * @param tupleList
+	 * @param compression
+	 * @return
+	 * @throws Exception
+	 */
+	protected SSTableReader writeAndOpenSSTable(final List<Tuple> tupleList, 
+			final SSTableCompression compression) throws Exception {
+		
+		final String relationDirectory = SSTableHelper.getSSTableDir(STORAGE_DIRECTORY, TEST_RELATION);
+		final File relationDirectoryFile = new File(relationDirectory);
+		FileUtil.deleteRecursive(relationDirectoryFile.toPath());
+		relationDirectoryFile.mkdirs();
+		
+		final SSTableWriter ssTableWriter = new SSTableWriter(STORAGE_DIRECTORY, TEST_RELATION, 1, 
+				EXPECTED_TUPLES, compression);
+		ssTableWriter.open();
+		ssTableWriter.addTuples(tupleList);
+		ssTableWriter.close();
+		
+		final SSTableReader sstableReader = new SSTableReader(STORAGE_DIRECTORY, TEST_RELATION, 1);
+		sstableReader.init();
+		return sstableReader;
+	}
+	
+	/**
+	 * Test concurrent reads on the same sstable
+	 * @throws Exception
+	 */
+	@Test(timeout=60000)
+	public void testConcurrentRead() throws Exception {
+		final List<Tuple> tupleList = new ArrayList<>();
+		
+		for(int i = 0; i < 1000; i++) {
+			tupleList.add(new Tuple(Integer.toString(i), Hyperrectangle.FULL_SPACE, Integer.toString(i).getBytes()));
+		}
+		
+		tupleList.sort((t1, t2) -> t1.getKey().compareTo(t2.getKey()));
+
+		final SSTableReader sstableReader = writeAndOpenSSTable(tupleList);
+		final SSTableKeyIndexReader ssTableIndexReader = new SSTableKeyIndexReader(sstableReader);
+		ssTableIndexReader.init();
+		
+		final ExecutorService executorService = Executors.newFixedThreadPool(4);
+		final List<Future<Boolean>> futures = new ArrayList<>();
+		
+		for(int thread = 0; thread < 4; thread++) {
+			futures.add(executorService.submit(() -> {
+				for(int i = 0; i < 1000; i++) {
+					final String key = Integer.toString(i);
+					final List<Long> positions = ssTableIndexReader.getPositionsForTuple(key);
+					
+					if(positions.size() != 1) {
+						return false;
+					}
+					
+					final Tuple tuple = sstableReader.getTupleAtPosition(positions.get(0));
+					
+					if(! key.equals(tuple.getKey()) || ! key.equals(new String(tuple.getDataBytes()))) {
+						return false;
+					}
+				}
+				return true;
+			}));
+		}
+		
+		for(final Future<Boolean> future : futures) {
+			Assert.assertTrue(future.get());
+		}
+		
+		executorService.shutdown();
+		ssTableIndexReader.shutdown();
+		sstableReader.shutdown();
+	}
+
+	/**
+	 * Test the access to a file with multiple mapped segments
+	 * @throws Exception
+	 */
+	@Test(timeout=60000)
+	public void testMappedFileSegments() throws Exception {
+		final File tempFile = File.createTempFile("segments-", "-test");
+		tempFile.deleteOnExit();
+		
+		final byte[] data = new byte[100];
+		new Random().nextBytes(data);
+		Files.write(tempFile.toPath(), data);
+		
+		final ByteBuffer expected = ByteBuffer.wrap(data);
+		expected.order(Const.APPLICATION_BYTE_ORDER);
+		
+		try(final RandomAccessFile randomAccessFile = new RandomAccessFile(tempFile, "r")) {
+			final MappedFileSegments segments = new MappedFileSegments(randomAccessFile.getChannel(), 7);
+			
+			Assert.assertEquals(15, segments.getNumberOfSegments());
+			Assert.assertEquals(100, segments.size());
+			
+			for(int position = 0; position < data.length; position++) {
+				Assert.assertEquals(expected.get(position), segments.get(position));
+				
+				if(position + 8 <= data.length) {
+					Assert.assertEquals(expected.getShort(position), segments.getShort(position));
+					Assert.assertEquals(expected.getInt(position), segments.getInt(position));
+					Assert.assertEquals(expected.getLong(position), segments.getLong(position));
+				}
+			
+				final int length = Math.min(20, data.length - position);
+				final byte[] readData = new byte[length];
+				segments.getBuffer(position, length).get(readData);
+				Assert.assertArrayEquals(Arrays.copyOfRange(data, position, position + length), readData);
+			}
+			
+			try {
+				segments.getInt(98);
+				Assert.fail("Read outside of the file");
+			} catch(IndexOutOfBoundsException e) {
+				// Expected
+			}
+			
+			segments.unmap();
+		}
+	}
+	
+	/**
+	 * Read a sstable that is mapped with multiple small segments
+	 * @throws Exception
+	 */
+	@Test(timeout=60000)
+	public void testReadWithSmallSegments() throws Exception {
+		final List<Tuple> tupleList = new ArrayList<>();
+		
+		for(int i = 0; i < 100; i++) {
+			tupleList.add(new Tuple(Integer.toString(i), new Hyperrectangle(1d, 2d), Integer.toString(i).getBytes()));
+		}
+		
+		tupleList.sort((t1, t2) -> t1.getKey().compareTo(t2.getKey()));
+		writeAndOpenSSTable(tupleList).shutdown();
+		
+		final SSTableReader sstableReader = new SSTableReader(STORAGE_DIRECTORY, TEST_RELATION, 1) {
+			@Override
+			protected long getSegmentSize() {
+				return 64;
+			}
+		};
+		sstableReader.init();
+		
+		Assert.assertTrue(sstableReader.getMemory().getNumberOfSegments() > 1);
+		
+		final SSTableKeyIndexReader ssTableIndexReader = new SSTableKeyIndexReader(sstableReader);
+		ssTableIndexReader.init();
+		
+		Assert.assertEquals(SSTableConst.SST_VERSION, ssTableIndexReader.getFormatVersion());
+		
+		int tupleCounter = 0;
+		for(final Tuple tuple : ssTableIndexReader) {
+			Assert.assertEquals(tupleList.get(tupleCounter), tuple);
+			tupleCounter++;
+		}
+		Assert.assertEquals(tupleList.size(), tupleCounter);
+		
+		for(final Tuple tuple : tupleList) {
+			final List<Long> positions = ssTableIndexReader.getPositionsForTuple(tuple.getKey());
+			Assert.assertEquals(1, positions.size());
+			Assert.assertEquals(tuple, sstableReader.getTupleAtPosition(positions.get(0)));
+		}
+		
+		Assert.assertEquals(tupleList.get(50), sstableReader.scanForTuple(tupleList.get(50).getKey()));
+		
+		ssTableIndexReader.shutdown();
+		sstableReader.shutdown();
+	}
+	
+	/**
+	 * Read a table in the version 1 format (32 bit positions in the 
+	 * index and tuple positions in the spatial index)
+	 * @throws Exception
+	 */
+	@Test(timeout=60000)
+	public void testReadVersion1Table() throws Exception {
+		final List<Tuple> tupleList = new ArrayList<>();
+		tupleList.add(new Tuple("1", new Hyperrectangle(1d, 2d, 1d, 2d), "abc".getBytes()));
+		tupleList.add(new Tuple("2", new Hyperrectangle(5d, 6d, 5d, 6d), "def".getBytes()));
+		tupleList.add(new Tuple("3", new Hyperrectangle(8d, 9d, 8d, 9d), "geh".getBytes()));
+		
+		final SSTableReader sstableReader = writeAndOpenSSTable(tupleList);
+		final SSTableKeyIndexReader ssTableIndexReader = new SSTableKeyIndexReader(sstableReader);
+		ssTableIndexReader.init();
+		
+		// Convert the index and the spatial index into the version 1 format
+		final ByteArrayOutputStream indexV1 = new ByteArrayOutputStream();
+		indexV1.write(SSTableConst.MAGIC_BYTES_INDEX);
+		final List<SpatialIndexEntry> spatialIndexV1 = new ArrayList<>();
+		
+		for(int i = 0; i < tupleList.size(); i++) {
+			final int position = (int) ssTableIndexReader.convertEntryToPosition(i);
+			indexV1.write(DataEncoderHelper.intToByteBuffer(position).array());
+			spatialIndexV1.add(new SpatialIndexEntry(tupleList.get(i).getBoundingBox(), position));
+		}
+		
+		final File indexFile = ssTableIndexReader.getFile();
+		ssTableIndexReader.shutdown();
+		sstableReader.shutdown();
+		
+		Files.write(indexFile.toPath(), indexV1.toByteArray());
+		
+		final File spatialIndexFile = new File(SSTableHelper.getSSTableSpatialIndexFilename(
+				STORAGE_DIRECTORY, TEST_RELATION, 1));
+		spatialIndexFile.delete();
+		
+		try(final RandomAccessFile randomAccessFile = new RandomAccessFile(spatialIndexFile, "rw")) {
+			final RTreeBuilder rTreeBuilder = new RTreeBuilder();
+			rTreeBuilder.bulkInsert(spatialIndexV1);
+			rTreeBuilder.writeToFile(randomAccessFile);
+		}
+		
+		final SSTableFacade ssTableFacade = new SSTableFacade(STORAGE_DIRECTORY, TEST_RELATION, 1, 0);
+		ssTableFacade.init();
+		ssTableFacade.acquire();
+		
+		Assert.assertEquals(SSTableConst.SST_VERSION_1, ssTableFacade.getSsTableKeyIndexReader().getFormatVersion());
+		
+		for(final Tuple tuple : tupleList) {
+			Assert.assertEquals(Arrays.asList(tuple), ssTableFacade.get(tuple.getKey()));
+		}
+		
+		final List<Tuple> bboxResult = Lists.newArrayList(
+				ssTableFacade.getAllTuplesInBoundingBox(new Hyperrectangle(4d, 7d, 4d, 7d)));
+		
+		Assert.assertEquals(Arrays.asList(tupleList.get(1)), bboxResult);
+		
+		ssTableFacade.release();
+		ssTableFacade.shutdown();
+	}
+	
+	/**
+	 * Test the pruning of the table with the metadata
+	 * @throws Exception
+	 */
+	@Test(timeout=60000)
+	public void testMetadataPruning() throws Exception {
+		final List<Tuple> tupleList = new ArrayList<>();
+		tupleList.add(new Tuple("b", new Hyperrectangle(1d, 2d, 1d, 2d), "abc".getBytes(), 10));
+		tupleList.add(new Tuple("c", new Hyperrectangle(5d, 6d, 5d, 6d), "def".getBytes(), 20));
+		tupleList.add(new Tuple("d", new Hyperrectangle(8d, 9d, 8d, 9d), "geh".getBytes(), 30));
+		
+		writeAndOpenSSTable(tupleList).shutdown();
+		
+		final SSTableFacade ssTableFacade = new SSTableFacade(STORAGE_DIRECTORY, TEST_RELATION, 1, 0);
+		ssTableFacade.init();
+		ssTableFacade.acquire();
+		
+		Assert.assertEquals("b", ssTableFacade.getSsTableMetadata().getMinKey());
+		Assert.assertEquals("d", ssTableFacade.getSsTableMetadata().getMaxKey());
+		
+		Assert.assertTrue(ssTableFacade.mightContainKey("b"));
+		Assert.assertTrue(ssTableFacade.mightContainKey("cc"));
+		Assert.assertTrue(ssTableFacade.mightContainKey("d"));
+		Assert.assertFalse(ssTableFacade.mightContainKey("a"));
+		Assert.assertFalse(ssTableFacade.mightContainKey("e"));
+		Assert.assertTrue(ssTableFacade.get("a").isEmpty());
+		
+		Assert.assertTrue(ssTableFacade.mightContainBoundingBox(new Hyperrectangle(0d, 1.5d, 0d, 1.5d)));
+		Assert.assertTrue(ssTableFacade.mightContainBoundingBox(Hyperrectangle.FULL_SPACE));
+		Assert.assertFalse(ssTableFacade.mightContainBoundingBox(new Hyperrectangle(10d, 11d, 10d, 11d)));
+		Assert.assertFalse(ssTableFacade.getAllTuplesInBoundingBox(
+				new Hyperrectangle(10d, 11d, 10d, 11d)).hasNext());
+		
+		Assert.assertTrue(ssTableFacade.mightContainNewerVersions(29));
+		Assert.assertFalse(ssTableFacade.mightContainNewerVersions(30));
+		
+		ssTableFacade.release();
+		ssTableFacade.shutdown();
+	}
+	
+	/**
+	 * Test the spatial query with a result that is read in file order
+	 * @throws Exception
+	 */
+	@Test(timeout=60000)
+	public void testSpatialQueryInFileOrder() throws Exception {
+		final List<Tuple> tupleList = new ArrayList<>();
+		
+		for(int i = 0; i < 5000; i++) {
+			final String key = String.format("%06d", i);
+			final double position = (i * 7919) % 5000;
+			final Hyperrectangle box = new Hyperrectangle(position, position + 0.5, 1d, 2d);
+			tupleList.add(new Tuple(key, box, ("value-" + key).getBytes()));
+		}
+		
+		writeAndOpenSSTable(tupleList).shutdown();
+		
+		final SSTableFacade ssTableFacade = new SSTableFacade(STORAGE_DIRECTORY, TEST_RELATION, 1, 0);
+		ssTableFacade.init();
+		ssTableFacade.acquire();
+		
+		final List<Tuple> bboxResult = Lists.newArrayList(
+				ssTableFacade.getAllTuplesInBoundingBox(new Hyperrectangle(1000d, 2999.9d, 1d, 2d)));
+		
+		final List<Tuple> expectedResult = tupleList.stream()
+				.filter(t -> t.getBoundingBox().intersects(new Hyperrectangle(1000d, 2999.9d, 1d, 2d)))
+				.collect(Collectors.toList());
+		
+		Assert.assertEquals(2000, expectedResult.size());
+		
+		// The tuples are read in the order of the data file
+		Assert.assertEquals(expectedResult, bboxResult);
+		
+		ssTableFacade.release();
+		ssTableFacade.shutdown();
+	}
+	
+	/**
+	 * Test the reading of a block compressed table
+	 * @throws Exception
+	 */
+	@Test(timeout=60000)
+	public void testBlockCompressedTable() throws Exception {
+		testBlockCompressedTable(SSTableCompression.DEFLATE);
+	}
+	
+	/**
+	 * Test the reading of a zstd block compressed table
+	 * @throws Exception
+	 */
+	@Test(timeout=60000)
+	public void testZstdBlockCompressedTable() throws Exception {
+		Assume.assumeTrue(SSTableCompression.ZSTD.isAvailable());
+		testBlockCompressedTable(SSTableCompression.ZSTD);
+	}
+	
+	/**
+	 * Test the round trip of the compression codecs
+	 * @throws IOException
+	 */
+	@Test(timeout=60000)
+	public void testCompressionRoundTrip() throws IOException {
+		final byte[] bytes = "value-of-tuple-abcdefghijklmnopqrstuvwxyz-abcdefghijklmnopqrstuvwxyz".getBytes();
+		
+		for(final SSTableCompression compression : SSTableCompression.values()) {
+			if(! compression.isAvailable()) {
+				continue;
+			}
+			
+			final byte[] compressedBytes = compression.compress(bytes);
+			Assert.assertArrayEquals(bytes, compression.decompress(compressedBytes, bytes.length));
+			Assert.assertEquals(compression, SSTableCompression.fromId(compression.getId()));
+		}
+	}
+	
+	/**
+	 * Write and read a block compressed table
+	 * @param compression
+	 * @throws Exception
+	 */
+	protected void testBlockCompressedTable(final SSTableCompression compression) throws Exception {
+		final List<Tuple> tupleList = new ArrayList<>();
+		
+		for(int i = 0; i < 5000; i++) {
+			final String key = String.format("%06d", i);
+			final Hyperrectangle box = new Hyperrectangle((double) i, (double) i + 1, 1d, 2d);
+			tupleList.add(new Tuple(key, box, ("value-of-tuple-" + key + "-abcdefghijklmnopqrstuvwxyz").getBytes()));
+		}
+		
+		final SSTableReader sstableReader = writeAndOpenSSTable(tupleList, compression);
+		Assert.assertTrue(sstableReader.isBlockCompressed());
+		Assert.assertEquals(compression, sstableReader.getCompression());
+		Assert.assertEquals(tupleList.get(4711), sstableReader.scanForTuple("004711"));
+		Assert.assertNull(sstableReader.scanForTuple("1"));
+		sstableReader.shutdown();
+		
+		final SSTableFacade ssTableFacade = new SSTableFacade(STORAGE_DIRECTORY, TEST_RELATION, 1, 0);
+		ssTableFacade.init();
+		ssTableFacade.acquire();
+		
+		Assert.assertTrue(ssTableFacade.getSsTableReader().isBlockCompressed());
+		Assert.assertEquals(tupleList, Lists.newArrayList(ssTableFacade.getSsTableKeyIndexReader()));
+		
+		for(int i = 0; i < tupleList.size(); i = i + 97) {
+			final Tuple tuple = tupleList.get(i);
+			Assert.assertEquals(Arrays.asList(tuple), ssTableFacade.get(tuple.getKey()));
+		}
+		
+		final List<Tuple> bboxResult = Lists.newArrayList(
+				ssTableFacade.getAllTuplesInBoundingBox(new Hyperrectangle(4000.5d, 4000.6d, 1d, 2d)));
+		Assert.assertEquals(Arrays.asList(tupleList.get(4000)), bboxResult);
+		
+		ssTableFacade.release();
+		ssTableFacade.shutdown();
+	}
+	
+	/**
+	 * Test the detection of corrupted blocks
+	 * @throws Exception
+	 */
+	@Test(timeout=60000, expected=StorageManagerException.class)
+	public void testBlockCompressedTableChecksum() throws Exception {
+		final List<Tuple> tupleList = createTupleList();
+		final SSTableReader sstableReader = writeAndOpenSSTable(tupleList, SSTableCompression.DEFLATE);
+		final File sstableFile = sstableReader.getFile();
+		sstableReader.shutdown();
+		
+		// Modify the last byte of the compressed block
+		final byte[] content = Files.readAllBytes(sstableFile.toPath());
+		content[content.length - 1] = (byte) (content[content.length - 1] ^ 0xFF);
+		Files.write(sstableFile.toPath(), content);
+		
+		final SSTableReader corruptedReader = new SSTableReader(STORAGE_DIRECTORY, TEST_RELATION, 1);
+		corruptedReader.init();
+		
+		try {
+			final long blockPosition = SSTableConst.MAGIC_BYTES_SSTABLE_BLOCK.length + 1;
+			corruptedReader.getTupleAtPosition(blockPosition << SSTableConst.BLOCK_OFFSET_BITS);
+		} finally {
+			corruptedReader.shutdown();
+		}
+	}
+	
 	/**
 	 * Helper method for creating some test tuples
 	 * 
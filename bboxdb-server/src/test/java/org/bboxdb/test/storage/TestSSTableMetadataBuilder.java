@@ -198,6 +198,49 @@ public class TestSSTableMetadataBuilder {
 		Assert.assertEquals(tuple4.getReceivedTimestamp(), ssTableIndexBuilder.getMetaData().getNewestTupleInsertedTimstamp());
 	}
 
+	/**
+	 * Build index with multiple tuples - check key range
+	 */
+	@Test(timeout=60000)
+	public void testSSTableIndexBuilder9() {
+		final SSTableMetadataBuilder ssTableIndexBuilder = new SSTableMetadataBuilder();
+		Assert.assertNull(ssTableIndexBuilder.getMetaData().getMinKey());
+		Assert.assertNull(ssTableIndexBuilder.getMetaData().getMaxKey());
+		
+		ssTableIndexBuilder.addTuple(new Tuple("def", Hyperrectangle.FULL_SPACE, "".getBytes()));
+		Assert.assertEquals("def", ssTableIndexBuilder.getMetaData().getMinKey());
+		Assert.assertEquals("def", ssTableIndexBuilder.getMetaData().getMaxKey());
+		
+		ssTableIndexBuilder.addTuple(new Tuple("abc", Hyperrectangle.FULL_SPACE, "".getBytes()));
+		ssTableIndexBuilder.addTuple(new DeletedTuple("xyz"));
+		Assert.assertEquals("abc", ssTableIndexBuilder.getMetaData().getMinKey());
+		Assert.assertEquals("xyz", ssTableIndexBuilder.getMetaData().getMaxKey());
+		
+		final TupleStoreMetaData metaData = ssTableIndexBuilder.getMetaData();
+		final TupleStoreMetaData metaDataRead = TupleStoreMetaData.importFromYaml(metaData.exportToYaml());
+		Assert.assertEquals(metaData, metaDataRead);
+	}
+
+	/**
+	 * Build index with deleted tuples
+	 */
+	@Test(timeout=60000)
+	public void testSSTableIndexBuilder10() {
+		final SSTableMetadataBuilder ssTableIndexBuilder = new SSTableMetadataBuilder();
+		Assert.assertEquals(0, ssTableIndexBuilder.getMetaData().getDeletedTuples());
+		
+		ssTableIndexBuilder.addTuple(new Tuple("abc", Hyperrectangle.FULL_SPACE, "".getBytes()));
+		ssTableIndexBuilder.addTuple(new DeletedTuple("def"));
+		ssTableIndexBuilder.addTuple(new DeletedTuple("xyz"));
+		Assert.assertEquals(3, ssTableIndexBuilder.getMetaData().getTuples());
+		Assert.assertEquals(2, ssTableIndexBuilder.getMetaData().getDeletedTuples());
+		
+		final TupleStoreMetaData metaData = ssTableIndexBuilder.getMetaData();
+		final TupleStoreMetaData metaDataRead = TupleStoreMetaData.importFromYaml(metaData.exportToYaml());
+		Assert.assertEquals(metaData, metaDataRead);
+		Assert.assertEquals(2, metaDataRead.getDeletedTuples());
+	}
+
 	/**
 	 * Dump the index to yaml
 	 */
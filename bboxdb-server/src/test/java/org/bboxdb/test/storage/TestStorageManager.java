@@ -27,6 +27,8 @@ import org.bboxdb.commons.ObjectSerializer;
 import org.bboxdb.commons.RejectedException;
 import org.bboxdb.commons.entity.PersonEntity;
 import org.bboxdb.commons.math.Hyperrectangle;
+import org.bboxdb.misc.BBoxDBConfiguration;
+import org.bboxdb.misc.BBoxDBConfigurationManager;
 import org.bboxdb.misc.BBoxDBException;
 import org.bboxdb.storage.StorageManagerException;
 import org.bboxdb.storage.entity.DeletedTuple;
@@ -115,6 +117,29 @@ public class TestStorageManager {
 		Assert.assertEquals(tuple2, storageManager.get("1").get(0));
 	}
 	
+	@Test(timeout=60000)
+	public void testInsertBatch() throws Exception {
+		final BBoxDBConfiguration configuration = BBoxDBConfigurationManager.getConfiguration();
+		
+		// The batch does not fit into one memtable
+		final int tuples = configuration.getMemtableEntriesMax() * 2 + 100;
+		final List<Tuple> batch = new ArrayList<>();
+		
+		for(int i = 0; i < tuples; i++) {
+			batch.add(new Tuple(Integer.toString(i), Hyperrectangle.FULL_SPACE, Integer.toString(i).getBytes()));
+		}
+		
+		storageManager.put(batch);
+		
+		for(int i = 0; i < tuples; i += 1000) {
+			final List<Tuple> readTuples = storageManager.get(Integer.toString(i));
+			Assert.assertEquals(1, readTuples.size());
+			Assert.assertEquals(Integer.toString(i), new String(readTuples.get(0).getDataBytes()));
+		}
+		
+		Assert.assertEquals(1, storageManager.get(Integer.toString(tuples - 1)).size());
+	}
+	
 	@Test(timeout=60000)
 	public void testInsertAndReadPerson() throws Exception {
 		final PersonEntity person1 = new PersonEntity("Jan", "Jansen", 30);
@@ -172,6 +197,27 @@ public class TestStorageManager {
 		Assert.assertEquals(2, receivedTuples.size());
 	}
 	
+	@Test(timeout=60000)
+	public void testDeleteCallbacks() throws StorageManagerException, RejectedException {
+		final List<DeletedTuple> receivedTuples = new ArrayList<>();
+		final Consumer<DeletedTuple> callback = ((t) -> receivedTuples.add(t));
+
+		storageManager.registerDeleteCallback(callback);
+
+		storageManager.put(new Tuple("1", Hyperrectangle.FULL_SPACE, "abc".getBytes()));
+		Assert.assertEquals(0, receivedTuples.size());
+
+		storageManager.delete("1", MicroSecondTimestampProvider.getNewTimestamp());
+		Assert.assertEquals(1, receivedTuples.size());
+		Assert.assertEquals("1", receivedTuples.get(0).getKey());
+
+		Assert.assertTrue(storageManager.removeDeleteCallback(callback));
+		Assert.assertFalse(storageManager.removeDeleteCallback(callback));
+
+		storageManager.delete("2", MicroSecondTimestampProvider.getNewTimestamp());
+		Assert.assertEquals(1, receivedTuples.size());
+	}
+
 	@Test(timeout=60000)
 	public void testTupleDelete() throws Exception {
 		final Tuple createdTuple = new Tuple("1", Hyperrectangle.FULL_SPACE, "abc".getBytes());
@@ -23,6 +23,10 @@ import java.util.Arrays;
 import java.util.Collections;
 import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.stream.Collectors;
 
 import org.bboxdb.commons.RejectedException;
@@ -53,6 +57,7 @@ import org.junit.BeforeClass;
 import org.junit.Test;
 
 import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.RateLimiter;
 
 public class TestTableCompactor {
 	
@@ -128,6 +133,92 @@ public class TestTableCompactor {
 		
 	}
 	
+	@Test(timeout=60000)
+	public void testCompactTestRateLimit() throws StorageManagerException, InterruptedException {
+		final List<Tuple> tupleList1 = new ArrayList<Tuple>();
+		final List<Tuple> tupleList2 = new ArrayList<Tuple>();
+		final byte[] data = new byte[1024];
+
+		for(int i = 0; i < 100; i++) {
+			tupleList1.add(new Tuple("a" + i, Hyperrectangle.FULL_SPACE, data));
+			tupleList2.add(new Tuple("b" + i, Hyperrectangle.FULL_SPACE, data));
+		}
+		
+		final SSTableKeyIndexReader reader1 = addTuplesToFileAndGetReader(tupleList1, 1);
+		final SSTableKeyIndexReader reader2 = addTuplesToFileAndGetReader(tupleList2, 2);
+				
+		storageRegistry.deleteTable(TEST_RELATION);
+		storageRegistry.createTable(TEST_RELATION, new TupleStoreConfiguration());
+		final TupleStoreManager storageManager = storageRegistry.getTupleStoreManager(TEST_RELATION);
+		
+		// 200 tuples are read and written (about 400 KB), 200 KB per second
+		final SSTableCompactor compactor = new SSTableCompactor(storageManager, Arrays.asList(reader1, reader2));
+		compactor.setRateLimiter(RateLimiter.create(200 * 1024));
+		
+		final long start = System.currentTimeMillis();
+		compactor.executeCompactation();
+		final long duration = System.currentTimeMillis() - start;
+		
+		Assert.assertEquals(200, compactor.getWrittenTuples());
+		Assert.assertEquals(2 * 200 * 1024, compactor.getProcessedBytes());
+		Assert.assertTrue("Compact was not throttled: " + duration, duration >= 1000);
+		
+		for(final SSTableWriter writer : compactor.getResultList()) {
+			writer.close();
+		}
+	}
+	
+	@Test(timeout=60000)
+	public void testCompactTestRateLimitReleasesLock() throws StorageManagerException, InterruptedException {
+		final List<Tuple> tupleList1 = new ArrayList<Tuple>();
+		final byte[] data = new byte[1024];
+
+		for(int i = 0; i < 200; i++) {
+			tupleList1.add(new Tuple("a" + i, Hyperrectangle.FULL_SPACE, data));
+		}
+		
+		final SSTableKeyIndexReader reader1 = addTuplesToFileAndGetReader(tupleList1, 1);
+				
+		storageRegistry.deleteTable(TEST_RELATION);
+		storageRegistry.createTable(TEST_RELATION, new TupleStoreConfiguration());
+		final TupleStoreManager storageManager = storageRegistry.getTupleStoreManager(TEST_RELATION);
+		
+		final ReadWriteLock regionChangeLock = new ReentrantReadWriteLock();
+		final SSTableCompactor compactor = new SSTableCompactor(storageManager, Arrays.asList(reader1));
+		compactor.setRateLimiter(RateLimiter.create(100 * 1024));
+		compactor.setThrottleReleasedLock(regionChangeLock.readLock());
+		
+		// The region change gets the write lock while the compaction is throttled
+		final AtomicBoolean regionChanged = new AtomicBoolean(false);
+		final Thread regionChangeThread = new Thread(() -> {
+			try {
+				if(regionChangeLock.writeLock().tryLock(30, TimeUnit.SECONDS)) {
+					storageManager.setToReadOnly();
+					regionChanged.set(true);
+					regionChangeLock.writeLock().unlock();
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		});
+		
+		regionChangeLock.readLock().lock();
+		
+		try {
+			regionChangeThread.start();
+			compactor.executeCompactation();
+			Assert.fail("Compaction of the read only tuple store was not aborted");
+		} catch (StorageManagerException e) {
+			// Expected
+		} finally {
+			regionChangeLock.readLock().unlock();
+		}
+		
+		regionChangeThread.join();
+		Assert.assertTrue(regionChanged.get());
+		Assert.assertTrue(compactor.getResultList().isEmpty());
+	}
+	
 	@Test(timeout=60000)
 	public void testCompactTestMerge() throws StorageManagerException, InterruptedException {
 		final List<Tuple> tupleList1 = new ArrayList<Tuple>();
@@ -180,7 +271,7 @@ public class TestTableCompactor {
 		
 		// Check the consistency of the index
 		for(int i = 1; i < 500; i++) {
-			final List<Integer> positions = ssTableIndexReader.getPositionsForTuple(Integer.toString(i));
+			final List<Long> positions = ssTableIndexReader.getPositionsForTuple(Integer.toString(i));
 			Assert.assertTrue(positions.size() == 1);
 		}
 		
@@ -0,0 +1,127 @@
+/*******************************************************************************
+ *
+ *    Copyright (C) 2015-2018 the BBoxDB project
+ *  
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *  
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *  
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License. 
+ *    
+ *******************************************************************************/
+package org.bboxdb.test.storage;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import org.bboxdb.storage.StorageManagerException;
+import org.bboxdb.storage.entity.Tuple;
+import org.bboxdb.storage.sstable.timeindex.TimeIndexBuilder;
+import org.bboxdb.storage.sstable.timeindex.TimeIndexReader;
+import org.bboxdb.storage.sstable.timeindex.TimeIndexType;
+import org.junit.Assert;
+import org.junit.Test;
+
+public class TestTimeIndex {
+
+	/**
+	 * Read an empty index
+	 * @throws IOException
+	 * @throws StorageManagerException
+	 */
+	@Test(timeout=60000)
+	public void testEmptyIndex() throws IOException, StorageManagerException {
+		final File tmpFile = File.createTempFile("test", ".tidx");
+		
+		final TimeIndexBuilder timeIndexBuilder = new TimeIndexBuilder();
+		timeIndexBuilder.writeToFile(tmpFile);
+		
+		final TimeIndexReader timeIndexReader = new TimeIndexReader();
+		timeIndexReader.readFromFile(tmpFile);
+		
+		Assert.assertEquals(0, timeIndexReader.getEntries());
+		Assert.assertEquals(0, timeIndexReader.getEntriesNewerAs(TimeIndexType.VERSION_TIME, 0).length);
+		Assert.assertEquals(0, timeIndexReader.getEntriesNewerAs(TimeIndexType.INSERT_TIME, 0).length);
+		
+		timeIndexReader.close();
+		tmpFile.delete();
+	}
+	
+	/**
+	 * Compare the result of the index with a scan over all tuples
+	 * @throws IOException
+	 * @throws StorageManagerException
+	 */
+	@Test(timeout=60000)
+	public void testNewerEntries() throws IOException, StorageManagerException {
+		final File tmpFile = File.createTempFile("test", ".tidx");
+		final Random random = new Random(1);
+		final Tuple[] tuples = new Tuple[5000];
+		
+		final TimeIndexBuilder timeIndexBuilder = new TimeIndexBuilder();
+
+		for(int i = 0; i < tuples.length; i++) {
+			// Use few distinct timestamps to get duplicates
+			tuples[i] = new Tuple(Integer.toString(i), null, "".getBytes(), 
+					random.nextInt(1000), random.nextInt(1000));
+			timeIndexBuilder.addTuple(tuples[i], i);
+		}
+		
+		Assert.assertEquals(tuples.length, timeIndexBuilder.getEntries());
+		timeIndexBuilder.writeToFile(tmpFile);
+		
+		final TimeIndexReader timeIndexReader = new TimeIndexReader();
+		timeIndexReader.readFromFile(tmpFile);
+		Assert.assertEquals(tuples.length, timeIndexReader.getEntries());
+
+		for(final TimeIndexType timeIndexType : TimeIndexType.values()) {
+			for(final long timestamp : Arrays.asList(-1L, 0L, 1L, 500L, 998L, 999L, 1000L)) {
+				final long[] expected = new long[tuples.length];
+				int expectedLength = 0;
+				
+				for(int i = 0; i < tuples.length; i++) {
+					if(timeIndexType.isNewer(tuples[i], timestamp)) {
+						expected[expectedLength++] = i;
+					}
+				}
+				
+				Assert.assertArrayEquals(Arrays.copyOf(expected, expectedLength), 
+						timeIndexReader.getEntriesNewerAs(timeIndexType, timestamp));
+			}
+		}
+		
+		timeIndexReader.close();
+		tmpFile.delete();
+	}
+	
+	/**
+	 * Read a file with wrong magic bytes
+	 * @throws IOException
+	 * @throws StorageManagerException
+	 */
+	@Test(timeout=60000, expected=StorageManagerException.class)
+	public void testInvalidFile() throws IOException, StorageManagerException {
+		final File tmpFile = File.createTempFile("test", ".tidx");
+		
+		try(final FileOutputStream outputStream = new FileOutputStream(tmpFile)) {
+			outputStream.write("bboxdb-abcd1234".getBytes());
+		}
+		
+		final TimeIndexReader timeIndexReader = new TimeIndexReader();
+		
+		try {
+			timeIndexReader.readFromFile(tmpFile);
+		} finally {
+			tmpFile.delete();
+		}
+	}
+}
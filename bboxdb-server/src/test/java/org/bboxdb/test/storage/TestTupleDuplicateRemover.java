@@ -94,4 +94,39 @@ public class TestTupleDuplicateRemover {
 		Assert.assertTrue(tupleDuplicateRemover.isElementAlreadySeen(joinedTuple3));
 	}
 
+	@Test(timeout=60000)
+	public void testManyTuples() {
+		final EntityDuplicateTracker tupleDuplicateRemover = new EntityDuplicateTracker();
+		
+		for(int i = 0; i < 100000; i++) {
+			final Tuple tuple = new Tuple("key" + i, Hyperrectangle.FULL_SPACE, "".getBytes(), i);
+			Assert.assertFalse(tupleDuplicateRemover.isElementAlreadySeen(tuple));
+		}
+		
+		Assert.assertEquals(100000, tupleDuplicateRemover.getTrackedEntities());
+
+		for(int i = 0; i < 100000; i++) {
+			final Tuple tuple = new Tuple("key" + i, Hyperrectangle.FULL_SPACE, "".getBytes(), i);
+			Assert.assertTrue(tupleDuplicateRemover.isElementAlreadySeen(tuple));
+		}
+		
+		Assert.assertEquals(100000, tupleDuplicateRemover.getTrackedEntities());
+	}
+	
+	@Test(timeout=60000)
+	public void testTrackedEntityPredicate() {
+		final EntityDuplicateTracker tupleDuplicateRemover 
+			= new EntityDuplicateTracker(e -> e.getBoundingBox().getDimension() == 0);
+		
+		final Tuple tuple1 = new Tuple("key1", Hyperrectangle.FULL_SPACE, "".getBytes(), 1);
+		final Tuple tuple2 = new Tuple("key2", new Hyperrectangle(1d, 2d), "".getBytes(), 1);
+		
+		Assert.assertFalse(tupleDuplicateRemover.isElementAlreadySeen(tuple1));
+		Assert.assertTrue(tupleDuplicateRemover.isElementAlreadySeen(tuple1));
+		
+		// Untracked entities are never seen and not stored
+		Assert.assertFalse(tupleDuplicateRemover.isElementAlreadySeen(tuple2));
+		Assert.assertFalse(tupleDuplicateRemover.isElementAlreadySeen(tuple2));
+		Assert.assertEquals(1, tupleDuplicateRemover.getTrackedEntities());
+	}
 }
@@ -20,6 +20,9 @@ package org.bboxdb.test.storage;
 import java.io.File;
 
 import org.bboxdb.storage.entity.TupleStoreConfiguration;
+import org.bboxdb.storage.entity.TupleStoreConfigurationBuilder;
+import org.bboxdb.storage.sstable.SSTableCompression;
+import org.bboxdb.storage.wal.WriteAheadLogSyncPolicy;
 import org.junit.Assert;
 import org.junit.Test;
 
@@ -36,6 +39,48 @@ public class TestTuplestoreConfiguration {
 		Assert.assertTrue(configuration1.toString().length() > 10);
 	}
 
+	@Test(timeout=60000)
+	public void testWriteAndReadWalSyncPolicy() {
+		final TupleStoreConfiguration configuration1 = TupleStoreConfigurationBuilder
+				.create()
+				.withWalSyncPolicy(WriteAheadLogSyncPolicy.INTERVAL)
+				.build();
+		
+		final String yamlString = configuration1.exportToYaml();
+		final TupleStoreConfiguration configuration2 = TupleStoreConfiguration.importFromYaml(yamlString);
+		
+		Assert.assertEquals(WriteAheadLogSyncPolicy.INTERVAL, configuration2.getWalSyncPolicy());
+		Assert.assertEquals(configuration1, configuration2);
+	}
+
+	@Test(timeout=60000)
+	public void testWriteAndReadKeyDirectory() {
+		final TupleStoreConfiguration configuration1 = TupleStoreConfigurationBuilder
+				.create()
+				.withKeyDirectory(true)
+				.build();
+		
+		final String yamlString = configuration1.exportToYaml();
+		final TupleStoreConfiguration configuration2 = TupleStoreConfiguration.importFromYaml(yamlString);
+		
+		Assert.assertTrue(configuration2.isKeyDirectory());
+		Assert.assertEquals(configuration1, configuration2);
+	}
+
+	@Test(timeout=60000)
+	public void testWriteAndReadSSTableCompression() {
+		final TupleStoreConfiguration configuration1 = TupleStoreConfigurationBuilder
+				.create()
+				.withSSTableCompression(SSTableCompression.DEFLATE)
+				.build();
+		
+		final String yamlString = configuration1.exportToYaml();
+		final TupleStoreConfiguration configuration2 = TupleStoreConfiguration.importFromYaml(yamlString);
+		
+		Assert.assertEquals(SSTableCompression.DEFLATE, configuration2.getSstableCompression());
+		Assert.assertEquals(configuration1, configuration2);
+	}
+
 	@Test(timeout=60000)
 	public void testReadNonExistingFile() {
 		final File tmpFile = new File("/tmp/tuplestore.nonexisting");
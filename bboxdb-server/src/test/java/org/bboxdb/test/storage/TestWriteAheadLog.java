@@ -22,6 +22,8 @@ import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
 import java.util.List;
 
 import org.bboxdb.commons.io.FileUtil;
@@ -34,6 +36,7 @@ import org.bboxdb.storage.memtable.Memtable;
 import org.bboxdb.storage.util.TupleHelper;
 import org.bboxdb.storage.wal.WriteAheadLogManager;
 import org.bboxdb.storage.wal.WriteAheadLogReader;
+import org.bboxdb.storage.wal.WriteAheadLogSyncPolicy;
 import org.bboxdb.storage.wal.WriteAheadLogWriter;
 import org.junit.After;
 import org.junit.Assert;
@@ -165,6 +168,119 @@ public class TestWriteAheadLog {
 		reader.close();
 	}
 	
+	@Test
+	public void testWriteReadCorruptedCRC() throws IOException, StorageManagerException {
+		final WriteAheadLogWriter walWriter = new WriteAheadLogWriter(tempDir, 1);
+		walWriter.addTuple(new Tuple("abc", new Hyperrectangle(1d, 2d), "".getBytes()));
+		walWriter.addTuple(new Tuple("def", new Hyperrectangle(1d, 2d), "".getBytes()));
+		walWriter.close();
+		
+		// Corrupt the last byte of the last record
+		final File file = walWriter.getFile();
+		try(final RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+			raf.seek(raf.length() - 1);
+			final byte lastByte = raf.readByte();
+			raf.seek(raf.length() - 1);
+			raf.writeByte(lastByte ^ 0xFF);
+		}
+
+		final WriteAheadLogReader reader = new WriteAheadLogReader(file);
+		
+		final List<Tuple> myList = Lists.newArrayList(reader.iterator());
+		Assert.assertEquals(1, myList.size());
+		Assert.assertEquals("abc", myList.get(0).getKey());
+		
+		reader.close();
+	}
+	
+	@Test
+	public void testSyncPolicies() throws IOException, StorageManagerException {
+		long memtableNumber = 1;
+		
+		for(final WriteAheadLogSyncPolicy policy : WriteAheadLogSyncPolicy.values()) {
+			final WriteAheadLogWriter walWriter 
+				= new WriteAheadLogWriter(tempDir, memtableNumber++, policy, 0);
+			
+			Assert.assertEquals(policy, walWriter.getSyncPolicy());
+			
+			walWriter.addTuple(TUPLE_A);
+			walWriter.addTuple(TUPLE_B);
+			walWriter.close();
+			
+			final WriteAheadLogReader reader = new WriteAheadLogReader(walWriter.getFile());
+			final List<Tuple> myList = Lists.newArrayList(reader.iterator());
+			Assert.assertEquals(2, myList.size());
+			reader.close();
+		}
+	}
+	
+	@Test(timeout=60000)
+	public void testIntervalSyncOnIdle() throws Exception {
+		final WriteAheadLogWriter walWriter = new WriteAheadLogWriter(tempDir, 1, 
+				WriteAheadLogSyncPolicy.INTERVAL, 10000);
+		
+		walWriter.addTuple(TUPLE_A);
+		Assert.assertEquals(0, walWriter.getNumberOfSyncs());
+		walWriter.close();
+		Assert.assertEquals(1, walWriter.getNumberOfSyncs());
+		
+		final WriteAheadLogWriter walWriter2 = new WriteAheadLogWriter(tempDir, 2, 
+				WriteAheadLogSyncPolicy.INTERVAL, 100);
+		
+		walWriter2.addTuple(TUPLE_A);
+		
+		// The timer syncs the records without further writes
+		while(walWriter2.getNumberOfSyncs() == 0) {
+			Thread.sleep(10);
+		}
+		
+		Thread.sleep(300);
+		Assert.assertEquals(1, walWriter2.getNumberOfSyncs());
+		walWriter2.close();
+	}
+	
+	@Test(timeout=60000)
+	public void testParallelWrite() throws Exception {
+		final int threads = 10;
+		final int tuplesPerThread = 1000;
+		
+		final WriteAheadLogWriter walWriter = new WriteAheadLogWriter(tempDir, 1, 
+				WriteAheadLogSyncPolicy.EVERY_BATCH, 0);
+		
+		final List<Thread> writerThreads = new ArrayList<>();
+		final List<Exception> exceptions = new ArrayList<>();
+		
+		for(int i = 0; i < threads; i++) {
+			final int threadNumber = i;
+			final Thread thread = new Thread(() -> {
+				try {
+					for(int j = 0; j < tuplesPerThread; j++) {
+						final String key = Integer.toString(threadNumber) + "_" + Integer.toString(j);
+						walWriter.addTuple(new Tuple(key, new Hyperrectangle(1d, 2d), "".getBytes()));
+					}
+				} catch (StorageManagerException e) {
+					synchronized (exceptions) {
+						exceptions.add(e);
+					}
+				}
+			});
+			writerThreads.add(thread);
+			thread.start();
+		}
+		
+		for(final Thread thread : writerThreads) {
+			thread.join();
+		}
+		
+		walWriter.close();
+		Assert.assertTrue(exceptions.isEmpty());
+		
+		final WriteAheadLogReader reader = new WriteAheadLogReader(walWriter.getFile());
+		final List<Tuple> myList = Lists.newArrayList(reader.iterator());
+		Assert.assertEquals(threads * tuplesPerThread, myList.size());
+		reader.close();
+	}
+	
 	@Test(expected=StorageManagerException.class)
 	public void testWriteReadNoMagic() throws IOException, StorageManagerException {
 		final File writtenFile = new File(tempDir + File.separator + "test");
@@ -222,6 +338,66 @@ public class TestWriteAheadLog {
 		reader.close();
 	}
 	
+	@Test(timeout=60000)
+	public void testBatchSyncs() throws IOException, StorageManagerException {
+		final WriteAheadLogWriter walWriter = new WriteAheadLogWriter(tempDir, 1, 
+				WriteAheadLogSyncPolicy.EVERY_BATCH, 0);
+		
+		final List<Tuple> tuples = new ArrayList<>();
+		
+		for(int i = 0; i < 100; i++) {
+			tuples.add(new Tuple(Integer.toString(i), new Hyperrectangle(1d, 2d), "".getBytes()));
+		}
+		
+		walWriter.addTuples(tuples);
+		Assert.assertEquals(1, walWriter.getNumberOfSyncs());
+		
+		walWriter.addTuple(TUPLE_A);
+		Assert.assertEquals(2, walWriter.getNumberOfSyncs());
+		
+		walWriter.close();
+		
+		final WriteAheadLogReader reader = new WriteAheadLogReader(walWriter.getFile());
+		final List<Tuple> myList = Lists.newArrayList(reader.iterator());
+		Assert.assertEquals(101, myList.size());
+		reader.close();
+	}
+	
+	@Test(timeout=60000)
+	public void testMemtableBatchWithWAL() throws IOException, StorageManagerException {
+		final WriteAheadLogWriter walWriter = new WriteAheadLogWriter(tempDir, 1, 
+				WriteAheadLogSyncPolicy.EVERY_BATCH, 0);
+		
+		final Memtable memtable = new Memtable(new TupleStoreName("abc_def"), 50, 
+				Long.MAX_VALUE, walWriter);
+		memtable.init();
+		memtable.acquire();
+		
+		final List<Tuple> tuples = new ArrayList<>();
+		
+		for(int i = 0; i < 100; i++) {
+			tuples.add(new Tuple(Integer.toString(i), new Hyperrectangle(1d, 2d), "".getBytes()));
+		}
+		
+		// Only 50 slots are available, the remaining tuples are rejected
+		Assert.assertEquals(50, memtable.tryPut(tuples, 0));
+		Assert.assertEquals(1, walWriter.getNumberOfSyncs());
+		Assert.assertEquals(0, memtable.tryPut(tuples, 50));
+		Assert.assertEquals(1, walWriter.getNumberOfSyncs());
+		
+		Assert.assertEquals(50, memtable.getNumberOfTuples());
+		Assert.assertEquals(1, memtable.get("49").size());
+		Assert.assertEquals(0, memtable.get("50").size());
+		
+		final WriteAheadLogReader reader = new WriteAheadLogReader(walWriter.getFile());
+		final List<Tuple> myList = Lists.newArrayList(reader.iterator());
+		Assert.assertEquals(50, myList.size());
+		reader.close();
+		
+		memtable.deleteOnClose();
+		memtable.release();
+	}
+	
 	@Test
 	public void testMemtableWithWAL() throws IOException, StorageManagerException {
 		final WriteAheadLogWriter walWriter = new WriteAheadLogWriter(tempDir, 1);
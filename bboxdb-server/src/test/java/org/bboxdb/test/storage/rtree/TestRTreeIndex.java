@@ -24,7 +24,10 @@ import java.nio.ByteBuffer;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
 
 import org.bboxdb.commons.math.Hyperrectangle;
 import org.bboxdb.misc.Const;
@@ -156,6 +159,90 @@ public class TestRTreeIndex {
 		index.testCovering();		
 	}
 	
+	/**
+	 * Test the covering of the nodes of a packed tree
+	 */
+	@Test(timeout=60000)
+	public void testCoveringPacked() {
+		final List<SpatialIndexEntry> tupleList = RTreeTestHelper.generateRandomTupleList(2);
+		
+		final RTreeBuilder index = new RTreeBuilder(4);
+		index.bulkInsert(tupleList);
+		
+		index.testCovering();
+		RTreeTestHelper.queryIndex(tupleList, index);
+	}
+	
+	/**
+	 * The packed tree and the incremental build tree have to return the same results
+	 */
+	@Test(timeout=60000)
+	public void testPackedAndIncrementalTree() {
+		final List<SpatialIndexEntry> tupleList = RTreeTestHelper.generateRandomTupleList(3);
+		
+		final RTreeBuilder packedIndex = new RTreeBuilder();
+		Assert.assertTrue(packedIndex.bulkInsert(tupleList));
+		
+		final RTreeBuilder incrementalIndex = new RTreeBuilder();
+		tupleList.forEach(e -> incrementalIndex.insert(e));
+		
+		final Random random = new Random();
+		
+		for(int i = 0; i < 100; i++) {
+			final double begin1 = random.nextInt() % 1000;
+			final double begin2 = random.nextInt() % 1000;
+			final double begin3 = random.nextInt() % 1000;
+			
+			final Hyperrectangle queryBox = new Hyperrectangle(begin1, begin1 + 100, 
+					begin2, begin2 + 100, begin3, begin3 + 100);
+			
+			final List<Integer> packedResult = packedIndex.getEntriesForRegion(queryBox)
+					.stream().map(e -> e.getValue()).sorted().collect(Collectors.toList());
+			
+			final List<Integer> incrementalResult = incrementalIndex.getEntriesForRegion(queryBox)
+					.stream().map(e -> e.getValue()).sorted().collect(Collectors.toList());
+			
+			Assert.assertEquals(incrementalResult, packedResult);
+		}
+	}
+	
+	/**
+	 * Insert elements into a packed tree
+	 */
+	@Test(timeout=60000)
+	public void testInsertIntoPackedTree() {
+		final List<SpatialIndexEntry> tupleList = RTreeTestHelper.generateRandomTupleList(2);
+		final List<SpatialIndexEntry> packedList = tupleList.subList(0, tupleList.size() / 2);
+		final List<SpatialIndexEntry> insertList = tupleList.subList(tupleList.size() / 2, tupleList.size());
+
+		final RTreeBuilder index = new RTreeBuilder(8);
+		index.bulkInsert(packedList);
+		insertList.forEach(e -> index.insert(e));
+		
+		// Second bulk insert is performed incremental
+		index.bulkInsert(RTreeTestHelper.getEntryList().subList(0, 1));
+		
+		index.testCovering();
+		RTreeTestHelper.queryIndex(tupleList, index);
+	}
+	
+	/**
+	 * Entries without a bounding box are not added to the packed tree
+	 */
+	@Test(timeout=60000)
+	public void testPackedTreeInvalidEntries() {
+		final List<SpatialIndexEntry> tupleList = new ArrayList<>(RTreeTestHelper.getEntryList());
+		tupleList.add(new SpatialIndexEntry(Hyperrectangle.FULL_SPACE, 11));
+		
+		final RTreeBuilder index = new RTreeBuilder(2);
+		Assert.assertFalse(index.bulkInsert(tupleList));
+		
+		final List<? extends SpatialIndexEntry> result = index.getEntriesForRegion(
+				new Hyperrectangle(-100d, 100d, -100d, 100d));
+		
+		Assert.assertEquals(10, result.size());
+	}
+	
 	/**
 	 * Test the decoding an encoding of an rtree entry
 	 * @throws IOException 
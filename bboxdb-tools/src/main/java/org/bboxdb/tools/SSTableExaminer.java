@@ -17,13 +17,17 @@
  *******************************************************************************/
 package org.bboxdb.tools;
 
+import java.io.BufferedInputStream;
+import java.io.EOFException;
+import java.io.FileInputStream;
 import java.io.IOException;
-import java.nio.BufferUnderflowException;
+import java.io.InputStream;
 import java.util.List;
 
 import org.bboxdb.storage.StorageManagerException;
 import org.bboxdb.storage.entity.Tuple;
 import org.bboxdb.storage.entity.TupleStoreName;
+import org.bboxdb.storage.sstable.SSTableConst;
 import org.bboxdb.storage.sstable.reader.SSTableFacade;
 import org.bboxdb.storage.sstable.reader.SSTableKeyIndexReader;
 import org.bboxdb.storage.sstable.reader.SSTableReader;
@@ -31,6 +35,8 @@ import org.bboxdb.storage.util.TupleHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.google.common.io.ByteStreams;
+
 public class SSTableExaminer implements Runnable {
 
 	/**
@@ -85,7 +91,7 @@ public class SSTableExaminer implements Runnable {
 			final SSTableReader ssTableReader = sstableFacade.getSsTableReader();
 			final SSTableKeyIndexReader ssTableIndexReader = sstableFacade.getSsTableKeyIndexReader();
 
-			fullTableScan(ssTableReader);
+			fullTableScan(ssTableReader, ssTableIndexReader);
 			
 			if(! WILDCARD_KEY.equals(examineKey)) {
 				internalScan(ssTableReader);
@@ -110,11 +116,11 @@ public class SSTableExaminer implements Runnable {
 			throws StorageManagerException {
 		
 		System.out.println("Step3: Seach via index");
-		final List<Integer> positions = ssTableIndexReader.getPositionsForTuple(examineKey);
+		final List<Long> positions = ssTableIndexReader.getPositionsForTuple(examineKey);
 		System.out.println("Got index pos: " + positions);
 		
 		// Tuple found
-		for(final Integer position : positions) {
+		for(final Long position : positions) {
 			System.out.println(ssTableReader.getTupleAtPosition(position));
 		}
 	}
@@ -135,22 +141,38 @@ public class SSTableExaminer implements Runnable {
 	/**
 	 * Perform a full table scan
 	 * @param ssTableReader
+	 * @param ssTableIndexReader 
 	 * @throws IOException
 	 */
-	protected void fullTableScan(final SSTableReader ssTableReader) throws IOException {
+	protected void fullTableScan(final SSTableReader ssTableReader, 
+			final SSTableKeyIndexReader ssTableIndexReader) throws IOException {
 		
 		System.out.println("Step 1: Looping over SSTable and searching for key: " + examineKey);
 		
-		while(true) {
-			try {
-				final Tuple tuple = TupleHelper.decodeTuple(ssTableReader.getMemory());
+		// The compressed blocks can not be read as a stream of tuples
+		if(ssTableReader.isBlockCompressed()) {
+			for(final Tuple tuple : ssTableIndexReader) {
 				if(tuple.getKey().equals(examineKey) || WILDCARD_KEY.equals(examineKey)) {
 					System.out.println(tuple);
 				}
-				
-			} catch (BufferUnderflowException e) {
-				// Loop until the buffer is empty
-				break;
+			}
+			return;
+		}
+		
+		try(final InputStream inputStream = new BufferedInputStream(new FileInputStream(ssTableReader.getFile()))) {
+			ByteStreams.skipFully(inputStream, SSTableConst.MAGIC_BYTES_SSTABLE.length);
+			
+			while(true) {
+				try {
+					final Tuple tuple = TupleHelper.decodeTuple(inputStream);
+					if(tuple.getKey().equals(examineKey) || WILDCARD_KEY.equals(examineKey)) {
+						System.out.println(tuple);
+					}
+					
+				} catch (EOFException e) {
+					// Loop until the file is read completely
+					break;
+				}
 			}
 		}
 	}
@@ -57,6 +57,8 @@ import org.bboxdb.storage.entity.JoinedTuple;
 import org.bboxdb.storage.entity.Tuple;
 import org.bboxdb.storage.entity.TupleStoreConfiguration;
 import org.bboxdb.storage.entity.TupleStoreConfigurationBuilder;
+import org.bboxdb.storage.sstable.SSTableCompression;
+import org.bboxdb.storage.wal.WriteAheadLogSyncPolicy;
 import org.bboxdb.tools.TupleFileReader;
 import org.bboxdb.tools.converter.tuple.TupleBuilderFactory;
 import org.slf4j.Logger;
@@ -88,6 +90,11 @@ public class CLI implements Runnable, AutoCloseable {
 	 */
 	private final static int MAX_PENDING_FUTURES = 5000;
 
+	/**
+	 * The amount of tuples that are send with one insert request during import
+	 */
+	private final static int IMPORT_BATCH_SIZE = 1000;
+
 	/**
 	 * The Logger
 	 */
@@ -283,6 +290,34 @@ public class CLI implements Runnable, AutoCloseable {
 			ssTableConfigurationBuilder.withSpatialIndexWriter(spatialIndexWriter);
 		}
 
+		// WAL sync policy
+		if(line.hasOption(CLIParameter.WAL_SYNC_POLICY)) {
+			final String walSyncPolicyString = line.getOptionValue(CLIParameter.WAL_SYNC_POLICY);
+
+			try {
+				final WriteAheadLogSyncPolicy walSyncPolicy 
+					= WriteAheadLogSyncPolicy.valueOf(walSyncPolicyString.toUpperCase());
+				ssTableConfigurationBuilder.withWalSyncPolicy(walSyncPolicy);
+			} catch (IllegalArgumentException e) {
+				System.err.println("Unknown WAL sync policy: " + walSyncPolicyString);
+				System.exit(-1);
+			}
+		}
+		
+		// SSTable compression
+		if(line.hasOption(CLIParameter.SSTABLE_COMPRESSION)) {
+			final String compressionString = line.getOptionValue(CLIParameter.SSTABLE_COMPRESSION);
+
+			try {
+				final SSTableCompression compression 
+					= SSTableCompression.valueOf(compressionString.toUpperCase());
+				ssTableConfigurationBuilder.withSSTableCompression(compression);
+			} catch (IllegalArgumentException e) {
+				System.err.println("Unknown SSTable compression: " + compressionString);
+				System.exit(-1);
+			}
+		}
+
 		final TupleStoreConfiguration configuration = ssTableConfigurationBuilder.build();
 
 		try {
@@ -678,23 +713,24 @@ public class CLI implements Runnable, AutoCloseable {
 		System.out.format("Importing file: %s with padding %f%n", filename, padding);
 
 		final TupleFileReader tupleFile = new TupleFileReader(filename, format, padding);
+		final List<Tuple> batch = new ArrayList<>(IMPORT_BATCH_SIZE);
+
 		tupleFile.addTupleListener(t -> {
 
 			if(tupleFile.getProcessedLines() % 1000 == 0) {
 				System.out.format("Read %d lines%n", tupleFile.getProcessedLines());
 			}
 
-			try {
-				final EmptyResultFuture result = bboxDbConnection.insertTuple(table, t);
-				pendingFutures.put(result);
+			batch.add(t);
 
-			} catch (BBoxDBException e) {
-				logger.error("Got exception while inserting tuple", e);
+			if(batch.size() >= IMPORT_BATCH_SIZE) {
+				insertTupleBatch(table, batch);
 			}
 		});
 
 		try {
 			tupleFile.processFile();
+			insertTupleBatch(table, batch);
 			pendingFutures.waitForCompletion();
 			final long skippedLines = tupleFile.getSkippedLines();
 			final long processedLines = tupleFile.getProcessedLines();
@@ -710,6 +746,27 @@ public class CLI implements Runnable, AutoCloseable {
 		}
 	}
 
+	/**
+	 * Insert the batch of tuples and clear the batch
+	 * @param table
+	 * @param batch
+	 */
+	private void insertTupleBatch(final String table, final List<Tuple> batch) {
+
+		if(batch.isEmpty()) {
+			return;
+		}
+
+		try {
+			final EmptyResultFuture result = bboxDbConnection.insertTuples(table, new ArrayList<>(batch));
+			pendingFutures.put(result);
+		} catch (BBoxDBException e) {
+			logger.error("Got exception while inserting tuples", e);
+		} finally {
+			batch.clear();
+		}
+	}
+
 	/**
 	 * Delete a distribution group
 	 * @param line
@@ -1058,6 +1115,22 @@ public class CLI implements Runnable, AutoCloseable {
 				.build();
 		options.addOption(versionsForTable);
 
+		// Table WAL sync policy
+		final Option walSyncPolicyForTable = Option.builder(CLIParameter.WAL_SYNC_POLICY)
+				.hasArg()
+				.argName("policy")
+				.desc("The WAL sync policy (none, interval, every_batch), default: none")
+				.build();
+		options.addOption(walSyncPolicyForTable);
+		
+		// Table SSTable compression
+		final Option compressionForTable = Option.builder(CLIParameter.SSTABLE_COMPRESSION)
+				.hasArg()
+				.argName("compression")
+				.desc("The compression of the SSTables (none, deflate, zstd), default: none")
+				.build();
+		options.addOption(compressionForTable);
+
 		// Filename
 		final Option file = Option.builder(CLIParameter.FILE)
 				.hasArg()
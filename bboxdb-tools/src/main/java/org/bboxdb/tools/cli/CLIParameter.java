@@ -153,4 +153,14 @@ public class CLIParameter {
 	 * The name of the spatial index reader
 	 */
 	public static final String SPATIAL_INDEX_READER = "sindexreader";
+	
+	/**
+	 * The sync policy of the write ahead log
+	 */
+	public static final String WAL_SYNC_POLICY = "walsync";
+	
+	/**
+	 * The compression of the SSTables
+	 */
+	public static final String SSTABLE_COMPRESSION = "compression";
 }